@@ -10,18 +10,20 @@ export default function NotesPanel({ patientId, onNotesChanged }) {
   const [loading, setLoading] = useState(false);
   const [fetching, setFetching] = useState(false);
   const [error, setError] = useState(null);
+  const [nextCursor, setNextCursor] = useState(null); // cursor for older notes, null when none left
+  const [loadingOlder, setLoadingOlder] = useState(false);
   const fileInputRef = useRef(null);
 
-  // load existing notes from real backend
+  // load the latest page of notes from real backend
   useEffect(() => {
     const load = async () => {
       setFetching(true);
       setError(null);
       try {
-        const res = await patientApi.getNotes(patientId);
-        console.log("NOTES FROM API:", res.data);
+        const res = await patientApi.getNotesPage(patientId);
         // axios returns data under res.data
-        setNotes(Array.isArray(res.data) ? res.data : []);
+        setNotes(Array.isArray(res.data?.notes) ? res.data.notes : []);
+        setNextCursor(res.data?.nextCursor || null);
       } catch (e) {
         console.error("Failed to load notes", e);
         setError(
@@ -94,6 +96,24 @@ export default function NotesPanel({ patientId, onNotesChanged }) {
     }
   };
 
+  // append the next (older) page of notes
+  const loadOlder = async () => {
+    if (!nextCursor) return;
+    setLoadingOlder(true);
+    setError(null);
+    try {
+      const res = await patientApi.getNotesPage(patientId, nextCursor);
+      const older = Array.isArray(res.data?.notes) ? res.data.notes : [];
+      setNotes((prev) => [...prev, ...older]);
+      setNextCursor(res.data?.nextCursor || null);
+    } catch (e) {
+      console.error("Failed to load older notes", e);
+      setError(e?.response?.data?.message || e?.message || "Failed to load older notes");
+    } finally {
+      setLoadingOlder(false);
+    }
+  };
+
   const onUploadClick = () => {
     if (fileInputRef.current) fileInputRef.current.click();
   };
@@ -276,6 +296,12 @@ export default function NotesPanel({ patientId, onNotesChanged }) {
               )}
             </article>
           ))}
+
+          {!fetching && nextCursor && (
+            <button className="upm-notes-btn-outline" type="button" onClick={loadOlder} disabled={loadingOlder}>
+              {loadingOlder ? "Loading…" : "Load older notes"}
+            </button>
+          )}
         </div>
       </section>
     </div>
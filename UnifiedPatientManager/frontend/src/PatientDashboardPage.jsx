@@ -162,7 +162,7 @@ export default function PatientDashboardPage() {
       const term = searchTerm.trim();
       try {
         const tasks = [];
-        tasks.push(patientApi.searchByName(term));
+        tasks.push(patientApi.searchByNamePage(term));
         const wantFull = term.includes(" ");
         if (wantFull) tasks.push(patientApi.searchByFullName(term));
 
@@ -171,7 +171,7 @@ export default function PatientDashboardPage() {
         const fullRes = (wantFull && settled[1] && settled[1].status === 'fulfilled') ? settled[1].value : null;
         const fullErr = (wantFull && settled[1] && settled[1].status === 'rejected') ? settled[1].reason : null;
 
-        const partialData = partialRes && Array.isArray(partialRes.data) ? partialRes.data : [];
+        const partialData = partialRes && partialRes.data && Array.isArray(partialRes.data.results) ? partialRes.data.results : [];
         let fullData = [];
         if (fullRes) {
           if (Array.isArray(fullRes.data)) fullData = fullRes.data; else if (fullRes.data) fullData = [fullRes.data];
@@ -18,6 +18,13 @@ export const patientApi = {
       params: { query },
     }),
 
+  // GET /api/patients/searchPage?query=...&cursor=...&size=... (prefix matches, paged)
+  // returns { results: [...], nextCursor } ; pass nextCursor back to get the next page
+  searchByNamePage: (query, cursor, size) =>
+    client.get("/api/patients/searchPage", {
+      params: { query, cursor, size },
+    }),
+
   // GET /api/patients/search?fullName=... (exact full name match: first + last)
   searchByFullName: (fullName) =>
     client.get("/api/patients/search", {
@@ -72,6 +79,12 @@ export const patientApi = {
   getNotes: (patientId) =>
     client.get(`/api/patients/${patientId}/notes`),
 
+  // GET /api/patients/{patientId}/notes/page (newest first; pass nextCursor for older notes)
+  getNotesPage: (patientId, cursor, size) =>
+    client.get(`/api/patients/${patientId}/notes/page`, {
+      params: { cursor: cursor || undefined, size: size || undefined },
+    }),
+
   // POST /api/patients/{patientId}/notes
   createNote: (patientId, payload) =>
     client.post(`/api/patients/${patientId}/notes`, payload),
@@ -116,6 +129,12 @@ export const patientApi = {
   createPrescription: (patientId, providerId, payload) =>
     client.post(`/api/patients/${patientId}/providers/${providerId}/prescriptions`, payload),
 
+  // POST /api/patients/{patientId}/prescriptions/conflict-check
+  // Checks several prospective prescriptions at once; nothing is saved
+  // payload: [{ drug_name, is_perscription, ... }, ...]
+  checkPrescriptions: (patientId, payload) =>
+    client.post(`/api/patients/${patientId}/prescriptions/conflict-check`, payload),
+
   // PUT /api/patients/{patientId}/providers/{providerId}/medications/{medicationId}
   updateMedication: (patientId, providerId, medicationId, payload) =>
     client.put(`/api/patients/${patientId}/providers/${providerId}/medications/${medicationId}`, payload),
@@ -0,0 +1,29 @@
+package com.Eges411Team.UnifiedPatientManager.DTOs.responses;
+
+import java.util.List;
+
+// one page of a patient's notes (newest first) plus the cursor for the next, older page
+public class NotePageDTO {
+
+    private List<NoteSummaryDTO> notes;
+    private String nextCursor; // pass back as ?cursor= to get older notes; null on the last page
+
+    public NotePageDTO() {}
+    public NotePageDTO(List<NoteSummaryDTO> notes, String nextCursor) {
+        this.notes = notes;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<NoteSummaryDTO> getNotes() {
+        return notes;
+    }
+    public void setNotes(List<NoteSummaryDTO> notes) {
+        this.notes = notes;
+    }
+    public String getNextCursor() {
+        return nextCursor;
+    }
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,42 @@
+package com.Eges411Team.UnifiedPatientManager.DTOs.responses;
+
+import com.Eges411Team.UnifiedPatientManager.entity.NoteType;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import java.time.LocalDateTime;
+
+// field order matters: NoteRepo builds this with a JPQL constructor expression
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "A note in a patient's note listing; attachments are fetched separately through the download endpoint")
+public class NoteSummaryDTO {
+
+    @Schema(example = "1", description = "Unique identifier for the note record")
+    private Long id;
+
+    @Schema(example = "3", description = "ID of the patient associated with this note")
+    private Long patientId;
+
+    @Schema(example = "5", description = "ID of the doctor who authored the note")
+    private Long doctorId;
+
+    @Schema(example = "FILE", description = "TEXT or FILE")
+    private NoteType noteType;
+
+    @Schema(example = "2025-11-12T14:30:00", description = "Time the note was created or last updated")
+    private LocalDateTime timestamp;
+
+    @Schema(example = "xray.pdf", description = "File name of the attachment (FILE notes)")
+    private String attachmentName;
+
+    @Schema(example = "482133", description = "Attachment size in bytes (FILE notes)")
+    private Long attachmentSize;
+
+    @Schema(example = "Patient reports improved mobility and reduced pain.", description = "Text content of the note, cut to the first 500 characters")
+    private String content;
+}
@@ -111,6 +111,17 @@ public class PatientRecordDTO {
         this.weight = weight;
     }
 
+    // sections ("allergies", "medications", "medicalHistory") that timed out or failed
+    // in the concurrent chart loader; those lists are returned empty. null/empty = complete chart
+    private List<String> partialSections;
+
+    public List<String> getPartialSections() {
+        return partialSections;
+    }
+    public void setPartialSections(List<String> partialSections) {
+        this.partialSections = partialSections;
+    }
+
     // we need individual nested DTOs for allergies, medications, prescriptions
     private List<AllergyDTO> allergies;
 
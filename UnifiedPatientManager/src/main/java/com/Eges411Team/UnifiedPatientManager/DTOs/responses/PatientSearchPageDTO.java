@@ -0,0 +1,29 @@
+package com.Eges411Team.UnifiedPatientManager.DTOs.responses;
+
+import java.util.List;
+
+// one page of patient search results (basic info only) plus the cursor for the next page
+public class PatientSearchPageDTO {
+
+    private List<PatientRecordDTO> results; // summaries sorted by last name, first name, id
+    private String nextCursor;              // pass back as ?cursor= to get the next page; null on the last page
+
+    public PatientSearchPageDTO() {}
+    public PatientSearchPageDTO(List<PatientRecordDTO> results, String nextCursor) {
+        this.results = results;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<PatientRecordDTO> getResults() {
+        return results;
+    }
+    public void setResults(List<PatientRecordDTO> results) {
+        this.results = results;
+    }
+    public String getNextCursor() {
+        return nextCursor;
+    }
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
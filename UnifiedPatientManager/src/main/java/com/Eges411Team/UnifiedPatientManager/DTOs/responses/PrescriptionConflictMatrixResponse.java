@@ -0,0 +1,57 @@
+package com.Eges411Team.UnifiedPatientManager.DTOs.responses;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Result of checking a batch of prospective prescriptions: one entry per medication in
+// the request (same order), each listing what it conflicts with. Nothing is saved.
+@Getter
+@Setter
+public class PrescriptionConflictMatrixResponse {
+
+    @JsonProperty("conflicts")
+    private boolean conflicts; // true if any entry has a conflict
+
+    @JsonProperty("rule_set_version")
+    private String ruleSetVersion; // drug knowledge base version the check ran against
+
+    @JsonProperty("entries")
+    private List<Entry> entries = new ArrayList<>();
+
+    @Getter
+    @Setter
+    public static class Entry {
+
+        @JsonProperty("index")
+        private int index; // position in the request list
+
+        @JsonProperty("drug_name")
+        private String drugName;
+
+        @JsonProperty("allergy_conflicts")
+        private List<String> allergyConflicts = new ArrayList<>(); // patient allergies ruling this drug out
+
+        @JsonProperty("batch_interactions")
+        private List<Integer> batchInteractions = new ArrayList<>(); // indexes of interacting entries in this batch
+
+        @JsonProperty("existing_interactions")
+        private List<String> existingInteractions = new ArrayList<>(); // interacting medications already on file
+
+        @JsonProperty("duplicate_of_existing")
+        private boolean duplicateOfExisting; // same drug already in the patient's history
+
+        @JsonProperty("conflict_messages")
+        private List<String> conflictMessages = new ArrayList<>();
+
+        public Entry() {}
+
+        public Entry(int index, String drugName) {
+            this.index = index;
+            this.drugName = drugName;
+        }
+    }
+}
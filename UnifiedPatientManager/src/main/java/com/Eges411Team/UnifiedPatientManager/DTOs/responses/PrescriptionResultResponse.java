@@ -19,6 +19,9 @@ public class PrescriptionResultResponse {
     @JsonProperty("prescription")
     private MedicationResponse prescription; // populated only if saved (including override case)
 
+    @JsonProperty("rule_set_version")
+    private String ruleSetVersion; // drug knowledge base version the check ran against
+
     public PrescriptionResultResponse() {}
 
     public PrescriptionResultResponse(boolean conflicts, List<String> conflictMessages, MedicationResponse prescription) {
@@ -26,4 +29,10 @@ public class PrescriptionResultResponse {
         this.conflictMessages = conflictMessages;
         this.prescription = prescription;
     }
+
+    public PrescriptionResultResponse(boolean conflicts, List<String> conflictMessages, MedicationResponse prescription,
+                                      String ruleSetVersion) {
+        this(conflicts, conflictMessages, prescription);
+        this.ruleSetVersion = ruleSetVersion;
+    }
 }
@@ -4,6 +4,8 @@ package com.Eges411Team.UnifiedPatientManager.ExceptionHandlers;
 import com.Eges411Team.UnifiedPatientManager.DTOs.responses.ErrorResponse;
 
 //Basic SpringBoot and Java Imports for Exception Handling (DONE FOR US)
+import org.springframework.http.HttpHeaders;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -106,6 +108,32 @@ public class GlobalExceptionHandler {
             .body(new ErrorResponse("Failed to send OTP email. Please check server email configuration or delivery logs."));
     }
 
+    // Password hashing queue is full (login storm): shed the request and say when to come back
+    @ExceptionHandler(PasswordHashingBusyException.class)
+    public ResponseEntity<ErrorResponse> handlePasswordHashingBusy(PasswordHashingBusyException ex) {
+        logger.warn("Password hashing busy, retry after {}s", ex.getRetryAfterSeconds());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)  // 503
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+            .body(new ErrorResponse(ex.getMessage()));
+    }
+
+    // Too many login / OTP / reset requests for one username or IP
+    @ExceptionHandler(RateLimitedException.class)
+    public ResponseEntity<ErrorResponse> handleRateLimited(RateLimitedException ex) {
+        logger.warn("Rate limited, retry after {}s", ex.getRetryAfterSeconds());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)  // 429
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+            .body(new ErrorResponse(ex.getMessage()));
+    }
+
+    // The row changed since it was read (@Version mismatch); the client should reload and retry
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    public ResponseEntity<ErrorResponse> handleOptimisticLock(ObjectOptimisticLockingFailureException ex) {
+        logger.warn("Concurrent update of {}: {}", ex.getPersistentClassName(), ex.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT)  // 409
+            .body(new ErrorResponse("This record was changed by someone else. Please reload and try again."));
+    }
+
     // Handle bean validation failures (@Valid annotated DTOs)
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ErrorResponse> handleValidation(MethodArgumentNotValidException ex) {
@@ -0,0 +1,16 @@
+package com.Eges411Team.UnifiedPatientManager.ExceptionHandlers;
+
+// Thrown when the password hashing queue is full; the client should retry after the given delay
+public class PasswordHashingBusyException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public PasswordHashingBusyException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,17 @@
+package com.Eges411Team.UnifiedPatientManager.ExceptionHandlers;
+
+// Thrown when a username or client IP has used up its login budget; the client should
+// retry after the given delay
+public class RateLimitedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public RateLimitedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
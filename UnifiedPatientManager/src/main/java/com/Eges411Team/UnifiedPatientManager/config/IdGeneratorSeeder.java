@@ -0,0 +1,73 @@
+package com.Eges411Team.UnifiedPatientManager.config;
+
+import com.Eges411Team.UnifiedPatientManager.entity.IdGenerators;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Migration from AUTO_INCREMENT ids to the table generator.
+// Existing MySQL tables keep their AUTO_INCREMENT columns (explicit ids are accepted),
+// and ddl-auto creates the id_generator table. Before the first insert, each table's
+// id_generator row has to start above the ids already in use, or the generator would
+// hand out ids that collide with old rows. This runs at startup, after the schema is
+// in place, and only ever raises next_val, so it's safe to run on every boot and
+// alongside other running instances.
+@Component
+public class IdGeneratorSeeder {
+
+    private static final Logger log = LoggerFactory.getLogger(IdGeneratorSeeder.class);
+
+    // tables whose ids come from the generator; the segment name is the table name
+    static final List<String> TABLES = List.of(
+        "user", "allergy", "medication", "note", "medical_history", "user_session", "otp_token");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // EntityManagerFactory is only injected so the schema exists before seed() runs
+    public IdGeneratorSeeder(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void seed() {
+        for (String table : TABLES) {
+            try {
+                seed(table);
+            } catch (DataAccessException e) {
+                // e.g. the table couldn't be created; inserts into it would fail anyway
+                log.warn("Could not seed id generator for {}: {}", table, e.getMessage());
+            }
+        }
+    }
+
+    private void seed(String table) {
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + table, Long.class);
+        if (maxId == null) {
+            return; // empty table, the generator's own initial value is fine
+        }
+        // the pooled optimizer hands out (next_val - allocation + 1 .. next_val) from a fresh row
+        long floor = maxId + IdGenerators.ALLOCATION_SIZE;
+
+        List<Long> current = jdbcTemplate.queryForList(
+            "SELECT " + IdGenerators.VALUE_COLUMN + " FROM " + IdGenerators.TABLE
+                + " WHERE " + IdGenerators.NAME_COLUMN + " = ?", Long.class, table);
+        if (current.isEmpty()) {
+            jdbcTemplate.update(
+                "INSERT INTO " + IdGenerators.TABLE + " (" + IdGenerators.NAME_COLUMN + ", "
+                    + IdGenerators.VALUE_COLUMN + ") VALUES (?, ?)", table, floor);
+            log.info("Seeded id generator for {} at {}", table, floor);
+        } else if (current.get(0) < floor) {
+            jdbcTemplate.update(
+                "UPDATE " + IdGenerators.TABLE + " SET " + IdGenerators.VALUE_COLUMN + " = ? WHERE "
+                    + IdGenerators.NAME_COLUMN + " = ? AND " + IdGenerators.VALUE_COLUMN + " < ?",
+                floor, table, floor);
+            log.info("Raised id generator for {} to {}", table, floor);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.Eges411Team.UnifiedPatientManager.config;
+
+import com.Eges411Team.UnifiedPatientManager.entity.Role;
+import com.Eges411Team.UnifiedPatientManager.services.JwtTokenProvider;
+import com.Eges411Team.UnifiedPatientManager.services.JwtTokenProvider.TokenClaims;
+import com.Eges411Team.UnifiedPatientManager.services.SessionStore;
+import com.Eges411Team.UnifiedPatientManager.services.TokenRevocationList;
+import io.jsonwebtoken.JwtException;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+
+// Authenticates requests carrying "Authorization: Bearer <jwt>" from the token alone:
+// signature, expiry and the in-memory revocation list, no database lookup. Each accepted
+// request counts as activity on its session in SessionStore; a session idle for too long
+// is expired there and its token is no longer accepted.
+// A missing, invalid or revoked token leaves the request anonymous; whether that's
+// allowed is up to the rules in SecurityConfig.
+public class JwtAuthenticationFilter extends OncePerRequestFilter {
+
+    private static final String BEARER = "Bearer ";
+
+    // what controllers get from Authentication.getPrincipal()
+    public record AuthenticatedUser(Long userId, String username, Role role) {}
+
+    private final JwtTokenProvider jwtTokenProvider;
+    private final TokenRevocationList tokenRevocationList;
+    private final SessionStore sessionStore;
+
+    public JwtAuthenticationFilter(JwtTokenProvider jwtTokenProvider, TokenRevocationList tokenRevocationList,
+                                   SessionStore sessionStore) {
+        this.jwtTokenProvider = jwtTokenProvider;
+        this.tokenRevocationList = tokenRevocationList;
+        this.sessionStore = sessionStore;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header != null && header.startsWith(BEARER)
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            AuthenticatedUser user = authenticate(header.substring(BEARER.length()).trim());
+            if (user != null) {
+                UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                    user, null, List.of(new SimpleGrantedAuthority("ROLE_" + user.role().name())));
+                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                SecurityContextHolder.getContext().setAuthentication(authentication);
+            }
+        }
+        chain.doFilter(request, response);
+    }
+
+    // null if the token shouldn't be trusted
+    AuthenticatedUser authenticate(String token) {
+        TokenClaims claims;
+        try {
+            // one verify per request; repeat tokens come from the provider's cache
+            claims = jwtTokenProvider.verify(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+        // tokens without an id can't be revoked, so they aren't accepted
+        if (claims.tokenId() == null || tokenRevocationList.isRevoked(claims)) {
+            return null;
+        }
+        if (claims.userId() == null || claims.role() == null) {
+            return null;
+        }
+        AuthenticatedUser user;
+        try {
+            user = new AuthenticatedUser(claims.userId(), claims.username(), Role.valueOf(claims.role()));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        // in memory; written to user_session in batches
+        return sessionStore.recordActivity(token) ? user : null;
+    }
+}
@@ -0,0 +1,27 @@
+package com.Eges411Team.UnifiedPatientManager.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// JDBC batching for saveAll / list replaces. Only works because entity ids come from
+// the table generator (see IdGenerators) rather than IDENTITY columns.
+// Anything set under spring.jpa.properties.hibernate.* still wins.
+// On MySQL also add rewriteBatchedStatements=true to the datasource url so a batch
+// goes over the wire as one multi-row INSERT.
+@Configuration
+public class PersistenceConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer jdbcBatchingCustomizer(
+            @Value("${persistence.jdbc.batch-size:50}") int batchSize) {
+        return properties -> {
+            properties.putIfAbsent(AvailableSettings.STATEMENT_BATCH_SIZE, batchSize);
+            // group statements by table so mixed saves still batch
+            properties.putIfAbsent(AvailableSettings.ORDER_INSERTS, true);
+            properties.putIfAbsent(AvailableSettings.ORDER_UPDATES, true);
+        };
+    }
+}
@@ -0,0 +1,10 @@
+package com.Eges411Team.UnifiedPatientManager.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Turns on @Scheduled background jobs (e.g. DrugKnowledgeBase polling its rule file)
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -1,29 +1,46 @@
 package com.Eges411Team.UnifiedPatientManager.config;
 
+import com.Eges411Team.UnifiedPatientManager.services.JwtTokenProvider;
+import com.Eges411Team.UnifiedPatientManager.services.PasswordHashExecutor;
+import com.Eges411Team.UnifiedPatientManager.services.SessionStore;
+import com.Eges411Team.UnifiedPatientManager.services.TokenRevocationList;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig {
 
     // Password encoder bean (keep this)
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    // BCrypt runs on its own bounded pool; threads=0 means one fewer than the cores.
+    // Raising the strength rehashes each user's password at their next login.
+    @Bean(destroyMethod = "shutdown")
+    public PasswordHashExecutor passwordEncoder(@Value("${auth.bcrypt.strength:10}") int strength,
+                                                @Value("${auth.password-hash.threads:0}") int threads,
+                                                @Value("${auth.password-hash.queue-capacity:64}") int queueCapacity) {
+        return new PasswordHashExecutor(new BCryptPasswordEncoder(strength), threads, queueCapacity);
     }
 
     // NEW: tell Spring Security to allow all requests (for now)
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, JwtTokenProvider jwtTokenProvider,
+                                                   TokenRevocationList tokenRevocationList,
+                                                   SessionStore sessionStore) throws Exception {
         http
             .csrf(AbstractHttpConfigurer::disable)  // disable CSRF for Postman testing
+            // JWTs carry the identity, so no HTTP session
+            .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+            // fills the SecurityContext from a valid Bearer token; no DB lookup per request
+            .addFilterBefore(new JwtAuthenticationFilter(jwtTokenProvider, tokenRevocationList, sessionStore),
+                UsernamePasswordAuthenticationFilter.class)
             .authorizeHttpRequests(auth -> auth
                 .anyRequest().permitAll()          // allow every endpoint without auth
             );
@@ -0,0 +1,60 @@
+package com.Eges411Team.UnifiedPatientManager.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Widens user_session.session_token on databases created before tokens carried a jti.
+// A signed token with its jti runs to ~280 characters, but existing schemas still have
+// the old VARCHAR(255) column and ddl-auto=update never widens a column, so every
+// session insert would fail with "Data too long". Runs at startup after the schema is
+// in place and only ever makes the column wider, so it's safe on every boot.
+@Component
+public class SessionTokenColumnMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(SessionTokenColumnMigration.class);
+
+    // must match the length on UserSession.sessionToken
+    static final int TOKEN_LENGTH = 512;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // EntityManagerFactory is only injected so the schema exists before widen() runs
+    public SessionTokenColumnMigration(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void widen() {
+        try {
+            List<Integer> length = jdbcTemplate.queryForList(
+                "SELECT CHARACTER_MAXIMUM_LENGTH FROM INFORMATION_SCHEMA.COLUMNS "
+                    + "WHERE TABLE_SCHEMA = SCHEMA() AND UPPER(TABLE_NAME) = 'USER_SESSION' "
+                    + "AND UPPER(COLUMN_NAME) = 'SESSION_TOKEN'", Integer.class);
+            if (length.isEmpty() || length.get(0) == null || length.get(0) >= TOKEN_LENGTH) {
+                return;
+            }
+            jdbcTemplate.execute(alterStatement());
+            log.info("Widened user_session.session_token from {} to {}", length.get(0), TOKEN_LENGTH);
+        } catch (DataAccessException e) {
+            log.warn("Could not widen user_session.session_token: {}", e.getMessage());
+        }
+    }
+
+    private String alterStatement() {
+        String product = jdbcTemplate.execute(
+            (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        if ("H2".equalsIgnoreCase(product)) {
+            return "ALTER TABLE user_session ALTER COLUMN session_token SET DATA TYPE VARCHAR(" + TOKEN_LENGTH + ")";
+        }
+        // MySQL
+        return "ALTER TABLE user_session MODIFY session_token VARCHAR(" + TOKEN_LENGTH + ") NOT NULL";
+    }
+}
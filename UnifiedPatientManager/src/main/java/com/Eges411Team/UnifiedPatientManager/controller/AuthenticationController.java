@@ -9,7 +9,9 @@ import com.Eges411Team.UnifiedPatientManager.DTOs.responses.LoginResponse;
 import com.Eges411Team.UnifiedPatientManager.entity.User;
 import com.Eges411Team.UnifiedPatientManager.repositories.UserRepository;
 import com.Eges411Team.UnifiedPatientManager.services.AuthenticationService;
+import com.Eges411Team.UnifiedPatientManager.services.LoginRateLimiter;
 import com.Eges411Team.UnifiedPatientManager.services.OtpService;
+import com.Eges411Team.UnifiedPatientManager.services.PasswordHashExecutor;
 
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
@@ -17,12 +19,14 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.Map;
 import java.util.Optional;
 
 @RestController
@@ -33,13 +37,19 @@ public class AuthenticationController {
     private final AuthenticationService authenticationService;
     private final OtpService otpService;
     private final UserRepository userRepository;
+    private final PasswordHashExecutor passwordHashExecutor;
+    private final LoginRateLimiter loginRateLimiter;
 
     public AuthenticationController(AuthenticationService authenticationService,
                                     OtpService otpService,
-                                    UserRepository userRepository) {
+                                    UserRepository userRepository,
+                                    PasswordHashExecutor passwordHashExecutor,
+                                    LoginRateLimiter loginRateLimiter) {
         this.authenticationService = authenticationService;
         this.otpService = otpService;
         this.userRepository = userRepository;
+        this.passwordHashExecutor = passwordHashExecutor;
+        this.loginRateLimiter = loginRateLimiter;
     }
 
     // Step 1: Username + password -> send OTP
@@ -47,6 +57,8 @@ public class AuthenticationController {
     public ResponseEntity<LoginResponse> login(@Valid @RequestBody LoginRequest request,
                                                HttpServletRequest httpRequest) {
         String ip = httpRequest.getRemoteAddr();
+        // throttled before the user lookup and BCrypt
+        loginRateLimiter.acquire(request.getUsername(), ip);
         LoginResponse response = authenticationService.authenticate(request, ip);
         return ResponseEntity.ok(response);
     }
@@ -63,7 +75,9 @@ public class AuthenticationController {
 
     // Resend OTP for username
     @PostMapping("/resend-otp")
-    public ResponseEntity<?> resendOtp(@Valid @RequestBody ResendOtpRequest request) {
+    public ResponseEntity<?> resendOtp(@Valid @RequestBody ResendOtpRequest request,
+                                       HttpServletRequest httpRequest) {
+        loginRateLimiter.acquire(request.getUsername(), httpRequest.getRemoteAddr());
         Optional<User> userOpt = userRepository.findByUsername(request.getUsername());
         if (userOpt.isEmpty()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("User not found");
@@ -86,7 +100,9 @@ public class AuthenticationController {
 
     // Forgot password - Step 1: Send OTP to user's email
     @PostMapping("/forgot-password")
-    public ResponseEntity<?> forgotPassword(@Valid @RequestBody ForgotPasswordRequest request) {
+    public ResponseEntity<?> forgotPassword(@Valid @RequestBody ForgotPasswordRequest request,
+                                            HttpServletRequest httpRequest) {
+        loginRateLimiter.acquire(request.getUsername(), httpRequest.getRemoteAddr());
         authenticationService.initiateForgotPassword(request.getUsername());
         return ResponseEntity.ok().body("Password reset OTP sent to your email");
     }
@@ -102,6 +118,18 @@ public class AuthenticationController {
         return ResponseEntity.ok().body("Password reset successful");
     }
 
+    // allowed / rejected counts of the login rate limiter
+    @GetMapping("/rate-limit/stats")
+    public ResponseEntity<Map<String, Long>> getRateLimitStats() {
+        return ResponseEntity.ok(loginRateLimiter.stats());
+    }
+
+    // queue depth, rejections, queue wait and hash time of the password hashing pool
+    @GetMapping("/password-hashing/stats")
+    public ResponseEntity<Map<String, Long>> getPasswordHashingStats() {
+        return ResponseEntity.ok(passwordHashExecutor.stats());
+    }
+
     
 
 }
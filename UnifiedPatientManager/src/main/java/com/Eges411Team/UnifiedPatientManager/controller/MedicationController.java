@@ -2,6 +2,7 @@ package com.Eges411Team.UnifiedPatientManager.controller;
 
 import com.Eges411Team.UnifiedPatientManager.DTOs.requests.MedicationRequest;
 import com.Eges411Team.UnifiedPatientManager.DTOs.responses.MedicationResponse;
+import com.Eges411Team.UnifiedPatientManager.DTOs.responses.PrescriptionConflictMatrixResponse;
 import com.Eges411Team.UnifiedPatientManager.DTOs.responses.PrescriptionResultResponse;
 import com.Eges411Team.UnifiedPatientManager.entity.Medication;
 import com.Eges411Team.UnifiedPatientManager.DTOs.mappers.MedicationMapper;
@@ -108,6 +109,18 @@ public class MedicationController {
         return ResponseEntity.status(status).body(result);
     }
 
+    @PostMapping("/{patient_id}/prescriptions/conflict-check")
+    @Operation(summary = "Check a list of prospective prescriptions for conflicts without saving them")
+    public ResponseEntity<PrescriptionConflictMatrixResponse> checkPrescriptions(
+        @RequestBody List<MedicationRequest> medicationList,
+        @PathVariable("patient_id") @Parameter(example = "3") Long patientId
+    ) {
+        List<Medication> entities = medicationList.stream()
+            .map(MedicationMapper::toEntity)
+            .collect(Collectors.toList());
+        return ResponseEntity.ok(medicationService.checkPrescriptionBatch(patientId, entities));
+    }
+
     @PutMapping("/{patient_id}/providers/{provider_id}/medications/{medication_id}")
     @Operation(summary = "Update a specific medication for a patient and provider")
     public ResponseEntity<MedicationResponse> update(
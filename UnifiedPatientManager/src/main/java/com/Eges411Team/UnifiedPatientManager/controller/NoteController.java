@@ -1,18 +1,25 @@
 package com.Eges411Team.UnifiedPatientManager.controller;
 
 import com.Eges411Team.UnifiedPatientManager.DTOs.requests.NoteRequestDTO;
+import com.Eges411Team.UnifiedPatientManager.DTOs.responses.NotePageDTO;
+import com.Eges411Team.UnifiedPatientManager.DTOs.responses.NoteSummaryDTO;
 import com.Eges411Team.UnifiedPatientManager.entity.Note;
 import com.Eges411Team.UnifiedPatientManager.entity.NoteType;
+import com.Eges411Team.UnifiedPatientManager.repositories.NoteRepo;
 import com.Eges411Team.UnifiedPatientManager.services.NoteService;
 import java.time.LocalDateTime;
 import java.util.List;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import java.io.IOException;
+import java.io.InputStream;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -46,22 +53,43 @@ public class NoteController {
                             name = "NoteList",
                             summary = "Retrieves a patient's notes.",
                             description = "Retrieves all notes for a given patient.",
-                            value = "[{\"id\":1,\"patient_id\":3,\"doctor_id\":5,\"note_type\":\"<BLOB>\",\"content\":\"<BLOB>\",\"timestamp\":\"2025-11-10T09:30:00\"}]"
+                            value = "[{\"id\":1,\"patientId\":3,\"doctorId\":5,\"noteType\":\"FILE\",\"timestamp\":\"2025-11-10T09:30:00\",\"attachmentName\":\"xray.pdf\",\"attachmentSize\":482133,\"content\":null}]"
                         )
                     }
                 )
             )
         }
     )
-    public ResponseEntity<List<Note>> find(
+    public ResponseEntity<List<NoteSummaryDTO>> find(
         @PathVariable("patient_id")
         @Parameter(example = "3")
         Long patientId
     ) {
-        List<Note> notes = noteService.getNotesByPatientId(patientId);
+        // summaries only; attachment bytes come from the download endpoint
+        List<NoteSummaryDTO> notes = noteService.getNoteSummariesByPatientId(patientId);
         return ResponseEntity.ok(notes);
     }
 
+    // One page of a patient's notes, newest first, optionally limited to a time window.
+    // Follow nextCursor for older notes
+    @GetMapping("/{patient_id}/notes/page")
+    @Operation(summary = "Get a page of a patient's notes, newest first")
+    public ResponseEntity<NotePageDTO> findPage(
+        @PathVariable("patient_id")
+        @Parameter(example = "3")
+        Long patientId,
+        @RequestParam(value = "from", required = false)
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+        @Parameter(example = "2025-11-01T00:00:00") LocalDateTime from,
+        @RequestParam(value = "to", required = false)
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+        @Parameter(example = "2025-12-01T00:00:00") LocalDateTime to,
+        @RequestParam(value = "cursor", required = false) String cursor,
+        @RequestParam(value = "size", required = false) Integer size
+    ) {
+        return ResponseEntity.ok(noteService.getNotePage(patientId, from, to, cursor, size));
+    }
+
     // Create or replace patient's notes
 
     @PostMapping("/{patient_id}/notes")
@@ -115,13 +143,20 @@ public class NoteController {
                 ? noteRequestDTO.getAttachmentName()
                 : attachment.getOriginalFilename();
             note.setAttachmentName(desiredName);
-            note.setAttachmentData(attachment.getBytes());
             // Optional: ignore content even if provided
             note.setContent(null);
         }
 
-        // save the note to the repo via service
-        Note saved = noteService.saveSingleNote(note);
+        // save the note to the repo via service; FILE bytes are streamed from the
+        // multipart temp file into the attachment store rather than read into memory
+        Note saved;
+        if (type == NoteType.FILE) {
+            try (InputStream in = attachment.getInputStream()) {
+                saved = noteService.saveSingleNote(note, in, attachment.getSize(), attachment.getContentType());
+            }
+        } else {
+            saved = noteService.saveSingleNote(note);
+        }
         return ResponseEntity.status(HttpStatus.CREATED).body(saved);
     }
 
@@ -181,23 +216,29 @@ public class NoteController {
                 ? noteRequestDTO.getAttachmentName()
                 : attachment.getOriginalFilename();
             updated.setAttachmentName(desiredName);
-            updated.setAttachmentData(attachment.getBytes());
         }
 
-        // call service to update 
-        Note saved = noteService.updateNote(patientId, noteId, updated);
+        // call service to update (streaming the new attachment for FILE notes)
+        Note saved;
+        if (type == NoteType.FILE) {
+            try (InputStream in = attachment.getInputStream()) {
+                saved = noteService.updateNote(patientId, noteId, updated, in, attachment.getSize(), attachment.getContentType());
+            }
+        } else {
+            saved = noteService.updateNote(patientId, noteId, updated);
+        }
         return ResponseEntity.ok(saved);
     }
 
     // Refresh patient notes
     @GetMapping("/{patient_id}/notes/refresh")
     @Operation(summary = "Refresh a patient's notes")
-    public ResponseEntity<List<Note>> refresh(
+    public ResponseEntity<List<NoteSummaryDTO>> refresh(
         @PathVariable("patient_id")
         @Parameter(example = "3")
         Long patientId
     ) {
-        List<Note> refreshed = noteService.refreshNotes(patientId);
+        List<NoteSummaryDTO> refreshed = noteService.refreshNoteSummaries(patientId);
         return ResponseEntity.ok(refreshed);
     }
 
@@ -216,20 +257,55 @@ public class NoteController {
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
 
-    // Download attachment for FILE note
+    // Download attachment for FILE note.
+    // The body is streamed from the attachment store; a single "Range: bytes=..." request
+    // gets a 206 with just that slice so large audio files can be seeked/resumed
     @GetMapping("/{patient_id}/notes/{note_id}/download")
     @Operation(summary = "Download the attachment for a FILE note")
-    public ResponseEntity<byte[]> download(
+    public ResponseEntity<StreamingResponseBody> download(
         @PathVariable("patient_id") Long patientId,
-        @PathVariable("note_id") Long noteId
+        @PathVariable("note_id") Long noteId,
+        @RequestHeader(value = HttpHeaders.RANGE, required = false) String rangeHeader
     ) {
-        Note note = noteService.getNoteForPatient(patientId, noteId);
-        if (note.getNoteType() != NoteType.FILE || note.getAttachmentData() == null) {
+        NoteRepo.AttachmentInfo note = noteService.getAttachmentForPatient(patientId, noteId);
+        Long size = note.getNoteType() == NoteType.FILE ? noteService.getAttachmentSize(note) : null;
+        if (size == null) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
         }
         HttpHeaders headers = new HttpHeaders();
         headers.add(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + (note.getAttachmentName() == null ? "attachment.bin" : note.getAttachmentName()));
-        headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-        return new ResponseEntity<>(note.getAttachmentData(), headers, HttpStatus.OK);
+        headers.setContentType(note.getAttachmentMediaType() != null
+            ? MediaType.parseMediaType(note.getAttachmentMediaType())
+            : MediaType.APPLICATION_OCTET_STREAM);
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        long start = 0;
+        long length = size;
+        HttpStatus status = HttpStatus.OK;
+        if (rangeHeader != null) {
+            try {
+                List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+                // multi-range requests just get the whole file
+                if (ranges.size() == 1) {
+                    start = ranges.get(0).getRangeStart(size);
+                    long end = ranges.get(0).getRangeEnd(size);
+                    if (start >= size || end < start) {
+                        throw new IllegalArgumentException("Range starts past the end of the attachment");
+                    }
+                    length = end - start + 1;
+                    status = HttpStatus.PARTIAL_CONTENT;
+                    headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+                }
+            } catch (IllegalArgumentException e) {
+                headers.set(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                return new ResponseEntity<>(headers, HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
+            }
+        }
+        headers.setContentLength(length);
+
+        final long from = start;
+        final long count = length;
+        StreamingResponseBody body = out -> noteService.copyAttachment(note, from, count, out);
+        return new ResponseEntity<>(body, headers, status);
     }
 }
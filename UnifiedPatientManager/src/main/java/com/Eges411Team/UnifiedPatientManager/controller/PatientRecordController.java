@@ -1,6 +1,7 @@
 package com.Eges411Team.UnifiedPatientManager.controller;
 
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -14,11 +15,14 @@ import org.springframework.web.bind.annotation.RestController;
 
 import com.Eges411Team.UnifiedPatientManager.DTOs.requests.PatientRecordUpdateDTO;
 import com.Eges411Team.UnifiedPatientManager.DTOs.responses.PatientRecordDTO;
+import com.Eges411Team.UnifiedPatientManager.DTOs.responses.PatientSearchPageDTO;
 import com.Eges411Team.UnifiedPatientManager.entity.User;
 import com.Eges411Team.UnifiedPatientManager.entity.Allergy;
 import com.Eges411Team.UnifiedPatientManager.DTOs.requests.PatientRegistrationRequest;
 import com.Eges411Team.UnifiedPatientManager.DTOs.requests.AllergyRequest;
 import com.Eges411Team.UnifiedPatientManager.entity.Role;
+import com.Eges411Team.UnifiedPatientManager.services.PatientChartCache;
+import com.Eges411Team.UnifiedPatientManager.services.PatientChartLoader;
 import com.Eges411Team.UnifiedPatientManager.services.PatientRecordService;
 
 import org.springframework.web.bind.annotation.RequestBody;
@@ -33,6 +37,12 @@ public class PatientRecordController {
     @Autowired
     PatientRecordService patientRecordService;
 
+    @Autowired
+    PatientChartLoader patientChartLoader;
+
+    @Autowired
+    PatientChartCache patientChartCache;
+
     @Autowired
     PasswordEncoder passwordEncoder;
 
@@ -40,8 +50,21 @@ public class PatientRecordController {
     @GetMapping("/{id}")
     public ResponseEntity<PatientRecordDTO> getPatientRecord(@PathVariable("id") Long patientID) {
         
-        // gets the record using the service using the User ID
-        return ResponseEntity.ok(patientRecordService.getPatientRecord(patientID));
+        // served from the chart cache; on a miss the whole chart is loaded in a single round trip
+        return ResponseEntity.ok(patientChartCache.get(patientID, patientRecordService::getPatientChart));
+    }
+
+    // hit/miss/eviction counters for the chart cache
+    @GetMapping("/chart-cache/stats")
+    public ResponseEntity<Map<String, Long>> getChartCacheStats() {
+        return ResponseEntity.ok(patientChartCache.stats());
+    }
+
+    // same chart, but sections are loaded concurrently; slow sections come back empty
+    // and are listed in partialSections instead of holding up the response
+    @GetMapping("/{id}/chart")
+    public ResponseEntity<PatientRecordDTO> getPatientChart(@PathVariable("id") Long patientID) {
+        return ResponseEntity.ok(patientChartLoader.loadChart(patientID));
     }
 
     // method for updating a patientRecord
@@ -60,7 +83,17 @@ public class PatientRecordController {
         return ResponseEntity.ok(patientRecordService.getPatientRecordByFullName(fullName));
     }
 
-    // partial search returning list of patient records (basic info)
+    // paged prefix search on first/last name (basic info), sorted by last name, first name;
+    // pass the returned nextCursor back as ?cursor= for the following page
+    @GetMapping("/searchPage")
+    public ResponseEntity<PatientSearchPageDTO> searchPatientsPage(@RequestParam("query") String query,
+                                                                   @RequestParam(value = "cursor", required = false) String cursor,
+                                                                   @RequestParam(value = "size", required = false) Integer size) {
+        return ResponseEntity.ok(patientRecordService.searchPatientsPage(query, cursor, size));
+    }
+
+    // partial (substring) search returning every matching patient record (basic info);
+    // unbounded full scan, prefer /searchPage
     @GetMapping("/searchMany")
     public ResponseEntity<List<PatientRecordDTO>> searchPatients(@RequestParam("query") String query) {
         List<PatientRecordDTO> list = patientRecordService.searchPatients(query);
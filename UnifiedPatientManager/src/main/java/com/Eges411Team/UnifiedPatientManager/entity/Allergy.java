@@ -3,6 +3,9 @@ package com.Eges411Team.UnifiedPatientManager.entity;
 // this will be a class for users in the system
 import jakarta.persistence.*;
 
+import com.Eges411Team.UnifiedPatientManager.services.PatientChartCacheInvalidator;
+import org.hibernate.annotations.DynamicUpdate;
+
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
 import lombok.Getter;
@@ -11,12 +14,17 @@ import lombok.Setter;
 /** @author emilygoyal */
 @Entity
 @Table(name = "allergy")
+@EntityListeners(PatientChartCacheInvalidator.class)
+@DynamicUpdate // e.g. a severity change writes just severity
 @Getter
 @Setter
 
 public class Allergy{
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "allergy_ids")
+    @TableGenerator(name = "allergy_ids", table = IdGenerators.TABLE, pkColumnName = IdGenerators.NAME_COLUMN,
+        valueColumnName = IdGenerators.VALUE_COLUMN, pkColumnValue = "allergy",
+        allocationSize = IdGenerators.ALLOCATION_SIZE)
     @Column(name = "id")
     private Long id;
 
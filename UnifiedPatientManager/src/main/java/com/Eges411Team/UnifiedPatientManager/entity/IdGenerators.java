@@ -0,0 +1,15 @@
+package com.Eges411Team.UnifiedPatientManager.entity;
+
+// Shared settings for the table-backed id generators.
+// Ids come from one row per table in id_generator, handed out in blocks of
+// ALLOCATION_SIZE (pooled optimizer), so inserts don't need the generated key back
+// from the database and Hibernate can batch them. IDENTITY columns rule that out.
+public final class IdGenerators {
+
+    public static final String TABLE = "id_generator";
+    public static final String NAME_COLUMN = "sequence_name";
+    public static final String VALUE_COLUMN = "next_val";
+    public static final int ALLOCATION_SIZE = 50;
+
+    private IdGenerators() {}
+}
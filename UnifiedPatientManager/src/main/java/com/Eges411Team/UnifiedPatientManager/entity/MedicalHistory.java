@@ -2,6 +2,9 @@ package com.Eges411Team.UnifiedPatientManager.entity;
 
 // this will be a class for users in the system PUSHING NOW 
 import jakarta.persistence.*;
+
+import com.Eges411Team.UnifiedPatientManager.services.PatientChartCacheInvalidator;
+import org.hibernate.annotations.DynamicUpdate;
 import java.util.Date;
 
 import lombok.Getter;
@@ -9,13 +12,18 @@ import lombok.Setter;
 
 @Entity
 @Table(name = "medical_history") // matches name in db
+@EntityListeners(PatientChartCacheInvalidator.class)
+@DynamicUpdate // UPDATE only the fields an edit actually changed
 @Getter
 @Setter
 
 public class MedicalHistory {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "medical_history_ids")
+    @TableGenerator(name = "medical_history_ids", table = IdGenerators.TABLE, pkColumnName = IdGenerators.NAME_COLUMN,
+        valueColumnName = IdGenerators.VALUE_COLUMN, pkColumnValue = "medical_history",
+        allocationSize = IdGenerators.ALLOCATION_SIZE)
     @Column(name = "id")
     private Long id;
 
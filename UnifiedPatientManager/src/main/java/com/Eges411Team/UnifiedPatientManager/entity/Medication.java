@@ -2,6 +2,9 @@ package com.Eges411Team.UnifiedPatientManager.entity;
 
 // this will be a class for users in the system
 import jakarta.persistence.*;
+
+import com.Eges411Team.UnifiedPatientManager.services.PatientChartCacheInvalidator;
+import org.hibernate.annotations.DynamicUpdate;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -9,13 +12,21 @@ import java.time.LocalDateTime;
 
 /** @author emilygoyal */
 @Entity
-@Table(name = "medication")
+@Table(name = "medication", indexes = {
+    // per-patient lookups and the patient-ordered re-screening scan
+    @Index(name = "idx_medication_patient", columnList = "patient_id, id")
+})
+@EntityListeners(PatientChartCacheInvalidator.class)
+@DynamicUpdate // only the changed columns go into the UPDATE
 @Getter
 @Setter
 
 public class Medication{
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "medication_ids")
+    @TableGenerator(name = "medication_ids", table = IdGenerators.TABLE, pkColumnName = IdGenerators.NAME_COLUMN,
+        valueColumnName = IdGenerators.VALUE_COLUMN, pkColumnValue = "medication",
+        allocationSize = IdGenerators.ALLOCATION_SIZE)
     @Column(name = "id")
     private Long id;
 
@@ -0,0 +1,41 @@
+package com.Eges411Team.UnifiedPatientManager.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+// Progress of the medication conflict re-screening job (a single row, id 1).
+// Patients up to lastPatientId have been re-screened against ruleSetVersion, so an
+// interrupted run picks up after that patient.
+@Entity
+@Table(name = "medication_rescreen_checkpoint")
+@Getter
+@Setter
+public class MedicationRescreenCheckpoint {
+
+    public static final Long SINGLETON_ID = 1L;
+
+    @Id
+    @Column(name = "id")
+    private Long id = SINGLETON_ID;
+
+    @Column(name = "rule_set_version", nullable = false)
+    private String ruleSetVersion;
+
+    @Column(name = "last_patient_id", nullable = false)
+    private Long lastPatientId;
+
+    @Column(name = "completed", nullable = false)
+    private boolean completed;
+
+    @Column(name = "rows_checked", nullable = false)
+    private long rowsChecked;
+
+    @Column(name = "rows_updated", nullable = false)
+    private long rowsUpdated;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -5,16 +5,23 @@ import java.sql.Blob;
 
 // this will be a class for users in the system
 import jakarta.persistence.*;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Getter;
 import lombok.Setter;
 
 @Entity
-@Table(name = "note")
+// (patient, timestamp, id) serves the newest-first, time-windowed note pages
+@Table(name = "note", indexes = {
+    @Index(name = "idx_note_patient_timestamp", columnList = "patient_id, timestamp, id")
+})
 @Getter
 @Setter
 public class Note {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "note_ids")
+    @TableGenerator(name = "note_ids", table = IdGenerators.TABLE, pkColumnName = IdGenerators.NAME_COLUMN,
+        valueColumnName = IdGenerators.VALUE_COLUMN, pkColumnValue = "note",
+        allocationSize = IdGenerators.ALLOCATION_SIZE)
     @Column(name = "id")
     private Long id;
 
@@ -38,8 +45,21 @@ public class Note {
     @Column (name = "attachment_name")
     private String attachmentName;
 
+    // legacy in-row attachment bytes; new uploads live in NoteAttachmentStore instead.
+    // never serialised - attachments are only served by the download endpoint
+    @JsonIgnore
     @Lob
     @Basic(fetch = FetchType.LAZY)
     @Column(name = "attachment_data")
     private byte[] attachmentData;
+
+    // SHA-256 (hex) of the attachment file in NoteAttachmentStore
+    @Column(name = "attachment_hash", length = 64)
+    private String attachmentHash;
+
+    @Column(name = "attachment_size")
+    private Long attachmentSize;
+
+    @Column(name = "attachment_media_type")
+    private String attachmentMediaType;
 }
\ No newline at end of file
@@ -0,0 +1,55 @@
+package com.Eges411Team.UnifiedPatientManager.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+// An OTP email waiting to be sent (the otp_email_outbox table). OtpService writes the row in
+// the same transaction as the OtpToken and OtpEmailDispatcher sends it after commit.
+// The code is kept in plain text only until the email goes out: the row is deleted once
+// sent, and the code is cleared if delivery is given up. Rows that were given up on or never
+// sent are deleted by ExpiredAuthRowReaper once their OTP has expired.
+@Entity
+@Table(name = "otp_email_outbox", indexes = {
+    @Index(name = "idx_otp_email_due", columnList = "failed, next_attempt_at, id"),
+    // purging expired rows
+    @Index(name = "idx_otp_email_expires", columnList = "expires_at")
+})
+@Getter
+@Setter
+public class OtpEmail {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "otp_email_ids")
+    @TableGenerator(name = "otp_email_ids", table = IdGenerators.TABLE, pkColumnName = IdGenerators.NAME_COLUMN,
+        valueColumnName = IdGenerators.VALUE_COLUMN, pkColumnValue = "otp_email_outbox",
+        allocationSize = IdGenerators.ALLOCATION_SIZE)
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "recipient", length = 50, nullable = false)
+    private String recipient;
+
+    @Column(name = "code")
+    private String otpCode;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt; // the OTP's expiry; not worth sending after this
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    @Column(name = "failed", nullable = false)
+    private boolean failed; // gave up: out of attempts or the OTP expired first
+}
@@ -5,10 +5,21 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "otp_token")
+@Table(name = "otp_token", indexes = {
+    // the current-OTP lookup: equality on user_id and used, range on expires_at, newest by created_at
+    @Index(name = "idx_otp_token_user_current", columnList = "user_id, used, expires_at, created_at"),
+    // purging expired rows
+    @Index(name = "idx_otp_token_expires", columnList = "expires_at")
+})
 public class OtpToken {
+    // wrong codes allowed before the OTP is dead
+    public static final int MAX_ATTEMPTS = 3;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "otp_token_ids")
+    @TableGenerator(name = "otp_token_ids", table = IdGenerators.TABLE, pkColumnName = IdGenerators.NAME_COLUMN,
+        valueColumnName = IdGenerators.VALUE_COLUMN, pkColumnValue = "otp_token",
+        allocationSize = IdGenerators.ALLOCATION_SIZE)
     @Column(name = "id")
     private Long otpId;
 
@@ -31,6 +42,11 @@ public class OtpToken {
     
     @Column(name = "attempt_count")
     private int attemptCount = 0;
+
+    // bumped by every write, including the UPDATEs in OtpTokenRepository
+    @Version
+    @Column(name = "version", nullable = false)
+    private long version;
     
 
      // Constructors
@@ -38,7 +54,7 @@ public class OtpToken {
     
     // Business methods
     public boolean isValid() {
-        return !used && !isExpired() && attemptCount < 3;
+        return !used && !isExpired() && attemptCount < MAX_ATTEMPTS;
     }
     
     public boolean isExpired() {
@@ -99,5 +115,8 @@ public class OtpToken {
     public void setAttemptCount(int attemptCount) {
         this.attemptCount = attemptCount;
     }
+    public long getVersion() {
+        return version;
+    }
     
 }
@@ -5,6 +5,11 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 // this will be a class for users in the system
 import jakarta.persistence.*;
 
+import com.Eges411Team.UnifiedPatientManager.services.PatientChartCacheInvalidator;
+import com.Eges411Team.UnifiedPatientManager.services.PatientNameIndexUpdater;
+
+import org.hibernate.annotations.DynamicUpdate;
+
 // allows us to use the 'LocalDateTime' type
 import java.time.LocalDateTime;
 
@@ -14,11 +19,22 @@ import java.time.LocalDateTime;
 @Entity
 
 // one database table for all user types
-@Table(name = "user")
+@Table(name = "user", indexes = {
+    // back the prefix (LIKE 'q%') patient search and its (last, first, id) keyset ordering
+    @Index(name = "idx_user_last_name", columnList = "last_name, first_name, id"),
+    @Index(name = "idx_user_first_name", columnList = "first_name")
+})
+@EntityListeners({PatientChartCacheInvalidator.class, PatientNameIndexUpdater.class})
+// UPDATEs list only the columns that changed (a phone number edit shouldn't rewrite the
+// whole row); an edit that changes nothing isn't written at all
+@DynamicUpdate
 public class User {
     // fields common to all users
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "user_ids")
+    @TableGenerator(name = "user_ids", table = IdGenerators.TABLE, pkColumnName = IdGenerators.NAME_COLUMN,
+        valueColumnName = IdGenerators.VALUE_COLUMN, pkColumnValue = "user",
+        allocationSize = IdGenerators.ALLOCATION_SIZE)
     @Column(name = "id")
     // will be used as primary key
     private Long id;
@@ -93,6 +109,12 @@ public class User {
 
     @Column(name = "isLocked", nullable = false)
     private boolean isLocked = false;
+
+    // optimistic lock: a save from a stale copy of the row fails instead of overwriting
+    // newer values (the login counters are bumped with UPDATE statements in UserRepository)
+    @Version
+    @Column(name = "version", nullable = false)
+    private long version;
     
 
     // omitting patient record relationship - deprecated entity - means that patient records
@@ -170,6 +192,9 @@ public class User {
     public void setFailedLoginAttempts(int failedLoginAttempts) {
         this.failedLoginAttempts = failedLoginAttempts;
     }
+    public long getVersion() {
+        return version;
+    }
     
     public Role getRole() {
         return role;
@@ -1,12 +1,20 @@
 package com.Eges411Team.UnifiedPatientManager.entity;
+import com.Eges411Team.UnifiedPatientManager.services.SessionStoreUpdater;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "user_session")
+@Table(name = "user_session", indexes = {
+    // purging expired rows
+    @Index(name = "idx_user_session_expires", columnList = "expires_at")
+})
+@EntityListeners(SessionStoreUpdater.class)
 public class UserSession {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "user_session_ids")
+    @TableGenerator(name = "user_session_ids", table = IdGenerators.TABLE, pkColumnName = IdGenerators.NAME_COLUMN,
+        valueColumnName = IdGenerators.VALUE_COLUMN, pkColumnValue = "user_session",
+        allocationSize = IdGenerators.ALLOCATION_SIZE)
     @Column(name = "id")
     private Long id;
 
@@ -17,7 +25,9 @@ public class UserSession {
     @Column(name = "login_time")
     private LocalDateTime loginTime;
 
-    @Column(name = "session_token", nullable = false, unique = true)
+    // a signed JWT with its jti runs to ~280 characters, past the default 255;
+    // SessionTokenColumnMigration widens the column on existing databases
+    @Column(name = "session_token", length = 512, nullable = false, unique = true)
     private String sessionToken;
 
     @Column(name = "logout_time")
@@ -1,10 +1,34 @@
 package com.Eges411Team.UnifiedPatientManager.repositories;
 
 import com.Eges411Team.UnifiedPatientManager.entity.Medication;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface MedicationRepository extends JpaRepository<Medication, Long> {
     List<Medication> findAllByPatientId(Long patientId);
 
+    // Active prescriptions of every patient after afterPatientId, grouped by patient, read
+    // through a cursor (fetch size hint) for MedicationRescreenJob. Must be consumed inside a
+    // transaction and closed. On MySQL the datasource needs useCursorFetch=true for the
+    // driver to honour the fetch size instead of buffering the whole result.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT m.id AS id, m.patientId AS patientId, m.drugName AS drugName, "
+         + "m.conflictFlag AS conflictFlag, m.conflictDetails AS conflictDetails "
+         + "FROM Medication m WHERE m.status = true AND m.isPerscription = true "
+         + "AND m.patientId > :afterPatientId ORDER BY m.patientId, m.id")
+    Stream<RescreenRow> streamActivePrescriptionsAfter(@Param("afterPatientId") Long afterPatientId);
+
+    interface RescreenRow {
+        Long getId();
+        Long getPatientId();
+        String getDrugName();
+        Boolean getConflictFlag();
+        String getConflictDetails();
+    }
 }
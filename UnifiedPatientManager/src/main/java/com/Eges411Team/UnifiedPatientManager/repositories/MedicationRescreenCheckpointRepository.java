@@ -0,0 +1,7 @@
+package com.Eges411Team.UnifiedPatientManager.repositories;
+
+import com.Eges411Team.UnifiedPatientManager.entity.MedicationRescreenCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface MedicationRescreenCheckpointRepository extends JpaRepository<MedicationRescreenCheckpoint, Long> {
+}
@@ -1,8 +1,15 @@
 package com.Eges411Team.UnifiedPatientManager.repositories;
 
+import com.Eges411Team.UnifiedPatientManager.DTOs.responses.NoteSummaryDTO;
 import com.Eges411Team.UnifiedPatientManager.entity.Note;
+import com.Eges411Team.UnifiedPatientManager.entity.NoteType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 public interface NoteRepo extends JpaRepository<Note, Long> {
 
@@ -11,4 +18,54 @@ public interface NoteRepo extends JpaRepository<Note, Long> {
 
     // Get all notes written by a specific doctor
     List<Note> findAllByDoctorId(Long doctorId);
+
+    // Listing view of a patient's notes; never selects attachment_data. Notes not yet moved to
+    // the attachment store have no attachment_size, so the DB measures their in-row bytes
+    // (native OCTET_LENGTH, since HQL's octet_length() only takes strings)
+    String SUMMARY_SELECT = "SELECT new com.Eges411Team.UnifiedPatientManager.DTOs.responses.NoteSummaryDTO("
+         + "n.id, n.patientId, n.doctorId, n.noteType, n.timestamp, n.attachmentName, "
+         + "COALESCE(n.attachmentSize, cast(sql('OCTET_LENGTH(?)', n.attachmentData) as Long)), n.content) ";
+
+    @Query(SUMMARY_SELECT
+         + "FROM Note n WHERE n.patientId = :patientId ORDER BY n.id")
+    List<NoteSummaryDTO> findSummariesByPatientId(@Param("patientId") Long patientId);
+
+    // One page of a patient's notes in [from, to), newest first, continuing after the
+    // (beforeTimestamp, beforeId) keyset of the previous page's last note.
+    // Walks idx_note_patient_timestamp backwards instead of loading every note
+    @Query(SUMMARY_SELECT
+         + "FROM Note n WHERE n.patientId = :patientId AND n.timestamp >= :from AND n.timestamp < :to "
+         + "AND (n.timestamp < :beforeTimestamp OR (n.timestamp = :beforeTimestamp AND n.id < :beforeId)) "
+         + "ORDER BY n.timestamp DESC, n.id DESC")
+    List<NoteSummaryDTO> findSummaryPage(@Param("patientId") Long patientId,
+                                         @Param("from") LocalDateTime from,
+                                         @Param("to") LocalDateTime to,
+                                         @Param("beforeTimestamp") LocalDateTime beforeTimestamp,
+                                         @Param("beforeId") Long beforeId,
+                                         Limit limit);
+
+    // The notes without a timestamp, newest id first, continuing after beforeId. They fall
+    // outside every time window, so an unbounded page lists them after all the dated notes
+    @Query(SUMMARY_SELECT
+         + "FROM Note n WHERE n.patientId = :patientId AND n.timestamp IS NULL AND n.id < :beforeId "
+         + "ORDER BY n.id DESC")
+    List<NoteSummaryDTO> findUndatedSummaryPage(@Param("patientId") Long patientId,
+                                                @Param("beforeId") Long beforeId,
+                                                Limit limit);
+
+    // Note fields needed to serve a download, without selecting attachment_data
+    @Query("SELECT n.id AS id, n.patientId AS patientId, n.noteType AS noteType, n.attachmentName AS attachmentName, "
+         + "n.attachmentHash AS attachmentHash, n.attachmentSize AS attachmentSize, n.attachmentMediaType AS attachmentMediaType "
+         + "FROM Note n WHERE n.id = :id")
+    Optional<AttachmentInfo> findAttachmentInfoById(@Param("id") Long id);
+
+    interface AttachmentInfo {
+        Long getId();
+        Long getPatientId();
+        NoteType getNoteType();
+        String getAttachmentName();
+        String getAttachmentHash();
+        Long getAttachmentSize();
+        String getAttachmentMediaType();
+    }
 }
@@ -0,0 +1,21 @@
+package com.Eges411Team.UnifiedPatientManager.repositories;
+
+import com.Eges411Team.UnifiedPatientManager.entity.OtpEmail;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface OtpEmailRepository extends JpaRepository<OtpEmail, Long> {
+
+    // Pending emails whose next attempt is due, oldest first
+    @Query("SELECT e FROM OtpEmail e WHERE e.failed = false AND e.nextAttemptAt <= :now ORDER BY e.nextAttemptAt, e.id")
+    List<OtpEmail> findDue(@Param("now") LocalDateTime now, Pageable page);
+
+    // A chunk of emails, failed or never sent, whose OTP expired before the cutoff, for ExpiredAuthRowReaper
+    @Query("SELECT e.id FROM OtpEmail e WHERE e.expiresAt < :cutoff")
+    List<Long> findIdsExpiredBefore(@Param("cutoff") LocalDateTime cutoff, Pageable page);
+}
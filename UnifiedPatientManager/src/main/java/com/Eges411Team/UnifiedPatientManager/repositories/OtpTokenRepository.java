@@ -14,6 +14,11 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
 //Imports optional, allos us to handle nullable return values
 import java.util.Optional;
 
@@ -25,7 +30,24 @@ public interface OtpTokenRepository extends JpaRepository<OtpToken, Long> {
    
       // Invalidates unused OTPs for the given user
       @Modifying
-      @Query("UPDATE OtpToken o SET o.used = true WHERE o.user.id = :userId AND o.used = false")
+      @Query("UPDATE OtpToken o SET o.used = true, o.version = o.version + 1 "
+           + "WHERE o.user.id = :userId AND o.used = false")
       void invalidateUnusedOtps(@Param("userId") Long userId);
+
+      // Uses up one verification attempt; returns 0 if the OTP is used or has none left
+      @Modifying
+      @Query("UPDATE OtpToken o SET o.attemptCount = o.attemptCount + 1, o.version = o.version + 1 "
+           + "WHERE o.otpId = :id AND o.used = false AND o.attemptCount < :maxAttempts")
+      int recordAttempt(@Param("id") Long id, @Param("maxAttempts") int maxAttempts);
+
+      // Marks the OTP used; returns 0 if something else already did
+      @Modifying
+      @Query("UPDATE OtpToken o SET o.used = true, o.version = o.version + 1 "
+           + "WHERE o.otpId = :id AND o.used = false")
+      int markUsed(@Param("id") Long id);
+
+      // A chunk of OTPs that expired before the cutoff, for ExpiredAuthRowReaper
+      @Query("SELECT o.otpId FROM OtpToken o WHERE o.expiresAt < :cutoff")
+      List<Long> findIdsExpiredBefore(@Param("cutoff") LocalDateTime cutoff, Pageable page);
 }
 
@@ -0,0 +1,56 @@
+package com.Eges411Team.UnifiedPatientManager.repositories;
+
+import com.Eges411Team.UnifiedPatientManager.entity.User;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.List;
+
+// Loads the whole patient chart (user + allergies + medications + medical history)
+// in a single round trip. Each section is one branch of a UNION ALL; the "section"
+// column tells the service which nested DTO a row belongs to.
+public interface PatientChartRepository extends Repository<User, Long> {
+
+    // column meaning per section:
+    //   PATIENT    text1..text8 = first, last, email, phone, address, gender, height, weight
+    //   ALLERGY    text1..text3 = substance, reaction, severity
+    //   MEDICATION text1..text3 = drug name, dose, frequency
+    //   HISTORY    text1 = diagnosis, doctorId, startDate
+    @Query(value =
+        "SELECT 'PATIENT' AS section, u.id AS id, NULL AS doctorId, "
+            + "u.first_name AS text1, u.last_name AS text2, u.email AS text3, u.phone_number AS text4, "
+            + "u.address AS text5, u.gender AS text6, u.height AS text7, u.weight AS text8, "
+            + "u.date_of_birth AS dateOfBirth, NULL AS startDate "
+            + "FROM user u WHERE u.id = :patientId "
+        + "UNION ALL "
+        + "SELECT 'ALLERGY', a.id, NULL, a.substance, a.reaction, a.severity, NULL, NULL, NULL, NULL, NULL, NULL, NULL "
+            + "FROM allergy a WHERE a.patient_id = :patientId "
+        + "UNION ALL "
+        + "SELECT 'MEDICATION', m.id, NULL, m.drug_name, m.dose, m.frequency, NULL, NULL, NULL, NULL, NULL, NULL, NULL "
+            + "FROM medication m WHERE m.patient_id = :patientId "
+        + "UNION ALL "
+        + "SELECT 'HISTORY', h.id, h.doctor_id, h.diagnosis, NULL, NULL, NULL, NULL, NULL, NULL, NULL, NULL, h.start_date "
+            + "FROM medical_history h WHERE h.patient_id = :patientId "
+        + "ORDER BY id",
+        nativeQuery = true)
+    List<PatientChartRow> findChartRowsByPatientId(@Param("patientId") Long patientId);
+
+    // one row of the UNION ALL above
+    interface PatientChartRow {
+        String getSection();
+        Long getId();
+        Long getDoctorId();
+        String getText1();
+        String getText2();
+        String getText3();
+        String getText4();
+        String getText5();
+        String getText6();
+        String getText7();
+        String getText8();
+        LocalDateTime getDateOfBirth();
+        Date getStartDate();
+    }
+}
@@ -10,9 +10,17 @@ import com.Eges411Team.UnifiedPatientManager.entity.User;
 //Imports JpaRepository interface from Spring Data JPA for CRUD operations
 import org.springframework.data.jpa.repository.JpaRepository;
 
+//Imports Query annotation and Limit for the paged name search
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
 //Imports Optional class from Java Util package for handling nullable return values
 import java.util.Optional;
 import java.util.List;
+import java.time.LocalDateTime;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
@@ -24,6 +32,73 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByFirstNameAndLastNameAndDateOfBirth(String firstName, String lastName, java.time.LocalDateTime dateOfBirth);
     List<User> findByFirstNameContainingIgnoreCaseOrLastNameContainingIgnoreCase(String firstNamePart, String lastNamePart);
     List<User> findAllByFirstNameIgnoreCaseAndLastNameIgnoreCase(String firstName, String lastName);
-    
-    
+
+    // Paged prefix search on last name, then on first name, both sorted by (lastName, firstName, id).
+    // Keyset pagination: returns rows strictly after the (afterLast, afterFirst, afterId) cursor,
+    // so each page is an index range scan instead of OFFSET skipping. Pass "", "", 0 for the first page.
+    // Kept as two queries because an OR of the two LIKEs can't use either index as a range;
+    // PatientRecordService merges them. LIKE 'q%' (no leading wildcard) uses idx_user_last_name /
+    // idx_user_first_name; with MySQL's default case-insensitive collation the match and the
+    // ordering are case-insensitive.
+    String PATIENT_SUMMARY_SELECT = "SELECT u.id AS id, u.firstName AS firstName, u.lastName AS lastName, "
+        + "u.email AS email, u.phoneNumber AS phoneNumber, u.dateOfBirth AS dateOfBirth FROM User u ";
+    String AFTER_SEARCH_CURSOR = "AND (u.lastName > :afterLast OR (u.lastName = :afterLast AND (u.firstName > :afterFirst "
+        + "OR (u.firstName = :afterFirst AND u.id > :afterId)))) "
+        + "ORDER BY u.lastName, u.firstName, u.id";
+
+    @Query(PATIENT_SUMMARY_SELECT + "WHERE u.lastName LIKE :prefix ESCAPE '!' " + AFTER_SEARCH_CURSOR)
+    List<PatientSummary> searchByLastNamePrefix(@Param("prefix") String prefix,
+                                                @Param("afterLast") String afterLast,
+                                                @Param("afterFirst") String afterFirst,
+                                                @Param("afterId") Long afterId,
+                                                Limit limit);
+
+    @Query(PATIENT_SUMMARY_SELECT + "WHERE u.firstName LIKE :prefix ESCAPE '!' " + AFTER_SEARCH_CURSOR)
+    List<PatientSummary> searchByFirstNamePrefix(@Param("prefix") String prefix,
+                                                 @Param("afterLast") String afterLast,
+                                                 @Param("afterFirst") String afterFirst,
+                                                 @Param("afterId") Long afterId,
+                                                 Limit limit);
+
+    // Login bookkeeping, one UPDATE each instead of reading and re-saving the whole row.
+    // Each bumps the @Version, so a save from a copy loaded earlier can't undo it, and runs
+    // in its own transaction unless the caller has one (login doesn't, around BCrypt).
+
+    // Counts a failed login and locks the account on the lockAfter-th one, in a single
+    // statement so parallel attempts can't lose increments. isLocked is assigned first so
+    // it sees the old count on MySQL too, which applies SET assignments left to right.
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.isLocked = CASE WHEN u.failedLoginAttempts + 1 >= :lockAfter "
+        + "THEN true ELSE u.isLocked END, "
+        + "u.failedLoginAttempts = u.failedLoginAttempts + 1, u.version = u.version + 1 "
+        + "WHERE u.id = :id")
+    int recordFailedLogin(@Param("id") Long id, @Param("lockAfter") int lockAfter);
+
+    // Clears the failed-login count after a correct password; 0 if it was already clear
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.failedLoginAttempts = 0, u.version = u.version + 1 "
+        + "WHERE u.id = :id AND u.failedLoginAttempts <> 0")
+    int resetFailedLogins(@Param("id") Long id);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.passwordHash = :passwordHash, u.version = u.version + 1 WHERE u.id = :id")
+    int updatePasswordHash(@Param("id") Long id, @Param("passwordHash") String passwordHash);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.lastLoginTime = :at, u.version = u.version + 1 WHERE u.id = :id")
+    int recordLogin(@Param("id") Long id, @Param("at") LocalDateTime at);
+
+    // Summary projection used by the paged search; only selects the columns a result row needs
+    interface PatientSummary {
+        Long getId();
+        String getFirstName();
+        String getLastName();
+        String getEmail();
+        String getPhoneNumber();
+        LocalDateTime getDateOfBirth();
+    }
 }
@@ -13,10 +13,13 @@ import org.springframework.data.jpa.repository.Modifying;
 //Allows us to define custom Queries with the Query annotation
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.data.domain.Pageable;
 
 //Imports Repository annotation from Spring Framework, marks the class as a DAO
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+
 //Imports standard list interface from java, allows us to use lists 
 import java.util.List;
 
@@ -32,14 +35,27 @@ public interface UserSessionRepository extends JpaRepository<UserSession, Long>
     // Find an active session by its token
     Optional<UserSession> findBySessionTokenAndActive(String sessionToken, boolean active);
     
+    // Tokens of sessions that were logged out / deactivated but haven't expired yet;
+    // used to rebuild the in-memory revocation list at startup
+    @Query("SELECT s.sessionToken FROM UserSession s WHERE s.active = false AND s.expiresAt > :now")
+    List<String> findRevokedUnexpiredTokens(@Param("now") LocalDateTime now);
+
+    // Sessions still in use; used to rebuild the in-memory session store at startup
+    @Query("SELECT s FROM UserSession s WHERE s.active = true AND s.expiresAt > :now")
+    List<UserSession> findActiveUnexpired(@Param("now") LocalDateTime now);
+
+    // A chunk of sessions whose token expired before the cutoff, for ExpiredAuthRowReaper
+    @Query("SELECT s.id FROM UserSession s WHERE s.expiresAt < :cutoff")
+    List<Long> findIdsExpiredBefore(@Param("cutoff") LocalDateTime cutoff, Pageable page);
+
     //Deactivate all sessions for a specific user
     @Modifying
-    @Query("UPDATE UserSession s SET s.active = false WHERE s.user.id = :userId")
+    @Query("UPDATE UserSession s SET s.active = false WHERE s.user.id = :userId AND s.active = true")
     void deactivateAllUserSessions(@Param("userId") Long userId);
 
-    //Deactivate all sessions
+    //Deactivate all sessions (only rows still active, not the whole history)
     @Modifying
-    @Query("UPDATE UserSession s SET s.active = false")
+    @Query("UPDATE UserSession s SET s.active = false WHERE s.active = true")
     void deactivateAllSessions();
     
 }
@@ -14,9 +14,11 @@ import org.springframework.web.server.ResponseStatusException;
 public class AllergyService {
 
     private final AllergyRepository allergyRepository;
+    private final PatientChartCacheInvalidator chartCacheInvalidator;
 
-    public AllergyService(AllergyRepository allergyRepository) {
+    public AllergyService(AllergyRepository allergyRepository, PatientChartCacheInvalidator chartCacheInvalidator) {
         this.allergyRepository = allergyRepository;
+        this.chartCacheInvalidator = chartCacheInvalidator;
     }
 
     // GET /{patient_id}/allergies
@@ -27,16 +29,24 @@ public class AllergyService {
     // POST /{patient_id}/allergies
     // Replace all allergies for this patient with the provided list
     public List<Allergy> saveAllergies(Long patientId, List<Allergy> allergies) {
-        // delete existing
+        // apply the new list as a diff: update matched rows, bulk-delete the rest, insert new ones
         List<Allergy> existing = allergyRepository.findAllByPatientId(patientId);
-        allergyRepository.deleteAll(existing);
-
-        // set patient_id for each new allergy
-        for (Allergy allergy : allergies) {
-            allergy.setPatientId(patientId);
-        }
-
-        return allergyRepository.saveAll(allergies);
+        return ListReplacement.apply(existing, allergies, Allergy::getId,
+            (source, target) -> {
+                target.setSubstance(source.getSubstance());
+                target.setReaction(source.getReaction());
+                target.setSeverity(source.getSeverity());
+            },
+            allergy -> {
+                allergy.setId(null);
+                allergy.setPatientId(patientId);
+            },
+            removedIds -> {
+                allergyRepository.deleteAllByIdInBatch(removedIds);
+                // the bulk delete skips the entity listener
+                chartCacheInvalidator.invalidate(patientId);
+            },
+            allergyRepository::saveAll);
     }
 
     // POST single allergy (add without deleting existing)
@@ -26,13 +26,18 @@ public class AuthenticationService {
 
     private static final Logger logger = LoggerFactory.getLogger(AuthenticationService.class);
 
+    // wrong passwords in a row before the account is locked
+    private static final int MAX_FAILED_LOGINS = 3;
+
     //Dependencies
     private final UserRepository userRepository;
     private final UserSessionRepository userSessionRepository;
     private final OtpService otpService;
     private final JwtTokenProvider jwtTokenProvider;
     private final PasswordEncoder passwordEncoder;
-    private final com.Eges411Team.UnifiedPatientManager.repositories.OtpTokenRepository otpTokenRepository;
+    private final OtpVerifier otpVerifier;
+    private final TokenRevocationList tokenRevocationList;
+    private final SessionStore sessionStore;
 
     //Constructor for dependencies
     public AuthenticationService(UserRepository userRepository,
@@ -40,13 +45,17 @@ public class AuthenticationService {
                                 OtpService otpService,
                                 JwtTokenProvider jwtTokenProvider,
                                 PasswordEncoder passwordEncoder,
-                                com.Eges411Team.UnifiedPatientManager.repositories.OtpTokenRepository otpTokenRepository) {
+                                OtpVerifier otpVerifier,
+                                TokenRevocationList tokenRevocationList,
+                                SessionStore sessionStore) {
         this.userRepository = userRepository;
         this.userSessionRepository = userSessionRepository;
         this.otpService = otpService;
         this.jwtTokenProvider = jwtTokenProvider;
         this.passwordEncoder = passwordEncoder;
-        this.otpTokenRepository = otpTokenRepository;
+        this.otpVerifier = otpVerifier;
+        this.tokenRevocationList = tokenRevocationList;
+        this.sessionStore = sessionStore;
     }
     
 
@@ -73,9 +82,15 @@ public class AuthenticationService {
             throw new BadCredentialsException("Invalid username or password");
         }
         
-        // Step 3: Password is correct - reset failed login attempts
-        user.setFailedLoginAttempts(0);
-        userRepository.save(user);
+        // Step 3: Password is correct - reset failed login attempts (no write if already 0)
+        if (user.getFailedLoginAttempts() != 0) {
+            userRepository.resetFailedLogins(user.getId());
+        }
+        // stored hash uses a lower BCrypt cost than configured; rehash while we have the password
+        if (passwordEncoder.upgradeEncoding(user.getPasswordHash())) {
+            logger.info("Rehashing password for user {} at the current BCrypt cost", user.getUsername());
+            userRepository.updatePasswordHash(user.getId(), passwordEncoder.encode(request.getPassword()));
+        }
 
         // Step 4: Generate OTP and send to user
         try {
@@ -114,8 +129,7 @@ public class AuthenticationService {
         userSessionRepository.save(session);
         
         // Step 3: Update user's last login timestamp
-        user.setLastLoginTime(LocalDateTime.now());
-        userRepository.save(user);
+        userRepository.recordLogin(user.getId(), LocalDateTime.now());
         
         // Step 4: Build response with token and user info
         LoginResponse response = new LoginResponse();
@@ -135,16 +149,9 @@ public class AuthenticationService {
     //SO... INCREASE FAILED LOGIN ATTEMPTS? AND LOCK THEM OUT 
 
     private void handleFailedLogin(User user) {
-        // Increment failed login counter
-        user.setFailedLoginAttempts(user.getFailedLoginAttempts() + 1);
-        
-        // Lock account if failed attempts reach 3
-        if (user.getFailedLoginAttempts() >= 3) {
-            user.setIsLocked(true);
-        }
-        
-        userRepository.save(user);
-        
+        // Increment the counter in the database and lock the account once it reaches 3,
+        // in one statement: the copy loaded above may already be stale under parallel attempts
+        userRepository.recordFailedLogin(user.getId(), MAX_FAILED_LOGINS);
     }
     public void logout(String token) {
         // Remove "Bearer " prefix if present
@@ -157,6 +164,17 @@ public class AuthenticationService {
         // Deactivate the session (user is logged out)
         session.setIsActive(false);
         userSessionRepository.save(session);
+        // requests are authenticated from the token alone, so revoke it in memory too
+        tokenRevocationList.revoke(tokenWithoutBearer);
+    }
+
+    // Ends every session of the user, e.g. after a password reset
+    @Transactional
+    public void logoutAllSessions(Long userId) {
+        userSessionRepository.deactivateAllUserSessions(userId);
+        tokenRevocationList.revokeAllForUser(userId);
+        // the bulk update skips entity callbacks, so SessionStoreUpdater doesn't see it
+        sessionStore.removeAllForUser(userId);
     }
 
     // Password reset: initiate by sending OTP to user's email
@@ -170,7 +188,8 @@ public class AuthenticationService {
     }
 
     // Password reset: verify OTP and set new password
-    @Transactional
+    // a wrong code still has to commit its attempt count
+    @Transactional(noRollbackFor = InvalidOtpException.class)
     public void resetPassword(String username, String otpCode, String newPassword) {
         logger.info("Resetting password for user: {}", username);
         
@@ -178,29 +197,8 @@ public class AuthenticationService {
         User user = userRepository.findByUsername(username)
             .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
         
-        // Retrieve the most recent valid OTP for this user
-        com.Eges411Team.UnifiedPatientManager.entity.OtpToken otpToken = otpTokenRepository
-            .findFirstByUser_IdAndExpiresAtAfterAndUsedFalseOrderByCreatedAtDesc(user.getId(), LocalDateTime.now())
-            .orElseThrow(() -> new InvalidOtpException("No valid OTP found for this user"));
-
-        // Check if OTP is expired
-        if (otpToken.getExpiresAt().isBefore(LocalDateTime.now())) {
-            throw new com.Eges411Team.UnifiedPatientManager.ExceptionHandlers.OtpExpiredException("OTP has expired");
-        }
-
-        // Check if the OTP has already been used
-        if (otpToken.isUsed()) {
-            throw new InvalidOtpException("OTP has already been used");
-        }
-
-        // Verify the provided OTP code matches the stored hashed code
-        if (!passwordEncoder.matches(otpCode, otpToken.getOtpCode())) {
-            throw new InvalidOtpException("Invalid OTP code");
-        }
-
-        // Mark OTP as used
-        otpToken.setUsed(true);
-        otpTokenRepository.save(otpToken);
+        // Check the OTP and mark it used (expiry, reuse and attempt limit included)
+        otpVerifier.verify(user.getId(), otpCode);
         
         // Hash and set new password
         user.setPassword(passwordEncoder.encode(newPassword));
@@ -210,6 +208,9 @@ public class AuthenticationService {
         user.setIsLocked(false);
         
         userRepository.save(user);
+
+        // tokens issued under the old password shouldn't outlive it
+        logoutAllSessions(user.getId());
         logger.info("Password reset successful for user: {}", username);
     }
 }
\ No newline at end of file
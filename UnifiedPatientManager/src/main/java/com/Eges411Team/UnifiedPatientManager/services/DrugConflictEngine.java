@@ -0,0 +1,303 @@
+package com.Eges411Team.UnifiedPatientManager.services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Drug conflict rules compiled once into hash lookups.
+// Every drug and allergy class name is trimmed, lowercased and given a small int id;
+// each drug id then points at the allergy classes it belongs to and the drugs it
+// interacts with. A regimen check normalises each name once and follows those arrays,
+// so it costs O(drugs + allergies + conflicts) instead of rescanning the rule lists
+// for every allergy and every pair of drugs.
+//
+// Instances are immutable and safe to share between threads; DrugKnowledgeBase swaps
+// whole engines when the rule file changes, tagging each with a version.
+public final class DrugConflictEngine {
+
+    public enum Kind { ALLERGY, INTERACTION }
+
+    // drug is the medication as given; other is the allergy substance (ALLERGY)
+    // or the second medication (INTERACTION), also as given. The indexes are their
+    // positions in the lists passed to the check.
+    public record Conflict(Kind kind, String drug, String other, int drugIndex, int otherIndex) {}
+
+    private static final int[] NONE = new int[0];
+
+    private final String version;
+    // normalised drug name -> drug id
+    private final Map<String, Integer> drugIds;
+    // normalised allergy class -> class id
+    private final Map<String, Integer> allergyClassIds;
+    // drug id -> allergy class ids that rule it out
+    private final int[][] allergyClassesByDrug;
+    // drug id -> drug ids it interacts with
+    private final int[][] interactionsByDrug;
+
+    private DrugConflictEngine(String version, Map<String, Integer> drugIds, Map<String, Integer> allergyClassIds,
+                               int[][] allergyClassesByDrug, int[][] interactionsByDrug) {
+        this.version = version;
+        this.drugIds = drugIds;
+        this.allergyClassIds = allergyClassIds;
+        this.allergyClassesByDrug = allergyClassesByDrug;
+        this.interactionsByDrug = interactionsByDrug;
+    }
+
+    /**
+     * Build an engine from allergy class -> conflicting drugs and a list of
+     * interacting drug pairs. Pairs that are not exactly two names are ignored.
+     */
+    public static DrugConflictEngine compile(String version, Map<String, List<String>> allergyConflicts,
+                                             List<List<String>> interactions) {
+        Map<String, Integer> drugIds = new HashMap<>();
+        Map<String, Integer> classIds = new HashMap<>();
+        // (drug, class) and (drug, drug) edges as flat int pairs
+        Edges drugClasses = new Edges();
+        Edges drugPairs = new Edges();
+
+        allergyConflicts.forEach((allergyClass, drugs) -> {
+            String key = normalize(allergyClass);
+            if (key == null || drugs == null) {
+                return;
+            }
+            int classId = classIds.computeIfAbsent(key, k -> classIds.size());
+            for (String drug : drugs) {
+                int drugId = idFor(drug, drugIds);
+                if (drugId >= 0) {
+                    drugClasses.add(drugId, classId);
+                }
+            }
+        });
+
+        for (List<String> pair : interactions) {
+            if (pair == null || pair.size() != 2) {
+                continue;
+            }
+            int a = idFor(pair.get(0), drugIds);
+            int b = idFor(pair.get(1), drugIds);
+            if (a >= 0 && b >= 0) {
+                drugPairs.add(a, b);
+                drugPairs.add(b, a);
+            }
+        }
+
+        return new DrugConflictEngine(version, Map.copyOf(drugIds), Map.copyOf(classIds),
+            drugClasses.toAdjacency(drugIds.size()), drugPairs.toAdjacency(drugIds.size()));
+    }
+
+    private static int idFor(String drug, Map<String, Integer> drugIds) {
+        String key = normalize(drug);
+        if (key == null) {
+            return -1;
+        }
+        return drugIds.computeIfAbsent(key, k -> drugIds.size());
+    }
+
+    // growable list of (from, to) int pairs, turned into sorted, de-duplicated adjacency arrays
+    private static final class Edges {
+        private int[] from = new int[64];
+        private int[] to = new int[64];
+        private int size;
+
+        void add(int f, int t) {
+            if (size == from.length) {
+                from = Arrays.copyOf(from, size * 2);
+                to = Arrays.copyOf(to, size * 2);
+            }
+            from[size] = f;
+            to[size] = t;
+            size++;
+        }
+
+        int[][] toAdjacency(int nodes) {
+            int[] degree = new int[nodes];
+            for (int i = 0; i < size; i++) {
+                degree[from[i]]++;
+            }
+            int[][] adjacency = new int[nodes][];
+            for (int n = 0; n < nodes; n++) {
+                adjacency[n] = degree[n] == 0 ? NONE : new int[degree[n]];
+            }
+            int[] fill = new int[nodes];
+            for (int i = 0; i < size; i++) {
+                adjacency[from[i]][fill[from[i]]++] = to[i];
+            }
+            for (int n = 0; n < nodes; n++) {
+                adjacency[n] = sortedDistinct(adjacency[n]);
+            }
+            return adjacency;
+        }
+
+        private static int[] sortedDistinct(int[] values) {
+            if (values.length < 2) {
+                return values;
+            }
+            Arrays.sort(values);
+            int kept = 1;
+            for (int i = 1; i < values.length; i++) {
+                if (values[i] != values[kept - 1]) {
+                    values[kept++] = values[i];
+                }
+            }
+            return kept == values.length ? values : Arrays.copyOf(values, kept);
+        }
+    }
+
+    // the rule set this engine was compiled from
+    public String version() {
+        return version;
+    }
+
+    static String normalize(String name) {
+        if (name == null) {
+            return null;
+        }
+        String trimmed = name.trim();
+        return trimmed.isEmpty() ? null : trimmed.toLowerCase(Locale.ROOT);
+    }
+
+    private int drugId(String drug) {
+        String key = normalize(drug);
+        Integer id = key == null ? null : drugIds.get(key);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Every allergy and interaction conflict in a regimen: allergy conflicts first
+     * (in drug order, then allergy order), then interacting pairs in (i, j) order.
+     */
+    public List<Conflict> checkRegimen(List<String> drugs, Collection<String> allergies) {
+        List<Conflict> conflicts = allergyConflicts(drugs, allergies);
+        conflicts.addAll(interactions(drugs));
+        return conflicts;
+    }
+
+    /**
+     * Every (drug, allergy) pair where the allergy rules the drug out, in drug order
+     * and then in the order the allergies were given. Null names are skipped and an
+     * allergy listed twice is reported once.
+     */
+    public List<Conflict> allergyConflicts(List<String> drugs, Collection<String> allergies) {
+        List<Conflict> conflicts = new ArrayList<>();
+        if (drugs.isEmpty() || allergies.isEmpty()) {
+            return conflicts;
+        }
+        // class id -> position of the first allergy in that class
+        int[] allergyPosition = new int[allergyClassIds.size()];
+        Arrays.fill(allergyPosition, -1);
+        String[] substances = allergies.toArray(new String[0]);
+        boolean anyKnown = false;
+        for (int p = 0; p < substances.length; p++) {
+            String key = normalize(substances[p]);
+            Integer classId = key == null ? null : allergyClassIds.get(key);
+            if (classId != null && allergyPosition[classId] < 0) {
+                allergyPosition[classId] = p;
+                anyKnown = true;
+            }
+        }
+        if (!anyKnown) {
+            return conflicts;
+        }
+
+        int[] hits = new int[allergyClassIds.size()];
+        for (int i = 0; i < drugs.size(); i++) {
+            String drug = drugs.get(i);
+            int id = drugId(drug);
+            if (id < 0) {
+                continue;
+            }
+            int count = 0;
+            for (int classId : allergyClassesByDrug[id]) {
+                if (allergyPosition[classId] >= 0) {
+                    hits[count++] = allergyPosition[classId];
+                }
+            }
+            // a drug belongs to a handful of classes at most
+            Arrays.sort(hits, 0, count);
+            for (int h = 0; h < count; h++) {
+                conflicts.add(new Conflict(Kind.ALLERGY, drug, substances[hits[h]], i, hits[h]));
+            }
+        }
+        return conflicts;
+    }
+
+    /**
+     * Every interacting pair (drugs[i], drugs[j]) with i < j, ordered by i then j.
+     * A drug listed twice pairs with each of its partners once per occurrence.
+     */
+    public List<Conflict> interactions(List<String> drugs) {
+        return pairs(drugs, drugs, true);
+    }
+
+    /**
+     * Every interacting pair (drugs[i], others[j]), ordered by i then j: e.g. a batch
+     * of prospective prescriptions against the patient's existing medications.
+     */
+    public List<Conflict> interactionsBetween(List<String> drugs, List<String> others) {
+        return pairs(drugs, others, false);
+    }
+
+    /**
+     * Interactions between one prospective drug and each of the existing ones, in the
+     * order the existing drugs were given.
+     */
+    public List<Conflict> interactionsWith(String drug, List<String> existing) {
+        if (drugId(drug) < 0) {
+            return new ArrayList<>();
+        }
+        return pairs(Collections.singletonList(drug), existing, false);
+    }
+
+    private List<Conflict> pairs(List<String> drugs, List<String> others, boolean sameList) {
+        List<Conflict> conflicts = new ArrayList<>();
+        int m = others.size();
+        if (drugs.isEmpty() || m == 0) {
+            return conflicts;
+        }
+        // positions of each known drug in others as a linked list: first[id] -> next[pos] -> ...
+        int[] first = new int[interactionsByDrug.length];
+        int[] next = new int[m];
+        Arrays.fill(first, -1);
+        for (int pos = m - 1; pos >= 0; pos--) {
+            int id = drugId(others.get(pos));
+            if (id >= 0) {
+                next[pos] = first[id];
+                first[id] = pos;
+            }
+        }
+
+        List<Integer> partners = new ArrayList<>();
+        for (int i = 0; i < drugs.size(); i++) {
+            int id = drugId(drugs.get(i));
+            if (id < 0) {
+                continue;
+            }
+            partners.clear();
+            for (int partner : interactionsByDrug[id]) {
+                for (int j = first[partner]; j >= 0; j = next[j]) {
+                    if (!sameList || j > i) {
+                        partners.add(j);
+                    }
+                }
+            }
+            if (partners.size() > 1) {
+                partners.sort(null);
+            }
+            for (int j : partners) {
+                conflicts.add(new Conflict(Kind.INTERACTION, drugs.get(i), others.get(j), i, j));
+            }
+        }
+        return conflicts;
+    }
+
+    public boolean interacts(String d1, String d2) {
+        int a = drugId(d1);
+        int b = drugId(d2);
+        return a >= 0 && b >= 0 && Arrays.binarySearch(interactionsByDrug[a], b) >= 0;
+    }
+}
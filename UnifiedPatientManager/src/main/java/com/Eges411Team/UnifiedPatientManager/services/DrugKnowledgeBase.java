@@ -0,0 +1,214 @@
+package com.Eges411Team.UnifiedPatientManager.services;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.ApplicationEventPublisherAware;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+// Holds the drug conflict rules currently in force.
+// Without medications.knowledge-base.file the built-in tables below are used. With it,
+// the file is compiled into a new DrugConflictEngine at startup and again whenever its
+// modification time or size changes (checked every
+// medications.knowledge-base.poll-interval-ms), and the new engine replaces the old one
+// in a single volatile write. A check that already called current() keeps using the
+// engine it got, so a reload never changes the rules halfway through a prescription.
+// A file that fails to parse is logged and the previous rules stay in force. Each swap
+// publishes a DrugRulesChangedEvent (MedicationRescreenJob re-screens stored
+// prescriptions on it).
+//
+// File format, one rule per line (blank lines and lines starting with # are skipped):
+//   version,2025-06-02           optional label; defaults to a hash of the file
+//   allergy,Penicillin,Amoxicillin
+//   interaction,Warfarin,Aspirin
+@Component
+public class DrugKnowledgeBase implements ApplicationEventPublisherAware {
+
+    private static final Logger log = LoggerFactory.getLogger(DrugKnowledgeBase.class);
+
+    // Built-in rules, used when no knowledge base file is configured
+
+    // Allergy → list of medications that should NOT be prescribed
+    static final Map<String, List<String>> ALLERGY_CONFLICTS = Map.of(
+        // Antibiotic-related
+        "Penicillin", List.of("Penicillin", "Amoxicillin", "Ampicillin", "Oxacillin", "Piperacillin"),
+        "Cephalosporins", List.of("Cephalexin", "Ceftriaxone", "Cefuroxime"),
+        "Sulfa", List.of("Sulfamethoxazole", "Trimethoprim-Sulfamethoxazole", "Sulfasalazine"),
+
+        // Pain / NSAID related
+        "NSAIDs", List.of("Ibuprofen", "Naproxen", "Aspirin", "Diclofenac", "Indomethacin"),
+        "Aspirin", List.of("Aspirin", "Ibuprofen", "Naproxen"),
+
+        // Opioid-related
+        "Opioids", List.of("Morphine", "Codeine", "Oxycodone", "Hydrocodone", "Hydromorphone"),
+
+        // Cardiovascular / statins / beta-blockers
+        "StatinIntolerance", List.of("Atorvastatin", "Simvastatin", "Rosuvastatin", "Pravastatin"),
+        "BetaBlockers", List.of("Metoprolol", "Atenolol", "Propranolol"),
+
+        // Endocrine
+        "ThyroidHormone", List.of("Levothyroxine", "Liothyronine"),
+        "Insulin", List.of("Insulin Glargine", "Insulin Lispro", "Insulin Aspart")
+    );
+
+    // Medication ↔ medication interaction pairs
+    static final List<List<String>> MED_INTERACTIONS = List.of(
+        // Anticoagulant + NSAID (demo: bleeding risk)
+        List.of("Warfarin", "Aspirin"),
+        List.of("Warfarin", "Ibuprofen"),
+        List.of("Warfarin", "Naproxen"),
+
+        // Two BP drugs (demo: duplicate therapy)
+        List.of("Lisinopril", "Losartan"),
+        List.of("Lisinopril", "Amlodipine"),
+
+        // Sedatives + opioids (demo: CNS depression)
+        List.of("Diazepam", "Oxycodone"),
+        List.of("Gabapentin", "Oxycodone"),
+
+        // SSRI + NSAID (demo: bleeding risk)
+        List.of("Sertraline", "Ibuprofen"),
+        List.of("Sertraline", "Aspirin"),
+
+        // Statin + fibrate-style lipid drug (demo: muscle risk)
+        List.of("Atorvastatin", "Gemfibrozil")
+    );
+
+    static final DrugConflictEngine BUILT_IN =
+        DrugConflictEngine.compile("built-in", ALLERGY_CONFLICTS, MED_INTERACTIONS);
+
+    private final Path file;
+    private volatile DrugConflictEngine current = BUILT_IN;
+    // modification time and size of the file behind current, to spot changes
+    private FileTime loadedModified;
+    private long loadedSize = -1;
+    // null when built outside Spring, and during the initial load
+    private ApplicationEventPublisher eventPublisher;
+
+    public DrugKnowledgeBase(@Value("${medications.knowledge-base.file:}") String file) {
+        this.file = file.isBlank() ? null : Paths.get(file);
+        if (this.file != null) {
+            try {
+                reload();
+            } catch (RuntimeException e) {
+                log.error("Drug knowledge base {} not loaded, using built-in rules: {}", this.file, e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void setApplicationEventPublisher(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    // the rules in force right now; hold on to the result for the length of one check
+    public DrugConflictEngine current() {
+        return current;
+    }
+
+    @Scheduled(fixedDelayString = "${medications.knowledge-base.poll-interval-ms:60000}")
+    public void pollForChanges() {
+        if (file == null) {
+            return;
+        }
+        try {
+            if (!Files.getLastModifiedTime(file).equals(loadedModified) || Files.size(file) != loadedSize) {
+                reload();
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Drug knowledge base {} not reloaded, keeping version {}: {}",
+                file, current.version(), e.getMessage());
+        }
+    }
+
+    /**
+     * Read and compile the rule file, then make it current. Throws (and keeps the
+     * previous rules) if the file can't be read or has a malformed line.
+     */
+    public synchronized DrugConflictEngine reload() {
+        if (file == null) {
+            return current;
+        }
+        long start = System.nanoTime();
+        DrugConflictEngine engine;
+        FileTime modified;
+        long size;
+        try {
+            modified = Files.getLastModifiedTime(file);
+            byte[] bytes = Files.readAllBytes(file);
+            size = bytes.length;
+            engine = parse(new String(bytes, StandardCharsets.UTF_8), "sha256:" + shortHash(bytes));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read drug knowledge base " + file, e);
+        }
+        current = engine;
+        loadedModified = modified;
+        loadedSize = size;
+        log.info("Drug knowledge base version {} loaded from {} in {} ms",
+            engine.version(), file, (System.nanoTime() - start) / 1_000_000);
+        if (eventPublisher != null) {
+            eventPublisher.publishEvent(new DrugRulesChangedEvent(engine.version()));
+        }
+        return engine;
+    }
+
+    // parse the rule file format described above; defaultVersion is used when there is no version line
+    static DrugConflictEngine parse(String text, String defaultVersion) {
+        String version = defaultVersion;
+        Map<String, List<String>> allergyConflicts = new HashMap<>();
+        List<List<String>> interactions = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new StringReader(text))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.strip();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split(",", -1);
+                String kind = fields[0].strip().toLowerCase(Locale.ROOT);
+                if (kind.equals("version") && fields.length == 2 && !fields[1].isBlank()) {
+                    version = fields[1].strip();
+                } else if (kind.equals("allergy") && fields.length == 3 && !fields[1].isBlank() && !fields[2].isBlank()) {
+                    allergyConflicts.computeIfAbsent(fields[1].strip(), k -> new ArrayList<>()).add(fields[2].strip());
+                } else if (kind.equals("interaction") && fields.length == 3 && !fields[1].isBlank() && !fields[2].isBlank()) {
+                    interactions.add(List.of(fields[1].strip(), fields[2].strip()));
+                } else {
+                    throw new IllegalArgumentException("Malformed drug rule on line " + lineNumber + ": " + line);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return DrugConflictEngine.compile(version, allergyConflicts, interactions);
+    }
+
+    private static String shortHash(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes)).substring(0, 12);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
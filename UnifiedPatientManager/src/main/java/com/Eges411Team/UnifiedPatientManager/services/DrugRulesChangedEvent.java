@@ -0,0 +1,4 @@
+package com.Eges411Team.UnifiedPatientManager.services;
+
+// Published by DrugKnowledgeBase after a new rule set has been swapped in
+public record DrugRulesChangedEvent(String ruleSetVersion) {}
@@ -8,6 +8,8 @@ import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+
 @Service
 public class EmailService {
     private static final Logger logger = LoggerFactory.getLogger(EmailService.class);
@@ -22,6 +24,19 @@ public class EmailService {
     }
 
     public void sendOtpEmail(String toEmail, String otpCode) {
+        SimpleMailMessage message = otpMessage(toEmail, otpCode);
+
+        try {
+            mailSender.send(message);
+            logger.info("Sent OTP email to {}", toEmail);
+        } catch (MailException e) {
+            logger.error("Failed to send OTP email to {}: {}", toEmail, e.getMessage());
+            throw e;
+        }
+    }
+
+    // Builds the OTP email without sending it (OtpEmailDispatcher sends these in batches)
+    public SimpleMailMessage otpMessage(String toEmail, String otpCode) {
         if (toEmail == null || toEmail.isBlank()) {
             logger.warn("Attempted to send OTP to null/empty email");
             throw new IllegalArgumentException("Recipient email is required");
@@ -34,14 +49,16 @@ public class EmailService {
         message.setTo(toEmail);
         message.setSubject("Your OTP Code");
         message.setText("Your OTP code is: " + otpCode + "\nThis code will expire in 5 minutes.");
+        return message;
+    }
 
-        try {
-            mailSender.send(message);
-            logger.info("Sent OTP email to {}", toEmail);
-        } catch (MailException e) {
-            logger.error("Failed to send OTP email to {}: {}", toEmail, e.getMessage());
-            throw e;
+    // Sends the messages over a single SMTP connection. If some of them fail, the
+    // MailSendException's failed messages map lists which ones (keyed by the message).
+    public void sendAll(List<SimpleMailMessage> messages) {
+        if (messages.isEmpty()) {
+            return;
         }
+        mailSender.send(messages.toArray(new SimpleMailMessage[0]));
     }
 
 }
@@ -0,0 +1,118 @@
+package com.Eges411Team.UnifiedPatientManager.services;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.Eges411Team.UnifiedPatientManager.repositories.OtpEmailRepository;
+import com.Eges411Team.UnifiedPatientManager.repositories.OtpTokenRepository;
+import com.Eges411Team.UnifiedPatientManager.repositories.UserSessionRepository;
+
+// Deletes otp_token, user_session and otp_email_outbox rows that expired more than
+// auth.reaper.retention-ms ago. Nothing else ever deletes them (the outbox only deletes
+// emails it sent, not ones it gave up on), so without this the tables only grow.
+//
+// Rows go in chunks of auth.reaper.chunk-size: each chunk selects that many expired ids
+// (through the expires_at index) and deletes them by primary key in its own transaction,
+// so no lock is held for longer than one chunk and logins carry on in between.
+//
+// An expired session row is only deleted after its token has expired too, so
+// TokenRevocationList never needs it again.
+@Component
+public class ExpiredAuthRowReaper {
+
+    private static final Logger log = LoggerFactory.getLogger(ExpiredAuthRowReaper.class);
+
+    public record Result(long otpTokensDeleted, long sessionsDeleted, long otpEmailsDeleted) {}
+
+    private final OtpTokenRepository otpTokenRepository;
+    private final UserSessionRepository userSessionRepository;
+    private final OtpEmailRepository otpEmailRepository;
+    private final TransactionTemplate transaction;
+    private final int chunkSize;
+    private final Duration retention;
+
+    private final ReentrantLock running = new ReentrantLock();
+
+    public ExpiredAuthRowReaper(OtpTokenRepository otpTokenRepository,
+                                UserSessionRepository userSessionRepository,
+                                OtpEmailRepository otpEmailRepository,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${auth.reaper.chunk-size:1000}") int chunkSize,
+                                @Value("${auth.reaper.retention-ms:3600000}") long retentionMillis) {
+        this.otpTokenRepository = otpTokenRepository;
+        this.userSessionRepository = userSessionRepository;
+        this.otpEmailRepository = otpEmailRepository;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.chunkSize = Math.max(1, chunkSize);
+        this.retention = Duration.ofMillis(Math.max(0, retentionMillis));
+    }
+
+    @Scheduled(initialDelayString = "${auth.reaper.interval-ms:600000}",
+               fixedDelayString = "${auth.reaper.interval-ms:600000}")
+    public void poll() {
+        try {
+            reap();
+        } catch (DataAccessException e) {
+            log.warn("Expired OTP tokens, sessions and OTP emails not purged: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Delete everything that expired before the retention window. Returns the counts, or
+     * zeros if another run is already going.
+     */
+    public Result reap() {
+        if (!running.tryLock()) {
+            return new Result(0, 0, 0);
+        }
+        try {
+            LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+            long otpTokens = deleteInChunks(page -> otpTokenRepository.findIdsExpiredBefore(cutoff, page),
+                otpTokenRepository::deleteAllByIdInBatch);
+            long sessions = deleteInChunks(page -> userSessionRepository.findIdsExpiredBefore(cutoff, page),
+                userSessionRepository::deleteAllByIdInBatch);
+            long otpEmails = deleteInChunks(page -> otpEmailRepository.findIdsExpiredBefore(cutoff, page),
+                otpEmailRepository::deleteAllByIdInBatch);
+            if (otpTokens > 0 || sessions > 0 || otpEmails > 0) {
+                log.info("Purged {} expired OTP tokens, {} expired sessions and {} expired OTP emails",
+                    otpTokens, sessions, otpEmails);
+            }
+            return new Result(otpTokens, sessions, otpEmails);
+        } finally {
+            running.unlock();
+        }
+    }
+
+    private long deleteInChunks(Function<Pageable, List<Long>> expiredIds, Consumer<List<Long>> delete) {
+        Pageable chunk = PageRequest.of(0, chunkSize);
+        long deleted = 0;
+        while (true) {
+            Integer count = transaction.execute(status -> {
+                List<Long> ids = expiredIds.apply(chunk);
+                if (!ids.isEmpty()) {
+                    delete.accept(ids);
+                }
+                return ids.size();
+            });
+            deleted += count;
+            if (count < chunkSize) {
+                return deleted;
+            }
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.Eges411Team.UnifiedPatientManager.services;
 import com.Eges411Team.UnifiedPatientManager.entity.User;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
@@ -11,27 +12,63 @@ import org.springframework.stereotype.Component;
 
 import java.security.Key;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
 
 @Component
 public class JwtTokenProvider {
 
     // Single hardcoded Base64-encoded 64-byte (512-bit) secret.
     // Fine for a class project. Do not reuse in real deployments.
-    private static final String SECRET_B64 =
+    static final String SECRET_B64 =
         "VSbiywFGznU3Lt0LlmUHnyULekkic6l6ULmIupEuwZ1IkXHf/9abLE0xXwCFLm+K0ayxx1/ht5upEbK1xzghkA==";
 
     // Token lifetime: 24 hours (in seconds)
     private static final long TTL_SECONDS = 86_400L;
 
+    // recently verified tokens kept so repeat requests skip the HMAC
+    static final int VERIFIED_CACHE_SIZE = 1_000;
+
     // Build and reuse the HMAC key
     private final Key key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET_B64));
 
-    
+    // Parsers are immutable and thread-safe, so build one and share it
+    private final JwtParser parser = Jwts.parserBuilder()
+            .setSigningKey(key)   // verify with the same key
+            .build();
+
+    // token -> claims, least recently used evicted first
+    private final Map<String, TokenClaims> verified;
+
+    // The claims of a verified token
+    public record TokenClaims(String tokenId, String username, Long userId, String role,
+                              Date issuedAt, Date expiresAt) {
+
+        boolean isExpired(long nowMillis) {
+            return expiresAt != null && expiresAt.getTime() <= nowMillis;
+        }
+    }
+
+    public JwtTokenProvider() {
+        this(VERIFIED_CACHE_SIZE);
+    }
+
+    JwtTokenProvider(int cacheSize) {
+        this.verified = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, TokenClaims> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
     public String generateToken(User user) {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + TTL_SECONDS * 1000);
 
         return Jwts.builder()
+                .setId(UUID.randomUUID().toString()) // jti, what logout revokes
                 .setSubject(user.getUsername())
                 .claim("userId", user.getId())
                 .claim("role", user.getRole().name())
@@ -41,12 +78,35 @@ public class JwtTokenProvider {
                 .compact();
     }
 
+    // Verifies the signature and expiry once and returns the claims.
+    // Throws JwtException / IllegalArgumentException if the token isn't valid.
+    public TokenClaims verify(String token) {
+        long now = System.currentTimeMillis();
+        synchronized (verified) {
+            TokenClaims cached = verified.get(token);
+            if (cached != null) {
+                if (!cached.isExpired(now)) {
+                    return cached;
+                }
+                verified.remove(token);
+            }
+        }
+
+        // parse outside the lock; the HMAC is the expensive part
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        Number userId = claims.get("userId", Number.class);
+        TokenClaims parsed = new TokenClaims(claims.getId(), claims.getSubject(),
+                userId == null ? null : userId.longValue(), claims.get("role", String.class),
+                claims.getIssuedAt(), claims.getExpiration());
+        synchronized (verified) {
+            verified.put(token, parsed);
+        }
+        return parsed;
+    }
+
     public boolean validateToken(String token) {
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(key)   // verify with the same key
-                    .build()
-                    .parseClaimsJws(token);
+            verify(token);
             return true;
         } catch (JwtException | IllegalArgumentException e) {
             return false;
@@ -54,22 +114,11 @@ public class JwtTokenProvider {
     }
 
     public String getUsernameFromToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-        return claims.getSubject();
+        return verify(token).username();
     }
 
     public Long getUserIdFromToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-        Number n = claims.get("userId", Number.class);
-        return n == null ? null : n.longValue();
+        return verify(token).userId();
     }
 
     public Long getExpirationTime() {
@@ -0,0 +1,71 @@
+package com.Eges411Team.UnifiedPatientManager.services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+// Applies a "replace this patient's list" request as a diff against the stored rows:
+//  - an incoming item whose id matches a stored row is copied onto that (managed) row,
+//    so Hibernate only issues an UPDATE when something actually changed
+//  - stored rows not mentioned are removed with one DELETE ... WHERE id IN (...)
+//  - everything else is inserted through one saveAll call
+// Ids that don't belong to the patient's stored rows are treated as new items, so a
+// request can't overwrite another patient's row.
+final class ListReplacement {
+
+    private ListReplacement() {}
+
+    /**
+     * @param existing     the patient's stored rows
+     * @param incoming     the requested list
+     * @param idOf         entity id accessor
+     * @param copyInto     copies the editable fields of (source) onto (target)
+     * @param prepareNew   readies an unmatched item for insert (clear id, set owner)
+     * @param deleteByIds  removes the unmatched stored rows in one statement
+     * @param insertAll    saves the new items, returning them in the same order
+     * @return the resulting rows, in the order of incoming
+     */
+    static <T> List<T> apply(List<T> existing, List<T> incoming, Function<T, Long> idOf,
+                             BiConsumer<T, T> copyInto, Consumer<T> prepareNew,
+                             Consumer<Set<Long>> deleteByIds, Function<List<T>, List<T>> insertAll) {
+        Map<Long, T> stored = new LinkedHashMap<>();
+        for (T row : existing) {
+            stored.put(idOf.apply(row), row);
+        }
+
+        Object[] result = new Object[incoming.size()];
+        List<T> inserts = new ArrayList<>();
+        List<Integer> insertPositions = new ArrayList<>();
+        for (int i = 0; i < incoming.size(); i++) {
+            T item = incoming.get(i);
+            Long id = idOf.apply(item);
+            T target = id == null ? null : stored.remove(id);
+            if (target != null) {
+                copyInto.accept(item, target);
+                result[i] = target;
+            } else {
+                prepareNew.accept(item);
+                inserts.add(item);
+                insertPositions.add(i);
+            }
+        }
+
+        if (!stored.isEmpty()) {
+            deleteByIds.accept(stored.keySet());
+        }
+        List<T> saved = insertAll.apply(inserts);
+        for (int k = 0; k < insertPositions.size() && k < saved.size(); k++) {
+            result[insertPositions.get(k)] = saved.get(k);
+        }
+
+        @SuppressWarnings("unchecked")
+        List<T> rows = (List<T>) new ArrayList<>(Arrays.asList(result));
+        return rows;
+    }
+}
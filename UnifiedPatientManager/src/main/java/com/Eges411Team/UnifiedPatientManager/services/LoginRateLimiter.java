@@ -0,0 +1,186 @@
+package com.Eges411Team.UnifiedPatientManager.services;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.Eges411Team.UnifiedPatientManager.ExceptionHandlers.RateLimitedException;
+
+// Token-bucket rate limits for the endpoints that cost a BCrypt hash or an email:
+// /auth/login, /auth/resend-otp and /auth/forgot-password. Each request takes one token
+// from its client IP's bucket and one from its username's bucket; an empty bucket means
+// 429 before any database or BCrypt work. Buckets refill continuously.
+//
+// The username bucket is the real guard. The IP bucket only catches one address spraying
+// many usernames, and its default is sized for a whole clinic behind one NAT or proxy
+// logging in at shift change. The IP is request.getRemoteAddr(): behind a reverse proxy set
+// server.forward-headers-strategy=native and server.tomcat.remoteip.internal-proxies to the
+// proxy addresses so it's the client's address rather than the proxy's.
+//
+// A bucket is an immutable (tokens, time) pair swapped with compareAndSet, so the check
+// never takes a lock. The maps are bounded by auth.rate-limit.max-keys: full buckets
+// carry no state worth keeping and are dropped to make room. Buckets that still hold a
+// throttle are never dropped; while the map is full of them a new key is refused (429)
+// instead, so spraying usernames can't reset a throttled one.
+@Component
+public class LoginRateLimiter {
+
+    private final Limit userLimit;
+    private final Limit ipLimit;
+    private final int maxKeys;
+
+    private final ConcurrentMap<String, Bucket> userBuckets = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Bucket> ipBuckets = new ConcurrentHashMap<>();
+
+    // a full map is scanned for full buckets at most once per interval, so a flood of new
+    // keys doesn't cost a scan each
+    private static final long TRIM_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private final AtomicLong userTrimmedAt = new AtomicLong(System.nanoTime() - TRIM_INTERVAL_NANOS);
+    private final AtomicLong ipTrimmedAt = new AtomicLong(System.nanoTime() - TRIM_INTERVAL_NANOS);
+
+    // metrics
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder rejectedByUser = new LongAdder();
+    private final LongAdder rejectedByIp = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+
+    public LoginRateLimiter(@Value("${auth.rate-limit.user.capacity:5}") int userCapacity,
+                            @Value("${auth.rate-limit.user.refill-per-minute:5}") double userRefillPerMinute,
+                            @Value("${auth.rate-limit.ip.capacity:1000}") int ipCapacity,
+                            @Value("${auth.rate-limit.ip.refill-per-minute:600}") double ipRefillPerMinute,
+                            @Value("${auth.rate-limit.max-keys:100000}") int maxKeys) {
+        this.userLimit = new Limit(userCapacity, userRefillPerMinute);
+        this.ipLimit = new Limit(ipCapacity, ipRefillPerMinute);
+        this.maxKeys = Math.max(1, maxKeys);
+    }
+
+    /**
+     * Takes a token for the client IP and one for the username, or throws
+     * RateLimitedException if either bucket is empty. Either key may be null.
+     */
+    public void acquire(String username, String ipAddress) {
+        long now = System.nanoTime();
+        if (ipAddress != null) {
+            long waitNanos = take(ipBuckets, ipTrimmedAt, ipAddress, ipLimit, now);
+            if (waitNanos > 0) {
+                rejectedByIp.increment();
+                throw rejected(waitNanos);
+            }
+        }
+        if (username != null && !username.isBlank()) {
+            long waitNanos = take(userBuckets, userTrimmedAt, username.trim().toLowerCase(Locale.ROOT), userLimit, now);
+            if (waitNanos > 0) {
+                rejectedByUser.increment();
+                throw rejected(waitNanos);
+            }
+        }
+        allowed.increment();
+    }
+
+    // 0 if a token was taken, otherwise how long until one is available
+    private long take(ConcurrentMap<String, Bucket> buckets, AtomicLong trimmedAt, String key, Limit limit, long now) {
+        Bucket bucket = buckets.get(key);
+        if (bucket == null) {
+            if (buckets.size() >= maxKeys && !trim(buckets, trimmedAt, limit, now)) {
+                // no room without forgetting a throttle; by the time an empty bucket
+                // could have refilled, some may be full again
+                return limit.tokensPerNano == 0
+                    ? TimeUnit.MINUTES.toNanos(1)
+                    : (long) Math.ceil(limit.capacity / limit.tokensPerNano);
+            }
+            bucket = buckets.computeIfAbsent(key, k -> new Bucket(limit.capacity, now));
+        }
+        return bucket.take(limit, now);
+    }
+
+    private static RateLimitedException rejected(long waitNanos) {
+        long seconds = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        return new RateLimitedException("Too many attempts, please try again later", seconds);
+    }
+
+    // drops full buckets; true if that left room for a new key
+    private boolean trim(ConcurrentMap<String, Bucket> buckets, AtomicLong trimmedAt, Limit limit, long now) {
+        long last = trimmedAt.get();
+        if (now - last >= TRIM_INTERVAL_NANOS && trimmedAt.compareAndSet(last, now)) {
+            int before = buckets.size();
+            buckets.values().removeIf(bucket -> bucket.isFull(limit, now));
+            evicted.add(Math.max(0, before - buckets.size()));
+        }
+        return buckets.size() < maxKeys;
+    }
+
+    // full buckets behave exactly like missing ones, so there's no need to keep them
+    @Scheduled(fixedDelayString = "${auth.rate-limit.purge-interval-ms:60000}")
+    public void purgeIdle() {
+        long now = System.nanoTime();
+        userBuckets.values().removeIf(bucket -> bucket.isFull(userLimit, now));
+        ipBuckets.values().removeIf(bucket -> bucket.isFull(ipLimit, now));
+    }
+
+    public Map<String, Long> stats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("allowed", allowed.sum());
+        stats.put("rejectedByUser", rejectedByUser.sum());
+        stats.put("rejectedByIp", rejectedByIp.sum());
+        stats.put("userKeys", (long) userBuckets.size());
+        stats.put("ipKeys", (long) ipBuckets.size());
+        stats.put("evicted", evicted.sum());
+        return stats;
+    }
+
+    private static final class Limit {
+        private final double capacity;
+        private final double tokensPerNano;
+
+        private Limit(int capacity, double refillPerMinute) {
+            this.capacity = Math.max(1, capacity);
+            this.tokensPerNano = Math.max(0, refillPerMinute) / TimeUnit.MINUTES.toNanos(1);
+        }
+    }
+
+    private record State(double tokens, long refilledAt) {}
+
+    private static final class Bucket {
+        private final AtomicReference<State> state;
+
+        private Bucket(double tokens, long now) {
+            this.state = new AtomicReference<>(new State(tokens, now));
+        }
+
+        private long take(Limit limit, long now) {
+            while (true) {
+                State current = state.get();
+                double tokens = refill(current, limit, now);
+                if (tokens < 1) {
+                    return limit.tokensPerNano == 0
+                        ? TimeUnit.MINUTES.toNanos(1)
+                        : (long) Math.ceil((1 - tokens) / limit.tokensPerNano);
+                }
+                // time only moves forward, even if another thread read the clock earlier
+                State next = new State(tokens - 1, Math.max(now, current.refilledAt()));
+                if (state.compareAndSet(current, next)) {
+                    return 0;
+                }
+            }
+        }
+
+        private boolean isFull(Limit limit, long now) {
+            return refill(state.get(), limit, now) >= limit.capacity;
+        }
+
+        private static double refill(State state, Limit limit, long now) {
+            long elapsed = Math.max(0, now - state.refilledAt());
+            return Math.min(limit.capacity, state.tokens() + elapsed * limit.tokensPerNano);
+        }
+    }
+}
@@ -15,9 +15,12 @@ import org.springframework.web.server.ResponseStatusException;
 public class MedicalHistoryService {
 
     private final MedicalHistoryRepo medicalHistoryRepository;
+    private final PatientChartCacheInvalidator chartCacheInvalidator;
 
-    public MedicalHistoryService(MedicalHistoryRepo medicalHistoryRepository) {
+    public MedicalHistoryService(MedicalHistoryRepo medicalHistoryRepository,
+                                 PatientChartCacheInvalidator chartCacheInvalidator) {
         this.medicalHistoryRepository = medicalHistoryRepository;
+        this.chartCacheInvalidator = chartCacheInvalidator;
     }
 
     // GET /{patient_id}/medicalhistory
@@ -28,16 +31,28 @@ public class MedicalHistoryService {
     // POST /{patient_id}/medicalhistory
     // Replace all medical-history records for this patient with the provided list
     public List<MedicalHistory> saveMedicalHistory(Long patientId, List<MedicalHistory> historyList) {
-        // delete existing for the patient
+        // apply the new list as a diff: update matched rows, bulk-delete the rest, insert new ones
         List<MedicalHistory> existing = medicalHistoryRepository.findAllByPatientId(patientId);
-        medicalHistoryRepository.deleteAll(existing);
-
-        // enforce ownership
-        for (MedicalHistory mh : historyList) {
-            mh.setPatientId(patientId);
-        }
-
-        return medicalHistoryRepository.saveAll(historyList);
+        return ListReplacement.apply(existing, historyList, MedicalHistory::getId,
+            (source, target) -> {
+                target.setDoctorId(source.getDoctorId());
+                target.setDiagnosis(source.getDiagnosis());
+                target.setFrequency(source.getFrequency());
+                target.setStartDate(source.getStartDate());
+                target.setEndDate(source.getEndDate());
+                target.setPrescribeMedication(source.getPrescribeMedication());
+            },
+            mh -> {
+                // enforce ownership
+                mh.setId(null);
+                mh.setPatientId(patientId);
+            },
+            removedIds -> {
+                medicalHistoryRepository.deleteAllByIdInBatch(removedIds);
+                // the bulk delete skips the entity listener
+                chartCacheInvalidator.invalidate(patientId);
+            },
+            medicalHistoryRepository::saveAll);
     }
 
     // PUT /{patient_id}/medicalhistory/{history_id}
@@ -0,0 +1,360 @@
+package com.Eges411Team.UnifiedPatientManager.services;
+
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.Eges411Team.UnifiedPatientManager.entity.Allergy;
+import com.Eges411Team.UnifiedPatientManager.entity.MedicationRescreenCheckpoint;
+import com.Eges411Team.UnifiedPatientManager.repositories.AllergyRepository;
+import com.Eges411Team.UnifiedPatientManager.repositories.MedicationRepository;
+import com.Eges411Team.UnifiedPatientManager.repositories.MedicationRescreenCheckpointRepository;
+
+import jakarta.annotation.PreDestroy;
+
+// Re-screens every active prescription (status = true, is_perscription = true) against the
+// current drug rules and refreshes conflict_flag / conflict_details where they changed.
+//
+// One thread reads the medications through a cursor ordered by patient, groups them into
+// chunks of whole patients and hands each chunk to a worker pool. A worker loads the
+// chunk's allergies in one query, checks each patient's regimen and writes the changed
+// rows with a JDBC batch update. Only the current chunks are held in memory. Chunks finish
+// out of order, but the checkpoint only advances past a chunk once every earlier chunk is
+// done, so after a crash the job resumes after the checkpoint's patient without skipping anyone.
+//
+// Runs in the background whenever DrugKnowledgeBase swaps in new rules, resumes an
+// unfinished run at startup, or can be run directly with rescreen().
+@Component
+public class MedicationRescreenJob {
+
+    private static final Logger log = LoggerFactory.getLogger(MedicationRescreenJob.class);
+
+    // Flags are computed from the cursor's snapshot, so a row is only written while it still
+    // matches that snapshot; one edited, stopped or un-prescribed since then is left to the
+    // next run rather than stamped with flags for a regimen it no longer has.
+    private static final String UPDATE_SQL =
+        "UPDATE medication SET conflict_flag = ?, conflict_details = ? "
+            + "WHERE id = ? AND drug_name = ? AND status = true AND is_perscription = true";
+    private static final String UPDATE_NO_DRUG_SQL =
+        "UPDATE medication SET conflict_flag = ?, conflict_details = ? "
+            + "WHERE id = ? AND drug_name IS NULL AND status = true AND is_perscription = true";
+
+    public record Result(String ruleSetVersion, long rowsChecked, long rowsUpdated, boolean resumed) {}
+
+    // one active prescription, copied out of the cursor
+    private record Row(Long id, Long patientId, String drugName, Boolean conflictFlag, String conflictDetails) {}
+
+    // rows of whole patients, in patient order
+    private record Chunk(List<List<Row>> patients, Long lastPatientId) {}
+
+    private record ChunkResult(long rowsChecked, long rowsUpdated) {}
+
+    private record InFlight(Long lastPatientId, Future<ChunkResult> result) {}
+
+    private final MedicationRepository medicationRepository;
+    private final AllergyRepository allergyRepository;
+    private final MedicationRescreenCheckpointRepository checkpointRepository;
+    private final DrugKnowledgeBase drugKnowledgeBase;
+    private final JdbcTemplate jdbcTemplate;
+    private final PatientChartCache patientChartCache;
+    private final TransactionTemplate readTransaction;
+    private final TransactionTemplate writeTransaction;
+    private final int chunkPatients;
+    private final int parallelism;
+    private final boolean resumeOnStartup;
+
+    private final ReentrantLock running = new ReentrantLock();
+    private final ExecutorService background = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "medication-rescreen");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public MedicationRescreenJob(MedicationRepository medicationRepository,
+                                 AllergyRepository allergyRepository,
+                                 MedicationRescreenCheckpointRepository checkpointRepository,
+                                 DrugKnowledgeBase drugKnowledgeBase,
+                                 JdbcTemplate jdbcTemplate,
+                                 PatientChartCache patientChartCache,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${medications.rescreen.chunk-patients:500}") int chunkPatients,
+                                 @Value("${medications.rescreen.parallelism:4}") int parallelism,
+                                 @Value("${medications.rescreen.resume-on-startup:true}") boolean resumeOnStartup) {
+        this.medicationRepository = medicationRepository;
+        this.allergyRepository = allergyRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.drugKnowledgeBase = drugKnowledgeBase;
+        this.jdbcTemplate = jdbcTemplate;
+        this.patientChartCache = patientChartCache;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        // checkpoint and flag writes commit on their own, even while the read cursor is open
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.writeTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.chunkPatients = Math.max(1, chunkPatients);
+        this.parallelism = Math.max(1, parallelism);
+        this.resumeOnStartup = resumeOnStartup;
+    }
+
+    @EventListener
+    public void onRulesChanged(DrugRulesChangedEvent event) {
+        log.info("Drug rules changed to version {}, re-screening active prescriptions", event.ruleSetVersion());
+        runInBackground();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        if (!resumeOnStartup) {
+            return;
+        }
+        try {
+            checkpointRepository.findById(MedicationRescreenCheckpoint.SINGLETON_ID)
+                .filter(checkpoint -> !checkpoint.isCompleted())
+                .ifPresent(checkpoint -> runInBackground());
+        } catch (DataAccessException e) {
+            log.warn("Medication re-screen checkpoint not read: {}", e.getMessage());
+        }
+    }
+
+    private void runInBackground() {
+        background.execute(() -> {
+            try {
+                rescreen();
+            } catch (RuntimeException e) {
+                log.error("Medication re-screen failed; it will resume from its checkpoint", e);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        background.shutdownNow();
+    }
+
+    /**
+     * Re-screen all active prescriptions against the current rules. Continues an unfinished
+     * run for the same rule version from its checkpoint, otherwise starts from the first
+     * patient. Throws IllegalStateException if a run is already in progress.
+     */
+    public Result rescreen() {
+        if (!running.tryLock()) {
+            throw new IllegalStateException("Medication re-screen already running");
+        }
+        try {
+            return run(drugKnowledgeBase.current());
+        } finally {
+            running.unlock();
+        }
+    }
+
+    private Result run(DrugConflictEngine rules) {
+        MedicationRescreenCheckpoint checkpoint = checkpointRepository.findById(MedicationRescreenCheckpoint.SINGLETON_ID)
+            .orElseGet(MedicationRescreenCheckpoint::new);
+        boolean resumed = !checkpoint.isCompleted()
+            && rules.version().equals(checkpoint.getRuleSetVersion())
+            && checkpoint.getLastPatientId() != null;
+        if (!resumed) {
+            checkpoint.setRuleSetVersion(rules.version());
+            checkpoint.setLastPatientId(0L);
+            checkpoint.setCompleted(false);
+            checkpoint.setRowsChecked(0);
+            checkpoint.setRowsUpdated(0);
+            saveCheckpoint(checkpoint);
+        }
+        long start = System.nanoTime();
+        Long afterPatientId = checkpoint.getLastPatientId();
+
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism);
+        Deque<InFlight> inFlight = new ArrayDeque<>();
+        try {
+            readTransaction.executeWithoutResult(status -> {
+                try (Stream<MedicationRepository.RescreenRow> rows =
+                         medicationRepository.streamActivePrescriptionsAfter(afterPatientId)) {
+                    Iterator<MedicationRepository.RescreenRow> it = rows.iterator();
+                    List<List<Row>> patients = new ArrayList<>();
+                    List<Row> current = new ArrayList<>();
+                    while (it.hasNext()) {
+                        MedicationRepository.RescreenRow r = it.next();
+                        if (!current.isEmpty() && !current.get(0).patientId().equals(r.getPatientId())) {
+                            patients.add(current);
+                            current = new ArrayList<>();
+                            if (patients.size() == chunkPatients) {
+                                submit(new Chunk(patients, lastPatientOf(patients)), rules, workers, inFlight, checkpoint);
+                                patients = new ArrayList<>();
+                            }
+                        }
+                        current.add(new Row(r.getId(), r.getPatientId(), r.getDrugName(),
+                            r.getConflictFlag(), r.getConflictDetails()));
+                    }
+                    if (!current.isEmpty()) {
+                        patients.add(current);
+                    }
+                    if (!patients.isEmpty()) {
+                        submit(new Chunk(patients, lastPatientOf(patients)), rules, workers, inFlight, checkpoint);
+                    }
+                }
+            });
+            while (!inFlight.isEmpty()) {
+                completeHead(inFlight, checkpoint);
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+
+        checkpoint.setCompleted(true);
+        saveCheckpoint(checkpoint);
+        log.info("Re-screened {} active prescriptions against rules {} in {} ms, {} updated",
+            checkpoint.getRowsChecked(), rules.version(), (System.nanoTime() - start) / 1_000_000,
+            checkpoint.getRowsUpdated());
+        return new Result(rules.version(), checkpoint.getRowsChecked(), checkpoint.getRowsUpdated(), resumed);
+    }
+
+    private static Long lastPatientOf(List<List<Row>> patients) {
+        return patients.get(patients.size() - 1).get(0).patientId();
+    }
+
+    private void submit(Chunk chunk, DrugConflictEngine rules, ExecutorService workers,
+                        Deque<InFlight> inFlight, MedicationRescreenCheckpoint checkpoint) {
+        inFlight.addLast(new InFlight(chunk.lastPatientId(), workers.submit(() -> process(chunk, rules))));
+        // record finished chunks, and wait once enough are queued so the reader can't run ahead
+        while (!inFlight.isEmpty() && (inFlight.peekFirst().result().isDone() || inFlight.size() > parallelism * 2)) {
+            completeHead(inFlight, checkpoint);
+        }
+    }
+
+    private void completeHead(Deque<InFlight> inFlight, MedicationRescreenCheckpoint checkpoint) {
+        InFlight head = inFlight.removeFirst();
+        ChunkResult result;
+        try {
+            result = head.result().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Medication re-screen interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Medication re-screen chunk failed", e.getCause());
+        }
+        checkpoint.setLastPatientId(head.lastPatientId());
+        checkpoint.setRowsChecked(checkpoint.getRowsChecked() + result.rowsChecked());
+        checkpoint.setRowsUpdated(checkpoint.getRowsUpdated() + result.rowsUpdated());
+        saveCheckpoint(checkpoint);
+    }
+
+    private void saveCheckpoint(MedicationRescreenCheckpoint checkpoint) {
+        checkpoint.setUpdatedAt(LocalDateTime.now());
+        writeTransaction.executeWithoutResult(status -> checkpointRepository.save(checkpoint));
+    }
+
+    // check each patient's regimen and write back the rows whose flag or details changed
+    private ChunkResult process(Chunk chunk, DrugConflictEngine rules) {
+        Set<Long> patientIds = new HashSet<>();
+        long rowsChecked = 0;
+        for (List<Row> patient : chunk.patients()) {
+            patientIds.add(patient.get(0).patientId());
+            rowsChecked += patient.size();
+        }
+        Map<Long, List<String>> allergiesByPatient = new HashMap<>();
+        for (Allergy allergy : allergyRepository.findAllByPatientIdIn(patientIds)) {
+            allergiesByPatient.computeIfAbsent(allergy.getPatientId(), id -> new ArrayList<>()).add(allergy.getSubstance());
+        }
+
+        List<Object[]> updates = new ArrayList<>();
+        List<Object[]> noDrugUpdates = new ArrayList<>();
+        Set<Long> changedPatients = new HashSet<>();
+        for (List<Row> patient : chunk.patients()) {
+            Long patientId = patient.get(0).patientId();
+            List<List<String>> messages = screen(patient.stream().map(Row::drugName).toList(),
+                allergiesByPatient.getOrDefault(patientId, List.of()), rules);
+            for (int i = 0; i < patient.size(); i++) {
+                Row row = patient.get(i);
+                boolean flag = !messages.get(i).isEmpty();
+                String details = flag ? String.join("; ", messages.get(i)) : null;
+                boolean unchanged = flag == Boolean.TRUE.equals(row.conflictFlag())
+                    && Objects.equals(details, row.conflictDetails());
+                if (!unchanged) {
+                    if (row.drugName() != null) {
+                        updates.add(new Object[] {flag, details, row.id(), row.drugName()});
+                    } else {
+                        noDrugUpdates.add(new Object[] {flag, details, row.id()});
+                    }
+                    changedPatients.add(patientId);
+                }
+            }
+        }
+
+        long rowsUpdated = 0;
+        if (!changedPatients.isEmpty()) {
+            rowsUpdated = writeTransaction.execute(status ->
+                updatedRows(jdbcTemplate.batchUpdate(UPDATE_SQL, updates,
+                    new int[] {Types.BOOLEAN, Types.CLOB, Types.BIGINT, Types.VARCHAR}))
+                + updatedRows(jdbcTemplate.batchUpdate(UPDATE_NO_DRUG_SQL, noDrugUpdates,
+                    new int[] {Types.BOOLEAN, Types.CLOB, Types.BIGINT})));
+            // JDBC updates bypass the entity listeners
+            changedPatients.forEach(patientChartCache::invalidate);
+        }
+        return new ChunkResult(rowsChecked, rowsUpdated);
+    }
+
+    // rows a batch actually changed; statements whose row no longer matched count 0
+    private static long updatedRows(int[] counts) {
+        long rows = 0;
+        for (int count : counts) {
+            // drivers that rewrite batches may not report per-statement counts
+            rows += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(count, 0);
+        }
+        return rows;
+    }
+
+    // conflict messages for each of one patient's active prescriptions (drug names in id
+    // order), same order as drugs
+    static List<List<String>> screen(List<String> drugs, List<String> allergies, DrugConflictEngine rules) {
+        List<List<String>> messages = new ArrayList<>(drugs.size());
+        for (int i = 0; i < drugs.size(); i++) {
+            messages.add(new ArrayList<>());
+        }
+
+        // a drug prescribed twice: flag the later prescription, as createSinglePrescription does
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < drugs.size(); i++) {
+            String key = DrugConflictEngine.normalize(drugs.get(i));
+            if (key != null && !seen.add(key)) {
+                messages.get(i).add("Duplicate medication exists: '" + drugs.get(i) + "' already in patient history");
+            }
+        }
+        for (DrugConflictEngine.Conflict c : rules.allergyConflicts(drugs, allergies)) {
+            messages.get(c.drugIndex()).add("Allergy conflict: '" + c.drug() + "' vs allergy to '" + c.other() + "'");
+        }
+        for (DrugConflictEngine.Conflict c : rules.interactions(drugs)) {
+            messages.get(c.drugIndex()).add("Interaction: '" + c.drug() + "' with existing '" + c.other() + "'");
+            messages.get(c.otherIndex()).add("Interaction: '" + c.other() + "' with existing '" + c.drug() + "'");
+        }
+        return messages;
+    }
+}
@@ -4,6 +4,7 @@ import com.Eges411Team.UnifiedPatientManager.repositories.AllergyRepository;
 import com.Eges411Team.UnifiedPatientManager.entity.Allergy;
 import com.Eges411Team.UnifiedPatientManager.entity.Medication;
 import com.Eges411Team.UnifiedPatientManager.repositories.MedicationRepository;
+import com.Eges411Team.UnifiedPatientManager.DTOs.responses.PrescriptionConflictMatrixResponse;
 import com.Eges411Team.UnifiedPatientManager.DTOs.responses.PrescriptionResultResponse;
 import com.Eges411Team.UnifiedPatientManager.DTOs.mappers.MedicationMapper;
 import org.springframework.http.HttpStatus;
@@ -12,8 +13,11 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 @Service
 @Transactional
@@ -22,106 +26,53 @@ public class MedicationService {
     private final MedicationRepository medicationRepository;
     private final AllergyRepository allergyRepository;
 
-    // Allergy → list of medications that should NOT be prescribed
-    private static final Map<String, List<String>> ALLERGY_CONFLICTS = Map.of(
-        // Antibiotic-related
-        "Penicillin", List.of("Penicillin", "Amoxicillin", "Ampicillin", "Oxacillin", "Piperacillin"),
-        "Cephalosporins", List.of("Cephalexin", "Ceftriaxone", "Cefuroxime"),
-        "Sulfa", List.of("Sulfamethoxazole", "Trimethoprim-Sulfamethoxazole", "Sulfasalazine"),
+    // allergy/interaction rules; swapped whole when the rule file changes
+    private final DrugKnowledgeBase drugKnowledgeBase;
+    private final PatientChartCacheInvalidator chartCacheInvalidator;
 
-        // Pain / NSAID related
-        "NSAIDs", List.of("Ibuprofen", "Naproxen", "Aspirin", "Diclofenac", "Indomethacin"),
-        "Aspirin", List.of("Aspirin", "Ibuprofen", "Naproxen"),
-
-        // Opioid-related
-        "Opioids", List.of("Morphine", "Codeine", "Oxycodone", "Hydrocodone", "Hydromorphone"),
-
-        // Cardiovascular / statins / beta-blockers
-        "StatinIntolerance", List.of("Atorvastatin", "Simvastatin", "Rosuvastatin", "Pravastatin"),
-        "BetaBlockers", List.of("Metoprolol", "Atenolol", "Propranolol"),
-
-        // Endocrine
-        "ThyroidHormone", List.of("Levothyroxine", "Liothyronine"),
-        "Insulin", List.of("Insulin Glargine", "Insulin Lispro", "Insulin Aspart")
-    );
-
-    // Medication ↔ medication interaction pairs
-    private static final List<List<String>> MED_INTERACTIONS = List.of(
-        // Anticoagulant + NSAID (demo: bleeding risk)
-        List.of("Warfarin", "Aspirin"),
-        List.of("Warfarin", "Ibuprofen"),
-        List.of("Warfarin", "Naproxen"),
-
-        // Two BP drugs (demo: duplicate therapy)
-        List.of("Lisinopril", "Losartan"),
-        List.of("Lisinopril", "Amlodipine"),
-
-        // Sedatives + opioids (demo: CNS depression)
-        List.of("Diazepam", "Oxycodone"),
-        List.of("Gabapentin", "Oxycodone"),
-
-        // SSRI + NSAID (demo: bleeding risk)
-        List.of("Sertraline", "Ibuprofen"),
-        List.of("Sertraline", "Aspirin"),
-
-        // Statin + fibrate-style lipid drug (demo: muscle risk)
-        List.of("Atorvastatin", "Gemfibrozil")
-    );
-
-
-    public MedicationService(MedicationRepository medicationRepository, AllergyRepository allergyRepository) {
+    public MedicationService(MedicationRepository medicationRepository, AllergyRepository allergyRepository,
+                             DrugKnowledgeBase drugKnowledgeBase, PatientChartCacheInvalidator chartCacheInvalidator) {
         this.medicationRepository = medicationRepository;
         this.allergyRepository = allergyRepository;
+        this.drugKnowledgeBase = drugKnowledgeBase;
+        this.chartCacheInvalidator = chartCacheInvalidator;
     }
 
     /**
      * Checks:
-     * 1) Each medication against patient's allergies (ALLERGY_CONFLICTS)
-     * 2) Every pair of medications against MED_INTERACTIONS
-     * Throws ResponseStatusException if any conflict is found.
+     * 1) Each prescription against patient's allergies
+     * 2) Every pair of medications for drug-drug interactions
+     * using the current DrugKnowledgeBase rules.
+     * Throws ResponseStatusException listing every conflict found.
      */
     private void checkForConflictsOrThrow(Long patientId, List<Medication> meds) {
-        // 1) Med vs allergies
-        List<Allergy> allergies = allergyRepository.findAllByPatientId(patientId);
-
+        DrugConflictEngine rules = currentRules();
+        List<String> prescribed = new ArrayList<>();
+        List<String> all = new ArrayList<>(meds.size());
         for (Medication med : meds) {
-            // Only check prescriptions if you want
-            if (!Boolean.TRUE.equals(med.getIsPerscription())) {
-                continue;
-            }
-            String drugName = med.getDrugName();
-            if (drugName == null) continue;
-
-            for (Allergy allergy : allergies) {
-                String substance = allergy.getSubstance();
-                if (substance == null) continue;
-
-                List<String> badDrugs = ALLERGY_CONFLICTS.get(substance);
-                if (badDrugs != null && badDrugs.stream().anyMatch(bad -> bad.equalsIgnoreCase(drugName))) {
-                    throw new ResponseStatusException(
-                        HttpStatus.BAD_REQUEST,
-                        "Medication '" + drugName + "' conflicts with allergy to '" + substance + "'"
-                    );
-                }
+            all.add(med.getDrugName());
+            // Only check prescriptions against allergies
+            if (Boolean.TRUE.equals(med.getIsPerscription())) {
+                prescribed.add(med.getDrugName());
             }
         }
 
+        List<String> problems = new ArrayList<>();
+        // 1) Med vs allergies
+        List<String> substances = allergyRepository.findAllByPatientId(patientId).stream()
+            .map(Allergy::getSubstance)
+            .toList();
+        for (DrugConflictEngine.Conflict c : rules.allergyConflicts(prescribed, substances)) {
+            problems.add("Medication '" + c.drug() + "' conflicts with allergy to '" + c.other() + "'");
+        }
+
         // 2) Med vs med (drug–drug interactions)
-        for (int i = 0; i < meds.size(); i++) {
-            Medication m1 = meds.get(i);
-            String d1 = m1.getDrugName();
-            if (d1 == null) continue;
-            for (int j = i + 1; j < meds.size(); j++) {
-                Medication m2 = meds.get(j);
-                String d2 = m2.getDrugName();
-                if (d2 == null) continue;
-                if (isBadInteraction(d1, d2)) {
-                    throw new ResponseStatusException(
-                        HttpStatus.BAD_REQUEST,
-                        "Medication interaction detected between '" + d1 + "' and '" + d2 + "'"
-                    );
-                }
-            }
+        for (DrugConflictEngine.Conflict c : rules.interactions(all)) {
+            problems.add("Medication interaction detected between '" + c.drug() + "' and '" + c.other() + "'");
+        }
+
+        if (!problems.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, String.join("; ", problems));
         }
     }
 
@@ -129,7 +80,7 @@ public class MedicationService {
      * Collect conflicts for a single prospective prescription without throwing.
      * Checks allergies and interactions with existing prescriptions.
      */
-    private List<String> collectConflicts(Long patientId, Medication prospective) {
+    private List<String> collectConflicts(DrugConflictEngine rules, Long patientId, Medication prospective) {
         List<String> conflicts = new ArrayList<>();
         if (!Boolean.TRUE.equals(prospective.getIsPerscription())) {
             return conflicts; // Only guard prescriptions
@@ -140,38 +91,26 @@ public class MedicationService {
         }
 
         // Allergy conflicts
-        List<Allergy> allergies = allergyRepository.findAllByPatientId(patientId);
-        for (Allergy allergy : allergies) {
-            String substance = allergy.getSubstance();
-            if (substance == null) continue;
-            List<String> badDrugs = ALLERGY_CONFLICTS.get(substance);
-            if (badDrugs != null && badDrugs.stream().anyMatch(bad -> bad.equalsIgnoreCase(drugName))) {
-                conflicts.add("Allergy conflict: '" + drugName + "' vs allergy to '" + substance + "'");
-            }
+        List<String> substances = allergyRepository.findAllByPatientId(patientId).stream()
+            .map(Allergy::getSubstance)
+            .toList();
+        for (DrugConflictEngine.Conflict c : rules.allergyConflicts(List.of(drugName), substances)) {
+            conflicts.add("Allergy conflict: '" + drugName + "' vs allergy to '" + c.other() + "'");
         }
 
         // Drug-drug interactions with existing medications
-        List<Medication> existing = medicationRepository.findAllByPatientId(patientId);
-        for (Medication current : existing) {
-            String existingDrug = current.getDrugName();
-            if (existingDrug == null) continue;
-            if (isBadInteraction(drugName, existingDrug)) {
-                conflicts.add("Interaction: '" + drugName + "' with existing '" + existingDrug + "'");
-            }
+        List<String> existing = medicationRepository.findAllByPatientId(patientId).stream()
+            .map(Medication::getDrugName)
+            .toList();
+        for (DrugConflictEngine.Conflict c : rules.interactionsWith(drugName, existing)) {
+            conflicts.add("Interaction: '" + drugName + "' with existing '" + c.other() + "'");
         }
         return conflicts;
     }
 
-    // Helper: checks if two drug names form a "bad pair" (ignoring order & case)
-    private boolean isBadInteraction(String d1, String d2) {
-        for (List<String> pair : MED_INTERACTIONS) {
-            if (pair.size() != 2) continue;
-            String a = pair.get(0);
-            String b = pair.get(1);
-            boolean match = (a.equalsIgnoreCase(d1) && b.equalsIgnoreCase(d2)) || (a.equalsIgnoreCase(d2) && b.equalsIgnoreCase(d1));
-            if (match) return true;
-        }
-        return false;
+    // one snapshot per check, so a rule reload mid-check can't mix old and new rules
+    private DrugConflictEngine currentRules() {
+        return drugKnowledgeBase != null ? drugKnowledgeBase.current() : DrugKnowledgeBase.BUILT_IN;
     }
 
     // GET /{patient_id}/medications
@@ -182,16 +121,58 @@ public class MedicationService {
     // POST /{patient_id}/providers/{provider_id}/medications
     // Replace all medications for this patient; assign provider (doctor) to each entry.
     public List<Medication> saveMedications(Long patientId, Long providerId, List<Medication> medications) {
-        // Remove existing meds for this patient
+        // Apply the new list as a diff: update matched meds, bulk-delete the rest, insert new ones.
+        // Conflict flags/details on matched meds are kept while the drug stays the same; they
+        // aren't part of the request. A changed drug's old screening result was for another
+        // drug, so it is screened again below with the current rules.
         List<Medication> existing = medicationRepository.findAllByPatientId(patientId);
-        medicationRepository.deleteAll(existing);
+        List<Medication> changedDrugs = new ArrayList<>();
+        List<Medication> saved = ListReplacement.apply(existing, medications, Medication::getId,
+            (source, target) -> {
+                if (!Objects.equals(source.getDrugName(), target.getDrugName())) {
+                    changedDrugs.add(target);
+                }
+                copyMedicationFields(source, target);
+                target.setDoctorId(providerId);
+                target.setOverrideJustification(source.getOverrideJustification());
+            },
+            med -> {
+                // Set correct foreign keys on new entries
+                med.setId(null);
+                med.setPatientId(patientId);
+                med.setDoctorId(providerId);
+            },
+            removedIds -> {
+                medicationRepository.deleteAllByIdInBatch(removedIds);
+                // the bulk delete skips the entity listener
+                chartCacheInvalidator.invalidate(patientId);
+            },
+            medicationRepository::saveAll);
+        screenChangedDrugs(patientId, saved, changedDrugs);
+        return saved;
+    }
 
-        // Set correct foreign keys on incoming list
-        for (Medication med : medications) {
-            med.setPatientId(patientId);
-            med.setDoctorId(providerId);
+    // Flags each changed med the way MedicationRescreenJob would for the saved regimen: its
+    // duplicates, allergy conflicts and interactions among the active prescriptions
+    private void screenChangedDrugs(Long patientId, List<Medication> saved, List<Medication> changedDrugs) {
+        if (changedDrugs.isEmpty()) {
+            return;
+        }
+        List<Medication> active = saved.stream()
+            .filter(med -> Boolean.TRUE.equals(med.getStatus()) && Boolean.TRUE.equals(med.getIsPerscription()))
+            .sorted(Comparator.comparing(Medication::getId))
+            .toList();
+        List<String> substances = allergyRepository.findAllByPatientId(patientId).stream()
+            .map(Allergy::getSubstance)
+            .toList();
+        List<List<String>> messages = MedicationRescreenJob.screen(
+            active.stream().map(Medication::getDrugName).toList(), substances, currentRules());
+        for (Medication med : changedDrugs) {
+            int index = active.indexOf(med);
+            List<String> found = index < 0 ? List.of() : messages.get(index);
+            med.setConflictFlag(!found.isEmpty());
+            med.setConflictDetails(found.isEmpty() ? null : String.join("; ", found));
         }
-        return medicationRepository.saveAll(medications);
     }
 
     // PUT /{patient_id}/providers/{provider_id}/medications/{medication_id}
@@ -213,19 +194,23 @@ public class MedicationService {
         // Ensure provider mapping
     existing.setDoctorId(providerId);
 
-        // Copy updatable fields (align these with your Medication entity)
-    existing.setDrugName(updated.getDrugName());
-        existing.setDose(updated.getDose());
-        existing.setFrequency(updated.getFrequency());
-        existing.setDuration(updated.getDuration());
-        existing.setNotes(updated.getNotes());
-        existing.setTimestamp(updated.getTimestamp());
-        existing.setStatus(updated.getStatus());
-        existing.setIsPerscription(updated.getIsPerscription());
-        existing.setRoute(updated.getRoute());
+        copyMedicationFields(updated, existing);
         return medicationRepository.save(existing);
     }
 
+    // Copy updatable fields (align these with your Medication entity)
+    private static void copyMedicationFields(Medication source, Medication target) {
+        target.setDrugName(source.getDrugName());
+        target.setDose(source.getDose());
+        target.setFrequency(source.getFrequency());
+        target.setDuration(source.getDuration());
+        target.setNotes(source.getNotes());
+        target.setTimestamp(source.getTimestamp());
+        target.setStatus(source.getStatus());
+        target.setIsPerscription(source.getIsPerscription());
+        target.setRoute(source.getRoute());
+    }
+
     // DELETE /{patient_id}/medications/{medication_id}
     public void deleteMedication(Long patientId, Long medicationId) {
         Medication existing = medicationRepository.findById(medicationId).orElseThrow(() -> new ResponseStatusException(
@@ -242,6 +227,7 @@ public class MedicationService {
     public PrescriptionResultResponse createSinglePrescription(Long patientId, Long providerId, Medication medication, boolean overrideRequested, String overrideJustification) {
         medication.setPatientId(patientId);
         medication.setDoctorId(providerId);
+        DrugConflictEngine rules = currentRules();
         // Duplicate medication check: if the same drug name already exists in patient's history,
         // treat it as a conflict that can be overridden with justification.
         List<Medication> existingMeds = medicationRepository.findAllByPatientId(patientId);
@@ -251,7 +237,7 @@ public class MedicationService {
                 if (e.getDrugName() != null && e.getDrugName().equalsIgnoreCase(drugName)) {
                     String dupMsg = "Duplicate medication exists: '" + drugName + "' already in patient history";
                     if (!overrideRequested) {
-                        return new PrescriptionResultResponse(true, List.of(dupMsg), null);
+                        return new PrescriptionResultResponse(true, List.of(dupMsg), null, rules.version());
                     } else {
                         medication.setConflictFlag(true);
                         medication.setConflictDetails(dupMsg);
@@ -262,9 +248,9 @@ public class MedicationService {
             }
         }
 
-        List<String> conflicts = collectConflicts(patientId, medication);
+        List<String> conflicts = collectConflicts(rules, patientId, medication);
         if (!conflicts.isEmpty() && !overrideRequested) {
-            return new PrescriptionResultResponse(true, conflicts, null);
+            return new PrescriptionResultResponse(true, conflicts, null, rules.version());
         }
         if (!conflicts.isEmpty() && overrideRequested) {
             medication.setConflictFlag(true);
@@ -272,6 +258,88 @@ public class MedicationService {
             medication.setOverrideJustification(overrideJustification);
         }
         Medication saved = medicationRepository.save(medication);
-        return new PrescriptionResultResponse(!conflicts.isEmpty(), conflicts, MedicationMapper.toResponseDto(saved));
+        return new PrescriptionResultResponse(!conflicts.isEmpty(), conflicts, MedicationMapper.toResponseDto(saved),
+            rules.version());
+    }
+
+    /**
+     * Check a whole batch of prospective prescriptions without saving anything.
+     * Loads the patient's allergies and medications once and reports, per entry:
+     * duplicates of existing medications, allergy conflicts, interactions with existing
+     * medications and interactions with other entries in the batch. As with single
+     * prescriptions, allergy and interaction checks only guard entries marked as
+     * prescriptions (a batch pair is reported if either side is one).
+     */
+    @Transactional(readOnly = true)
+    public PrescriptionConflictMatrixResponse checkPrescriptionBatch(Long patientId, List<Medication> prospective) {
+        DrugConflictEngine rules = currentRules();
+        List<String> substances = allergyRepository.findAllByPatientId(patientId).stream()
+            .map(Allergy::getSubstance)
+            .toList();
+        List<String> existing = medicationRepository.findAllByPatientId(patientId).stream()
+            .map(Medication::getDrugName)
+            .toList();
+
+        PrescriptionConflictMatrixResponse response = new PrescriptionConflictMatrixResponse();
+        response.setRuleSetVersion(rules.version());
+        List<PrescriptionConflictMatrixResponse.Entry> entries = response.getEntries();
+
+        List<String> names = new ArrayList<>(prospective.size());
+        // same positions as names, null where the entry isn't a prescription
+        List<String> guarded = new ArrayList<>(prospective.size());
+        for (int i = 0; i < prospective.size(); i++) {
+            Medication med = prospective.get(i);
+            String drugName = med.getDrugName();
+            names.add(drugName);
+            guarded.add(Boolean.TRUE.equals(med.getIsPerscription()) ? drugName : null);
+            entries.add(new PrescriptionConflictMatrixResponse.Entry(i, drugName));
+        }
+
+        // Duplicate medication check against the patient's history
+        Set<String> existingNames = new HashSet<>();
+        for (String drug : existing) {
+            String key = DrugConflictEngine.normalize(drug);
+            if (key != null) {
+                existingNames.add(key);
+            }
+        }
+        for (PrescriptionConflictMatrixResponse.Entry entry : entries) {
+            String key = DrugConflictEngine.normalize(entry.getDrugName());
+            if (key != null && existingNames.contains(key)) {
+                entry.setDuplicateOfExisting(true);
+                entry.getConflictMessages().add(
+                    "Duplicate medication exists: '" + entry.getDrugName() + "' already in patient history");
+            }
+        }
+
+        // Allergy conflicts
+        for (DrugConflictEngine.Conflict c : rules.allergyConflicts(guarded, substances)) {
+            PrescriptionConflictMatrixResponse.Entry entry = entries.get(c.drugIndex());
+            entry.getAllergyConflicts().add(c.other());
+            entry.getConflictMessages().add("Allergy conflict: '" + c.drug() + "' vs allergy to '" + c.other() + "'");
+        }
+
+        // Drug-drug interactions with existing medications
+        for (DrugConflictEngine.Conflict c : rules.interactionsBetween(guarded, existing)) {
+            PrescriptionConflictMatrixResponse.Entry entry = entries.get(c.drugIndex());
+            entry.getExistingInteractions().add(c.other());
+            entry.getConflictMessages().add("Interaction: '" + c.drug() + "' with existing '" + c.other() + "'");
+        }
+
+        // Drug-drug interactions within the batch, recorded on both entries
+        for (DrugConflictEngine.Conflict c : rules.interactions(names)) {
+            int i = c.drugIndex();
+            int j = c.otherIndex();
+            if (guarded.get(i) == null && guarded.get(j) == null) {
+                continue;
+            }
+            entries.get(i).getBatchInteractions().add(j);
+            entries.get(i).getConflictMessages().add("Interaction: '" + c.drug() + "' with '" + c.other() + "' in this batch");
+            entries.get(j).getBatchInteractions().add(i);
+            entries.get(j).getConflictMessages().add("Interaction: '" + c.other() + "' with '" + c.drug() + "' in this batch");
+        }
+
+        response.setConflicts(entries.stream().anyMatch(e -> !e.getConflictMessages().isEmpty()));
+        return response;
     }
 }
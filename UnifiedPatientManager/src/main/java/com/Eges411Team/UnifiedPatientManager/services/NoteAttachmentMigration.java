@@ -0,0 +1,112 @@
+package com.Eges411Team.UnifiedPatientManager.services;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.sql.Blob;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Moves attachments that still live in note.attachment_data into NoteAttachmentStore,
+// a batch of rows per transaction: each blob is streamed to disk, then the row gets its
+// hash/size/media type and the LOB column is set to NULL.
+// Safe to re-run (only rows without a hash are picked up, and the store dedups), so it
+// can be stopped at any point. Run with notes.attachment-store.migrate-on-startup=true
+// or call migrateAll().
+@Component
+public class NoteAttachmentMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(NoteAttachmentMigration.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NoteAttachmentStore noteAttachmentStore;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final boolean migrateOnStartup;
+
+    public NoteAttachmentMigration(JdbcTemplate jdbcTemplate,
+                                   NoteAttachmentStore noteAttachmentStore,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${notes.attachment-store.migration-batch-size:50}") int batchSize,
+                                   @Value("${notes.attachment-store.migrate-on-startup:false}") boolean migrateOnStartup) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.noteAttachmentStore = noteAttachmentStore;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.migrateOnStartup = migrateOnStartup;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        if (migrateOnStartup) {
+            migrateAll();
+        }
+    }
+
+    // migrate until no legacy rows are left; returns how many notes were moved
+    public int migrateAll() {
+        int total = 0;
+        int moved;
+        do {
+            moved = migrateBatch(batchSize);
+            total += moved;
+        } while (moved > 0);
+        log.info("Moved {} note attachments into the attachment store", total);
+        return total;
+    }
+
+    // migrate up to limit rows in one transaction; returns how many were moved
+    public int migrateBatch(int limit) {
+        Integer moved = transactionTemplate.execute(status -> {
+            List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                "SELECT id, attachment_name FROM note "
+                    + "WHERE attachment_data IS NOT NULL AND attachment_hash IS NULL ORDER BY id LIMIT ?",
+                limit);
+
+            List<Object[]> updates = new ArrayList<>(rows.size());
+            for (Map<String, Object> row : rows) {
+                Long noteId = ((Number) row.get("id")).longValue();
+                String name = (String) row.get("attachment_name");
+                NoteAttachmentStore.StoredAttachment stored = copyToStore(noteId);
+                updates.add(new Object[] {
+                    stored.hash(), stored.size(), NoteService.resolveMediaType(null, name), noteId
+                });
+            }
+            if (!updates.isEmpty()) {
+                jdbcTemplate.batchUpdate(
+                    "UPDATE note SET attachment_hash = ?, attachment_size = ?, attachment_media_type = ?, "
+                        + "attachment_data = NULL WHERE id = ?",
+                    updates);
+            }
+            return updates.size();
+        });
+        return moved == null ? 0 : moved;
+    }
+
+    private NoteAttachmentStore.StoredAttachment copyToStore(Long noteId) {
+        return jdbcTemplate.query("SELECT attachment_data FROM note WHERE id = ?",
+            rs -> {
+                rs.next();
+                Blob blob = rs.getBlob(1);
+                try (InputStream in = blob.getBinaryStream()) {
+                    return noteAttachmentStore.put(in);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } finally {
+                    blob.free();
+                }
+            },
+            noteId);
+    }
+}
@@ -0,0 +1,166 @@
+package com.Eges411Team.UnifiedPatientManager.services;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Blob;
+import java.util.HexFormat;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+
+// Content-addressed store for note attachments on local disk.
+// Each file is named by the SHA-256 of its bytes (<root>/ab/cd/abcd...), so identical
+// uploads are stored once and the note row only keeps hash, size and media type.
+// Downloads go through FileChannel.transferTo.
+//
+// Notes saved before the store existed still have their bytes in note.attachment_data;
+// the legacy* methods read that column until NoteAttachmentMigration has moved them.
+@Component
+public class NoteAttachmentStore {
+
+    // hash and size of a stored file; created is false when the bytes were already stored
+    public record StoredAttachment(String hash, long size, boolean created) {}
+
+    private final Path root;
+    private final JdbcTemplate jdbcTemplate;
+
+    public NoteAttachmentStore(@Value("${notes.attachment-store.dir:uploads/note-attachments}") String root,
+                               JdbcTemplate jdbcTemplate) {
+        this.root = Paths.get(root).toAbsolutePath();
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Copy the stream to a temp file while hashing it, then move it to its content
+    // address. If that address already exists the upload is a duplicate and the temp
+    // file is dropped.
+    public StoredAttachment put(InputStream data) {
+        try {
+            Path tmpDir = Files.createDirectories(root.resolve("tmp"));
+            Path tmp = Files.createTempFile(tmpDir, "upload-", ".part");
+            try {
+                MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+                long size;
+                try (InputStream in = new DigestInputStream(data, sha256);
+                     OutputStream out = Files.newOutputStream(tmp, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    size = StreamUtils.copy(in, out);
+                }
+                String hash = HexFormat.of().formatHex(sha256.digest());
+                Path target = pathFor(hash);
+                boolean created = false;
+                if (!Files.exists(target)) {
+                    Files.createDirectories(target.getParent());
+                    try {
+                        Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+                        created = true;
+                    } catch (FileAlreadyExistsException e) {
+                        // another request stored the same bytes first
+                    }
+                }
+                return new StoredAttachment(hash, size, created);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not store attachment", e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public boolean exists(String hash) {
+        return Files.isRegularFile(pathFor(hash));
+    }
+
+    // Remove a stored file unless a note row points at it. Used to drop the file of an
+    // upload whose note was never saved; the check keeps a file another note shares.
+    public void deleteIfUnreferenced(String hash) {
+        Integer references = jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM note WHERE attachment_hash = ?", Integer.class, hash);
+        if (references != null && references > 0) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(pathFor(hash));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // copy bytes [start, start + length) of a stored file to out without buffering it on the heap
+    public void transferTo(String hash, long start, long length, OutputStream out) {
+        try (FileChannel file = FileChannel.open(pathFor(hash), StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(out);
+            long position = start;
+            long remaining = length;
+            while (remaining > 0) {
+                long sent = file.transferTo(position, remaining, target);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    Path pathFor(String hash) {
+        if (hash == null || !hash.matches("[0-9a-f]{64}")) {
+            throw new IllegalArgumentException("Not a SHA-256 hash: " + hash);
+        }
+        return root.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+
+    // length of a not-yet-migrated attachment still in note.attachment_data, or null
+    public Long legacySize(Long noteId) {
+        return jdbcTemplate.query("SELECT OCTET_LENGTH(attachment_data) FROM note WHERE id = ?",
+            rs -> {
+                if (!rs.next()) {
+                    return null;
+                }
+                long length = rs.getLong(1);
+                return rs.wasNull() ? null : length;
+            },
+            noteId);
+    }
+
+    // copy bytes [start, start + length) of a not-yet-migrated attachment to out
+    public void legacyCopyTo(Long noteId, long start, long length, OutputStream out) {
+        jdbcTemplate.query("SELECT attachment_data FROM note WHERE id = ?",
+            rs -> {
+                if (!rs.next() || length <= 0) {
+                    return null;
+                }
+                Blob blob = rs.getBlob(1);
+                if (blob == null) {
+                    return null;
+                }
+                try (InputStream in = blob.getBinaryStream(start + 1, length)) {
+                    StreamUtils.copy(in, out);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } finally {
+                    blob.free();
+                }
+                return null;
+            },
+            noteId);
+    }
+}
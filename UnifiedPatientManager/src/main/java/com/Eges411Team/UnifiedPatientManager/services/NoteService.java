@@ -1,15 +1,31 @@
 package com.Eges411Team.UnifiedPatientManager.services;
 
+import com.Eges411Team.UnifiedPatientManager.DTOs.responses.NotePageDTO;
+import com.Eges411Team.UnifiedPatientManager.DTOs.responses.NoteSummaryDTO;
 import com.Eges411Team.UnifiedPatientManager.entity.Note;
 import com.Eges411Team.UnifiedPatientManager.entity.NoteType;
 import com.Eges411Team.UnifiedPatientManager.repositories.NoteRepo;
 import com.Eges411Team.UnifiedPatientManager.repositories.UserRepository;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Base64;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.server.ResponseStatusException;
 
 @Service
@@ -18,6 +34,7 @@ public class NoteService {
 
     private final NoteRepo noteRepository;
     private final UserRepository userRepository;
+    private final NoteAttachmentStore noteAttachmentStore;
     
     // Supported file extensions
     private static final List<String> SUPPORTED_FILE_EXTENSIONS = Arrays.asList(
@@ -26,13 +43,25 @@ public class NoteService {
     
     // Maximum content length for notes (matches database VARCHAR limit)
     private static final int MAX_CONTENT_LENGTH = 500;
+
+    // Content shown per note in listings
+    private static final int CONTENT_PREVIEW_LENGTH = MAX_CONTENT_LENGTH;
     
     // Maximum file size for attachments (5 MB)
     private static final int MAX_FILE_SIZE_BYTES = 5 * 1024 * 1024; // 5 MB in bytes
 
-    public NoteService(NoteRepo noteRepository, UserRepository userRepository) {
+    // page size limits for getNotePage
+    private static final int DEFAULT_NOTE_PAGE_SIZE = 20;
+    private static final int MAX_NOTE_PAGE_SIZE = 100;
+
+    // window used when from/to are not given (fits MySQL DATETIME)
+    private static final LocalDateTime EARLIEST = LocalDateTime.of(1000, 1, 1, 0, 0);
+    private static final LocalDateTime LATEST = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
+    public NoteService(NoteRepo noteRepository, UserRepository userRepository, NoteAttachmentStore noteAttachmentStore) {
         this.noteRepository = noteRepository;
         this.userRepository = userRepository;
+        this.noteAttachmentStore = noteAttachmentStore;
     }
 
     // GET /{patient_id}/notes
@@ -40,23 +69,121 @@ public class NoteService {
         return noteRepository.findAllByPatientId(patientId);
     }
 
+    // GET /{patient_id}/notes listing: summaries only, no attachment bytes
+    public List<NoteSummaryDTO> getNoteSummariesByPatientId(Long patientId) {
+        return toListing(noteRepository.findSummariesByPatientId(patientId));
+    }
+
+    // GET /{patient_id}/notes/page
+    // Newest-first page of notes with timestamp in [from, to) (either bound optional).
+    // cursor is the nextCursor of the previous page, null for the latest notes.
+    // Notes without a timestamp are in no window; with neither bound given they come
+    // last, newest id first
+    public NotePageDTO getNotePage(Long patientId, LocalDateTime from, LocalDateTime to, String cursor, Integer size) {
+        int pageSize = (size == null || size < 1) ? DEFAULT_NOTE_PAGE_SIZE : Math.min(size, MAX_NOTE_PAGE_SIZE);
+        LocalDateTime windowStart = from != null ? from : EARLIEST;
+        LocalDateTime windowEnd = to != null ? to : LATEST;
+        boolean includeUndated = from == null && to == null;
+
+        LocalDateTime beforeTimestamp = LATEST;
+        Long beforeId = Long.MAX_VALUE;
+        boolean inUndatedTail = false;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] keys = decodeNoteCursor(cursor);
+            inUndatedTail = keys[0].isEmpty();
+            beforeTimestamp = inUndatedTail ? null : LocalDateTime.parse(keys[0]);
+            beforeId = Long.valueOf(keys[1]);
+        }
+
+        // fetch one extra row to know whether there is an older page
+        List<NoteSummaryDTO> rows = new ArrayList<>();
+        if (!inUndatedTail) {
+            rows.addAll(noteRepository.findSummaryPage(
+                patientId, windowStart, windowEnd, beforeTimestamp, beforeId, Limit.of(pageSize + 1)));
+            beforeId = Long.MAX_VALUE;
+        }
+        if (rows.size() <= pageSize && (inUndatedTail || includeUndated)) {
+            rows.addAll(noteRepository.findUndatedSummaryPage(patientId, beforeId, Limit.of(pageSize + 1 - rows.size())));
+        }
+        boolean hasMore = rows.size() > pageSize;
+        List<NoteSummaryDTO> notes = toListing(new ArrayList<>(rows.subList(0, Math.min(rows.size(), pageSize))));
+
+        String nextCursor = null;
+        if (hasMore) {
+            NoteSummaryDTO last = notes.get(notes.size() - 1);
+            nextCursor = encodeNoteCursor(last.getTimestamp(), last.getId());
+        }
+        return new NotePageDTO(notes, nextCursor);
+    }
+
+    // cursor = base64url("timestamp|id") of the last note on the page; the timestamp is
+    // empty once the page has reached the notes without one
+    private static String encodeNoteCursor(LocalDateTime timestamp, Long id) {
+        String raw = (timestamp == null ? "" : timestamp.toString()) + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeNoteCursor(String cursor) {
+        try {
+            String[] keys = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", -1);
+            if (keys.length != 2) {
+                throw new IllegalArgumentException("wrong number of keys");
+            }
+            if (!keys[0].isEmpty()) {
+                LocalDateTime.parse(keys[0]);
+            }
+            Long.parseLong(keys[1]);
+            return keys;
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid note cursor");
+        }
+    }
+
+    // cut content down to a preview; attachment sizes already come from the summary query
+    private List<NoteSummaryDTO> toListing(List<NoteSummaryDTO> notes) {
+        for (NoteSummaryDTO note : notes) {
+            if (note.getContent() != null && note.getContent().length() > CONTENT_PREVIEW_LENGTH) {
+                note.setContent(note.getContent().substring(0, CONTENT_PREVIEW_LENGTH));
+            }
+        }
+        return notes;
+    }
+
     // POST /{patient_id}/notes
     // Replace all notes for this patient with the provided list
     public List<Note> saveNotes(Long patientId, List<Note> notes) {
-        // Delete existing notes for this patient
+        // apply the new list as a diff: update matched notes, bulk-delete the rest, insert new ones
         List<Note> existing = noteRepository.findAllByPatientId(patientId);
-        noteRepository.deleteAll(existing);
-
-        // Ensure correct patientId
-        for (Note note : notes) {
-            note.setPatientId(patientId);
-        }
-
-        return noteRepository.saveAll(notes);
+        List<String> previousHashes = existing.stream().map(Note::getAttachmentHash).filter(Objects::nonNull).distinct().toList();
+        List<Note> saved = ListReplacement.apply(existing, notes, Note::getId,
+            NoteService::copyNoteFields,
+            note -> {
+                // Ensure correct patientId
+                note.setId(null);
+                note.setPatientId(patientId);
+                // same default as a single create, so the note shows up in pages
+                if (note.getTimestamp() == null) {
+                    note.setTimestamp(LocalDateTime.now());
+                }
+            },
+            noteRepository::deleteAllByIdInBatch,
+            noteRepository::saveAll);
+        deleteOnCommit(previousHashes);
+        return saved;
     }
 
     // PUT /{patient_id}/notes/{note_id}
     public Note updateNote(Long patientId, Long noteId, Note updated) {
+        Note existing = findOwnedNote(patientId, noteId);
+        String previousHash = existing.getAttachmentHash();
+
+        copyNoteFields(updated, existing);
+
+        deleteOnCommitIfReplaced(previousHash, existing);
+        return noteRepository.save(existing);
+    }
+
+    private Note findOwnedNote(Long patientId, Long noteId) {
         Note existing = noteRepository.findById(noteId)
             .orElseThrow(() -> new ResponseStatusException(
                 HttpStatus.NOT_FOUND,
@@ -70,16 +197,23 @@ public class NoteService {
                 "Note does not belong to the specified patient"
             );
         }
+        return existing;
+    }
 
-        // Update allowed fields
-        existing.setDoctorId(updated.getDoctorId());
-        existing.setNoteType(updated.getNoteType());
-        existing.setContent(updated.getContent());
-        existing.setTimestamp(updated.getTimestamp());
-        existing.setAttachmentName(updated.getAttachmentName());
-        existing.setAttachmentData(updated.getAttachmentData());
-
-        return noteRepository.save(existing);
+    // Update allowed fields
+    private static void copyNoteFields(Note source, Note target) {
+        target.setDoctorId(source.getDoctorId());
+        target.setNoteType(source.getNoteType());
+        target.setContent(source.getContent());
+        // an edit without a timestamp keeps the note's original one
+        if (source.getTimestamp() != null) {
+            target.setTimestamp(source.getTimestamp());
+        }
+        target.setAttachmentName(source.getAttachmentName());
+        target.setAttachmentData(source.getAttachmentData());
+        target.setAttachmentHash(source.getAttachmentHash());
+        target.setAttachmentSize(source.getAttachmentSize());
+        target.setAttachmentMediaType(source.getAttachmentMediaType());
     }
 
     // GET /{patient_id}/notes/refresh
@@ -88,6 +222,11 @@ public class NoteService {
         return noteRepository.findAllByPatientId(patientId);
     }
 
+    // summary form of refreshNotes for the listing endpoint
+    public List<NoteSummaryDTO> refreshNoteSummaries(Long patientId) {
+        return toListing(noteRepository.findSummariesByPatientId(patientId));
+    }
+
     // DELETE /{patient_id}/notes/{note_id}
     public void deleteNote(Long patientId, Long noteId) {
         Optional<Note> existingOpt = noteRepository.findById(noteId);
@@ -107,10 +246,16 @@ public class NoteService {
         }
 
         noteRepository.delete(existing);
+        deleteOnCommitIfReplaced(existing.getAttachmentHash(), null);
     }
 
     // save a single note
     public Note saveSingleNote(Note note) {
+        validateNewNote(note);
+        return noteRepository.save(note);
+    }
+
+    private void validateNewNote(Note note) {
         // Validate that the patient exists
         if (note.getPatientId() != null) {
             userRepository.findById(note.getPatientId()).orElseThrow(() ->
@@ -137,6 +282,10 @@ public class NoteService {
         }
         
         // Validate file format for FILE type notes with attachments
+        checkSupportedFileType(note);
+    }
+
+    private static void checkSupportedFileType(Note note) {
         if (note.getNoteType() == NoteType.FILE && note.getAttachmentName() != null) {
             String fileName = note.getAttachmentName().toLowerCase();
             boolean isSupported = SUPPORTED_FILE_EXTENSIONS.stream()
@@ -149,10 +298,126 @@ public class NoteService {
                 );
             }
         }
-        
+    }
+
+    // save a FILE note whose bytes go to the on-disk NoteAttachmentStore;
+    // the note row only records the content hash, size and media type.
+    // Everything is validated before the upload is written to disk
+    public Note saveSingleNote(Note note, InputStream attachment, long size, String mediaType) {
+        checkAttachmentSize(size);
+        validateNewNote(note);
+        storeAttachment(note, attachment, mediaType);
         return noteRepository.save(note);
     }
 
+    // PUT /{patient_id}/notes/{note_id} with a new attachment for the NoteAttachmentStore
+    public Note updateNote(Long patientId, Long noteId, Note updated, InputStream attachment, long size, String mediaType) {
+        checkAttachmentSize(size);
+        checkSupportedFileType(updated);
+        Note existing = findOwnedNote(patientId, noteId);
+        String previousHash = existing.getAttachmentHash();
+        storeAttachment(updated, attachment, mediaType);
+        copyNoteFields(updated, existing);
+        deleteOnCommitIfReplaced(previousHash, existing);
+        return noteRepository.save(existing);
+    }
+
+    private void storeAttachment(Note note, InputStream attachment, String mediaType) {
+        NoteAttachmentStore.StoredAttachment stored = noteAttachmentStore.put(attachment);
+        if (stored.created()) {
+            deleteOnRollback(stored.hash());
+        }
+        note.setAttachmentData(null);
+        note.setAttachmentHash(stored.hash());
+        note.setAttachmentSize(stored.size());
+        note.setAttachmentMediaType(resolveMediaType(mediaType, note.getAttachmentName()));
+    }
+
+    // a file this request added to the store goes again if the note's transaction rolls back
+    private void deleteOnRollback(String hash) {
+        deleteUnreferencedAfter(TransactionSynchronization.STATUS_ROLLED_BACK, List.of(hash));
+    }
+
+    // the note's old file is released when the note is deleted (note == null) or now points elsewhere
+    private void deleteOnCommitIfReplaced(String previousHash, Note note) {
+        if (previousHash != null && (note == null || !previousHash.equals(note.getAttachmentHash()))) {
+            deleteOnCommit(List.of(previousHash));
+        }
+    }
+
+    // files that notes pointed at before this change; once it commits, the ones no note
+    // references any more (other notes may share the same bytes) are removed from the store
+    private void deleteOnCommit(List<String> hashes) {
+        deleteUnreferencedAfter(TransactionSynchronization.STATUS_COMMITTED, hashes);
+    }
+
+    private void deleteUnreferencedAfter(int outcome, List<String> hashes) {
+        if (hashes.isEmpty() || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == outcome) {
+                    hashes.forEach(noteAttachmentStore::deleteIfUnreferenced);
+                }
+            }
+        });
+    }
+
+    // the client's content type if it parses, otherwise a guess from the file name
+    static String resolveMediaType(String mediaType, String fileName) {
+        if (mediaType != null && !mediaType.isBlank()) {
+            try {
+                return MediaType.parseMediaType(mediaType).toString();
+            } catch (InvalidMediaTypeException e) {
+                // fall through to the file name
+            }
+        }
+        if (fileName == null) {
+            return MediaType.APPLICATION_OCTET_STREAM_VALUE;
+        }
+        return MediaTypeFactory.getMediaType(fileName).orElse(MediaType.APPLICATION_OCTET_STREAM).toString();
+    }
+
+    private static void checkAttachmentSize(long size) {
+        if (size > MAX_FILE_SIZE_BYTES) {
+            throw new ResponseStatusException(
+                HttpStatus.BAD_REQUEST,
+                "File size exceeds maximum allowed size of " + (MAX_FILE_SIZE_BYTES / 1024 / 1024) + " MB"
+            );
+        }
+    }
+
+    // Look up a FILE note's attachment metadata for download without loading the attachment itself
+    public NoteRepo.AttachmentInfo getAttachmentForPatient(Long patientId, Long noteId) {
+        NoteRepo.AttachmentInfo info = noteRepository.findAttachmentInfoById(noteId)
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Note not found with id: " + noteId));
+        if (info.getPatientId() == null || !info.getPatientId().equals(patientId)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Note does not belong to the specified patient");
+        }
+        return info;
+    }
+
+    // attachment length in bytes (null when there is none), read without loading the bytes
+    @Transactional(readOnly = true)
+    public Long getAttachmentSize(NoteRepo.AttachmentInfo info) {
+        if (info.getAttachmentHash() != null) {
+            return info.getAttachmentSize();
+        }
+        return noteAttachmentStore.legacySize(info.getId());
+    }
+
+    // stream bytes [start, start + length) of a note's attachment to out
+    @Transactional(readOnly = true)
+    public void copyAttachment(NoteRepo.AttachmentInfo info, long start, long length, OutputStream out) {
+        if (info.getAttachmentHash() != null) {
+            noteAttachmentStore.transferTo(info.getAttachmentHash(), start, length, out);
+        } else {
+            noteAttachmentStore.legacyCopyTo(info.getId(), start, length, out);
+        }
+    }
+
     // Retrieve single note ensuring it belongs to patient
     public Note getNoteForPatient(Long patientId, Long noteId) {
         Note existing = noteRepository.findById(noteId)
@@ -0,0 +1,256 @@
+package com.Eges411Team.UnifiedPatientManager.services;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.Eges411Team.UnifiedPatientManager.entity.OtpEmail;
+import com.Eges411Team.UnifiedPatientManager.repositories.OtpEmailRepository;
+
+import jakarta.annotation.PreDestroy;
+
+// Sends OTP emails from the otp_email_outbox table so login never waits on SMTP.
+//
+// enqueue() writes the outbox row inside the caller's transaction and, once that commits,
+// wakes a background thread to drain the outbox. A scheduled poll also drains it, which
+// picks up retries and anything left over from a restart. Each batch of due rows goes out
+// through EmailService.sendAll, so one SMTP connection (and one TLS handshake) is shared by
+// the whole batch instead of one per email. Sent rows are deleted; rows that fail are
+// retried with exponential backoff until they run out of attempts or the OTP expires.
+//
+// Assumes a single application instance draining the outbox; with several, a row could be
+// sent twice.
+@Component
+public class OtpEmailDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(OtpEmailDispatcher.class);
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final OtpEmailRepository otpEmailRepository;
+    private final EmailService emailService;
+    private final TransactionTemplate transaction;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long backoffMillis;
+    private final long maxBackoffMillis;
+
+    private final ReentrantLock draining = new ReentrantLock();
+    private final AtomicBoolean wakeUpPending = new AtomicBoolean();
+    private final ExecutorService background = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "otp-email-dispatch");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public OtpEmailDispatcher(OtpEmailRepository otpEmailRepository,
+                              EmailService emailService,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${otp.mail.batch-size:50}") int batchSize,
+                              @Value("${otp.mail.max-attempts:5}") int maxAttempts,
+                              @Value("${otp.mail.backoff-ms:2000}") long backoffMillis,
+                              @Value("${otp.mail.max-backoff-ms:60000}") long maxBackoffMillis) {
+        this.otpEmailRepository = otpEmailRepository;
+        this.emailService = emailService;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.batchSize = Math.max(1, batchSize);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffMillis = Math.max(0, backoffMillis);
+        this.maxBackoffMillis = Math.max(this.backoffMillis, maxBackoffMillis);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        background.shutdownNow();
+    }
+
+    /**
+     * Queue an OTP email. Joins the caller's transaction, so the email is only sent if the
+     * OTP it carries is committed; dispatch starts as soon as that transaction commits.
+     */
+    public void enqueue(String recipient, String otpCode, LocalDateTime expiresAt) {
+        LocalDateTime now = LocalDateTime.now();
+        OtpEmail email = new OtpEmail();
+        email.setRecipient(recipient);
+        email.setOtpCode(otpCode);
+        email.setCreatedAt(now);
+        email.setExpiresAt(expiresAt);
+        email.setNextAttemptAt(now);
+        otpEmailRepository.save(email);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    wakeUp();
+                }
+            });
+        } else {
+            wakeUp();
+        }
+    }
+
+    @Scheduled(initialDelayString = "${otp.mail.dispatch-interval-ms:5000}",
+               fixedDelayString = "${otp.mail.dispatch-interval-ms:5000}")
+    public void poll() {
+        try {
+            dispatch();
+        } catch (DataAccessException e) {
+            log.warn("OTP email outbox not drained: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Send every due email in the outbox, a batch at a time. Returns the number sent.
+     */
+    public int dispatch() {
+        draining.lock();
+        try {
+            int sent = 0;
+            while (true) {
+                List<OtpEmail> due = transaction.execute(status ->
+                    otpEmailRepository.findDue(LocalDateTime.now(), PageRequest.of(0, batchSize)));
+                if (due == null || due.isEmpty()) {
+                    return sent;
+                }
+                sent += sendBatch(due);
+                if (due.size() < batchSize) {
+                    return sent;
+                }
+            }
+        } finally {
+            draining.unlock();
+        }
+    }
+
+    // several commits in quick succession share one drain
+    private void wakeUp() {
+        if (!wakeUpPending.compareAndSet(false, true)) {
+            return;
+        }
+        background.execute(() -> {
+            wakeUpPending.set(false);
+            try {
+                dispatch();
+            } catch (RuntimeException e) {
+                log.warn("OTP email dispatch failed, leaving it to the next poll: {}", e.getMessage());
+            }
+        });
+    }
+
+    private int sendBatch(List<OtpEmail> batch) {
+        LocalDateTime now = LocalDateTime.now();
+        List<OtpEmail> failed = new ArrayList<>();
+        Map<SimpleMailMessage, OtpEmail> byMessage = new IdentityHashMap<>();
+        for (OtpEmail email : batch) {
+            if (email.getExpiresAt().isBefore(now)) {
+                giveUp(email, "OTP expired before it could be sent");
+                failed.add(email);
+                continue;
+            }
+            try {
+                byMessage.put(emailService.otpMessage(email.getRecipient(), email.getOtpCode()), email);
+            } catch (IllegalArgumentException e) {
+                giveUp(email, e.getMessage());
+                failed.add(email);
+            }
+        }
+
+        // SMTP happens outside any transaction so no connection is held while it runs
+        List<SimpleMailMessage> messages = new ArrayList<>(byMessage.keySet());
+        try {
+            emailService.sendAll(messages);
+        } catch (MailSendException e) {
+            // lists the messages that failed; empty if the batch failed as a whole
+            Map<Object, Exception> failedMessages = e.getFailedMessages();
+            if (failedMessages.isEmpty()) {
+                retryAll(byMessage, e, now, failed);
+            }
+            failedMessages.forEach((message, cause) -> {
+                OtpEmail email = byMessage.remove(message);
+                if (email != null) {
+                    retryLater(email, cause, now);
+                    failed.add(email);
+                }
+            });
+        } catch (MailException e) {
+            retryAll(byMessage, e, now, failed);
+        }
+
+        Set<Long> sentIds = byMessage.values().stream().map(OtpEmail::getId).collect(Collectors.toSet());
+        transaction.executeWithoutResult(status -> {
+            if (!sentIds.isEmpty()) {
+                otpEmailRepository.deleteAllByIdInBatch(sentIds);
+            }
+            if (!failed.isEmpty()) {
+                otpEmailRepository.saveAll(failed);
+            }
+        });
+        if (!sentIds.isEmpty()) {
+            log.info("Sent {} OTP email(s)", sentIds.size());
+        }
+        return sentIds.size();
+    }
+
+    private void retryAll(Map<SimpleMailMessage, OtpEmail> byMessage, Exception cause,
+                          LocalDateTime now, List<OtpEmail> failed) {
+        for (OtpEmail email : byMessage.values()) {
+            retryLater(email, cause, now);
+            failed.add(email);
+        }
+        byMessage.clear();
+    }
+
+    private void retryLater(OtpEmail email, Exception cause, LocalDateTime now) {
+        int attempts = email.getAttempts() + 1;
+        email.setAttempts(attempts);
+        email.setLastError(truncate(cause.getMessage()));
+        if (attempts >= maxAttempts) {
+            giveUp(email, email.getLastError());
+            return;
+        }
+        // 1x, 2x, 4x ... the base delay, capped
+        long delay = Math.min(maxBackoffMillis, backoffMillis << Math.min(attempts - 1, 30));
+        email.setNextAttemptAt(now.plus(Duration.ofMillis(delay)));
+        log.warn("OTP email to {} failed (attempt {}), retrying in {} ms: {}",
+            email.getRecipient(), attempts, delay, email.getLastError());
+    }
+
+    private void giveUp(OtpEmail email, String reason) {
+        email.setFailed(true);
+        email.setOtpCode(null);
+        email.setLastError(truncate(reason));
+        log.error("Gave up sending OTP email to {}: {}", email.getRecipient(), reason);
+    }
+
+    private static String truncate(String message) {
+        if (message == null || message.length() <= MAX_ERROR_LENGTH) {
+            return message;
+        }
+        return message.substring(0, MAX_ERROR_LENGTH);
+    }
+}
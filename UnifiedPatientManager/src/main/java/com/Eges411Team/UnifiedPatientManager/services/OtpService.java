@@ -5,19 +5,16 @@ import com.Eges411Team.UnifiedPatientManager.entity.OtpToken;
 import com.Eges411Team.UnifiedPatientManager.entity.User;
 import com.Eges411Team.UnifiedPatientManager.entity.UserSession;
 import com.Eges411Team.UnifiedPatientManager.ExceptionHandlers.InvalidOtpException;
-import com.Eges411Team.UnifiedPatientManager.ExceptionHandlers.OtpExpiredException;
 import com.Eges411Team.UnifiedPatientManager.repositories.OtpTokenRepository;
 import com.Eges411Team.UnifiedPatientManager.repositories.UserRepository;
 import com.Eges411Team.UnifiedPatientManager.repositories.UserSessionRepository;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 //import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.security.SecureRandom;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.mail.MailException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -29,8 +26,8 @@ public class OtpService {
     private final OtpTokenRepository otpTokenRepository;
     private final UserRepository userRepository;
     private final UserSessionRepository userSessionRepository;
-    private final EmailService EmailService;
-    private final PasswordEncoder passwordEncoder;
+    private final OtpEmailDispatcher otpEmailDispatcher;
+    private final OtpVerifier otpVerifier;
     private final JwtTokenProvider jwtTokenProvider;
     
 
@@ -38,20 +35,21 @@ public class OtpService {
     public OtpService(OtpTokenRepository otpTokenRepository,
                      UserRepository userRepository,
                      UserSessionRepository userSessionRepository,
-                     EmailService EmailService,
-                     PasswordEncoder passwordEncoder,
+                     OtpEmailDispatcher otpEmailDispatcher,
+                     OtpVerifier otpVerifier,
                      JwtTokenProvider jwtTokenProvider) {
         this.otpTokenRepository = otpTokenRepository;
         this.userRepository = userRepository;
         this.userSessionRepository = userSessionRepository;
-        this.EmailService = EmailService;
-        this.passwordEncoder = passwordEncoder;
+        this.otpEmailDispatcher = otpEmailDispatcher;
+        this.otpVerifier = otpVerifier;
         this.jwtTokenProvider = jwtTokenProvider;
     }
 
     //LETS CREATE A METHOD TO GENERATE AND SEND OTP
-    // Ensure OTP save is not rolled back if email sending fails; this helps local testing
-    @Transactional(noRollbackFor = MailException.class)
+    // The email is queued in the outbox with the OTP and sent by OtpEmailDispatcher after
+    // commit, so login doesn't wait on SMTP and a mail outage can't lose the OTP
+    @Transactional
     public void generateAndSendOtp(User user) {
         // Step 1: Invalidate any existing unused OTPs for this user/type
         // This ensures only ONE valid OTP exists at a time
@@ -61,7 +59,7 @@ public class OtpService {
     String otpCode = generateRandomCode();
 
         // Step 3: Hash the OTP before storing in database for security
-        String hashedOtp = passwordEncoder.encode(otpCode);
+        String hashedOtp = otpVerifier.hash(user.getId(), otpCode);
 
         // Step 4: Create OTP token entity
         OtpToken otpToken = new OtpToken();
@@ -82,17 +80,13 @@ public class OtpService {
 
         // Log OTP for local development/testing (remove or lower log level in production)
         logger.info("Generated OTP for user {}: {}", user.getUsername(), otpCode);
-        // Actually attempt to send the OTP via Email but do not roll back the db save on failure
-        try {
-            EmailService.sendOtpEmail(user.getEmail(), otpCode);
-        } catch (MailException me) {
-            // Log but do not rethrow so that the OTP stays persisted and can be used for testing
-            logger.error("Failed to send OTP email to {}: {}", user.getEmail(), me.getMessage());
-        }
+        // Queue the email in the same transaction; it goes out once this commits
+        otpEmailDispatcher.enqueue(user.getEmail(), otpCode, otpToken.getExpiresAt());
 
     }
     //Now they have the OTP, they inpyt it... so need to verify its legit 
-    @Transactional
+    // a wrong code still has to commit its attempt count
+    @Transactional(noRollbackFor = InvalidOtpException.class)
     public LoginResponse verifyAndCompleteLogin(OtpVerificationRequest request) {
         
         
@@ -102,33 +96,9 @@ public class OtpService {
         User user = userRepository.findByUsername(request.getUsername())
            .orElseThrow(() -> new UsernameNotFoundException("User not found: " + request.getUsername()));
 
-        //2: Retrieve the most recent valid OTP for this user
-            OtpToken otpToken = otpTokenRepository
-                .findFirstByUser_IdAndExpiresAtAfterAndUsedFalseOrderByCreatedAtDesc(user.getId(), LocalDateTime.now())
-                .orElseThrow(() -> new InvalidOtpException("No valid OTP found for this user"));
-
-        //3: Check if OTP is expired
-        if (otpToken.getExpiresAt().isBefore(LocalDateTime.now())) {
-            throw new OtpExpiredException("OTP has expired");
-        }
-
-        //4: Check iof thje OTP has already been used 
-        if (otpToken.isUsed()) {
-            throw new InvalidOtpException("OTP has already been used");
-        }
-
-        //5: Verify the provided OTP code matches the stored hashed code
-        if (!passwordEncoder.matches(request.getOtpCode(), otpToken.getOtpCode())) {
-            // Increment attempt count
-            otpToken.setAttemptCount(otpToken.getAttemptCount() + 1);
-            otpTokenRepository.save(otpToken);
-            throw new InvalidOtpException("Invalid OTP code. Attempts remaining: " + 
-                                        (3 - otpToken.getAttemptCount()));
-        }
-
-        //6: Mark OTP as used
-        otpToken.setUsed(true);
-        otpTokenRepository.save(otpToken);
+        //2-6: Check the code against the user's current OTP and mark it used
+        // (OtpVerifier covers expiry, reuse and the attempt limit)
+        otpVerifier.verify(user.getId(), request.getOtpCode());
 
         //7: Complete login and generate JWT token
         String token = jwtTokenProvider.generateToken(user);
@@ -145,9 +115,8 @@ public class OtpService {
         session.setLastActivityTime(LocalDateTime.now());
         userSessionRepository.save(session);
         
-        //9: Update user's last login date
-        user.setLastLoginTime(LocalDateTime.now());
-        userRepository.save(user);
+        //9: Update user's last login date (just that column, not the whole row)
+        userRepository.recordLogin(user.getId(), LocalDateTime.now());
 
         //10: Build response with token and user info
         LoginResponse response = new LoginResponse();
@@ -0,0 +1,134 @@
+package com.Eges411Team.UnifiedPatientManager.services;
+
+import com.Eges411Team.UnifiedPatientManager.ExceptionHandlers.InvalidOtpException;
+import com.Eges411Team.UnifiedPatientManager.ExceptionHandlers.OtpExpiredException;
+import com.Eges411Team.UnifiedPatientManager.entity.OtpToken;
+import com.Eges411Team.UnifiedPatientManager.repositories.OtpTokenRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+// Hashes and checks one-time passwords for login and password reset.
+//
+// OTPs are stored as HMAC-SHA256(key, userId:code) instead of BCrypt. A 6-digit code can't
+// be made slow enough to resist an offline guess anyway; what protects it is the key, the
+// 3-attempt limit and the 5-minute expiry. That takes BCrypt's ~100 ms off both the login
+// and the verify request. The key comes from otp.hmac.secret (base64); without it a random
+// key is made at startup, so a leaked otp_token table can't be brute-forced offline with a
+// key from the source, but codes sent before a restart stop working.
+//
+// Attempts are counted in the database before the code is compared, with a conditional
+// UPDATE, so concurrent guesses can't get past the limit.
+@Component
+public class OtpVerifier {
+
+    private static final Logger log = LoggerFactory.getLogger(OtpVerifier.class);
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private static byte[] ephemeralKey;
+
+    private final OtpTokenRepository otpTokenRepository;
+    private final SecretKeySpec key;
+
+    // Mac isn't thread-safe; one per thread avoids a provider lookup per hash
+    private final ThreadLocal<Mac> macs;
+
+    public OtpVerifier(OtpTokenRepository otpTokenRepository,
+                       @Value("${otp.hmac.secret:}") String secretBase64) {
+        this.otpTokenRepository = otpTokenRepository;
+        this.key = new SecretKeySpec(secretBase64 == null || secretBase64.isBlank()
+            ? ephemeralKey() : Base64.getDecoder().decode(secretBase64), ALGORITHM);
+        this.macs = ThreadLocal.withInitial(() -> newMac(key));
+    }
+
+    // One random key per process, shared by every verifier built without a secret
+    private static synchronized byte[] ephemeralKey() {
+        if (ephemeralKey == null) {
+            log.warn("otp.hmac.secret is not set; using a random OTP key, so codes issued before a restart won't verify");
+            ephemeralKey = new byte[32];
+            new SecureRandom().nextBytes(ephemeralKey);
+        }
+        return ephemeralKey;
+    }
+
+    private static Mac newMac(SecretKeySpec key) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 unavailable", e);
+        }
+    }
+
+    // Value to store in OtpToken.otpCode for this user's code
+    public String hash(Long userId, String code) {
+        return Base64.getEncoder().encodeToString(digest(userId, code));
+    }
+
+    // Constant-time check of a code against a stored hash
+    public boolean matches(Long userId, String code, String storedHash) {
+        if (code == null || storedHash == null) {
+            return false;
+        }
+        byte[] expected;
+        try {
+            expected = Base64.getDecoder().decode(storedHash);
+        } catch (IllegalArgumentException e) {
+            return false; // not one of ours, e.g. a BCrypt hash from before the switch
+        }
+        return MessageDigest.isEqual(digest(userId, code), expected);
+    }
+
+    private byte[] digest(Long userId, String code) {
+        Mac mac = macs.get();
+        // binding the user id stops a stored hash being replayed against another account
+        return mac.doFinal((userId + ":" + code).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Check a code against the user's current OTP and mark the OTP used. Every call uses
+     * up one of the OTP's attempts, and that count is kept even though an
+     * InvalidOtpException is thrown, so callers shouldn't roll back for it.
+     */
+    @Transactional(noRollbackFor = InvalidOtpException.class)
+    public OtpToken verify(Long userId, String code) {
+        LocalDateTime now = LocalDateTime.now();
+        OtpToken otpToken = otpTokenRepository
+            .findFirstByUser_IdAndExpiresAtAfterAndUsedFalseOrderByCreatedAtDesc(userId, now)
+            .orElseThrow(() -> new InvalidOtpException("No valid OTP found for this user"));
+
+        if (otpToken.getExpiresAt().isBefore(now)) {
+            throw new OtpExpiredException("OTP has expired");
+        }
+        if (otpToken.isUsed()) {
+            throw new InvalidOtpException("OTP has already been used");
+        }
+
+        if (otpTokenRepository.recordAttempt(otpToken.getOtpId(), OtpToken.MAX_ATTEMPTS) == 0) {
+            throw new InvalidOtpException("Too many invalid attempts, please request a new OTP");
+        }
+        if (!matches(userId, code, otpToken.getOtpCode())) {
+            int remaining = Math.max(0, OtpToken.MAX_ATTEMPTS - (otpToken.getAttemptCount() + 1));
+            throw new InvalidOtpException("Invalid OTP code. Attempts remaining: " + remaining);
+        }
+
+        // only one of two concurrent correct submissions gets through
+        if (otpTokenRepository.markUsed(otpToken.getOtpId()) == 0) {
+            throw new InvalidOtpException("OTP has already been used");
+        }
+        return otpToken;
+    }
+}
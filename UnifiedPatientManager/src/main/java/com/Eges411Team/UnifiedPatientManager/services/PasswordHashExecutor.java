@@ -0,0 +1,143 @@
+package com.Eges411Team.UnifiedPatientManager.services;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.Eges411Team.UnifiedPatientManager.ExceptionHandlers.PasswordHashingBusyException;
+
+// PasswordEncoder that runs the real (BCrypt) encoder on a small fixed pool.
+//
+// BCrypt is ~100 ms of pure CPU. Run on the request threads, a login storm at shift change
+// puts a hash on every core and the chart endpoints starve. Here at most `threads` hashes
+// run at once (one fewer than the cores by default) and the rest wait in a bounded queue.
+// When that queue is full the request is refused straight away with a
+// PasswordHashingBusyException (503 + Retry-After) instead of piling up behind it.
+//
+// The caller still blocks until its hash is done; only the CPU work moves.
+public class PasswordHashExecutor implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final int threads;
+    private final int queueCapacity;
+    private final ThreadPoolExecutor executor;
+
+    // metrics
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder queueWaitNanos = new LongAdder();
+    private final LongAccumulator maxQueueWaitNanos = new LongAccumulator(Long::max, 0);
+    private final LongAdder hashNanos = new LongAdder();
+    private final LongAccumulator maxHashNanos = new LongAccumulator(Long::max, 0);
+
+    public PasswordHashExecutor(PasswordEncoder delegate, int threads, int queueCapacity) {
+        this.delegate = delegate;
+        this.threads = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        this.queueCapacity = Math.max(1, queueCapacity);
+        AtomicInteger count = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(this.threads, this.threads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(this.queueCapacity), r -> {
+                Thread thread = new Thread(r, "password-hash-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    // only parses the stored hash's cost, no need to queue it
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> T run(Supplier<T> work) {
+        long queuedAt = System.nanoTime();
+        Future<T> result;
+        try {
+            result = executor.submit(() -> {
+                long startedAt = System.nanoTime();
+                record(queueWaitNanos, maxQueueWaitNanos, startedAt - queuedAt);
+                try {
+                    return work.get();
+                } finally {
+                    record(hashNanos, maxHashNanos, System.nanoTime() - startedAt);
+                    completed.increment();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new PasswordHashingBusyException("Too many logins in progress, please try again shortly",
+                retryAfterSeconds());
+        }
+
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for password hashing", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException("Password hashing failed", cause);
+        }
+    }
+
+    private static void record(LongAdder total, LongAccumulator max, long nanos) {
+        total.add(nanos);
+        max.accumulate(nanos);
+    }
+
+    // roughly how long the current queue takes to drain, at least a second
+    long retryAfterSeconds() {
+        long done = completed.sum();
+        long averageHash = done == 0 ? TimeUnit.MILLISECONDS.toNanos(100) : hashNanos.sum() / done;
+        long drainNanos = (executor.getQueue().size() + (long) threads) * averageHash / threads;
+        return Math.max(1, (drainNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+    }
+
+    public Map<String, Long> stats() {
+        long done = completed.sum();
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("threads", (long) threads);
+        stats.put("queueCapacity", (long) queueCapacity);
+        stats.put("queued", (long) executor.getQueue().size());
+        stats.put("active", (long) executor.getActiveCount());
+        stats.put("completed", done);
+        stats.put("rejected", rejected.sum());
+        stats.put("avgQueueWaitMicros", done == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(queueWaitNanos.sum() / done));
+        stats.put("maxQueueWaitMicros", TimeUnit.NANOSECONDS.toMicros(maxQueueWaitNanos.get()));
+        stats.put("avgHashMicros", done == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(hashNanos.sum() / done));
+        stats.put("maxHashMicros", TimeUnit.NANOSECONDS.toMicros(maxHashNanos.get()));
+        return stats;
+    }
+}
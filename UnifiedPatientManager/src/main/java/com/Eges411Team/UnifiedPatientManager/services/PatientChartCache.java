@@ -0,0 +1,111 @@
+package com.Eges411Team.UnifiedPatientManager.services;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.Eges411Team.UnifiedPatientManager.DTOs.responses.PatientRecordDTO;
+
+// Read-through cache of assembled patient charts, keyed by patient id.
+// Bounded by size (least-recently-used entry is evicted) and by TTL.
+// Entries are dropped by PatientChartCacheInvalidator whenever a User, Allergy,
+// Medication or MedicalHistory row for that patient is inserted, updated or deleted.
+@Component
+public class PatientChartCache {
+
+    private final int maxEntries;
+    private final long ttlNanos;
+
+    // access-ordered so the eldest entry is always the least recently used; guarded by "this"
+    private final LinkedHashMap<Long, CachedChart> charts;
+
+    // bumped on every invalidation; a load that started before a write must not be cached
+    private long generation = 0;
+
+    // metrics (guarded by "this")
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+    private long invalidations = 0;
+
+    public PatientChartCache(@Value("${chart.cache.max-entries:500}") int maxEntries,
+                             @Value("${chart.cache.ttl-ms:300000}") long ttlMs) {
+        this.maxEntries = maxEntries;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        this.charts = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CachedChart> eldest) {
+                if (size() > PatientChartCache.this.maxEntries) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    // returns the cached chart, or loads it with the given loader and caches the result
+    public PatientRecordDTO get(Long patientId, Function<Long, PatientRecordDTO> loader) {
+        long loadGeneration;
+        synchronized (this) {
+            CachedChart cached = charts.get(patientId);
+            if (cached != null) {
+                if (System.nanoTime() - cached.loadedAt < ttlNanos) {
+                    hits++;
+                    return cached.chart;
+                }
+                // expired
+                charts.remove(patientId);
+                evictions++;
+            }
+            misses++;
+            loadGeneration = generation;
+        }
+
+        // load outside the lock so one slow chart doesn't block every other lookup
+        PatientRecordDTO chart = loader.apply(patientId);
+
+        synchronized (this) {
+            // if anything was written while we were loading, our copy may predate it
+            if (loadGeneration == generation) {
+                charts.put(patientId, new CachedChart(chart, System.nanoTime()));
+            }
+        }
+        return chart;
+    }
+
+    public synchronized void invalidate(Long patientId) {
+        charts.remove(patientId);
+        generation++;
+        invalidations++;
+    }
+
+    public synchronized void clear() {
+        charts.clear();
+        generation++;
+    }
+
+    public synchronized Map<String, Long> stats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("size", (long) charts.size());
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("evictions", evictions);
+        stats.put("invalidations", invalidations);
+        return stats;
+    }
+
+    private static final class CachedChart {
+        private final PatientRecordDTO chart;
+        private final long loadedAt;
+
+        private CachedChart(PatientRecordDTO chart, long loadedAt) {
+            this.chart = chart;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
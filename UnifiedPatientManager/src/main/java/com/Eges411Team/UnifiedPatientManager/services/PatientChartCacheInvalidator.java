@@ -0,0 +1,72 @@
+package com.Eges411Team.UnifiedPatientManager.services;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.Eges411Team.UnifiedPatientManager.entity.Allergy;
+import com.Eges411Team.UnifiedPatientManager.entity.MedicalHistory;
+import com.Eges411Team.UnifiedPatientManager.entity.Medication;
+import com.Eges411Team.UnifiedPatientManager.entity.User;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+// JPA entity listener registered on User, Allergy, Medication and MedicalHistory.
+// Any insert/update/delete of a row that belongs to a patient's chart drops that
+// patient's cached chart, so every write path (services, updatePatientRecord, ...)
+// is covered without each one having to remember to invalidate.
+// Hibernate creates entity listeners through Spring, so constructor injection works here.
+@Component
+public class PatientChartCacheInvalidator {
+
+    private final PatientChartCache patientChartCache;
+
+    public PatientChartCacheInvalidator(PatientChartCache patientChartCache) {
+        this.patientChartCache = patientChartCache;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChartRowChanged(Object entity) {
+        Long patientId = patientIdOf(entity);
+        if (patientId == null) {
+            return;
+        }
+        invalidate(patientId);
+    }
+
+    // for writes that skip entity callbacks, e.g. bulk JPQL deletes
+    public void invalidate(Long patientId) {
+        patientChartCache.invalidate(patientId);
+
+        // the callback runs at flush time, before commit; a reader in between could still
+        // cache the old committed rows, so drop the entry again once the transaction ends
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    patientChartCache.invalidate(patientId);
+                }
+            });
+        }
+    }
+
+    private static Long patientIdOf(Object entity) {
+        if (entity instanceof User user) {
+            return user.getId();
+        }
+        if (entity instanceof Allergy allergy) {
+            return allergy.getPatientId();
+        }
+        if (entity instanceof Medication medication) {
+            return medication.getPatientId();
+        }
+        if (entity instanceof MedicalHistory history) {
+            return history.getPatientId();
+        }
+        return null;
+    }
+}
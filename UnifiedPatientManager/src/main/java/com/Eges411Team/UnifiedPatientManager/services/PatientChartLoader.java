@@ -0,0 +1,204 @@
+package com.Eges411Team.UnifiedPatientManager.services;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.Eges411Team.UnifiedPatientManager.DTOs.responses.PatientRecordDTO;
+import com.Eges411Team.UnifiedPatientManager.entity.Allergy;
+import com.Eges411Team.UnifiedPatientManager.entity.MedicalHistory;
+import com.Eges411Team.UnifiedPatientManager.entity.Medication;
+import com.Eges411Team.UnifiedPatientManager.entity.User;
+import com.Eges411Team.UnifiedPatientManager.repositories.AllergyRepository;
+import com.Eges411Team.UnifiedPatientManager.repositories.MedicalHistoryRepo;
+import com.Eges411Team.UnifiedPatientManager.repositories.MedicationRepository;
+import com.Eges411Team.UnifiedPatientManager.repositories.UserRepository;
+
+import jakarta.annotation.PreDestroy;
+
+// Alternative to PatientRecordService.getPatientRecord: fires the user, allergy, medication
+// and medical-history queries at the same time on a small bounded pool and joins them,
+// so chart latency is the slowest query instead of the sum of all four.
+// A section that misses the timeout (or fails) comes back empty and is listed in
+// PatientRecordDTO.partialSections instead of failing the whole chart. Each section's
+// timeout starts when a pool thread picks it up, after at most one timeout in the queue;
+// when the pool and queue are both full the section is skipped and flagged the same way.
+@Service
+public class PatientChartLoader {
+
+    private static final Logger log = LoggerFactory.getLogger(PatientChartLoader.class);
+
+    private final UserRepository userRepository;
+    private final AllergyRepository allergyRepository;
+    private final MedicationRepository medicationRepository;
+    private final MedicalHistoryRepo medicalHistoryRepository;
+
+    private final ThreadPoolExecutor executor;
+    private final long sectionTimeoutMs;
+
+    public PatientChartLoader(UserRepository userRepository,
+                              AllergyRepository allergyRepository,
+                              MedicationRepository medicationRepository,
+                              MedicalHistoryRepo medicalHistoryRepository,
+                              @Value("${chart.loader.threads:8}") int threads,
+                              @Value("${chart.loader.queue-capacity:200}") int queueCapacity,
+                              @Value("${chart.loader.section-timeout-ms:2000}") long sectionTimeoutMs) {
+        this.userRepository = userRepository;
+        this.allergyRepository = allergyRepository;
+        this.medicationRepository = medicationRepository;
+        this.medicalHistoryRepository = medicalHistoryRepository;
+        this.sectionTimeoutMs = sectionTimeoutMs;
+
+        // bounded pool + bounded queue; when both are full the section is rejected rather
+        // than run on the request thread, where no timeout could stop it
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            runnable -> {
+                Thread thread = new Thread(runnable, "chart-loader-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    public PatientRecordDTO loadChart(Long userID) {
+        Section<Optional<User>> userSection = new Section<>("user", () -> userRepository.findById(userID));
+        Section<List<Allergy>> allergySection = new Section<>("allergies", () -> allergyRepository.findAllByPatientId(userID));
+        Section<List<Medication>> medicationSection = new Section<>("medications", () -> medicationRepository.findAllByPatientId(userID));
+        Section<List<MedicalHistory>> historySection = new Section<>("medicalHistory", () -> medicalHistoryRepository.findAllByPatientId(userID));
+
+        // the patient row is required; without it there's no chart to return
+        User user;
+        try {
+            user = userSection.get()
+                .orElseThrow(() -> new RuntimeException("User not found with ID: " + userID));
+        } catch (TimeoutException | ExecutionException | InterruptedException | RuntimeException e) {
+            allergySection.cancel();
+            medicationSection.cancel();
+            historySection.cancel();
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            if (e instanceof RuntimeException runtimeException && !(e instanceof RejectedExecutionException)) {
+                throw runtimeException;
+            }
+            throw new RuntimeException("Could not load patient with ID: " + userID, e);
+        }
+
+        PatientRecordDTO patientRecord = PatientRecordService.toPatientRecordDTO(user);
+        List<String> partialSections = new ArrayList<>();
+
+        for (Allergy allergy : awaitSection(allergySection, partialSections)) {
+            patientRecord.getAllergies().add(PatientRecordService.toAllergyDTO(
+                allergy.getId(), allergy.getSubstance(), allergy.getReaction(), allergy.getSeverity()));
+        }
+        for (Medication medication : awaitSection(medicationSection, partialSections)) {
+            patientRecord.getMedications().add(PatientRecordService.toMedicationDTO(
+                medication.getId(), medication.getDrugName(), medication.getDose(), medication.getFrequency()));
+        }
+        for (MedicalHistory history : awaitSection(historySection, partialSections)) {
+            patientRecord.getMedicalHistory().add(PatientRecordService.toMedicalHistoryDTO(
+                history.getId(), history.getDoctorId(), history.getDiagnosis(), history.getStartDate()));
+        }
+
+        patientRecord.setPartialSections(partialSections);
+        return patientRecord;
+    }
+
+    // waits for one section; on rejection/timeout/failure the section is flagged as
+    // partial and an empty list is used so the rest of the chart still renders
+    private <T> List<T> awaitSection(Section<List<T>> section, List<String> partialSections) {
+        try {
+            return section.get();
+        } catch (RejectedExecutionException e) {
+            log.warn("Chart section {} skipped, loader pool and queue are full", section.name);
+        } catch (TimeoutException e) {
+            section.cancel();
+            log.warn("Chart section {} timed out after {} ms", section.name, sectionTimeoutMs);
+        } catch (ExecutionException e) {
+            log.warn("Chart section {} failed: {}", section.name, e.getCause() == null ? e.getMessage() : e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            section.cancel();
+            Thread.currentThread().interrupt();
+        }
+        partialSections.add(section.name);
+        return Collections.emptyList();
+    }
+
+    // One section query on the pool. It may wait sectionTimeoutMs for a thread; once a
+    // thread starts it, the query gets its own full sectionTimeoutMs, so a section queued
+    // behind a slow one isn't cut short by the time it spent waiting
+    private final class Section<T> {
+
+        private final String name;
+        private final long submittedAt = System.nanoTime();
+        private final Future<T> future;
+        private final RejectedExecutionException rejection;
+        private volatile boolean started;
+        private volatile long startedAt;
+
+        Section(String name, Callable<T> query) {
+            this.name = name;
+            Future<T> submitted = null;
+            RejectedExecutionException rejected = null;
+            try {
+                submitted = executor.submit(() -> {
+                    startedAt = System.nanoTime();
+                    started = true;
+                    return query.call();
+                });
+            } catch (RejectedExecutionException e) {
+                rejected = e;
+            }
+            this.future = submitted;
+            this.rejection = rejected;
+        }
+
+        T get() throws TimeoutException, ExecutionException, InterruptedException {
+            if (rejection != null) {
+                throw rejection;
+            }
+            long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(sectionTimeoutMs);
+            while (true) {
+                boolean running = started;
+                long deadline = (running ? startedAt : submittedAt) + timeoutNanos;
+                try {
+                    return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                } catch (TimeoutException e) {
+                    // a thread picked it up while we waited on the queue deadline: give it its own timeout
+                    if (running || !started) {
+                        throw e;
+                    }
+                }
+            }
+        }
+
+        void cancel() {
+            if (future != null) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
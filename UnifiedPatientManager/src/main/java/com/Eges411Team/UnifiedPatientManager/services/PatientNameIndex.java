@@ -0,0 +1,300 @@
+package com.Eges411Team.UnifiedPatientManager.services;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+import com.Eges411Team.UnifiedPatientManager.DTOs.responses.PatientRecordDTO;
+import com.Eges411Team.UnifiedPatientManager.entity.User;
+import com.Eges411Team.UnifiedPatientManager.repositories.UserRepository;
+
+// In-memory typeahead index over first name, last name, email and phone number.
+// Every field value is lowercased and broken into 1-, 2- and 3-character grams; a
+// query is answered by intersecting the posting sets of its grams and then checking
+// the surviving candidates, so no keystroke hits the database.
+// Loaded once at startup, then kept current by PatientNameIndexUpdater.
+@Component
+public class PatientNameIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(PatientNameIndex.class);
+
+    private static final int GRAM = 3;
+
+    // match ranks, lower is better
+    private static final int EXACT = 0;
+    private static final int PREFIX = 1;
+    private static final int SUBSTRING = 2;
+
+    private final UserRepository userRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private final Map<String, Set<Long>> postings = new HashMap<>();
+    private volatile boolean ready = false;
+    // puts and removes made while load() reads the table, replayed over its snapshot
+    // (null value = removed); null when no load is running. Guarded by the write lock
+    private Map<Long, Entry> changedDuringLoad;
+
+    public PatientNameIndex(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    // searchable copy of one user's fields
+    private static final class Entry {
+        final Long id;
+        final String firstName;
+        final String lastName;
+        final String email;
+        final String phoneNumber;
+        final String[] keys; // lowercased values (plus phone digits) that queries match against
+
+        Entry(Long id, String firstName, String lastName, String email, String phoneNumber) {
+            this.id = id;
+            this.firstName = firstName;
+            this.lastName = lastName;
+            this.email = email;
+            this.phoneNumber = phoneNumber;
+            String digits = phoneNumber == null ? null : phoneNumber.replaceAll("[^0-9]", "");
+            this.keys = new String[] { lower(firstName), lower(lastName), lower(email), lower(phoneNumber), digits };
+        }
+    }
+
+    // Changes committed while findAll() runs may or may not be in its snapshot, so they
+    // are recorded and applied again on top of it; replaying one the snapshot already
+    // has is harmless.
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long start = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            changedDuringLoad = new HashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        List<User> users;
+        try {
+            users = userRepository.findAll();
+        } catch (DataAccessException e) {
+            lock.writeLock().lock();
+            try {
+                changedDuringLoad = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            // stay not-ready; searchPatients keeps using the database query
+            log.warn("Patient name index not loaded: {}", e.getMessage());
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            entries.clear();
+            postings.clear();
+            for (User user : users) {
+                add(new Entry(user.getId(), user.getFirstName(), user.getLastName(), user.getEmail(), user.getPhoneNumber()));
+            }
+            for (Map.Entry<Long, Entry> change : changedDuringLoad.entrySet()) {
+                removeEntry(change.getKey());
+                if (change.getValue() != null) {
+                    add(change.getValue());
+                }
+            }
+            changedDuringLoad = null;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Patient name index loaded {} users in {} ms", users.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // insert or replace the indexed fields for one user
+    public void put(Long id, String firstName, String lastName, String email, String phoneNumber) {
+        if (id == null) {
+            return;
+        }
+        Entry entry = new Entry(id, firstName, lastName, email, phoneNumber);
+        lock.writeLock().lock();
+        try {
+            removeEntry(id);
+            add(entry);
+            if (changedDuringLoad != null) {
+                changedDuringLoad.put(id, entry);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        if (id == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removeEntry(id);
+            if (changedDuringLoad != null) {
+                changedDuringLoad.put(id, null);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Matches on any indexed field, ranked exact > prefix > substring (best field wins),
+    // then by last name, first name, id. Returns basic info only, like searchPatients.
+    public List<PatientRecordDTO> search(String query, int limit) {
+        List<PatientRecordDTO> results = new ArrayList<>();
+        if (query == null || query.isBlank() || limit < 1) {
+            return results;
+        }
+        String q = query.trim().toLowerCase(Locale.ROOT);
+
+        List<Entry> matched = new ArrayList<>();
+        Map<Long, Integer> ranks = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            for (Long id : candidates(q)) {
+                Entry entry = entries.get(id);
+                int rank = rank(entry, q);
+                if (rank >= 0) {
+                    matched.add(entry);
+                    ranks.put(id, rank);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        matched.sort(Comparator.<Entry>comparingInt(e -> ranks.get(e.id))
+            .thenComparing(e -> e.lastName, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER))
+            .thenComparing(e -> e.firstName, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER))
+            .thenComparing(e -> e.id));
+
+        for (Entry entry : matched.subList(0, Math.min(matched.size(), limit))) {
+            PatientRecordDTO dto = new PatientRecordDTO();
+            dto.setPatientId(entry.id);
+            dto.setFirstName(entry.firstName);
+            dto.setLastName(entry.lastName);
+            dto.setEmail(entry.email);
+            dto.setPhoneNumber(entry.phoneNumber);
+            results.add(dto);
+        }
+        return results;
+    }
+
+    // ids whose grams cover every gram of q; may contain false positives, rank() filters them.
+    // caller holds the read lock
+    private Set<Long> candidates(String q) {
+        if (q.length() <= GRAM) {
+            return postings.getOrDefault(q, Set.of());
+        }
+        List<Set<Long>> lists = new ArrayList<>();
+        for (int i = 0; i + GRAM <= q.length(); i++) {
+            Set<Long> posting = postings.get(q.substring(i, i + GRAM));
+            if (posting == null) {
+                return Set.of();
+            }
+            lists.add(posting);
+        }
+        // start from the smallest posting set to keep the intersection cheap
+        lists.sort(Comparator.comparingInt(Set::size));
+        Set<Long> result = new HashSet<>(lists.get(0));
+        for (int i = 1; i < lists.size() && !result.isEmpty(); i++) {
+            result.retainAll(lists.get(i));
+        }
+        return result;
+    }
+
+    private static int rank(Entry entry, String q) {
+        int best = -1;
+        for (String key : entry.keys) {
+            if (key == null || key.isEmpty()) {
+                continue;
+            }
+            int rank;
+            if (key.equals(q)) {
+                rank = EXACT;
+            } else if (key.startsWith(q)) {
+                rank = PREFIX;
+            } else if (key.contains(q)) {
+                rank = SUBSTRING;
+            } else {
+                continue;
+            }
+            if (best < 0 || rank < best) {
+                best = rank;
+            }
+        }
+        return best;
+    }
+
+    // caller holds the write lock
+    private void add(Entry entry) {
+        entries.put(entry.id, entry);
+        for (String gram : grams(entry)) {
+            postings.computeIfAbsent(gram, g -> new HashSet<>()).add(entry.id);
+        }
+    }
+
+    // caller holds the write lock
+    private void removeEntry(Long id) {
+        Entry old = entries.remove(id);
+        if (old == null) {
+            return;
+        }
+        for (String gram : grams(old)) {
+            Set<Long> posting = postings.get(gram);
+            if (posting != null) {
+                posting.remove(id);
+                if (posting.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    // every substring of length 1..GRAM of every key
+    private static Set<String> grams(Entry entry) {
+        Set<String> grams = new HashSet<>();
+        for (String key : entry.keys) {
+            if (key == null) {
+                continue;
+            }
+            for (int n = 1; n <= GRAM; n++) {
+                for (int i = 0; i + n <= key.length(); i++) {
+                    grams.add(key.substring(i, i + n));
+                }
+            }
+        }
+        return grams;
+    }
+
+    private static String lower(String value) {
+        return value == null ? null : value.toLowerCase(Locale.ROOT);
+    }
+}
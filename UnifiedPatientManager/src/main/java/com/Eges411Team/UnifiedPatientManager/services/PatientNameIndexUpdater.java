@@ -0,0 +1,59 @@
+package com.Eges411Team.UnifiedPatientManager.services;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.Eges411Team.UnifiedPatientManager.entity.User;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+// JPA entity listener on User that keeps PatientNameIndex in step with the table,
+// so createPatientRecord, updatePatientRecord and any other save of a user are
+// picked up incrementally. Changes are applied after commit so a rolled-back save
+// never shows up in typeahead results.
+@Component
+public class PatientNameIndexUpdater {
+
+    // looked up lazily: Hibernate builds this listener while the EntityManagerFactory is
+    // still being created, and the index depends on UserRepository, which needs that factory
+    private final ObjectProvider<PatientNameIndex> patientNameIndex;
+
+    public PatientNameIndexUpdater(ObjectProvider<PatientNameIndex> patientNameIndex) {
+        this.patientNameIndex = patientNameIndex;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onUserSaved(User user) {
+        // copy the fields now; the entity may change again before commit
+        Long id = user.getId();
+        String firstName = user.getFirstName();
+        String lastName = user.getLastName();
+        String email = user.getEmail();
+        String phoneNumber = user.getPhoneNumber();
+        afterCommit(() -> patientNameIndex.getObject().put(id, firstName, lastName, email, phoneNumber));
+    }
+
+    @PostRemove
+    public void onUserRemoved(User user) {
+        Long id = user.getId();
+        afterCommit(() -> patientNameIndex.getObject().remove(id));
+    }
+
+    private static void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+}
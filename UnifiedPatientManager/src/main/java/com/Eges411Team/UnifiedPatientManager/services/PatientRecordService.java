@@ -1,6 +1,9 @@
 package com.Eges411Team.UnifiedPatientManager.services;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Optional;
@@ -9,11 +12,15 @@ import java.time.LocalDateTime;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
 import com.Eges411Team.UnifiedPatientManager.DTOs.requests.PatientRecordUpdateDTO;
 import com.Eges411Team.UnifiedPatientManager.DTOs.responses.PatientRecordDTO;
+import com.Eges411Team.UnifiedPatientManager.DTOs.responses.PatientSearchPageDTO;
 import com.Eges411Team.UnifiedPatientManager.entity.Allergy;
 import com.Eges411Team.UnifiedPatientManager.entity.MedicalHistory;
 import com.Eges411Team.UnifiedPatientManager.entity.Medication;
@@ -22,6 +29,7 @@ import com.Eges411Team.UnifiedPatientManager.entity.User;
 import com.Eges411Team.UnifiedPatientManager.repositories.AllergyRepository;
 import com.Eges411Team.UnifiedPatientManager.repositories.MedicalHistoryRepo;
 import com.Eges411Team.UnifiedPatientManager.repositories.MedicationRepository;
+import com.Eges411Team.UnifiedPatientManager.repositories.PatientChartRepository;
 import com.Eges411Team.UnifiedPatientManager.repositories.UserRepository;
 
 import jakarta.transaction.Transactional;
@@ -44,52 +52,39 @@ public class PatientRecordService {
     private MedicationRepository medicationRepository;
     
     private static final Logger log = LoggerFactory.getLogger(PatientRecordService.class);
+
+    // page size limits for searchPatientsPage
+    private static final int DEFAULT_SEARCH_PAGE_SIZE = 20;
+    private static final int MAX_SEARCH_PAGE_SIZE = 50;
+
+    // searchPatients backs a typeahead; a one-letter query shouldn't return every patient
+    private static final int MAX_TYPEAHEAD_RESULTS = 50;
+
     @Autowired
     private MedicalHistoryRepo medicalHistoryRepository;
     @Autowired
     private UserRepository userRepository;
+    @Autowired
+    private PatientChartRepository patientChartRepository;
+    @Autowired
+    private PatientNameIndex patientNameIndex;
 
     public PatientRecordDTO getPatientRecord(Long userID) {
-        // need dependencies for repositories
-        PatientRecordDTO patientRecord = new PatientRecordDTO();
-
         // obtains the user from the repository and throws an exception if user isn't found
         User user = userRepository.findById(userID)
         .orElseThrow(() -> new RuntimeException("User not found with ID: " + userID));
 
         // getting here assumes that we didn't throw an exception, so no need for a check
 
-        // Map all patient fields from User to the DTO (firstName, lastName, email, phoneNumber, address, dateOfBirth).
-        patientRecord.setPatientId(user.getId());
-        patientRecord.setFirstName(user.getFirstName());
-        patientRecord.setLastName(user.getLastName());
-        patientRecord.setEmail(user.getEmail());
-        patientRecord.setPhoneNumber(user.getPhoneNumber());
-        patientRecord.setAddress(user.getAddress());
-        patientRecord.setDateOfBirth(user.getDateOfBirth());
-        patientRecord.setGender(user.getGender());
-        patientRecord.setHeight(user.getHeight());
-        patientRecord.setWeight(user.getWeight());
-
-
-        // populate patientRecord with empty arraylists to be populated
-        patientRecord.setAllergies(new ArrayList<>());
-        patientRecord.setMedications(new ArrayList<>());
-        patientRecord.setMedicalHistory(new ArrayList<>());
-
-
+        // Map all patient fields from User to the DTO, with empty section lists to be populated
+        PatientRecordDTO patientRecord = toPatientRecordDTO(user);
 
         // get the allergies
         List<Allergy> allergies = allergyRepository.findAllByPatientId(userID);
 
         // convert Allergy entities to AllergyDTOs in a loop (if list is empty won't execute)
         for (Allergy allergy : allergies) {
-            PatientRecordDTO.AllergyDTO allergyDTO = new PatientRecordDTO.AllergyDTO();
-            allergyDTO.setAllergyId(allergy.getId());
-            allergyDTO.setSubstance(allergy.getSubstance());
-            allergyDTO.setReaction(allergy.getReaction());
-            allergyDTO.setSeverity(allergy.getSeverity());
-            patientRecord.getAllergies().add(allergyDTO);
+            patientRecord.getAllergies().add(toAllergyDTO(allergy.getId(), allergy.getSubstance(), allergy.getReaction(), allergy.getSeverity()));
         }
     
         // get the medications
@@ -97,12 +92,7 @@ public class PatientRecordService {
 
         // convert Medication entities to MedicationDTOs in the PatientRecordDTO
         for (Medication medication : medications) {
-            PatientRecordDTO.MedicationDTO medicationDTO = new PatientRecordDTO.MedicationDTO();
-            medicationDTO.setMedicationId(medication.getId());
-            medicationDTO.setDrugName(medication.getDrugName());
-            medicationDTO.setDose(medication.getDose());
-            medicationDTO.setFrequency(medication.getFrequency());
-            patientRecord.getMedications().add(medicationDTO);
+            patientRecord.getMedications().add(toMedicationDTO(medication.getId(), medication.getDrugName(), medication.getDose(), medication.getFrequency()));
         }
 
 
@@ -111,25 +101,117 @@ public class PatientRecordService {
         
         // convert MedicalHistory entities to MedicalHistoryDTOs
         for (MedicalHistory history : medicalHistories) {
-            PatientRecordDTO.MedicalHistoryDTO historyDTO = new PatientRecordDTO.MedicalHistoryDTO();
-            historyDTO.setId(history.getId());
-            historyDTO.setDoctorId(history.getDoctorId());
-            historyDTO.setNotes(history.getDiagnosis());
-                if (history.getStartDate() != null) {
-                    try {
-                        historyDTO.setStartDate(history.getStartDate().toInstant().atZone(java.time.ZoneId.systemDefault()).toLocalDateTime());
-                    } catch (UnsupportedOperationException uoe) {
-                        // fallback for java.sql.Date implementations that don't support toInstant()
-                        historyDTO.setStartDate(java.time.Instant.ofEpochMilli(history.getStartDate().getTime()).atZone(java.time.ZoneId.systemDefault()).toLocalDateTime());
-                    }
-                }
-            patientRecord.getMedicalHistory().add(historyDTO);
+            patientRecord.getMedicalHistory().add(toMedicalHistoryDTO(history.getId(), history.getDoctorId(), history.getDiagnosis(), history.getStartDate()));
         }
 
         return patientRecord;
 
     }
 
+    // Same result as getPatientRecord, but the user and all three sections come back
+    // in one round trip (UNION ALL in PatientChartRepository) instead of four serial queries
+    public PatientRecordDTO getPatientChart(Long userID) {
+        List<PatientChartRepository.PatientChartRow> rows = patientChartRepository.findChartRowsByPatientId(userID);
+
+        PatientRecordDTO patientRecord = null;
+        List<PatientRecordDTO.AllergyDTO> allergies = new ArrayList<>();
+        List<PatientRecordDTO.MedicationDTO> medications = new ArrayList<>();
+        List<PatientRecordDTO.MedicalHistoryDTO> medicalHistories = new ArrayList<>();
+
+        // route each row to its section based on the section tag
+        for (PatientChartRepository.PatientChartRow row : rows) {
+            switch (row.getSection()) {
+                case "PATIENT":
+                    patientRecord = new PatientRecordDTO();
+                    patientRecord.setPatientId(row.getId());
+                    patientRecord.setFirstName(row.getText1());
+                    patientRecord.setLastName(row.getText2());
+                    patientRecord.setEmail(row.getText3());
+                    patientRecord.setPhoneNumber(row.getText4());
+                    patientRecord.setAddress(row.getText5());
+                    patientRecord.setGender(row.getText6());
+                    patientRecord.setHeight(row.getText7());
+                    patientRecord.setWeight(row.getText8());
+                    patientRecord.setDateOfBirth(row.getDateOfBirth());
+                    break;
+                case "ALLERGY":
+                    allergies.add(toAllergyDTO(row.getId(), row.getText1(), row.getText2(), row.getText3()));
+                    break;
+                case "MEDICATION":
+                    medications.add(toMedicationDTO(row.getId(), row.getText1(), row.getText2(), row.getText3()));
+                    break;
+                case "HISTORY":
+                    medicalHistories.add(toMedicalHistoryDTO(row.getId(), row.getDoctorId(), row.getText1(), row.getStartDate()));
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        // no PATIENT row means the user doesn't exist
+        if (patientRecord == null) {
+            throw new RuntimeException("User not found with ID: " + userID);
+        }
+
+        patientRecord.setAllergies(allergies);
+        patientRecord.setMedications(medications);
+        patientRecord.setMedicalHistory(medicalHistories);
+        return patientRecord;
+    }
+
+    // helpers shared by every place that builds the chart DTOs (also used by PatientChartLoader)
+    static PatientRecordDTO toPatientRecordDTO(User user) {
+        PatientRecordDTO patientRecord = new PatientRecordDTO();
+        patientRecord.setPatientId(user.getId());
+        patientRecord.setFirstName(user.getFirstName());
+        patientRecord.setLastName(user.getLastName());
+        patientRecord.setEmail(user.getEmail());
+        patientRecord.setPhoneNumber(user.getPhoneNumber());
+        patientRecord.setAddress(user.getAddress());
+        patientRecord.setDateOfBirth(user.getDateOfBirth());
+        patientRecord.setGender(user.getGender());
+        patientRecord.setHeight(user.getHeight());
+        patientRecord.setWeight(user.getWeight());
+        patientRecord.setAllergies(new ArrayList<>());
+        patientRecord.setMedications(new ArrayList<>());
+        patientRecord.setMedicalHistory(new ArrayList<>());
+        return patientRecord;
+    }
+
+    static PatientRecordDTO.AllergyDTO toAllergyDTO(Long id, String substance, String reaction, String severity) {
+        PatientRecordDTO.AllergyDTO allergyDTO = new PatientRecordDTO.AllergyDTO();
+        allergyDTO.setAllergyId(id);
+        allergyDTO.setSubstance(substance);
+        allergyDTO.setReaction(reaction);
+        allergyDTO.setSeverity(severity);
+        return allergyDTO;
+    }
+
+    static PatientRecordDTO.MedicationDTO toMedicationDTO(Long id, String drugName, String dose, String frequency) {
+        PatientRecordDTO.MedicationDTO medicationDTO = new PatientRecordDTO.MedicationDTO();
+        medicationDTO.setMedicationId(id);
+        medicationDTO.setDrugName(drugName);
+        medicationDTO.setDose(dose);
+        medicationDTO.setFrequency(frequency);
+        return medicationDTO;
+    }
+
+    static PatientRecordDTO.MedicalHistoryDTO toMedicalHistoryDTO(Long id, Long doctorId, String notes, java.util.Date startDate) {
+        PatientRecordDTO.MedicalHistoryDTO historyDTO = new PatientRecordDTO.MedicalHistoryDTO();
+        historyDTO.setId(id);
+        historyDTO.setDoctorId(doctorId);
+        historyDTO.setNotes(notes);
+        if (startDate != null) {
+            try {
+                historyDTO.setStartDate(startDate.toInstant().atZone(java.time.ZoneId.systemDefault()).toLocalDateTime());
+            } catch (UnsupportedOperationException uoe) {
+                // fallback for java.sql.Date implementations that don't support toInstant()
+                historyDTO.setStartDate(java.time.Instant.ofEpochMilli(startDate.getTime()).atZone(java.time.ZoneId.systemDefault()).toLocalDateTime());
+            }
+        }
+        return historyDTO;
+    }
+
     // New lookup by full name for unit testing not-found scenario
     public PatientRecordDTO getPatientRecordByFullName(String fullName) {
         if (fullName == null || fullName.trim().isEmpty()) {
@@ -149,15 +231,20 @@ public class PatientRecordService {
         return getPatientRecord(user.getId());
     }
 
-    // Search for patients by partial first or last name (case-insensitive)
+    // Search for patients by partial first name, last name, email or phone (case-insensitive),
+    // at most MAX_TYPEAHEAD_RESULTS. Served from the in-memory PatientNameIndex, ranked
+    // exact > prefix > substring; falls back to the LIKE '%q%' query on names until the index has loaded
     public List<PatientRecordDTO> searchPatients(String query) {
         if (query == null || query.trim().isEmpty()) {
             return new ArrayList<>();
         }
         String q = query.trim();
+        if (patientNameIndex != null && patientNameIndex.isReady()) {
+            return patientNameIndex.search(q, MAX_TYPEAHEAD_RESULTS);
+        }
         List<User> users = userRepository.findByFirstNameContainingIgnoreCaseOrLastNameContainingIgnoreCase(q, q);
         List<PatientRecordDTO> results = new ArrayList<>();
-        for (User u : users) {
+        for (User u : users.subList(0, Math.min(users.size(), MAX_TYPEAHEAD_RESULTS))) {
             PatientRecordDTO dto = new PatientRecordDTO();
             dto.setPatientId(u.getId());
             dto.setFirstName(u.getFirstName());
@@ -169,6 +256,107 @@ public class PatientRecordService {
         return results;
     }
 
+    // Paged prefix search on first or last name, sorted by last name, first name, id.
+    // cursor is the opaque nextCursor from the previous page (null for the first page);
+    // size is capped at MAX_SEARCH_PAGE_SIZE so a short query can't pull the whole table
+    public PatientSearchPageDTO searchPatientsPage(String query, String cursor, Integer size) {
+        if (query == null || query.trim().isEmpty()) {
+            return new PatientSearchPageDTO(new ArrayList<>(), null);
+        }
+        int pageSize = (size == null || size < 1) ? DEFAULT_SEARCH_PAGE_SIZE : Math.min(size, MAX_SEARCH_PAGE_SIZE);
+
+        // escape LIKE wildcards typed by the user so they match literally
+        String prefix = query.trim().replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%";
+
+        String afterLast = "";
+        String afterFirst = "";
+        Long afterId = 0L;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] keys = decodeSearchCursor(cursor);
+            afterLast = keys[0];
+            afterFirst = keys[1];
+            afterId = Long.valueOf(keys[2]);
+        }
+
+        // fetch one extra row to know whether there is a next page
+        List<UserRepository.PatientSummary> rows = mergeByName(
+            userRepository.searchByLastNamePrefix(prefix, afterLast, afterFirst, afterId, Limit.of(pageSize + 1)),
+            userRepository.searchByFirstNamePrefix(prefix, afterLast, afterFirst, afterId, Limit.of(pageSize + 1)),
+            pageSize + 1);
+        boolean hasMore = rows.size() > pageSize;
+
+        List<PatientRecordDTO> results = new ArrayList<>(Math.min(rows.size(), pageSize));
+        for (UserRepository.PatientSummary row : rows.subList(0, Math.min(rows.size(), pageSize))) {
+            PatientRecordDTO dto = new PatientRecordDTO();
+            dto.setPatientId(row.getId());
+            dto.setFirstName(row.getFirstName());
+            dto.setLastName(row.getLastName());
+            dto.setEmail(row.getEmail());
+            dto.setPhoneNumber(row.getPhoneNumber());
+            dto.setDateOfBirth(row.getDateOfBirth());
+            results.add(dto);
+        }
+
+        String nextCursor = null;
+        if (hasMore) {
+            PatientRecordDTO last = results.get(results.size() - 1);
+            nextCursor = encodeSearchCursor(last.getLastName(), last.getFirstName(), last.getPatientId());
+        }
+        return new PatientSearchPageDTO(results, nextCursor);
+    }
+
+    // same order as the search queries' ORDER BY under MySQL's case-insensitive collation
+    private static final Comparator<UserRepository.PatientSummary> SEARCH_ORDER =
+        Comparator.comparing(UserRepository.PatientSummary::getLastName, Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER))
+            .thenComparing(UserRepository.PatientSummary::getFirstName, Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER))
+            .thenComparing(UserRepository.PatientSummary::getId);
+
+    // merge the last-name and first-name matches (each already sorted) into the first
+    // limit rows; a patient matching on both names comes back from both queries
+    private static List<UserRepository.PatientSummary> mergeByName(List<UserRepository.PatientSummary> byLast,
+                                                                   List<UserRepository.PatientSummary> byFirst,
+                                                                   int limit) {
+        List<UserRepository.PatientSummary> merged = new ArrayList<>(Math.min(limit, byLast.size() + byFirst.size()));
+        int i = 0;
+        int j = 0;
+        while (merged.size() < limit && (i < byLast.size() || j < byFirst.size())) {
+            UserRepository.PatientSummary next;
+            if (j == byFirst.size()) {
+                next = byLast.get(i++);
+            } else if (i == byLast.size()) {
+                next = byFirst.get(j++);
+            } else if (byLast.get(i).getId().equals(byFirst.get(j).getId())) {
+                next = byLast.get(i++);
+                j++;
+            } else if (SEARCH_ORDER.compare(byLast.get(i), byFirst.get(j)) <= 0) {
+                next = byLast.get(i++);
+            } else {
+                next = byFirst.get(j++);
+            }
+            merged.add(next);
+        }
+        return merged;
+    }
+
+    // cursor = base64url("lastName \0 firstName \0 id") of the last row on the page
+    private static String encodeSearchCursor(String lastName, String firstName, Long id) {
+        String raw = lastName + "\0" + firstName + "\0" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeSearchCursor(String cursor) {
+        try {
+            String[] keys = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\0", -1);
+            if (keys.length != 3) {
+                throw new IllegalArgumentException("wrong number of keys");
+            }
+            Long.parseLong(keys[2]);
+            return keys;
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid search cursor");
+        }
+    }
+
     // Creation method to support patient record creation
     public PatientRecordDTO createPatientRecord(User userTemplate, List<Allergy> allergiesInput) {
         if (userTemplate == null) {
@@ -519,12 +707,7 @@ public class PatientRecordService {
 
         // convert Allergy entities to AllergyDTOs in a loop (if list is empty won't execute)
         for (Allergy allergy : allergies) {
-            PatientRecordDTO.AllergyDTO allergyDTO = new PatientRecordDTO.AllergyDTO();
-            allergyDTO.setAllergyId(allergy.getId());
-            allergyDTO.setSubstance(allergy.getSubstance());
-            allergyDTO.setReaction(allergy.getReaction());
-            allergyDTO.setSeverity(allergy.getSeverity());
-            patientRecord.getAllergies().add(allergyDTO);
+            patientRecord.getAllergies().add(toAllergyDTO(allergy.getId(), allergy.getSubstance(), allergy.getReaction(), allergy.getSeverity()));
         }
 
         // get the list of medications from the repo and set the nested DTO fields
@@ -532,12 +715,7 @@ public class PatientRecordService {
 
         // convert Medication entities to MedicationDTOs in the PatientRecordDTO
         for (Medication medication : medications) {
-            PatientRecordDTO.MedicationDTO medicationDTO = new PatientRecordDTO.MedicationDTO();
-            medicationDTO.setMedicationId(medication.getId());
-            medicationDTO.setDrugName(medication.getDrugName());
-            medicationDTO.setDose(medication.getDose());
-            medicationDTO.setFrequency(medication.getFrequency());
-            patientRecord.getMedications().add(medicationDTO);
+            patientRecord.getMedications().add(toMedicationDTO(medication.getId(), medication.getDrugName(), medication.getDose(), medication.getFrequency()));
         }
 
         // get the list of medical history from the repo and set the nested DTO fields
@@ -545,18 +723,7 @@ public class PatientRecordService {
         
         // convert MedicalHistory entities to MedicalHistoryDTOs
         for (MedicalHistory history : medicalHistories) {
-            PatientRecordDTO.MedicalHistoryDTO historyDTO = new PatientRecordDTO.MedicalHistoryDTO();
-            historyDTO.setId(history.getId());
-            historyDTO.setDoctorId(history.getDoctorId());
-            historyDTO.setNotes(history.getDiagnosis());
-                if (history.getStartDate() != null) {
-                    try {
-                        historyDTO.setStartDate(history.getStartDate().toInstant().atZone(java.time.ZoneId.systemDefault()).toLocalDateTime());
-                    } catch (UnsupportedOperationException uoe) {
-                        historyDTO.setStartDate(java.time.Instant.ofEpochMilli(history.getStartDate().getTime()).atZone(java.time.ZoneId.systemDefault()).toLocalDateTime());
-                    }
-                }
-            patientRecord.getMedicalHistory().add(historyDTO);
+            patientRecord.getMedicalHistory().add(toMedicalHistoryDTO(history.getId(), history.getDoctorId(), history.getDiagnosis(), history.getStartDate()));
         }
 
         patientRecord.setDateOfBirth(user.getDateOfBirth());
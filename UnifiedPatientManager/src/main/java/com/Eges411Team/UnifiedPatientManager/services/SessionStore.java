@@ -0,0 +1,454 @@
+package com.Eges411Team.UnifiedPatientManager.services;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.Eges411Team.UnifiedPatientManager.entity.UserSession;
+import com.Eges411Team.UnifiedPatientManager.repositories.UserSessionRepository;
+import com.Eges411Team.UnifiedPatientManager.services.JwtTokenProvider.TokenClaims;
+
+import io.jsonwebtoken.JwtException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+// In-memory view of the active user_session rows, keyed by a SHA-256 hash of the token.
+//
+// Every authenticated request records activity here instead of on the row. The map is
+// split into stripes, each a plain HashMap behind its own lock, so concurrent requests
+// only contend when their tokens land on the same stripe. Activity is written behind:
+// touched sessions are marked dirty and flush() writes each one's latest time in a single
+// JDBC batch, however many requests it saw in between.
+//
+// Sessions idle for longer than auth.session.idle-timeout-ms are expired by a timer wheel:
+// a session sits in the bucket of its idle deadline, and when the wheel reaches that bucket
+// it is either expired (row deactivated, token revoked) or moved to the bucket of its new
+// deadline. Touching a session never has to find it in the wheel.
+//
+// user_session stays the source of truth; the store is rebuilt from it at startup and
+// kept up to date by SessionStoreUpdater. Activity not yet flushed is lost on a crash.
+@Component
+public class SessionStore {
+
+    private static final Logger log = LoggerFactory.getLogger(SessionStore.class);
+
+    private static final String ACTIVITY_SQL =
+        "UPDATE user_session SET last_activity_time = ? WHERE id = ?";
+    private static final String DEACTIVATE_SQL =
+        "UPDATE user_session SET is_active = false, logout_time = ? WHERE id = ? AND is_active = true";
+
+    private final UserSessionRepository userSessionRepository;
+    private final JwtTokenProvider jwtTokenProvider;
+    private final TokenRevocationList tokenRevocationList;
+    private final JdbcTemplate jdbcTemplate;
+    private final long idleTimeoutMillis;
+    private final long tickMillis;
+
+    private final Stripe[] stripes;
+    private final ConcurrentLinkedQueue<Session>[] wheel;
+    // last wheel tick processed; advanced under wheelLock
+    private volatile long currentTick;
+    private final ReentrantLock wheelLock = new ReentrantLock();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    // {session id, logout time (epoch ms)} of idle-expired sessions still to be written
+    private final ConcurrentLinkedQueue<long[]> pendingDeactivations = new ConcurrentLinkedQueue<>();
+
+    // MessageDigest isn't thread-safe
+    private final ThreadLocal<MessageDigest> sha256 = ThreadLocal.withInitial(SessionStore::newDigest);
+
+    // metrics
+    private final LongAdder touches = new LongAdder();
+    private final LongAdder activityWrites = new LongAdder();
+    private final LongAdder idleExpirations = new LongAdder();
+
+    @SuppressWarnings("unchecked")
+    public SessionStore(UserSessionRepository userSessionRepository,
+                        JwtTokenProvider jwtTokenProvider,
+                        TokenRevocationList tokenRevocationList,
+                        JdbcTemplate jdbcTemplate,
+                        @Value("${auth.session.stripes:16}") int stripeCount,
+                        @Value("${auth.session.idle-timeout-ms:1800000}") long idleTimeoutMillis,
+                        @Value("${auth.session.wheel-tick-ms:10000}") long tickMillis) {
+        this.userSessionRepository = userSessionRepository;
+        this.jwtTokenProvider = jwtTokenProvider;
+        this.tokenRevocationList = tokenRevocationList;
+        this.jdbcTemplate = jdbcTemplate;
+        this.idleTimeoutMillis = Math.max(1, idleTimeoutMillis);
+        this.tickMillis = Math.max(1, tickMillis);
+
+        // power of two so the stripe is picked with a mask
+        int count = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        this.stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe();
+        }
+
+        // one lap of the wheel covers a full idle timeout, so a deadline never wraps
+        int buckets = (int) Math.min(Integer.MAX_VALUE - 2, this.idleTimeoutMillis / this.tickMillis) + 2;
+        this.wheel = new ConcurrentLinkedQueue[buckets];
+        for (int i = 0; i < buckets; i++) {
+            wheel[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.currentTick = System.currentTimeMillis() / this.tickMillis;
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        List<UserSession> sessions;
+        try {
+            sessions = userSessionRepository.findActiveUnexpired(LocalDateTime.now());
+        } catch (DataAccessException e) {
+            log.warn("Could not load active sessions: {}", e.getMessage());
+            return;
+        }
+        int count = 0;
+        for (UserSession session : sessions) {
+            if (register(session)) {
+                count++;
+            }
+        }
+        log.info("Session store rebuilt with {} sessions", count);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    // Adds a saved, active session. Returns false if its token is no longer valid.
+    public boolean register(UserSession row) {
+        if (row.getId() == null || row.getUser() == null || row.getSessionToken() == null) {
+            return false;
+        }
+        TokenClaims claims;
+        try {
+            claims = jwtTokenProvider.verify(row.getSessionToken());
+        } catch (JwtException | IllegalArgumentException e) {
+            return false;
+        }
+        if (claims == null || claims.expiresAt() == null) {
+            return false;
+        }
+        long lastActivity = row.getLastActivityTime() == null
+            ? System.currentTimeMillis() : toMillis(row.getLastActivityTime());
+        Session session = new Session(hash(row.getSessionToken()), row.getId(), row.getUser().getId(),
+            claims.tokenId(), claims.expiresAt().getTime(), lastActivity);
+
+        Stripe stripe = stripeFor(session.tokenHash);
+        stripe.lock.lock();
+        try {
+            Session previous = stripe.sessions.put(session.tokenHash, session);
+            if (previous != null) {
+                previous.removed = true;
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+        schedule(session, lastActivity + idleTimeoutMillis);
+        return true;
+    }
+
+    /**
+     * Records a request on the session with this token. Returns false if the session has
+     * been idle too long, in which case it is expired now. Tokens with no session here
+     * (e.g. issued by another instance) are left to the JWT checks and return true.
+     */
+    public boolean recordActivity(String token) {
+        long now = System.currentTimeMillis();
+        String tokenHash = hash(token);
+        Stripe stripe = stripeFor(tokenHash);
+        Session expired;
+        stripe.lock.lock();
+        try {
+            Session session = stripe.sessions.get(tokenHash);
+            if (session == null) {
+                return true;
+            }
+            if (now - session.lastActivity < idleTimeoutMillis) {
+                touches.increment();
+                session.lastActivity = now;
+                if (!session.dirty) {
+                    session.dirty = true;
+                    stripe.dirty.add(session);
+                }
+                return true;
+            }
+            expired = detach(stripe, session);
+        } finally {
+            stripe.lock.unlock();
+        }
+        expire(expired, now);
+        return false;
+    }
+
+    // The session was logged out or deactivated
+    public void remove(String token) {
+        String tokenHash = hash(token);
+        Stripe stripe = stripeFor(tokenHash);
+        stripe.lock.lock();
+        try {
+            Session session = stripe.sessions.get(tokenHash);
+            if (session != null) {
+                detach(stripe, session);
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    public void removeAllForUser(Long userId) {
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                List<Session> theirs = new ArrayList<>();
+                for (Session session : stripe.sessions.values()) {
+                    if (session.userId.equals(userId)) {
+                        theirs.add(session);
+                    }
+                }
+                for (Session session : theirs) {
+                    detach(stripe, session);
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Moves the timer wheel up to now: sessions whose idle deadline has passed are expired,
+     * the others are rescheduled, and sessions whose token has expired are dropped.
+     */
+    @Scheduled(fixedDelayString = "${auth.session.wheel-tick-ms:10000}")
+    public void advance() {
+        if (!wheelLock.tryLock()) {
+            return;
+        }
+        try {
+            long now = System.currentTimeMillis();
+            long nowTick = now / tickMillis;
+            // after a long pause, one lap covers every bucket
+            long from = Math.max(currentTick + 1, nowTick - wheel.length + 1);
+            for (long tick = from; tick <= nowTick; tick++) {
+                ConcurrentLinkedQueue<Session> bucket = wheel[(int) (tick % wheel.length)];
+                // only what was there when we started; reschedules land in later buckets
+                for (int pending = bucket.size(); pending > 0; pending--) {
+                    Session session = bucket.poll();
+                    if (session == null) {
+                        break;
+                    }
+                    check(session, now);
+                }
+                currentTick = tick;
+            }
+        } finally {
+            wheelLock.unlock();
+        }
+    }
+
+    private void check(Session session, long now) {
+        Stripe stripe = stripeFor(session.tokenHash);
+        Session expired = null;
+        long deadline;
+        stripe.lock.lock();
+        try {
+            if (session.removed) {
+                return;
+            }
+            if (now >= session.expiresAt) {
+                // the token is no longer accepted anyway; the row's expires_at says the same
+                detach(stripe, session);
+                return;
+            }
+            deadline = session.lastActivity + idleTimeoutMillis;
+            if (deadline <= now) {
+                expired = detach(stripe, session);
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+        if (expired != null) {
+            expire(expired, now);
+        } else {
+            schedule(session, deadline);
+        }
+    }
+
+    /**
+     * Writes the latest activity of every touched session, and deactivates idle-expired
+     * sessions, in one JDBC batch each. Returns the number of rows written.
+     */
+    @Scheduled(fixedDelayString = "${auth.session.flush-interval-ms:5000}")
+    public int flush() {
+        flushLock.lock();
+        try {
+            List<Object[]> activity = new ArrayList<>();
+            for (Stripe stripe : stripes) {
+                stripe.lock.lock();
+                try {
+                    for (Session session : stripe.dirty) {
+                        session.dirty = false;
+                        if (!session.removed) {
+                            activity.add(new Object[] {toTimestamp(session.lastActivity), session.id});
+                        }
+                    }
+                    stripe.dirty.clear();
+                } finally {
+                    stripe.lock.unlock();
+                }
+            }
+            List<long[]> deactivations = new ArrayList<>();
+            for (long[] pending; (pending = pendingDeactivations.poll()) != null; ) {
+                deactivations.add(pending);
+            }
+
+            if (!activity.isEmpty()) {
+                try {
+                    jdbcTemplate.batchUpdate(ACTIVITY_SQL, activity);
+                    activityWrites.add(activity.size());
+                } catch (DataAccessException e) {
+                    // activity is best effort; the next request on each session marks it again
+                    log.warn("Session activity not written: {}", e.getMessage());
+                }
+            }
+            if (!deactivations.isEmpty()) {
+                List<Object[]> rows = new ArrayList<>(deactivations.size());
+                for (long[] deactivation : deactivations) {
+                    rows.add(new Object[] {toTimestamp(deactivation[1]), deactivation[0]});
+                }
+                try {
+                    jdbcTemplate.batchUpdate(DEACTIVATE_SQL, rows);
+                } catch (DataAccessException e) {
+                    // the tokens are already revoked; retry the rows on the next flush
+                    log.warn("Idle sessions not deactivated, will retry: {}", e.getMessage());
+                    pendingDeactivations.addAll(deactivations);
+                    return activity.size();
+                }
+            }
+            return activity.size() + deactivations.size();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                size += stripe.sessions.size();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    public Map<String, Long> stats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("sessions", (long) size());
+        stats.put("touches", touches.sum());
+        stats.put("activityWrites", activityWrites.sum());
+        stats.put("idleExpirations", idleExpirations.sum());
+        stats.put("pendingDeactivations", (long) pendingDeactivations.size());
+        return stats;
+    }
+
+    // caller holds the stripe lock
+    private Session detach(Stripe stripe, Session session) {
+        stripe.sessions.remove(session.tokenHash, session);
+        session.removed = true;
+        return session;
+    }
+
+    private void expire(Session session, long now) {
+        idleExpirations.increment();
+        pendingDeactivations.add(new long[] {session.id, now});
+        if (session.tokenId != null) {
+            tokenRevocationList.revokeTokenId(session.tokenId, session.expiresAt);
+        }
+        log.info("Session {} of user {} expired after {} ms idle", session.id, session.userId, idleTimeoutMillis);
+    }
+
+    private void schedule(Session session, long deadline) {
+        // never into a bucket the wheel has already passed
+        long tick = Math.max(currentTick + 1, (deadline + tickMillis - 1) / tickMillis);
+        wheel[(int) (tick % wheel.length)].add(session);
+    }
+
+    private Stripe stripeFor(String tokenHash) {
+        int h = tokenHash.hashCode();
+        return stripes[(h ^ (h >>> 16)) & (stripes.length - 1)];
+    }
+
+    private String hash(String token) {
+        byte[] digest = sha256.get().digest(token.getBytes(StandardCharsets.UTF_8));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 unavailable", e);
+        }
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static Timestamp toTimestamp(long millis) {
+        return Timestamp.valueOf(LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault()));
+    }
+
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final HashMap<String, Session> sessions = new HashMap<>();
+        // sessions touched since the last flush
+        private final List<Session> dirty = new ArrayList<>();
+    }
+
+    private static final class Session {
+        private final String tokenHash;
+        private final Long id;
+        private final Long userId;
+        private final String tokenId;
+        private final long expiresAt;
+        // written under the stripe lock; read by the wheel under the same lock
+        private long lastActivity;
+        private boolean dirty;
+        private boolean removed;
+
+        private Session(String tokenHash, Long id, Long userId, String tokenId, long expiresAt, long lastActivity) {
+            this.tokenHash = tokenHash;
+            this.id = id;
+            this.userId = userId;
+            this.tokenId = tokenId;
+            this.expiresAt = expiresAt;
+            this.lastActivity = lastActivity;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.Eges411Team.UnifiedPatientManager.services;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.Eges411Team.UnifiedPatientManager.entity.UserSession;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+// JPA entity listener on UserSession that keeps SessionStore in step with the table:
+// new active sessions are added once their row commits, deactivated or deleted ones are
+// dropped straight away. Hibernate builds its own instance of this class, which is why
+// the store itself isn't the listener.
+@Component
+public class SessionStoreUpdater {
+
+    // looked up lazily: the store needs UserSessionRepository, and so the
+    // EntityManagerFactory that is still being built when Hibernate creates this listener
+    private final ObjectProvider<SessionStore> sessionStore;
+
+    public SessionStoreUpdater(ObjectProvider<SessionStore> sessionStore) {
+        this.sessionStore = sessionStore;
+    }
+
+    @PostPersist
+    public void onSessionCreated(UserSession session) {
+        if (!session.getIsActive()) {
+            return;
+        }
+        // a rolled-back login must not leave a session behind
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    sessionStore.getObject().register(session);
+                }
+            });
+        } else {
+            sessionStore.getObject().register(session);
+        }
+    }
+
+    @PostUpdate
+    public void onSessionUpdated(UserSession session) {
+        if (!session.getIsActive()) {
+            sessionStore.getObject().remove(session.getSessionToken());
+        }
+    }
+
+    @PostRemove
+    public void onSessionRemoved(UserSession session) {
+        sessionStore.getObject().remove(session.getSessionToken());
+    }
+}
@@ -0,0 +1,117 @@
+package com.Eges411Team.UnifiedPatientManager.services;
+
+import com.Eges411Team.UnifiedPatientManager.repositories.UserSessionRepository;
+import com.Eges411Team.UnifiedPatientManager.services.JwtTokenProvider.TokenClaims;
+import io.jsonwebtoken.JwtException;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+// In-memory list of JWTs that were logged out before they expired, so requests can be
+// authenticated from the token alone, with no user_session lookup.
+// Holds one entry per revoked token id (jti -> expiry), plus a per-user cutoff for
+// "log out everywhere": any token for that user issued at or before the cutoff is
+// rejected. Entries are dropped once the tokens they cover have expired.
+// user_session stays the source of truth; the list is rebuilt from it at startup.
+@Component
+public class TokenRevocationList {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenRevocationList.class);
+
+    private final JwtTokenProvider jwtTokenProvider;
+    private final UserSessionRepository userSessionRepository;
+
+    // jti -> token expiry (epoch ms)
+    private final ConcurrentMap<String, Long> revokedTokens = new ConcurrentHashMap<>();
+    // userId -> {issued-at cutoff (epoch s), expiry of the newest covered token (epoch ms)}
+    private final ConcurrentMap<Long, long[]> userCutoffs = new ConcurrentHashMap<>();
+
+    public TokenRevocationList(JwtTokenProvider jwtTokenProvider, UserSessionRepository userSessionRepository) {
+        this.jwtTokenProvider = jwtTokenProvider;
+        this.userSessionRepository = userSessionRepository;
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        List<String> tokens;
+        try {
+            tokens = userSessionRepository.findRevokedUnexpiredTokens(LocalDateTime.now());
+        } catch (DataAccessException e) {
+            log.warn("Could not load revoked sessions: {}", e.getMessage());
+            return;
+        }
+        int count = 0;
+        for (String token : tokens) {
+            if (revoke(token)) {
+                count++;
+            }
+        }
+        log.info("Token revocation list rebuilt with {} tokens", count);
+    }
+
+    // Revokes a single token. Returns false if there's nothing to revoke: the token is
+    // already invalid or expired, or predates token ids (those are never accepted).
+    public boolean revoke(String token) {
+        TokenClaims claims;
+        try {
+            claims = jwtTokenProvider.verify(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            return false;
+        }
+        if (claims == null || claims.tokenId() == null || claims.expiresAt() == null) {
+            return false;
+        }
+        revokeTokenId(claims.tokenId(), claims.expiresAt().getTime());
+        return true;
+    }
+
+    // Revokes a token by its id, for callers that no longer hold the token itself
+    public void revokeTokenId(String tokenId, long expiresAtMillis) {
+        revokedTokens.put(tokenId, expiresAtMillis);
+    }
+
+    // Revokes every token issued to the user up to now
+    public void revokeAllForUser(Long userId) {
+        long nowMillis = System.currentTimeMillis();
+        // iat has second precision, so a token issued later in this same second is
+        // also rejected; the user just logs in again
+        long cutoffSeconds = nowMillis / 1000;
+        long coveredUntil = nowMillis + jwtTokenProvider.getExpirationTime() * 1000;
+        userCutoffs.merge(userId, new long[] {cutoffSeconds, coveredUntil},
+            (old, next) -> new long[] {Math.max(old[0], next[0]), Math.max(old[1], next[1])});
+    }
+
+    public boolean isRevoked(TokenClaims claims) {
+        String jti = claims.tokenId();
+        if (jti != null && revokedTokens.containsKey(jti)) {
+            return true;
+        }
+        Long userId = claims.userId();
+        Date issuedAt = claims.issuedAt();
+        if (userId == null || issuedAt == null) {
+            return false;
+        }
+        long[] cutoff = userCutoffs.get(userId);
+        return cutoff != null && issuedAt.getTime() / 1000 <= cutoff[0];
+    }
+
+    @Scheduled(fixedDelayString = "${auth.revocation.purge-interval-ms:60000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        revokedTokens.values().removeIf(expiry -> expiry < now);
+        userCutoffs.values().removeIf(cutoff -> cutoff[1] < now);
+    }
+
+    public int size() {
+        return revokedTokens.size() + userCutoffs.size();
+    }
+}
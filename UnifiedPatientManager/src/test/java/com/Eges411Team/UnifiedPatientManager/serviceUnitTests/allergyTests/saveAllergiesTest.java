@@ -3,6 +3,7 @@ package com.Eges411Team.UnifiedPatientManager.serviceUnitTests.allergyTests;
 import com.Eges411Team.UnifiedPatientManager.entity.Allergy;
 import com.Eges411Team.UnifiedPatientManager.repositories.AllergyRepository;
 import com.Eges411Team.UnifiedPatientManager.services.AllergyService;
+import com.Eges411Team.UnifiedPatientManager.services.PatientChartCacheInvalidator;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
@@ -13,6 +14,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -28,6 +30,9 @@ class saveAllergiesTest {
     @Mock
     private AllergyRepository allergyRepository;
 
+    @Mock
+    private PatientChartCacheInvalidator chartCacheInvalidator;
+
     @InjectMocks
     private AllergyService allergyService;
 
@@ -92,7 +97,8 @@ class saveAllergiesTest {
 
         // Verify deletion of existing allergies
         verify(allergyRepository, times(1)).findAllByPatientId(patientId);
-        verify(allergyRepository, times(1)).deleteAll(existingAllergies);
+        verify(allergyRepository, times(1)).deleteAllByIdInBatch(Set.of(1L, 2L));
+        verify(chartCacheInvalidator).invalidate(patientId);
         verify(allergyRepository, times(1)).saveAll(anyList());
 
         // Verify patient IDs were set on new allergies
@@ -136,7 +142,7 @@ class saveAllergiesTest {
         assertEquals("Penicillin", result.get(0).getSubstance());
 
         verify(allergyRepository, times(1)).findAllByPatientId(patientId);
-        verify(allergyRepository, times(1)).deleteAll(existingAllergies);
+        verify(allergyRepository, never()).deleteAllByIdInBatch(any());
         verify(allergyRepository, times(1)).saveAll(anyList());
     }
 
@@ -169,7 +175,8 @@ class saveAllergiesTest {
         assertTrue(result.isEmpty(), "Result should be empty");
 
         verify(allergyRepository, times(1)).findAllByPatientId(patientId);
-        verify(allergyRepository, times(1)).deleteAll(existingAllergies);
+        verify(allergyRepository, times(1)).deleteAllByIdInBatch(Set.of(1L, 2L));
+        verify(chartCacheInvalidator).invalidate(patientId);
         verify(allergyRepository, times(1)).saveAll(emptyList);
     }
 
@@ -240,7 +247,7 @@ class saveAllergiesTest {
         }
 
         verify(allergyRepository, times(1)).findAllByPatientId(patientId);
-        verify(allergyRepository, times(1)).deleteAll(anyList());
+        verify(allergyRepository, never()).deleteAllByIdInBatch(any());
         verify(allergyRepository, times(1)).saveAll(anyList());
     }
 }
@@ -1,15 +1,18 @@
 package com.Eges411Team.UnifiedPatientManager.serviceUnitTests.authenticationTests;
 
 import com.Eges411Team.UnifiedPatientManager.DTOs.requests.LoginRequest;
+import com.Eges411Team.UnifiedPatientManager.ExceptionHandlers.InvalidOtpException;
 import com.Eges411Team.UnifiedPatientManager.entity.Role;
 import com.Eges411Team.UnifiedPatientManager.entity.User;
 import com.Eges411Team.UnifiedPatientManager.entity.UserSession;
 import com.Eges411Team.UnifiedPatientManager.repositories.UserRepository;
 import com.Eges411Team.UnifiedPatientManager.repositories.UserSessionRepository;
-import com.Eges411Team.UnifiedPatientManager.repositories.OtpTokenRepository;
 import com.Eges411Team.UnifiedPatientManager.services.AuthenticationService;
 import com.Eges411Team.UnifiedPatientManager.services.OtpService;
+import com.Eges411Team.UnifiedPatientManager.services.OtpVerifier;
 import com.Eges411Team.UnifiedPatientManager.services.JwtTokenProvider;
+import com.Eges411Team.UnifiedPatientManager.services.TokenRevocationList;
+import com.Eges411Team.UnifiedPatientManager.services.SessionStore;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -27,7 +30,8 @@ import static org.mockito.Mockito.*;
 
 /**
  * Unit tests for AuthenticationService edge cases and branch coverage.
- * Focuses on untested branches: locked accounts, bad passwords, OTP generation failures.
+ * Focuses on untested branches: locked accounts, bad passwords, OTP generation failures,
+ * password reset OTP checks.
  */
 @ExtendWith(MockitoExtension.class)
 class AuthenticationServiceEdgeCaseTest {
@@ -48,7 +52,13 @@ class AuthenticationServiceEdgeCaseTest {
     private PasswordEncoder passwordEncoder;
 
     @Mock
-    private OtpTokenRepository otpTokenRepository;
+    private OtpVerifier otpVerifier;
+
+    @Mock
+    private TokenRevocationList tokenRevocationList;
+
+    @Mock
+    private SessionStore sessionStore;
 
     @InjectMocks
     private AuthenticationService authenticationService;
@@ -101,15 +111,14 @@ class AuthenticationServiceEdgeCaseTest {
             .thenReturn(Optional.of(testUser));
         when(passwordEncoder.matches("wrongPassword", testUser.getPasswordHash()))
             .thenReturn(false);
-        when(userRepository.save(any(User.class)))
-            .thenAnswer(inv -> inv.getArgument(0));
 
         // Execute & Verify: Should throw BadCredentialsException
         assertThrows(org.springframework.security.authentication.BadCredentialsException.class,
             () -> authenticationService.authenticate(loginRequest, "192.168.1.1"));
 
-        // Verify: Failed login attempts should be incremented
-        verify(userRepository).save(argThat(user -> user.getFailedLoginAttempts() == 1));
+        // Verify: Failed login attempts incremented in the database, not by re-saving the row
+        verify(userRepository).recordFailedLogin(1L, 3);
+        verify(userRepository, never()).save(any());
     }
 
     // ==================== Authenticate - Account Lock After Failed Attempts Test ====================
@@ -126,23 +135,20 @@ class AuthenticationServiceEdgeCaseTest {
             .thenReturn(Optional.of(testUser));
         when(passwordEncoder.matches("wrongPassword", testUser.getPasswordHash()))
             .thenReturn(false);
-        when(userRepository.save(any(User.class)))
-            .thenAnswer(inv -> inv.getArgument(0));
 
         // Execute: Third failed attempt
         assertThrows(org.springframework.security.authentication.BadCredentialsException.class,
             () -> authenticationService.authenticate(loginRequest, "192.168.1.1"));
 
-        // Verify: Account should be locked after 3 attempts
-        verify(userRepository).save(argThat(user -> 
-            user.getFailedLoginAttempts() == 3 && user.getIsLocked()));
+        // Verify: the update statement locks the account once the count reaches 3
+        verify(userRepository).recordFailedLogin(1L, 3);
     }
 
     // ==================== Authenticate - OTP Generation Failure Test ====================
     @Test
     void authenticate_otpGenerationFails_rethrowsException() {
         // Setup: User exists, password is correct, but OTP generation fails
-        testUser.setFailedLoginAttempts(0);
+        testUser.setFailedLoginAttempts(2);
         
         LoginRequest loginRequest = new LoginRequest("testuser", "correctPassword", false);
 
@@ -151,8 +157,6 @@ class AuthenticationServiceEdgeCaseTest {
             .thenReturn(Optional.of(testUser));
         when(passwordEncoder.matches("correctPassword", testUser.getPasswordHash()))
             .thenReturn(true);
-        when(userRepository.save(any(User.class)))
-            .thenAnswer(inv -> inv.getArgument(0));
         
         // Mock: OTP generation throws exception
         doThrow(new RuntimeException("Email service unavailable"))
@@ -163,8 +167,45 @@ class AuthenticationServiceEdgeCaseTest {
             () -> authenticationService.authenticate(loginRequest, "192.168.1.1"));
 
         // Verify: Failed login attempts should still be reset before OTP call
-        verify(userRepository).save(argThat(user -> user.getFailedLoginAttempts() == 0));
+        verify(userRepository).resetFailedLogins(1L);
+    }
+    // ==================== Authenticate - Rehash On Login Tests ====================
+    @Test
+    void authenticate_hashBelowConfiguredCost_rehashedWithSubmittedPassword() {
+        LoginRequest loginRequest = new LoginRequest("testuser", "correctPassword", false);
+
+        when(userRepository.findByUsername("testuser"))
+            .thenReturn(Optional.of(testUser));
+        when(passwordEncoder.matches("correctPassword", "hashedPassword"))
+            .thenReturn(true);
+        when(passwordEncoder.upgradeEncoding("hashedPassword"))
+            .thenReturn(true);
+        when(passwordEncoder.encode("correctPassword"))
+            .thenReturn("strongerHash");
+
+        authenticationService.authenticate(loginRequest, "192.168.1.1");
+
+        verify(userRepository).updatePasswordHash(1L, "strongerHash");
+        // count was already 0, so nothing to reset
+        verify(userRepository, never()).resetFailedLogins(any());
     }
+
+    @Test
+    void authenticate_hashAtConfiguredCost_notRehashed() {
+        LoginRequest loginRequest = new LoginRequest("testuser", "correctPassword", false);
+
+        when(userRepository.findByUsername("testuser"))
+            .thenReturn(Optional.of(testUser));
+        when(passwordEncoder.matches("correctPassword", "hashedPassword"))
+            .thenReturn(true);
+
+        authenticationService.authenticate(loginRequest, "192.168.1.1");
+
+        verify(passwordEncoder, never()).encode(any());
+        verify(userRepository, never()).updatePasswordHash(any(), any());
+        assertEquals("hashedPassword", testUser.getPasswordHash());
+    }
+
     // ==================== Logout Tests ====================
     @Test
     void logout_validActiveSession_deactivatesSession() {
@@ -187,6 +228,8 @@ class AuthenticationServiceEdgeCaseTest {
 
         // Verify: Session was saved with isActive=false
         verify(userSessionRepository).save(argThat(session -> !session.getIsActive()));
+        // and the token is revoked for the stateless filter
+        verify(tokenRevocationList).revoke("validToken123");
     }
 
     @Test
@@ -225,6 +268,38 @@ class AuthenticationServiceEdgeCaseTest {
         verify(userSessionRepository).findBySessionTokenAndActive("myToken123", true);
     }
 
+    // ==================== ResetPassword - OTP Check Tests ====================
+    @Test
+    void resetPassword_validOtp_setsNewPasswordAndUnlocks() {
+        testUser.setIsLocked(true);
+        testUser.setFailedLoginAttempts(3);
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
+        when(passwordEncoder.encode("newPassword1!")).thenReturn("newHash");
+
+        authenticationService.resetPassword("testuser", "123456", "newPassword1!");
+
+        verify(otpVerifier).verify(1L, "123456");
+        assertEquals("newHash", testUser.getPasswordHash());
+        assertFalse(testUser.getIsLocked());
+        assertEquals(0, testUser.getFailedLoginAttempts());
+        verify(tokenRevocationList).revokeAllForUser(1L);
+        verify(sessionStore).removeAllForUser(1L);
+    }
+
+    @Test
+    void resetPassword_invalidOtp_passwordUnchanged() {
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
+        when(otpVerifier.verify(1L, "000000"))
+            .thenThrow(new InvalidOtpException("Invalid OTP code. Attempts remaining: 2"));
+
+        assertThrows(InvalidOtpException.class,
+            () -> authenticationService.resetPassword("testuser", "000000", "newPassword1!"));
+
+        assertEquals("hashedPassword", testUser.getPasswordHash());
+        verify(passwordEncoder, never()).encode(any());
+        verify(userRepository, never()).save(any());
+    }
+
     // ==================== HandleFailedLogin - Lock Account Test ====================
     @Test
     void handleFailedLogin_thirdAttempt_locksAccount() {
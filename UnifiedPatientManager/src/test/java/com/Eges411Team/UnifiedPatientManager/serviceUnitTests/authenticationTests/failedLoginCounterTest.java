@@ -0,0 +1,145 @@
+package com.Eges411Team.UnifiedPatientManager.serviceUnitTests.authenticationTests;
+
+import com.Eges411Team.UnifiedPatientManager.DTOs.requests.LoginRequest;
+import com.Eges411Team.UnifiedPatientManager.entity.Role;
+import com.Eges411Team.UnifiedPatientManager.entity.User;
+import com.Eges411Team.UnifiedPatientManager.repositories.UserRepository;
+import com.Eges411Team.UnifiedPatientManager.services.AuthenticationService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.LockedException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration Test: Failed-login counter and optimistic locking on user
+ * Failed logins are counted with a single UPDATE, so parallel attempts don't lose
+ * increments and the account locks on the third; every write bumps the row's version,
+ * so saving a stale copy of the user fails instead of resetting the counter.
+ */
+@SpringBootTest(properties = {
+    // NON_KEYWORDS=USER lets H2 create the "user" table
+    "spring.datasource.url=jdbc:h2:mem:chartdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;NON_KEYWORDS=USER",
+    "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+class failedLoginCounterTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AuthenticationService authenticationService;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setUsername("counteruser");
+        user.setPassword(passwordEncoder.encode("rightPassword"));
+        user.setRole(Role.PATIENT);
+        user.setFirstName("Counter");
+        user.setLastName("Tester");
+        user.setPhoneNumber("5555555555");
+        user.setGender("F");
+        user.setDateOfBirth(LocalDateTime.of(1990, 2, 1, 0, 0));
+        user.setAddress("5 Main St");
+        user.setEmail("counteruser@example.com");
+        user.setCreationDate(LocalDateTime.now());
+        user.setUpdateDate(LocalDateTime.now());
+        user = userRepository.save(user);
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteById(user.getId());
+    }
+
+    private User stored() {
+        return userRepository.findById(user.getId()).orElseThrow();
+    }
+
+    @Test
+    void parallelFailures_noIncrementLost() throws Exception {
+        int threads = 16;
+        int failuresEach = 25;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            workers.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < failuresEach; i++) {
+                    userRepository.recordFailedLogin(user.getId(), 3);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        pool.shutdown();
+
+        User after = stored();
+        assertEquals(threads * failuresEach, after.getFailedLoginAttempts());
+        assertTrue(after.getIsLocked());
+        assertEquals(user.getVersion() + threads * failuresEach, after.getVersion());
+    }
+
+    @Test
+    void thirdWrongPassword_locksAccount() {
+        for (int i = 0; i < 2; i++) {
+            assertThrows(BadCredentialsException.class,
+                () -> authenticationService.authenticate(new LoginRequest("counteruser", "wrong", false), "192.0.2.1"));
+            assertFalse(stored().getIsLocked());
+        }
+        assertThrows(BadCredentialsException.class,
+            () -> authenticationService.authenticate(new LoginRequest("counteruser", "wrong", false), "192.0.2.1"));
+
+        assertEquals(3, stored().getFailedLoginAttempts());
+        assertTrue(stored().getIsLocked());
+        assertThrows(LockedException.class,
+            () -> authenticationService.authenticate(new LoginRequest("counteruser", "rightPassword", false), "192.0.2.1"));
+    }
+
+    @Test
+    void resetFailedLogins_onlyWritesWhenThereIsSomethingToClear() {
+        assertEquals(0, userRepository.resetFailedLogins(user.getId()));
+        assertEquals(user.getVersion(), stored().getVersion());
+
+        userRepository.recordFailedLogin(user.getId(), 3);
+        assertEquals(1, userRepository.resetFailedLogins(user.getId()));
+        assertEquals(0, stored().getFailedLoginAttempts());
+    }
+
+    @Test
+    void staleCopy_cannotOverwriteTheCounter() {
+        User staleCopy = stored();
+        userRepository.recordFailedLogin(user.getId(), 3);
+
+        staleCopy.setAddress("6 Main St");
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> userRepository.save(staleCopy));
+
+        User after = stored();
+        assertEquals(1, after.getFailedLoginAttempts());
+        assertEquals("5 Main St", after.getAddress());
+    }
+}
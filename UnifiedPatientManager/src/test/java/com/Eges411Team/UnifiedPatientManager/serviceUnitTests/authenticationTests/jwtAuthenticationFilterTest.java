@@ -0,0 +1,159 @@
+package com.Eges411Team.UnifiedPatientManager.serviceUnitTests.authenticationTests;
+
+import com.Eges411Team.UnifiedPatientManager.config.JwtAuthenticationFilter;
+import com.Eges411Team.UnifiedPatientManager.config.JwtAuthenticationFilter.AuthenticatedUser;
+import com.Eges411Team.UnifiedPatientManager.entity.Role;
+import com.Eges411Team.UnifiedPatientManager.entity.User;
+import com.Eges411Team.UnifiedPatientManager.repositories.UserSessionRepository;
+import com.Eges411Team.UnifiedPatientManager.services.JwtTokenProvider;
+import com.Eges411Team.UnifiedPatientManager.services.SessionStore;
+import com.Eges411Team.UnifiedPatientManager.services.TokenRevocationList;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test Case: Stateless JWT authentication
+ * Runs requests through JwtAuthenticationFilter with real tokens and checks the
+ * SecurityContext is filled from the claims without touching user_session, and that
+ * logged-out tokens are rejected from the in-memory revocation list.
+ */
+class jwtAuthenticationFilterTest {
+
+    private JwtTokenProvider jwtTokenProvider;
+    private UserSessionRepository userSessionRepository;
+    private TokenRevocationList tokenRevocationList;
+    private JwtAuthenticationFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        jwtTokenProvider = new JwtTokenProvider();
+        userSessionRepository = mock(UserSessionRepository.class);
+        tokenRevocationList = new TokenRevocationList(jwtTokenProvider, userSessionRepository);
+        filter = filterWith(tokenRevocationList);
+    }
+
+    // no sessions registered in the store, so only the token and the revocation list decide
+    private JwtAuthenticationFilter filterWith(TokenRevocationList revocationList) {
+        SessionStore sessionStore = new SessionStore(userSessionRepository, jwtTokenProvider, revocationList,
+            mock(JdbcTemplate.class), 16, 1_800_000, 10_000);
+        return new JwtAuthenticationFilter(jwtTokenProvider, revocationList, sessionStore);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private String tokenFor(Long userId, Role role) {
+        User user = new User();
+        user.setId(userId);
+        user.setUsername("user" + userId);
+        user.setRole(role);
+        return jwtTokenProvider.generateToken(user);
+    }
+
+    // runs one request through the filter and returns the authentication it produced
+    private Authentication send(String authorization) throws Exception {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/patients/1");
+        if (authorization != null) {
+            request.addHeader("Authorization", authorization);
+        }
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+        assertNotNull(chain.getRequest(), "request should always continue down the chain");
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    @Test
+    void validToken_populatesSecurityContextFromClaims_withoutDatabase() throws Exception {
+        Authentication authentication = send("Bearer " + tokenFor(42L, Role.DOCTOR));
+
+        assertNotNull(authentication);
+        AuthenticatedUser user = (AuthenticatedUser) authentication.getPrincipal();
+        assertEquals(42L, user.userId());
+        assertEquals("user42", user.username());
+        assertEquals(Role.DOCTOR, user.role());
+        assertEquals("ROLE_DOCTOR", authentication.getAuthorities().iterator().next().getAuthority());
+        verify(userSessionRepository, never()).findBySessionTokenAndActive(anyString(), anyBoolean());
+    }
+
+    @Test
+    void missingOrInvalidToken_leavesRequestAnonymous() throws Exception {
+        assertNull(send(null));
+        assertNull(send("Bearer not-a-jwt"));
+        assertNull(send("Basic dXNlcjpwYXNz"));
+
+        String token = tokenFor(7L, Role.PATIENT);
+        // change the first signature character: all of its bits count, unlike the last one's
+        int signature = token.lastIndexOf('.') + 1;
+        String tampered = token.substring(0, signature) + (token.charAt(signature) == 'A' ? 'B' : 'A')
+            + token.substring(signature + 1);
+        assertNull(send("Bearer " + tampered));
+    }
+
+    @Test
+    void loggedOutToken_isRejected_otherTokensStillWork() throws Exception {
+        String loggedOut = tokenFor(7L, Role.PATIENT);
+        String otherDevice = tokenFor(7L, Role.PATIENT);
+
+        assertTrue(tokenRevocationList.revoke(loggedOut));
+
+        assertNull(send("Bearer " + loggedOut));
+        assertNotNull(send("Bearer " + otherDevice));
+    }
+
+    @Test
+    void revokeAllForUser_rejectsEveryEarlierTokenOfThatUserOnly() throws Exception {
+        String first = tokenFor(7L, Role.PATIENT);
+        String second = tokenFor(7L, Role.PATIENT);
+        String someoneElse = tokenFor(8L, Role.NURSE);
+
+        tokenRevocationList.revokeAllForUser(7L);
+
+        assertNull(send("Bearer " + first));
+        assertNull(send("Bearer " + second));
+        assertNotNull(send("Bearer " + someoneElse));
+    }
+
+    @Test
+    void rebuild_restoresRevocationsFromUserSessionTable() throws Exception {
+        String loggedOut = tokenFor(9L, Role.PATIENT);
+        when(userSessionRepository.findRevokedUnexpiredTokens(any()))
+            .thenReturn(List.of(loggedOut, "legacy-token-without-jti"));
+
+        // a fresh list, as after a restart
+        TokenRevocationList restarted = new TokenRevocationList(jwtTokenProvider, userSessionRepository);
+        restarted.rebuild();
+        filter = filterWith(restarted);
+
+        assertEquals(1, restarted.size());
+        assertNull(send("Bearer " + loggedOut));
+        assertNotNull(send("Bearer " + tokenFor(9L, Role.PATIENT)));
+    }
+
+    @Test
+    void purgeExpired_keepsEntriesForUnexpiredTokens() {
+        tokenRevocationList.revoke(tokenFor(10L, Role.PATIENT));
+        tokenRevocationList.revokeAllForUser(11L);
+
+        tokenRevocationList.purgeExpired();
+
+        assertEquals(2, tokenRevocationList.size());
+    }
+}
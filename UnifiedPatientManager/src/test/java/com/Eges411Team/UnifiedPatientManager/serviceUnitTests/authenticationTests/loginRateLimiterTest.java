@@ -0,0 +1,225 @@
+package com.Eges411Team.UnifiedPatientManager.serviceUnitTests.authenticationTests;
+
+import com.Eges411Team.UnifiedPatientManager.DTOs.requests.ForgotPasswordRequest;
+import com.Eges411Team.UnifiedPatientManager.DTOs.requests.LoginRequest;
+import com.Eges411Team.UnifiedPatientManager.ExceptionHandlers.GlobalExceptionHandler;
+import com.Eges411Team.UnifiedPatientManager.ExceptionHandlers.RateLimitedException;
+import com.Eges411Team.UnifiedPatientManager.controller.AuthenticationController;
+import com.Eges411Team.UnifiedPatientManager.repositories.UserRepository;
+import com.Eges411Team.UnifiedPatientManager.services.AuthenticationService;
+import com.Eges411Team.UnifiedPatientManager.services.LoginRateLimiter;
+import com.Eges411Team.UnifiedPatientManager.services.OtpService;
+import com.Eges411Team.UnifiedPatientManager.services.PasswordHashExecutor;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test Case: Login rate limiting
+ * Drives LoginRateLimiter directly and through AuthenticationController: buckets per
+ * username and per IP run out independently, rejected requests never reach the services,
+ * the key maps stay bounded without forgetting a throttled key, concurrent callers can't
+ * take more tokens than a bucket holds, and the default IP limit lets many users share
+ * one address.
+ */
+class loginRateLimiterTest {
+
+    // no refill, so nothing comes back while a test runs
+    private static LoginRateLimiter limiter(int userCapacity, int ipCapacity, int maxKeys) {
+        return new LoginRateLimiter(userCapacity, 0, ipCapacity, 0, maxKeys);
+    }
+
+    @Test
+    void usernameBucket_emptiesForThatUserOnly() {
+        LoginRateLimiter limiter = limiter(3, 100, 1000);
+
+        for (int i = 0; i < 3; i++) {
+            limiter.acquire("dr.house", "10.0.0." + i);
+        }
+        // same user from yet another address, different case
+        RateLimitedException rejected =
+            assertThrows(RateLimitedException.class, () -> limiter.acquire("Dr.House ", "10.0.0.9"));
+        assertTrue(rejected.getRetryAfterSeconds() >= 1);
+        limiter.acquire("dr.wilson", "10.0.0.9");
+
+        assertEquals(4L, limiter.stats().get("allowed"));
+        assertEquals(1L, limiter.stats().get("rejectedByUser"));
+        assertEquals(0L, limiter.stats().get("rejectedByIp"));
+    }
+
+    @Test
+    void ipBucket_coversEveryUsernameFromThatAddress() {
+        LoginRateLimiter limiter = limiter(100, 5, 1000);
+
+        for (int i = 0; i < 5; i++) {
+            limiter.acquire("user" + i, "203.0.113.7");
+        }
+        assertThrows(RateLimitedException.class, () -> limiter.acquire("user99", "203.0.113.7"));
+        limiter.acquire("user99", "203.0.113.8");
+
+        assertEquals(1L, limiter.stats().get("rejectedByIp"));
+    }
+
+    @Test
+    void defaults_wholeClinicBehindOneAddress_isNotThrottled() {
+        // the @Value defaults
+        LoginRateLimiter limiter = new LoginRateLimiter(5, 5, 1000, 600, 100000);
+
+        // 300 clinicians behind the same NAT, each logging in and asking for one OTP resend
+        for (int i = 0; i < 300; i++) {
+            limiter.acquire("clinician" + i, "198.51.100.20");
+            limiter.acquire("clinician" + i, "198.51.100.20");
+        }
+        // one of them mistyping their password keeps only their own account waiting
+        for (int i = 0; i < 3; i++) {
+            limiter.acquire("clinician0", "198.51.100.20");
+        }
+        assertThrows(RateLimitedException.class, () -> limiter.acquire("clinician0", "198.51.100.20"));
+        limiter.acquire("clinician1", "198.51.100.20");
+
+        assertEquals(0L, limiter.stats().get("rejectedByIp"));
+        assertEquals(1L, limiter.stats().get("rejectedByUser"));
+    }
+
+    @Test
+    void refill_tokensComeBackOverTime() throws Exception {
+        // 6000 per minute = one every 10 ms
+        LoginRateLimiter limiter = new LoginRateLimiter(1, 6000, 100, 0, 1000);
+
+        limiter.acquire("nurse.joy", null);
+        assertThrows(RateLimitedException.class, () -> limiter.acquire("nurse.joy", null));
+        Thread.sleep(30);
+        limiter.acquire("nurse.joy", null);
+    }
+
+    @Test
+    void manyKeys_mapsStayBounded_newKeysRefusedWhileAllAreThrottled() {
+        LoginRateLimiter limiter = limiter(1, 1_000_000, 100);
+
+        int refused = 0;
+        for (int i = 0; i < 5000; i++) {
+            try {
+                limiter.acquire("stuffed" + i, "198.51.100.1");
+            } catch (RateLimitedException e) {
+                refused++;
+            }
+        }
+
+        assertEquals(100L, limiter.stats().get("userKeys"));
+        assertEquals(4900, refused);
+        assertEquals(4900L, limiter.stats().get("rejectedByUser"));
+        assertEquals(0L, limiter.stats().get("evicted"));
+    }
+
+    @Test
+    void usernameSpray_neverResetsAThrottledBucket() {
+        LoginRateLimiter limiter = limiter(1, 1_000_000, 10);
+        limiter.acquire("dr.house", "10.0.0.1");
+
+        for (int i = 0; i < 1000; i++) {
+            try {
+                limiter.acquire("sprayed" + i, "10.0.0.2");
+            } catch (RateLimitedException e) {
+                // map full of throttled buckets
+            }
+        }
+
+        assertThrows(RateLimitedException.class, () -> limiter.acquire("dr.house", "10.0.0.3"));
+    }
+
+    @Test
+    void fullMap_dropsRefilledBucketsToMakeRoom() throws Exception {
+        // 6000 per minute = one every 10 ms, so idle buckets are full again within the sleep
+        LoginRateLimiter limiter = new LoginRateLimiter(1, 6000, 1000, 0, 10);
+        for (int i = 0; i < 10; i++) {
+            limiter.acquire("nurse" + i, null);
+        }
+        Thread.sleep(50);
+
+        limiter.acquire("latecomer", null);
+
+        assertEquals(10L, limiter.stats().get("evicted"));
+        assertEquals(1L, limiter.stats().get("userKeys"));
+    }
+
+    @Test
+    void concurrentCallers_neverTakeMoreThanTheBucketHolds() throws Exception {
+        int capacity = 500;
+        int threads = 16;
+        int attemptsEach = 1000;
+        LoginRateLimiter limiter = limiter(capacity, 1_000_000, 1000);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger allowed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            String ip = "192.0.2." + t;
+            workers.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < attemptsEach; i++) {
+                    try {
+                        limiter.acquire("shared.account", ip);
+                        allowed.incrementAndGet();
+                    } catch (RateLimitedException e) {
+                        rejected.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        pool.shutdown();
+
+        assertEquals(capacity, allowed.get());
+        assertEquals(threads * attemptsEach - capacity, rejected.get());
+        assertEquals((long) capacity, limiter.stats().get("allowed"));
+        assertEquals((long) rejected.get(), limiter.stats().get("rejectedByUser"));
+    }
+
+    @Test
+    void controller_rejectsBeforeAnyServiceWork() {
+        AuthenticationService authenticationService = mock(AuthenticationService.class);
+        OtpService otpService = mock(OtpService.class);
+        UserRepository userRepository = mock(UserRepository.class);
+        AuthenticationController controller = new AuthenticationController(authenticationService, otpService,
+            userRepository, mock(PasswordHashExecutor.class), limiter(2, 100, 1000));
+        MockHttpServletRequest http = new MockHttpServletRequest();
+        http.setRemoteAddr("192.0.2.50");
+
+        ForgotPasswordRequest forgot = new ForgotPasswordRequest();
+        forgot.setUsername("clinician");
+
+        controller.login(new LoginRequest("clinician", "pw", false), http);
+        controller.forgotPassword(forgot, http);
+        RateLimitedException rejected = assertThrows(RateLimitedException.class,
+            () -> controller.login(new LoginRequest("clinician", "pw", false), http));
+
+        verify(authenticationService, times(1)).authenticate(any(), anyString());
+        verify(authenticationService, times(1)).initiateForgotPassword("clinician");
+        verifyNoInteractions(userRepository, otpService);
+
+        ResponseEntity<?> response = new GlobalExceptionHandler().handleRateLimited(rejected);
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, response.getStatusCode());
+        assertEquals(String.valueOf(rejected.getRetryAfterSeconds()),
+            response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+    }
+}
@@ -0,0 +1,119 @@
+package com.Eges411Team.UnifiedPatientManager.serviceUnitTests.authenticationTests;
+
+import com.Eges411Team.UnifiedPatientManager.ExceptionHandlers.GlobalExceptionHandler;
+import com.Eges411Team.UnifiedPatientManager.ExceptionHandlers.PasswordHashingBusyException;
+import com.Eges411Team.UnifiedPatientManager.services.PasswordHashExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test Case: Bounded password hashing
+ * Runs BCrypt through PasswordHashExecutor: results match plain BCrypt, hashes beyond the
+ * pool and its queue are shed with a 503 and Retry-After, the queue wait and hash time are
+ * recorded, and a raised cost is reported as needing a rehash.
+ */
+class passwordHashExecutorTest {
+
+    private PasswordHashExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void encodeAndMatches_sameResultsAsBcrypt() {
+        executor = new PasswordHashExecutor(new BCryptPasswordEncoder(4), 2, 8);
+
+        String hash = executor.encode("s3cret!");
+
+        assertTrue(new BCryptPasswordEncoder(4).matches("s3cret!", hash));
+        assertTrue(executor.matches("s3cret!", hash));
+        assertFalse(executor.matches("wrong", hash));
+
+        Map<String, Long> stats = executor.stats();
+        assertEquals(3L, stats.get("completed"));
+        assertEquals(0L, stats.get("rejected"));
+        assertTrue(stats.get("avgHashMicros") > 0);
+    }
+
+    @Test
+    void queueFull_rejectedWithRetryAfter() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        // an encoder that holds its thread until the test lets go
+        PasswordEncoder blocking = new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                started.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "hash:" + rawPassword;
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return encodedPassword.equals(encode(rawPassword));
+            }
+        };
+        executor = new PasswordHashExecutor(blocking, 1, 2);
+
+        // one running and two queued fill it up
+        List<CompletableFuture<String>> callers = new ArrayList<>();
+        callers.add(CompletableFuture.supplyAsync(() -> executor.encode("a")));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        callers.add(CompletableFuture.supplyAsync(() -> executor.encode("b")));
+        callers.add(CompletableFuture.supplyAsync(() -> executor.encode("c")));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (executor.stats().get("queued") < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(2L, executor.stats().get("queued"));
+
+        PasswordHashingBusyException busy =
+            assertThrows(PasswordHashingBusyException.class, () -> executor.matches("d", "hash:d"));
+        assertTrue(busy.getRetryAfterSeconds() >= 1);
+        assertEquals(1L, executor.stats().get("rejected"));
+
+        ResponseEntity<?> response = new GlobalExceptionHandler().handlePasswordHashingBusy(busy);
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals(String.valueOf(busy.getRetryAfterSeconds()),
+            response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+
+        // the queued callers still get their answer once the pool frees up
+        release.countDown();
+        for (CompletableFuture<String> caller : callers) {
+            assertTrue(caller.get(5, TimeUnit.SECONDS).startsWith("hash:"));
+        }
+        Map<String, Long> stats = executor.stats();
+        assertEquals(3L, stats.get("completed"));
+        assertTrue(stats.get("maxQueueWaitMicros") > 0);
+    }
+
+    @Test
+    void upgradeEncoding_reportsHashesBelowTheConfiguredCost() {
+        executor = new PasswordHashExecutor(new BCryptPasswordEncoder(5), 1, 4);
+
+        assertTrue(executor.upgradeEncoding(new BCryptPasswordEncoder(4).encode("pw")));
+        assertFalse(executor.upgradeEncoding(executor.encode("pw")));
+    }
+}
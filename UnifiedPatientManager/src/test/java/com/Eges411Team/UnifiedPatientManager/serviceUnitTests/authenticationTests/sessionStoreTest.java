@@ -0,0 +1,187 @@
+package com.Eges411Team.UnifiedPatientManager.serviceUnitTests.authenticationTests;
+
+import com.Eges411Team.UnifiedPatientManager.entity.Role;
+import com.Eges411Team.UnifiedPatientManager.entity.User;
+import com.Eges411Team.UnifiedPatientManager.entity.UserSession;
+import com.Eges411Team.UnifiedPatientManager.repositories.UserRepository;
+import com.Eges411Team.UnifiedPatientManager.repositories.UserSessionRepository;
+import com.Eges411Team.UnifiedPatientManager.services.JwtTokenProvider;
+import com.Eges411Team.UnifiedPatientManager.services.SessionStore;
+import com.Eges411Team.UnifiedPatientManager.services.TokenRevocationList;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration Test: In-memory session store
+ * Runs SessionStore against the user_session table: sessions follow the table through the
+ * entity listener, activity from many requests is written as one batched UPDATE, idle
+ * sessions are expired by the timer wheel, and a restart rebuilds the store from the table.
+ */
+@SpringBootTest(properties = {
+    // NON_KEYWORDS=USER lets H2 create the "user" table
+    "spring.datasource.url=jdbc:h2:mem:chartdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;NON_KEYWORDS=USER",
+    "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+class sessionStoreTest {
+
+    @Autowired
+    private SessionStore sessionStore;
+
+    @Autowired
+    private UserSessionRepository userSessionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user;
+    private final List<Long> sessionIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setUsername("sessionuser");
+        user.setPassword("hash");
+        user.setRole(Role.DOCTOR);
+        user.setFirstName("Session");
+        user.setLastName("Tester");
+        user.setPhoneNumber("5555555555");
+        user.setGender("F");
+        user.setDateOfBirth(LocalDateTime.of(1980, 3, 1, 0, 0));
+        user.setAddress("3 Main St");
+        user.setEmail("sessionuser@example.com");
+        user.setCreationDate(LocalDateTime.now());
+        user.setUpdateDate(LocalDateTime.now());
+        user = userRepository.save(user);
+    }
+
+    @AfterEach
+    void tearDown() {
+        userSessionRepository.deleteAllById(sessionIds);
+        userRepository.delete(user);
+    }
+
+    private UserSession savedSession(LocalDateTime lastActivity) {
+        UserSession session = new UserSession();
+        session.setUser(user);
+        session.setSessionToken(jwtTokenProvider.generateToken(user));
+        session.setCreatedAt(LocalDateTime.now());
+        session.setExpiresAt(LocalDateTime.now().plusSeconds(jwtTokenProvider.getExpirationTime()));
+        session.setIsActive(true);
+        session.setLastActivityTime(lastActivity);
+        session = userSessionRepository.save(session);
+        sessionIds.add(session.getId());
+        return session;
+    }
+
+    // a store of our own, so the timings are short and nothing is flushed on a schedule
+    private SessionStore storeWith(TokenRevocationList revocationList, long idleTimeoutMs, long tickMs) {
+        return new SessionStore(userSessionRepository, jwtTokenProvider, revocationList, jdbcTemplate,
+            4, idleTimeoutMs, tickMs);
+    }
+
+    private UserSession reload(Long id) {
+        return userSessionRepository.findById(id).orElseThrow();
+    }
+
+    @Test
+    void sessionRows_followedByTheStoreThroughTheListener() {
+        int before = sessionStore.size();
+
+        UserSession session = savedSession(LocalDateTime.now());
+        assertEquals(before + 1, sessionStore.size());
+
+        // logout deactivates the row
+        session.setIsActive(false);
+        userSessionRepository.save(session);
+        assertEquals(before, sessionStore.size());
+    }
+
+    @Test
+    void manyRequests_writtenBehindAsOneUpdate() {
+        LocalDateTime loggedIn = LocalDateTime.now().minusMinutes(10);
+        UserSession session = savedSession(loggedIn);
+        SessionStore store = storeWith(new TokenRevocationList(jwtTokenProvider, userSessionRepository),
+            1_800_000, 10_000);
+        assertTrue(store.register(session));
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(store.recordActivity(session.getSessionToken()));
+        }
+        // nothing written per request
+        assertEquals(loggedIn.withNano(0), reload(session.getId()).getLastActivityTime().withNano(0));
+
+        assertEquals(1, store.flush());
+        assertTrue(reload(session.getId()).getLastActivityTime().isAfter(loggedIn.plusMinutes(9)));
+        assertEquals(100L, store.stats().get("touches"));
+        assertEquals(1L, store.stats().get("activityWrites"));
+
+        // nothing new since the last flush
+        assertEquals(0, store.flush());
+    }
+
+    @Test
+    void idleSession_expiredByTheWheel() throws Exception {
+        UserSession session = savedSession(LocalDateTime.now());
+        TokenRevocationList revocationList = new TokenRevocationList(jwtTokenProvider, userSessionRepository);
+        SessionStore store = storeWith(revocationList, 200, 50);
+        assertTrue(store.register(session));
+
+        Thread.sleep(350);
+        store.advance();
+
+        assertEquals(0, store.size());
+        assertTrue(revocationList.isRevoked(jwtTokenProvider.verify(session.getSessionToken())));
+        assertEquals(1, store.flush());
+        UserSession row = reload(session.getId());
+        assertFalse(row.getIsActive());
+        assertNotNull(row.getLogoutTime());
+    }
+
+    @Test
+    void activeSession_rescheduledInsteadOfExpired() throws Exception {
+        UserSession session = savedSession(LocalDateTime.now());
+        SessionStore store = storeWith(new TokenRevocationList(jwtTokenProvider, userSessionRepository), 400, 50);
+        assertTrue(store.register(session));
+
+        // keep it busy across more than one idle timeout
+        for (int i = 0; i < 6; i++) {
+            Thread.sleep(100);
+            assertTrue(store.recordActivity(session.getSessionToken()));
+            store.advance();
+        }
+
+        assertEquals(1, store.size());
+        assertEquals(0L, store.stats().get("idleExpirations"));
+    }
+
+    @Test
+    void restart_rebuildsFromTheTable() {
+        // last seen an hour ago, longer than this store's idle timeout
+        UserSession session = savedSession(LocalDateTime.now().minusHours(1));
+        TokenRevocationList revocationList = new TokenRevocationList(jwtTokenProvider, userSessionRepository);
+        SessionStore restarted = storeWith(revocationList, 1_800_000, 10_000);
+
+        restarted.rebuild();
+
+        assertTrue(restarted.size() >= 1);
+        // loaded with its stored activity time, so it is already idle
+        assertFalse(restarted.recordActivity(session.getSessionToken()));
+        assertTrue(revocationList.isRevoked(jwtTokenProvider.verify(session.getSessionToken())));
+    }
+}
@@ -0,0 +1,248 @@
+package com.Eges411Team.UnifiedPatientManager.serviceUnitTests.emailTests;
+
+import com.Eges411Team.UnifiedPatientManager.entity.OtpEmail;
+import com.Eges411Team.UnifiedPatientManager.entity.OtpToken;
+import com.Eges411Team.UnifiedPatientManager.entity.Role;
+import com.Eges411Team.UnifiedPatientManager.entity.User;
+import com.Eges411Team.UnifiedPatientManager.repositories.OtpEmailRepository;
+import com.Eges411Team.UnifiedPatientManager.repositories.OtpTokenRepository;
+import com.Eges411Team.UnifiedPatientManager.repositories.UserRepository;
+import com.Eges411Team.UnifiedPatientManager.services.EmailService;
+import com.Eges411Team.UnifiedPatientManager.services.OtpEmailDispatcher;
+import com.Eges411Team.UnifiedPatientManager.services.OtpService;
+import com.Eges411Team.UnifiedPatientManager.services.OtpVerifier;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.GreenMailUtil;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Integration Test: OTP email outbox
+ * Runs the outbox dispatcher against a GreenMail SMTP server: the OTP email is sent after
+ * the login transaction commits, a backlog drains in batches, and failed sends are retried
+ * with backoff until they give up.
+ */
+@SpringBootTest(properties = {
+    // NON_KEYWORDS=USER lets H2 create the "user" table; a database of its own so the
+    // dispatchers of other cached test contexts can't drain this outbox
+    "spring.datasource.url=jdbc:h2:mem:outboxdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;NON_KEYWORDS=USER",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    // plain SMTP to GreenMail instead of Gmail
+    "spring.mail.host=localhost",
+    "spring.mail.port=3025",
+    "spring.mail.username=",
+    "spring.mail.properties.mail.smtp.auth=false",
+    "spring.mail.properties.mail.smtp.starttls.enable=false",
+    "spring.mail.properties.mail.smtp.starttls.required=false",
+    "app.mail.from=no-reply@upm.test",
+    // only the tests drive the outbox
+    "otp.mail.dispatch-interval-ms=3600000",
+    "otp.mail.batch-size=50"
+})
+class otpEmailDispatcherTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    @Autowired
+    private OtpService otpService;
+
+    @Autowired
+    private OtpEmailDispatcher otpEmailDispatcher;
+
+    @Autowired
+    private OtpEmailRepository otpEmailRepository;
+
+    @Autowired
+    private OtpTokenRepository otpTokenRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private OtpVerifier otpVerifier;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final List<Long> userIds = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        otpEmailRepository.deleteAll();
+        otpTokenRepository.deleteAll();
+        userRepository.deleteAllById(userIds);
+        userIds.clear();
+    }
+
+    private User savedUser(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("hash");
+        user.setRole(Role.PATIENT);
+        user.setFirstName("Otp");
+        user.setLastName("Tester");
+        user.setPhoneNumber("5555555555");
+        user.setGender("F");
+        user.setDateOfBirth(LocalDateTime.of(1990, 1, 1, 0, 0));
+        user.setAddress("1 Main St");
+        user.setEmail(username + "@example.com");
+        user.setCreationDate(LocalDateTime.now());
+        user.setUpdateDate(LocalDateTime.now());
+        User saved = userRepository.save(user);
+        userIds.add(saved.getId());
+        return saved;
+    }
+
+    private OtpEmail queued(String recipient, LocalDateTime expiresAt) {
+        OtpEmail email = new OtpEmail();
+        email.setRecipient(recipient);
+        email.setOtpCode("123456");
+        email.setCreatedAt(LocalDateTime.now());
+        email.setExpiresAt(expiresAt);
+        email.setNextAttemptAt(LocalDateTime.now());
+        return otpEmailRepository.save(email);
+    }
+
+    // a dispatcher whose mail server is a mock, for failure cases
+    private OtpEmailDispatcher dispatcherSendingThrough(JavaMailSender mailSender, int maxAttempts) {
+        return new OtpEmailDispatcher(otpEmailRepository, new EmailService(mailSender), transactionManager,
+            50, maxAttempts, 60_000, 60_000);
+    }
+
+    @Test
+    void generateAndSendOtp_emailIsSentAfterCommit() throws Exception {
+        User user = savedUser("outboxuser");
+
+        otpService.generateAndSendOtp(user);
+
+        assertTrue(greenMail.waitForIncomingEmail(5000, 1));
+        MimeMessage received = greenMail.getReceivedMessages()[0];
+        assertEquals("outboxuser@example.com", received.getAllRecipients()[0].toString());
+        assertEquals("Your OTP Code", received.getSubject());
+        Matcher code = Pattern.compile("(\\d{6})").matcher(GreenMailUtil.getBody(received));
+        assertTrue(code.find());
+
+        // the emailed code is the one whose hash was stored
+        OtpToken token = otpTokenRepository
+            .findFirstByUser_IdAndExpiresAtAfterAndUsedFalseOrderByCreatedAtDesc(user.getId(), LocalDateTime.now())
+            .orElseThrow();
+        assertTrue(otpVerifier.matches(user.getId(), code.group(1), token.getOtpCode()));
+
+        // the sent row (and its plain code) is removed
+        long deadline = System.currentTimeMillis() + 5000;
+        while (otpEmailRepository.count() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(0, otpEmailRepository.count());
+    }
+
+    @Test
+    void generateAndSendOtp_noEmail_nothingQueued() {
+        User user = savedUser("noemailuser");
+        user.setEmail(" ");
+
+        assertThrows(IllegalStateException.class, () -> otpService.generateAndSendOtp(user));
+
+        assertEquals(0, otpEmailRepository.count());
+    }
+
+    @Test
+    void dispatch_backlog_sentInBatches() {
+        for (int i = 0; i < 120; i++) {
+            queued("patient" + i + "@example.com", LocalDateTime.now().plusMinutes(5));
+        }
+
+        assertEquals(120, otpEmailDispatcher.dispatch());
+
+        assertEquals(120, greenMail.getReceivedMessages().length);
+        assertEquals(0, otpEmailRepository.count());
+    }
+
+    @Test
+    void dispatch_smtpDown_retriesWithBackoffThenGivesUp() {
+        JavaMailSender mailSender = mock(JavaMailSender.class);
+        doThrow(new MailSendException("Connection refused")).when(mailSender).send(any(SimpleMailMessage[].class));
+        OtpEmailDispatcher dispatcher = dispatcherSendingThrough(mailSender, 2);
+        Long id = queued("down@example.com", LocalDateTime.now().plusMinutes(5)).getId();
+
+        assertEquals(0, dispatcher.dispatch());
+        OtpEmail afterFirst = otpEmailRepository.findById(id).orElseThrow();
+        assertEquals(1, afterFirst.getAttempts());
+        assertFalse(afterFirst.isFailed());
+        assertEquals("123456", afterFirst.getOtpCode());
+        assertTrue(afterFirst.getNextAttemptAt().isAfter(LocalDateTime.now().plusSeconds(30)));
+        assertEquals("Connection refused", afterFirst.getLastError());
+
+        // backing off: not due yet
+        dispatcher.dispatch();
+        verify(mailSender, times(1)).send(any(SimpleMailMessage[].class));
+
+        afterFirst.setNextAttemptAt(LocalDateTime.now().minusSeconds(1));
+        otpEmailRepository.save(afterFirst);
+        dispatcher.dispatch();
+
+        OtpEmail gaveUp = otpEmailRepository.findById(id).orElseThrow();
+        assertEquals(2, gaveUp.getAttempts());
+        assertTrue(gaveUp.isFailed());
+        assertNull(gaveUp.getOtpCode());
+    }
+
+    @Test
+    void dispatch_partialFailure_onlyFailedMessageRetried() {
+        JavaMailSender mailSender = mock(JavaMailSender.class);
+        doAnswer(inv -> {
+            for (Object message : inv.getArguments()) {
+                SimpleMailMessage mail = (SimpleMailMessage) message;
+                if (mail.getTo()[0].startsWith("bounce")) {
+                    throw new MailSendException(Map.<Object, Exception>of(mail, new RuntimeException("Mailbox unavailable")));
+                }
+            }
+            return null;
+        }).when(mailSender).send(any(SimpleMailMessage[].class));
+        OtpEmailDispatcher dispatcher = dispatcherSendingThrough(mailSender, 5);
+        queued("first@example.com", LocalDateTime.now().plusMinutes(5));
+        Long bounced = queued("bounce@example.com", LocalDateTime.now().plusMinutes(5)).getId();
+        queued("third@example.com", LocalDateTime.now().plusMinutes(5));
+
+        assertEquals(2, dispatcher.dispatch());
+
+        List<OtpEmail> left = otpEmailRepository.findAll();
+        assertEquals(1, left.size());
+        assertEquals(bounced, left.get(0).getId());
+        assertEquals(1, left.get(0).getAttempts());
+        assertEquals("Mailbox unavailable", left.get(0).getLastError());
+    }
+
+    @Test
+    void dispatch_expiredOtp_notSent() {
+        Long id = queued("late@example.com", LocalDateTime.now().minusSeconds(1)).getId();
+
+        assertEquals(0, otpEmailDispatcher.dispatch());
+
+        assertEquals(0, greenMail.getReceivedMessages().length);
+        OtpEmail expired = otpEmailRepository.findById(id).orElseThrow();
+        assertTrue(expired.isFailed());
+        assertNull(expired.getOtpCode());
+    }
+}
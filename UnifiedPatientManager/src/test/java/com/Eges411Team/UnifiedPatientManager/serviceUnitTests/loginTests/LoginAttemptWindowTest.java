@@ -6,8 +6,10 @@ import com.Eges411Team.UnifiedPatientManager.repositories.UserRepository;
 import com.Eges411Team.UnifiedPatientManager.repositories.UserSessionRepository;
 import com.Eges411Team.UnifiedPatientManager.services.AuthenticationService;
 import com.Eges411Team.UnifiedPatientManager.services.JwtTokenProvider;
+import com.Eges411Team.UnifiedPatientManager.services.TokenRevocationList;
+import com.Eges411Team.UnifiedPatientManager.services.SessionStore;
 import com.Eges411Team.UnifiedPatientManager.services.OtpService;
-import com.Eges411Team.UnifiedPatientManager.repositories.OtpTokenRepository;
+import com.Eges411Team.UnifiedPatientManager.services.OtpVerifier;
 
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -35,7 +37,7 @@ public class LoginAttemptWindowTest {
         OtpService otpService = Mockito.mock(OtpService.class);
         JwtTokenProvider jwtTokenProvider = Mockito.mock(JwtTokenProvider.class);
         PasswordEncoder passwordEncoder = Mockito.mock(PasswordEncoder.class);
-            OtpTokenRepository otpTokenRepository = Mockito.mock(OtpTokenRepository.class);
+            OtpVerifier otpVerifier = Mockito.mock(OtpVerifier.class);
 
 
         AuthenticationService auth = new AuthenticationService(
@@ -44,7 +46,9 @@ public class LoginAttemptWindowTest {
                 otpService,
                 jwtTokenProvider,
                 passwordEncoder
-                ,otpTokenRepository
+                ,otpVerifier
+                ,Mockito.mock(TokenRevocationList.class)
+                ,Mockito.mock(SessionStore.class)
         );
 
         // Create a registered user fixture
@@ -56,8 +60,14 @@ public class LoginAttemptWindowTest {
         user.setIsLocked(false);
 
         Mockito.when(userRepository.findByUsername("rajanbilancooper")).thenReturn(Optional.of(user));
-        // Save should return the passed user and allow the in-memory instance to be updated
-        Mockito.when(userRepository.save(Mockito.any(User.class))).thenAnswer(inv -> inv.getArgument(0));
+        // Stand in for the UPDATE statement: count the failure and lock at the threshold
+        Mockito.when(userRepository.recordFailedLogin(Mockito.eq(1L), Mockito.anyInt())).thenAnswer(inv -> {
+            if (user.getFailedLoginAttempts() + 1 >= (int) inv.getArgument(1)) {
+                user.setIsLocked(true);
+            }
+            user.setFailedLoginAttempts(user.getFailedLoginAttempts() + 1);
+            return 1;
+        });
 
         // Always treat the provided passwords as incorrect
         Mockito.when(passwordEncoder.matches(Mockito.anyString(), Mockito.anyString())).thenReturn(false);
@@ -6,12 +6,12 @@ import com.Eges411Team.UnifiedPatientManager.entity.User;
 import com.Eges411Team.UnifiedPatientManager.repositories.OtpTokenRepository;
 import com.Eges411Team.UnifiedPatientManager.repositories.UserRepository;
 import com.Eges411Team.UnifiedPatientManager.repositories.UserSessionRepository;
-import com.Eges411Team.UnifiedPatientManager.services.EmailService;
 import com.Eges411Team.UnifiedPatientManager.services.JwtTokenProvider;
+import com.Eges411Team.UnifiedPatientManager.services.OtpEmailDispatcher;
 import com.Eges411Team.UnifiedPatientManager.services.OtpService;
+import com.Eges411Team.UnifiedPatientManager.services.OtpVerifier;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
-import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.time.LocalDateTime;
 import java.util.Optional;
@@ -28,16 +28,16 @@ public class LoginOtpExpiryBoundaryTest {
         // Arrange - mock dependencies
         OtpTokenRepository otpTokenRepository = Mockito.mock(OtpTokenRepository.class);
     UserRepository userRepository = Mockito.mock(UserRepository.class);
-        EmailService emailService = Mockito.mock(EmailService.class);
-        PasswordEncoder passwordEncoder = Mockito.mock(PasswordEncoder.class);
+        OtpEmailDispatcher otpEmailDispatcher = Mockito.mock(OtpEmailDispatcher.class);
+        OtpVerifier otpVerifier = new OtpVerifier(otpTokenRepository, "");
         JwtTokenProvider jwtTokenProvider = Mockito.mock(JwtTokenProvider.class);
 
     OtpService otpService = new OtpService(
         otpTokenRepository,
         userRepository,
         Mockito.mock(UserSessionRepository.class),
-        emailService,
-        passwordEncoder,
+        otpEmailDispatcher,
+        otpVerifier,
         jwtTokenProvider
     );
 
@@ -6,12 +6,12 @@ import com.Eges411Team.UnifiedPatientManager.entity.User;
 import com.Eges411Team.UnifiedPatientManager.repositories.OtpTokenRepository;
 import com.Eges411Team.UnifiedPatientManager.repositories.UserRepository;
 import com.Eges411Team.UnifiedPatientManager.repositories.UserSessionRepository;
-import com.Eges411Team.UnifiedPatientManager.services.EmailService;
 import com.Eges411Team.UnifiedPatientManager.services.JwtTokenProvider;
+import com.Eges411Team.UnifiedPatientManager.services.OtpEmailDispatcher;
 import com.Eges411Team.UnifiedPatientManager.services.OtpService;
+import com.Eges411Team.UnifiedPatientManager.services.OtpVerifier;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
-import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.time.LocalDateTime;
 import java.util.Optional;
@@ -33,8 +33,8 @@ public class LoginOtpExpiryRealTimeTest {
         OtpTokenRepository otpTokenRepository = Mockito.mock(OtpTokenRepository.class);
         UserRepository userRepository = Mockito.mock(UserRepository.class);
         UserSessionRepository userSessionRepository = Mockito.mock(UserSessionRepository.class);
-        EmailService emailService = Mockito.mock(EmailService.class);
-        PasswordEncoder passwordEncoder = Mockito.mock(PasswordEncoder.class);
+        OtpEmailDispatcher otpEmailDispatcher = Mockito.mock(OtpEmailDispatcher.class);
+        OtpVerifier otpVerifier = new OtpVerifier(otpTokenRepository, "");
         JwtTokenProvider jwtTokenProvider = Mockito.mock(JwtTokenProvider.class);
 
         // Capture the saved OTP token so we can inspect its expiresAt later
@@ -45,15 +45,12 @@ public class LoginOtpExpiryRealTimeTest {
             return t;
         });
 
-        // Make password encoder return a hashed value when generating the OTP
-        Mockito.when(passwordEncoder.encode(Mockito.anyString())).thenReturn("hashed-otp");
-
         OtpService otpService = new OtpService(
                 otpTokenRepository,
                 userRepository,
                 userSessionRepository,
-                emailService,
-                passwordEncoder,
+                otpEmailDispatcher,
+                otpVerifier,
                 jwtTokenProvider
         );
 
@@ -6,12 +6,13 @@ import com.Eges411Team.UnifiedPatientManager.entity.User;
 import com.Eges411Team.UnifiedPatientManager.repositories.OtpTokenRepository;
 import com.Eges411Team.UnifiedPatientManager.repositories.UserRepository;
 import com.Eges411Team.UnifiedPatientManager.repositories.UserSessionRepository;
-import com.Eges411Team.UnifiedPatientManager.services.EmailService;
 import com.Eges411Team.UnifiedPatientManager.services.JwtTokenProvider;
+import com.Eges411Team.UnifiedPatientManager.services.OtpEmailDispatcher;
 import com.Eges411Team.UnifiedPatientManager.services.OtpService;
+import com.Eges411Team.UnifiedPatientManager.services.OtpVerifier;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
-import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.time.LocalDateTime;
 import java.util.Optional;
@@ -37,16 +38,16 @@ public class LoginOtpResendTest {
         OtpTokenRepository otpTokenRepository = Mockito.mock(OtpTokenRepository.class);
         UserRepository userRepository = Mockito.mock(UserRepository.class);
         UserSessionRepository userSessionRepository = Mockito.mock(UserSessionRepository.class);
-        EmailService emailService = Mockito.mock(EmailService.class);
-        PasswordEncoder passwordEncoder = Mockito.mock(PasswordEncoder.class);
+        OtpEmailDispatcher otpEmailDispatcher = Mockito.mock(OtpEmailDispatcher.class);
+        OtpVerifier otpVerifier = new OtpVerifier(otpTokenRepository, "");
         JwtTokenProvider jwtTokenProvider = Mockito.mock(JwtTokenProvider.class);
 
         OtpService otpService = new OtpService(
                 otpTokenRepository,
                 userRepository,
                 userSessionRepository,
-                emailService,
-                passwordEncoder,
+                otpEmailDispatcher,
+                otpVerifier,
                 jwtTokenProvider
         );
 
@@ -60,21 +61,29 @@ public class LoginOtpResendTest {
         AtomicReference<OtpToken> token1Ref = new AtomicReference<>();
         AtomicReference<OtpToken> token2Ref = new AtomicReference<>();
 
-        // Make passwordEncoder.encode return two different hashed values for successive generates
-        Mockito.when(passwordEncoder.encode(Mockito.anyString())).thenReturn("hashed1", "hashed2");
-
-        // Save behavior: first save returns token1, second save returns token2; also capture refs
+        // Save behavior: first save returns token1 (id 1), second save returns token2 (id 2); also capture refs
         Mockito.when(otpTokenRepository.save(Mockito.any(OtpToken.class))).thenAnswer(inv -> {
             OtpToken t = inv.getArgument(0);
             if (token1Ref.get() == null) {
+                t.setOtpId(1L);
                 token1Ref.set(t);
                 return t;
             } else {
+                t.setOtpId(2L);
                 token2Ref.set(t);
                 return t;
             }
         });
 
+        // recordAttempt behaves like the conditional UPDATE: counts an attempt while the token is unused and under the limit
+        Mockito.when(otpTokenRepository.recordAttempt(Mockito.anyLong(), Mockito.anyInt())).thenAnswer(inv -> {
+            OtpToken t = Long.valueOf(1L).equals(inv.getArgument(0)) ? token1Ref.get() : token2Ref.get();
+            int max = inv.getArgument(1);
+            if (t == null || t.isUsed() || t.getAttemptCount() >= max) return 0;
+            t.setAttemptCount(t.getAttemptCount() + 1);
+            return 1;
+        });
+
         // invalidateUnusedOtps should mark the previous token as used
         Mockito.doAnswer(inv -> {
             if (token1Ref.get() != null) token1Ref.get().setUsed(true);
@@ -90,22 +99,16 @@ public class LoginOtpResendTest {
                     return Optional.empty();
                 });
 
-        // Setup matches: define oldCorrect=111111, newCorrect=222222
-        Mockito.when(passwordEncoder.matches(Mockito.anyString(), Mockito.eq("hashed1"))).thenAnswer(inv -> {
-            String raw = inv.getArgument(0);
-            return "111111".equals(raw);
-        });
-        Mockito.when(passwordEncoder.matches(Mockito.anyString(), Mockito.eq("hashed2"))).thenAnswer(inv -> {
-            String raw = inv.getArgument(0);
-            return "222222".equals(raw);
-        });
-
         // Act: generate first OTP (initial send)
         otpService.generateAndSendOtp(user);
         OtpToken token1 = token1Ref.get();
         assertTrue(token1 != null && !token1.isUsed());
+        // the code that was emailed for token1
+        ArgumentCaptor<String> sentCode = ArgumentCaptor.forClass(String.class);
+        Mockito.verify(otpEmailDispatcher).enqueue(Mockito.eq("rajan@example.com"), sentCode.capture(), Mockito.any());
+        String oldCode = sentCode.getValue();
 
-        // User enters incorrect OTP (not 111111)
+        // User enters incorrect OTP (codes are 100000-999999)
         OtpVerificationRequest wrongReq = new OtpVerificationRequest("rajanbilancooper", "000000", "192.0.2.1");
         assertThrows(com.Eges411Team.UnifiedPatientManager.ExceptionHandlers.InvalidOtpException.class,
                 () -> otpService.verifyAndCompleteLogin(wrongReq));
@@ -118,8 +121,8 @@ public class LoginOtpResendTest {
         assertTrue(token1.isUsed(), "Old token should be marked used after resend");
         assertTrue(token2 != null && !token2.isUsed());
 
-        // User attempts to use the old (original) correct OTP value (111111)
-        OtpVerificationRequest oldOtpReq = new OtpVerificationRequest("rajanbilancooper", "111111", "192.0.2.1");
+        // User attempts to use the old (original) correct OTP value
+        OtpVerificationRequest oldOtpReq = new OtpVerificationRequest("rajanbilancooper", oldCode, "192.0.2.1");
         // Because token1 is now used, the service will pick token2; matching will fail and throw InvalidOtpException
         assertThrows(com.Eges411Team.UnifiedPatientManager.ExceptionHandlers.InvalidOtpException.class,
                 () -> otpService.verifyAndCompleteLogin(oldOtpReq));
@@ -10,7 +10,10 @@ import com.Eges411Team.UnifiedPatientManager.repositories.UserRepository;
 import com.Eges411Team.UnifiedPatientManager.repositories.UserSessionRepository;
 import com.Eges411Team.UnifiedPatientManager.services.AuthenticationService;
 import com.Eges411Team.UnifiedPatientManager.services.JwtTokenProvider;
+import com.Eges411Team.UnifiedPatientManager.services.TokenRevocationList;
+import com.Eges411Team.UnifiedPatientManager.services.SessionStore;
 import com.Eges411Team.UnifiedPatientManager.services.OtpService;
+import com.Eges411Team.UnifiedPatientManager.services.OtpVerifier;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -33,7 +36,6 @@ public class SuccessfulLoginWith2FATest {
         OtpService otpServiceMock = Mockito.mock(OtpService.class);
         JwtTokenProvider jwtTokenProvider = Mockito.mock(JwtTokenProvider.class);
         PasswordEncoder authPasswordEncoder = Mockito.mock(PasswordEncoder.class);
-        OtpTokenRepository otpTokenRepository = Mockito.mock(OtpTokenRepository.class);
 
         AuthenticationService authService = new AuthenticationService(
                 userRepository,
@@ -41,7 +43,9 @@ public class SuccessfulLoginWith2FATest {
                 otpServiceMock,
                 jwtTokenProvider,
                 authPasswordEncoder
-                ,otpTokenRepository
+                ,Mockito.mock(OtpVerifier.class)
+                ,Mockito.mock(TokenRevocationList.class)
+                ,Mockito.mock(SessionStore.class)
         );
 
         // Fixture user in DB
@@ -72,14 +76,15 @@ public class SuccessfulLoginWith2FATest {
         assertEquals(user.getUsername(), preOtpResponse.getUsername());
 
         // Now prepare OtpService (real instance) to verify OTP
-        otpTokenRepository = Mockito.mock(OtpTokenRepository.class);
-        PasswordEncoder otpPasswordEncoder = Mockito.mock(PasswordEncoder.class);
+        OtpTokenRepository otpTokenRepository = Mockito.mock(OtpTokenRepository.class);
+        OtpVerifier otpVerifier = new OtpVerifier(otpTokenRepository, "");
         JwtTokenProvider jwtProviderForOtp = Mockito.mock(JwtTokenProvider.class);
 
         // Create an OTP token that is valid
         OtpToken otpToken = new OtpToken();
+        otpToken.setOtpId(7L);
         otpToken.setUser(user);
-        otpToken.setOtpCode("hashed-otp");
+        otpToken.setOtpCode(otpVerifier.hash(user.getId(), "123456"));
         otpToken.setCreatedAt(LocalDateTime.now());
         otpToken.setExpiresAt(LocalDateTime.now().plusMinutes(5));
         otpToken.setUsed(false);
@@ -88,10 +93,9 @@ public class SuccessfulLoginWith2FATest {
                 Mockito.eq(user.getId()), Mockito.any(LocalDateTime.class)))
                 .thenReturn(Optional.of(otpToken));
 
-        Mockito.when(otpTokenRepository.save(Mockito.any(OtpToken.class))).thenAnswer(inv -> inv.getArgument(0));
-
-        // Make password encoder match the provided OTP
-        Mockito.when(otpPasswordEncoder.matches("123456", "hashed-otp")).thenReturn(true);
+        // the attempt and the used flag are claimed in the database
+        Mockito.when(otpTokenRepository.recordAttempt(7L, OtpToken.MAX_ATTEMPTS)).thenReturn(1);
+        Mockito.when(otpTokenRepository.markUsed(7L)).thenReturn(1);
 
         // Make JWT provider produce a token
         Mockito.when(jwtProviderForOtp.generateToken(Mockito.eq(user))).thenReturn("token-abc-123");
@@ -101,8 +105,8 @@ public class SuccessfulLoginWith2FATest {
                 otpTokenRepository,
                 userRepository,
                 userSessionRepository,
-                Mockito.mock(com.Eges411Team.UnifiedPatientManager.services.EmailService.class),
-                otpPasswordEncoder,
+                Mockito.mock(com.Eges411Team.UnifiedPatientManager.services.OtpEmailDispatcher.class),
+                otpVerifier,
                 jwtProviderForOtp
         );
 
@@ -114,7 +118,7 @@ public class SuccessfulLoginWith2FATest {
         assertNotNull(finalResponse.getToken());
         assertEquals("token-abc-123", finalResponse.getToken());
         assertEquals("Bearer", finalResponse.getTokenType());
-        assertTrue(otpToken.isUsed(), "OTP should be marked used after successful verification");
+        Mockito.verify(otpTokenRepository).markUsed(7L); // OTP marked used after successful verification
 
         // Verify a session was created (save called)
         Mockito.verify(userSessionRepository, Mockito.atLeastOnce()).save(Mockito.any());
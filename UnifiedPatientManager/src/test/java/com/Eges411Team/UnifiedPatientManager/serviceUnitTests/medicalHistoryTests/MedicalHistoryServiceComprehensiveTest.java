@@ -3,6 +3,7 @@ package com.Eges411Team.UnifiedPatientManager.serviceUnitTests.medicalHistoryTes
 import com.Eges411Team.UnifiedPatientManager.entity.MedicalHistory;
 import com.Eges411Team.UnifiedPatientManager.repositories.MedicalHistoryRepo;
 import com.Eges411Team.UnifiedPatientManager.services.MedicalHistoryService;
+import com.Eges411Team.UnifiedPatientManager.services.PatientChartCacheInvalidator;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -15,6 +16,7 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -30,6 +32,9 @@ class MedicalHistoryServiceComprehensiveTest {
     @Mock
     private MedicalHistoryRepo medicalHistoryRepository;
 
+    @Mock
+    private PatientChartCacheInvalidator chartCacheInvalidator;
+
     @InjectMocks
     private MedicalHistoryService medicalHistoryService;
 
@@ -80,7 +85,8 @@ class MedicalHistoryServiceComprehensiveTest {
 
         List<MedicalHistory> result = medicalHistoryService.saveMedicalHistory(patientId, newHistoryList);
 
-        verify(medicalHistoryRepository).deleteAll(existingHistory);
+        verify(medicalHistoryRepository).deleteAllByIdInBatch(Set.of(1L));
+        verify(chartCacheInvalidator).invalidate(patientId);
         verify(medicalHistoryRepository).saveAll(anyList());
         assertEquals(2, result.size());
     }
@@ -98,7 +104,7 @@ class MedicalHistoryServiceComprehensiveTest {
 
         List<MedicalHistory> result = medicalHistoryService.saveMedicalHistory(patientId, emptyHistoryList);
 
-        verify(medicalHistoryRepository).deleteAll(existingHistory);
+        verify(medicalHistoryRepository).deleteAllByIdInBatch(Set.of(1L));
         assertTrue(result.isEmpty());
     }
 
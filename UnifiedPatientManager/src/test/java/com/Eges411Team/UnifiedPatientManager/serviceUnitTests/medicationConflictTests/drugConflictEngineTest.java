@@ -0,0 +1,99 @@
+package com.Eges411Team.UnifiedPatientManager.serviceUnitTests.medicationConflictTests;
+
+import com.Eges411Team.UnifiedPatientManager.services.DrugConflictEngine;
+import com.Eges411Team.UnifiedPatientManager.services.DrugConflictEngine.Conflict;
+import com.Eges411Team.UnifiedPatientManager.services.DrugConflictEngine.Kind;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test Case: Compiled drug conflict rules
+ * Checks DrugConflictEngine reports every allergy and interaction conflict in a regimen,
+ * ignoring case and surrounding whitespace, in a stable order.
+ */
+class drugConflictEngineTest {
+
+    private final DrugConflictEngine engine = DrugConflictEngine.compile("test",
+        Map.of(
+            "Penicillin", List.of("Penicillin", "Amoxicillin"),
+            "NSAIDs", List.of("Ibuprofen", "Aspirin"),
+            "Aspirin", List.of("Aspirin")
+        ),
+        List.of(
+            List.of("Warfarin", "Aspirin"),
+            List.of("Warfarin", "Ibuprofen"),
+            List.of("Sertraline", "Aspirin"),
+            List.of("Broken")
+        ));
+
+    @Test
+    void allergyConflicts_reportsEveryMatchIgnoringCase() {
+        List<Conflict> conflicts = engine.allergyConflicts(
+            List.of("amoxicillin", "Tylenol", " ASPIRIN "),
+            List.of("aspirin", "Penicillin", "NSAIDs"));
+
+        assertEquals(List.of(
+            new Conflict(Kind.ALLERGY, "amoxicillin", "Penicillin", 0, 1),
+            // same drug, two allergies: listed in the patient's allergy order
+            new Conflict(Kind.ALLERGY, " ASPIRIN ", "aspirin", 2, 0),
+            new Conflict(Kind.ALLERGY, " ASPIRIN ", "NSAIDs", 2, 2)
+        ), conflicts);
+    }
+
+    @Test
+    void allergyConflicts_unknownAllergiesAndNullsAreSkipped() {
+        assertTrue(engine.allergyConflicts(Arrays.asList("Aspirin", null), Arrays.asList("Latex", null)).isEmpty());
+    }
+
+    @Test
+    void interactions_returnsEveryPairInOrder() {
+        List<Conflict> conflicts = engine.interactions(List.of("Aspirin", "warfarin", "Ibuprofen", "Sertraline"));
+
+        assertEquals(List.of(
+            new Conflict(Kind.INTERACTION, "Aspirin", "warfarin", 0, 1),
+            new Conflict(Kind.INTERACTION, "Aspirin", "Sertraline", 0, 3),
+            new Conflict(Kind.INTERACTION, "warfarin", "Ibuprofen", 1, 2)
+        ), conflicts);
+    }
+
+    @Test
+    void interactions_duplicateDrugPairsOncePerOccurrence() {
+        assertEquals(2, engine.interactions(List.of("Warfarin", "Aspirin", "Aspirin")).size());
+    }
+
+    @Test
+    void interactionsWith_checksProspectiveAgainstExisting() {
+        List<Conflict> conflicts = engine.interactionsWith("WARFARIN", Arrays.asList("Metformin", null, "aspirin"));
+
+        assertEquals(List.of(new Conflict(Kind.INTERACTION, "WARFARIN", "aspirin", 0, 2)), conflicts);
+        assertTrue(engine.interacts("ibuprofen", "Warfarin"));
+        assertFalse(engine.interacts("Ibuprofen", "Aspirin"));
+        assertFalse(engine.interacts("Broken", "Broken"));
+    }
+
+    @Test
+    void interactionsBetween_pairsEveryBatchDrugWithExisting() {
+        List<Conflict> conflicts = engine.interactionsBetween(
+            List.of("Ibuprofen", "Aspirin"), List.of("Warfarin", "Sertraline", "warfarin"));
+
+        assertEquals(List.of(
+            new Conflict(Kind.INTERACTION, "Ibuprofen", "Warfarin", 0, 0),
+            new Conflict(Kind.INTERACTION, "Ibuprofen", "warfarin", 0, 2),
+            new Conflict(Kind.INTERACTION, "Aspirin", "Warfarin", 1, 0),
+            new Conflict(Kind.INTERACTION, "Aspirin", "Sertraline", 1, 1),
+            new Conflict(Kind.INTERACTION, "Aspirin", "warfarin", 1, 2)
+        ), conflicts);
+    }
+
+    @Test
+    void checkRegimen_listsAllergiesBeforeInteractions() {
+        List<Conflict> conflicts = engine.checkRegimen(List.of("Warfarin", "Ibuprofen"), List.of("NSAIDs"));
+
+        assertEquals(List.of(Kind.ALLERGY, Kind.INTERACTION), conflicts.stream().map(Conflict::kind).toList());
+    }
+}
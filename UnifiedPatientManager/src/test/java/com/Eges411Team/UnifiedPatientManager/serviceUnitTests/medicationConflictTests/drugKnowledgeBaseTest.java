@@ -0,0 +1,150 @@
+package com.Eges411Team.UnifiedPatientManager.serviceUnitTests.medicationConflictTests;
+
+import com.Eges411Team.UnifiedPatientManager.DTOs.responses.PrescriptionResultResponse;
+import com.Eges411Team.UnifiedPatientManager.entity.Medication;
+import com.Eges411Team.UnifiedPatientManager.repositories.AllergyRepository;
+import com.Eges411Team.UnifiedPatientManager.repositories.MedicationRepository;
+import com.Eges411Team.UnifiedPatientManager.services.DrugConflictEngine;
+import com.Eges411Team.UnifiedPatientManager.services.DrugKnowledgeBase;
+import com.Eges411Team.UnifiedPatientManager.services.MedicationService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test Case: Drug knowledge base loaded from a rule file
+ * Loads, reloads and polls a CSV rule file and checks each swap produces a new versioned
+ * snapshot while snapshots already handed out keep their rules.
+ */
+class drugKnowledgeBaseTest {
+
+    @TempDir
+    Path dir;
+
+    private Path writeRules(String content) throws Exception {
+        Path file = dir.resolve("drug-rules.csv");
+        Files.writeString(file, content);
+        return file;
+    }
+
+    @Test
+    void noFileConfigured_usesBuiltInRules() {
+        DrugKnowledgeBase knowledgeBase = new DrugKnowledgeBase("");
+
+        assertEquals("built-in", knowledgeBase.current().version());
+        assertTrue(knowledgeBase.current().interacts("Warfarin", "Aspirin"));
+    }
+
+    @Test
+    void fileConfigured_replacesBuiltInRules() throws Exception {
+        Path file = writeRules("""
+            # weekly pharmacy export
+            version,2025-W23
+            allergy,Latex,Natural Rubber Extract
+            interaction,Tramadol,Sertraline
+            """);
+
+        DrugKnowledgeBase knowledgeBase = new DrugKnowledgeBase(file.toString());
+        DrugConflictEngine rules = knowledgeBase.current();
+
+        assertEquals("2025-W23", rules.version());
+        assertTrue(rules.interacts("sertraline", "TRAMADOL"));
+        assertFalse(rules.interacts("Warfarin", "Aspirin"));
+        assertEquals(1, rules.allergyConflicts(List.of("Natural Rubber Extract"), List.of("latex")).size());
+    }
+
+    @Test
+    void reload_swapsSnapshot_earlierSnapshotKeepsItsRules() throws Exception {
+        Path file = writeRules("interaction,Warfarin,Aspirin\n");
+        DrugKnowledgeBase knowledgeBase = new DrugKnowledgeBase(file.toString());
+        DrugConflictEngine inFlight = knowledgeBase.current();
+
+        writeRules("interaction,Warfarin,Ibuprofen\n");
+        DrugConflictEngine reloaded = knowledgeBase.reload();
+
+        assertSame(reloaded, knowledgeBase.current());
+        assertNotEquals(inFlight.version(), reloaded.version());
+        assertTrue(inFlight.version().startsWith("sha256:"));
+        assertTrue(inFlight.interacts("Warfarin", "Aspirin"));
+        assertFalse(reloaded.interacts("Warfarin", "Aspirin"));
+        assertTrue(reloaded.interacts("Warfarin", "Ibuprofen"));
+    }
+
+    @Test
+    void reload_malformedFile_keepsPreviousRules() throws Exception {
+        Path file = writeRules("version,v1\ninteraction,Warfarin,Aspirin\n");
+        DrugKnowledgeBase knowledgeBase = new DrugKnowledgeBase(file.toString());
+
+        writeRules("version,v2\ninteraction,Warfarin\n");
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, knowledgeBase::reload);
+        assertTrue(e.getMessage().contains("line 2"));
+        assertEquals("v1", knowledgeBase.current().version());
+    }
+
+    @Test
+    void pollForChanges_reloadsOnlyWhenFileChanges() throws Exception {
+        Path file = writeRules("version,v1\n");
+        DrugKnowledgeBase knowledgeBase = new DrugKnowledgeBase(file.toString());
+        DrugConflictEngine first = knowledgeBase.current();
+
+        knowledgeBase.pollForChanges();
+        assertSame(first, knowledgeBase.current());
+
+        writeRules("version,v2\ninteraction,Warfarin,Aspirin\n");
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().plusSeconds(5)));
+        knowledgeBase.pollForChanges();
+
+        assertEquals("v2", knowledgeBase.current().version());
+    }
+
+    @Test
+    void reload_tensOfThousandsOfPairs_loadsQuickly() throws Exception {
+        StringBuilder rules = new StringBuilder("version,large\n");
+        for (int i = 0; i < 50_000; i++) {
+            rules.append("interaction,Drug").append(i).append(",Drug").append(i + 7).append('\n');
+        }
+        for (int i = 0; i < 5_000; i++) {
+            rules.append("allergy,Class").append(i % 500).append(",Drug").append(i).append('\n');
+        }
+        Path file = writeRules(rules.toString());
+
+        long start = System.nanoTime();
+        DrugConflictEngine engine = new DrugKnowledgeBase(file.toString()).current();
+        long millis = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals("large", engine.version());
+        assertTrue(engine.interacts("drug49999", "DRUG50006"));
+        // sub-second in practice; the bound leaves room for slow CI machines and coverage agents
+        assertTrue(millis < 3_000, "load took " + millis + " ms");
+    }
+
+    @Test
+    void createSinglePrescription_reportsRuleSetVersion() throws Exception {
+        Path file = writeRules("version,2025-W24\ninteraction,Warfarin,Tramadol\n");
+        MedicationRepository medicationRepository = mock(MedicationRepository.class);
+        AllergyRepository allergyRepository = mock(AllergyRepository.class);
+        Medication existing = new Medication();
+        existing.setDrugName("Warfarin");
+        when(medicationRepository.findAllByPatientId(4L)).thenReturn(List.of(existing));
+        when(allergyRepository.findAllByPatientId(4L)).thenReturn(List.of());
+        MedicationService service = new MedicationService(medicationRepository, allergyRepository,
+            new DrugKnowledgeBase(file.toString()), null);
+
+        Medication med = new Medication();
+        med.setDrugName("Tramadol");
+        med.setIsPerscription(true);
+        PrescriptionResultResponse result = service.createSinglePrescription(4L, 10L, med, false, null);
+
+        assertTrue(result.isConflicts());
+        assertEquals("2025-W24", result.getRuleSetVersion());
+    }
+}
@@ -0,0 +1,207 @@
+package com.Eges411Team.UnifiedPatientManager.serviceUnitTests.medicationConflictTests;
+
+import com.Eges411Team.UnifiedPatientManager.entity.Allergy;
+import com.Eges411Team.UnifiedPatientManager.entity.Medication;
+import com.Eges411Team.UnifiedPatientManager.entity.MedicationRescreenCheckpoint;
+import com.Eges411Team.UnifiedPatientManager.repositories.AllergyRepository;
+import com.Eges411Team.UnifiedPatientManager.repositories.MedicationRepository;
+import com.Eges411Team.UnifiedPatientManager.repositories.MedicationRescreenCheckpointRepository;
+import com.Eges411Team.UnifiedPatientManager.services.DrugKnowledgeBase;
+import com.Eges411Team.UnifiedPatientManager.services.MedicationRescreenJob;
+import com.Eges411Team.UnifiedPatientManager.services.PatientChartCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Integration Test: Population-wide medication conflict re-screening
+ * Runs MedicationRescreenJob with small chunks and several workers over a handful of
+ * patients, checking flags are refreshed, untouched rows aren't rewritten, rows edited
+ * while a chunk is screened keep their own flags and an interrupted run resumes from
+ * its checkpoint.
+ */
+@SpringBootTest(properties = {
+    // NON_KEYWORDS=USER lets H2 create the "user" table
+    "spring.datasource.url=jdbc:h2:mem:chartdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;NON_KEYWORDS=USER",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class medicationRescreenJobTest {
+
+    private static final long FIRST_PATIENT = 9_100_000L;
+
+    @Autowired
+    private MedicationRepository medicationRepository;
+
+    @Autowired
+    private AllergyRepository allergyRepository;
+
+    @Autowired
+    private MedicationRescreenCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private DrugKnowledgeBase drugKnowledgeBase;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PatientChartCache patientChartCache;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private MedicationRescreenJob job;
+    private final List<Long> medicationIds = new ArrayList<>();
+    private final List<Long> allergyIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        checkpointRepository.deleteAll();
+        // two patients per chunk, three workers
+        job = new MedicationRescreenJob(medicationRepository, allergyRepository, checkpointRepository,
+            drugKnowledgeBase, jdbcTemplate, patientChartCache, transactionManager, 2, 3, false);
+    }
+
+    @AfterEach
+    void tearDown() {
+        medicationRepository.deleteAllById(medicationIds);
+        allergyRepository.deleteAllById(allergyIds);
+        checkpointRepository.deleteAll();
+        medicationIds.clear();
+        allergyIds.clear();
+    }
+
+    private Long prescribe(long patientId, String drug, boolean active, boolean prescription, Boolean flag, String details) {
+        Medication med = new Medication();
+        med.setPatientId(patientId);
+        med.setDrugName(drug);
+        med.setStatus(active);
+        med.setIsPerscription(prescription);
+        med.setConflictFlag(flag);
+        med.setConflictDetails(details);
+        Long id = medicationRepository.save(med).getId();
+        medicationIds.add(id);
+        return id;
+    }
+
+    private void allergy(long patientId, String substance) {
+        Allergy allergy = new Allergy();
+        allergy.setPatientId(patientId);
+        allergy.setSubstance(substance);
+        allergyIds.add(allergyRepository.save(allergy).getId());
+    }
+
+    private Medication reload(Long id) {
+        return medicationRepository.findById(id).orElseThrow();
+    }
+
+    @Test
+    void rescreen_refreshesFlagsAcrossPatients() {
+        // patient 1: warfarin + aspirin interact
+        Long warfarin = prescribe(FIRST_PATIENT + 1, "Warfarin", true, true, null, null);
+        Long aspirin = prescribe(FIRST_PATIENT + 1, "Aspirin", true, true, null, null);
+        // patient 2: penicillin allergy
+        allergy(FIRST_PATIENT + 2, "Penicillin");
+        Long amoxicillin = prescribe(FIRST_PATIENT + 2, "Amoxicillin", true, true, null, null);
+        // patient 3: stale flag from rules that no longer apply
+        Long stale = prescribe(FIRST_PATIENT + 3, "Metformin", true, true, true, "Interaction: old rule");
+        // patients 4 and 5: inactive / non-prescription rows are left alone
+        Long inactive = prescribe(FIRST_PATIENT + 4, "Aspirin", false, true, null, null);
+        prescribe(FIRST_PATIENT + 4, "Warfarin", true, true, null, null);
+        Long overTheCounter = prescribe(FIRST_PATIENT + 5, "Aspirin", true, false, null, null);
+        prescribe(FIRST_PATIENT + 5, "Warfarin", true, true, null, null);
+
+        MedicationRescreenJob.Result result = job.rescreen();
+
+        assertFalse(result.resumed());
+        assertEquals("built-in", result.ruleSetVersion());
+        assertTrue(reload(warfarin).getConflictFlag());
+        assertTrue(reload(warfarin).getConflictDetails().contains("Aspirin"));
+        assertTrue(reload(aspirin).getConflictDetails().contains("Warfarin"));
+        assertTrue(reload(amoxicillin).getConflictDetails().contains("allergy to 'Penicillin'"));
+        assertFalse(reload(stale).getConflictFlag());
+        assertNull(reload(stale).getConflictDetails());
+        assertNull(reload(inactive).getConflictFlag());
+        assertNull(reload(overTheCounter).getConflictFlag());
+
+        MedicationRescreenCheckpoint checkpoint = checkpointRepository.findById(MedicationRescreenCheckpoint.SINGLETON_ID).orElseThrow();
+        assertTrue(checkpoint.isCompleted());
+        assertTrue(checkpoint.getLastPatientId() >= FIRST_PATIENT + 5);
+    }
+
+    @Test
+    void rescreen_secondRun_writesNothing() {
+        prescribe(FIRST_PATIENT + 1, "Warfarin", true, true, null, null);
+        prescribe(FIRST_PATIENT + 1, "Ibuprofen", true, true, null, null);
+        prescribe(FIRST_PATIENT + 2, "Lisinopril", true, true, null, null);
+
+        MedicationRescreenJob.Result first = job.rescreen();
+        MedicationRescreenJob.Result second = job.rescreen();
+
+        assertTrue(first.rowsUpdated() >= 2);
+        assertEquals(0, second.rowsUpdated());
+        assertEquals(first.rowsChecked(), second.rowsChecked());
+    }
+
+    @Test
+    void rescreen_unfinishedCheckpoint_resumesAfterLastPatient() {
+        Long done = prescribe(FIRST_PATIENT + 1, "Warfarin", true, true, null, null);
+        prescribe(FIRST_PATIENT + 1, "Aspirin", true, true, null, null);
+        Long pending = prescribe(FIRST_PATIENT + 2, "Warfarin", true, true, null, null);
+        prescribe(FIRST_PATIENT + 2, "Naproxen", true, true, null, null);
+
+        // a run for the same rules stopped after patient 1
+        MedicationRescreenCheckpoint checkpoint = new MedicationRescreenCheckpoint();
+        checkpoint.setRuleSetVersion(drugKnowledgeBase.current().version());
+        checkpoint.setLastPatientId(FIRST_PATIENT + 1);
+        checkpoint.setCompleted(false);
+        checkpointRepository.save(checkpoint);
+
+        MedicationRescreenJob.Result result = job.rescreen();
+
+        assertTrue(result.resumed());
+        assertNull(reload(done).getConflictFlag());
+        assertTrue(reload(pending).getConflictFlag());
+    }
+
+    @Test
+    void rescreen_rowEditedMidChunk_isNotOverwritten() {
+        Long warfarin = prescribe(FIRST_PATIENT + 1, "Warfarin", true, true, null, null);
+        Long aspirin = prescribe(FIRST_PATIENT + 1, "Aspirin", true, true, null, null);
+        Long stopped = prescribe(FIRST_PATIENT + 1, "Metformin", true, true, true, "Interaction: old rule");
+
+        // a clinician swaps the aspirin and stops the metformin after the cursor read them,
+        // while the worker is loading the chunk's allergies
+        AllergyRepository editingAllergies = mock(AllergyRepository.class, delegatesTo(allergyRepository));
+        doAnswer(invocation -> {
+            jdbcTemplate.update("UPDATE medication SET drug_name = 'Acetaminophen' WHERE id = ?", aspirin);
+            jdbcTemplate.update("UPDATE medication SET status = false WHERE id = ?", stopped);
+            return allergyRepository.findAllByPatientIdIn(invocation.getArgument(0));
+        }).when(editingAllergies).findAllByPatientIdIn(any());
+        MedicationRescreenJob racingJob = new MedicationRescreenJob(medicationRepository, editingAllergies,
+            checkpointRepository, drugKnowledgeBase, jdbcTemplate, patientChartCache, transactionManager, 2, 3, false);
+
+        MedicationRescreenJob.Result result = racingJob.rescreen();
+
+        // only the warfarin row still matched what was screened
+        assertEquals(1, result.rowsUpdated());
+        assertTrue(reload(warfarin).getConflictFlag());
+        assertNull(reload(aspirin).getConflictFlag());
+        assertTrue(reload(stopped).getConflictFlag());
+        assertEquals("Interaction: old rule", reload(stopped).getConflictDetails());
+    }
+}
@@ -0,0 +1,132 @@
+package com.Eges411Team.UnifiedPatientManager.serviceUnitTests.medicationConflictTests;
+
+import com.Eges411Team.UnifiedPatientManager.DTOs.responses.PrescriptionConflictMatrixResponse;
+import com.Eges411Team.UnifiedPatientManager.DTOs.responses.PrescriptionConflictMatrixResponse.Entry;
+import com.Eges411Team.UnifiedPatientManager.entity.Allergy;
+import com.Eges411Team.UnifiedPatientManager.entity.Medication;
+import com.Eges411Team.UnifiedPatientManager.repositories.AllergyRepository;
+import com.Eges411Team.UnifiedPatientManager.repositories.MedicationRepository;
+import com.Eges411Team.UnifiedPatientManager.services.MedicationService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test Case: Batch prescription conflict check
+ * Checks checkPrescriptionBatch() returns the full conflict matrix for a regimen from a
+ * single load of the patient's allergies and medications, and saves nothing.
+ */
+@ExtendWith(MockitoExtension.class)
+class prescriptionBatchCheckTest {
+
+    @Mock
+    private MedicationRepository medicationRepository;
+
+    @Mock
+    private AllergyRepository allergyRepository;
+
+    @InjectMocks
+    private MedicationService medicationService;
+
+    private static Medication med(String drugName, boolean prescription) {
+        Medication med = new Medication();
+        med.setDrugName(drugName);
+        med.setIsPerscription(prescription);
+        return med;
+    }
+
+    private void patientHas(Long patientId, List<String> allergies, List<String> medications) {
+        List<Allergy> allergyRows = new ArrayList<>();
+        for (String substance : allergies) {
+            Allergy allergy = new Allergy();
+            allergy.setSubstance(substance);
+            allergyRows.add(allergy);
+        }
+        List<Medication> medicationRows = new ArrayList<>();
+        for (String drug : medications) {
+            medicationRows.add(med(drug, true));
+        }
+        when(allergyRepository.findAllByPatientId(patientId)).thenReturn(allergyRows);
+        when(medicationRepository.findAllByPatientId(patientId)).thenReturn(medicationRows);
+    }
+
+    @Test
+    void checkPrescriptionBatch_reportsEveryKindOfConflict() {
+        patientHas(5L, List.of("Penicillin"), List.of("Warfarin", "Metformin"));
+
+        PrescriptionConflictMatrixResponse result = medicationService.checkPrescriptionBatch(5L, List.of(
+            med("Amoxicillin", true),
+            med("Aspirin", true),
+            med("Sertraline", true),
+            med("metformin", true),
+            med("Vitamin D", true)));
+
+        assertTrue(result.isConflicts());
+        assertEquals("built-in", result.getRuleSetVersion());
+        List<Entry> entries = result.getEntries();
+        assertEquals(5, entries.size());
+
+        assertEquals(List.of("Penicillin"), entries.get(0).getAllergyConflicts());
+
+        // Aspirin: interacts with existing Warfarin and with Sertraline in the batch
+        assertEquals(List.of("Warfarin"), entries.get(1).getExistingInteractions());
+        assertEquals(List.of(2), entries.get(1).getBatchInteractions());
+        assertEquals(List.of(1), entries.get(2).getBatchInteractions());
+
+        assertTrue(entries.get(3).isDuplicateOfExisting());
+        assertTrue(entries.get(4).getConflictMessages().isEmpty());
+
+        verify(allergyRepository, times(1)).findAllByPatientId(5L);
+        verify(medicationRepository, times(1)).findAllByPatientId(5L);
+        verify(medicationRepository, never()).save(any(Medication.class));
+        verify(medicationRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void checkPrescriptionBatch_nonPrescriptionsAreOnlyCheckedForDuplicates() {
+        patientHas(6L, List.of("NSAIDs"), List.of("Warfarin", "Ibuprofen"));
+
+        PrescriptionConflictMatrixResponse result = medicationService.checkPrescriptionBatch(6L, List.of(
+            med("Aspirin", false),
+            med("Naproxen", false),
+            med("IBUPROFEN", false)));
+
+        Entry aspirin = result.getEntries().get(0);
+        assertTrue(aspirin.getAllergyConflicts().isEmpty());
+        assertTrue(aspirin.getExistingInteractions().isEmpty());
+        assertTrue(result.getEntries().get(2).isDuplicateOfExisting());
+    }
+
+    @Test
+    void checkPrescriptionBatch_batchPairReportedWhenEitherSideIsPrescribed() {
+        patientHas(7L, List.of(), List.of());
+
+        PrescriptionConflictMatrixResponse result = medicationService.checkPrescriptionBatch(7L, List.of(
+            med("Aspirin", false),
+            med("Warfarin", true)));
+
+        assertEquals(List.of(1), result.getEntries().get(0).getBatchInteractions());
+        assertEquals(List.of(0), result.getEntries().get(1).getBatchInteractions());
+        assertTrue(result.getEntries().get(1).getConflictMessages().get(0).contains("in this batch"));
+    }
+
+    @Test
+    void checkPrescriptionBatch_noConflicts() {
+        patientHas(8L, List.of("Latex"), List.of("Metformin"));
+
+        PrescriptionConflictMatrixResponse result = medicationService.checkPrescriptionBatch(8L, List.of(
+            med("Lisinopril", true),
+            med("Atorvastatin", true)));
+
+        assertFalse(result.isConflicts());
+        assertTrue(result.getEntries().stream().allMatch(e -> e.getConflictMessages().isEmpty()));
+    }
+}
@@ -5,6 +5,7 @@ import com.Eges411Team.UnifiedPatientManager.entity.Medication;
 import com.Eges411Team.UnifiedPatientManager.repositories.AllergyRepository;
 import com.Eges411Team.UnifiedPatientManager.repositories.MedicationRepository;
 import com.Eges411Team.UnifiedPatientManager.services.MedicationService;
+import com.Eges411Team.UnifiedPatientManager.services.PatientChartCacheInvalidator;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -16,6 +17,7 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -37,6 +39,9 @@ class MedicationServiceTest {
     @Mock
     private AllergyRepository allergyRepository;
 
+    @Mock
+    private PatientChartCacheInvalidator chartCacheInvalidator;
+
     @InjectMocks
     private MedicationService medicationService;
 
@@ -128,7 +133,8 @@ class MedicationServiceTest {
 
         List<Medication> result = medicationService.saveMedications(patientId, providerId, newMeds);
 
-        verify(medicationRepository).deleteAll(existingMeds);
+        verify(medicationRepository).deleteAllByIdInBatch(Set.of(1L));
+        verify(chartCacheInvalidator).invalidate(patientId);
         verify(medicationRepository).saveAll(anyList());
         assertNotNull(result);
         assertEquals(2, result.size());
@@ -148,7 +154,7 @@ class MedicationServiceTest {
 
         List<Medication> result = medicationService.saveMedications(patientId, providerId, emptyNewMeds);
 
-        verify(medicationRepository).deleteAll(existingMeds);
+        verify(medicationRepository).deleteAllByIdInBatch(Set.of(1L));
         assertTrue(result.isEmpty());
     }
 
@@ -1035,7 +1041,7 @@ class MedicationServiceTest {
         List<Medication> result = medicationService.saveMedications(patientId, providerId, List.of(med1));
 
         assertEquals(1, result.size());
-        verify(medicationRepository).deleteAll(any());
+        verify(medicationRepository, never()).deleteAllByIdInBatch(any());
     }
 
     @Test
@@ -1150,7 +1156,7 @@ class MedicationServiceTest {
         List<Medication> result = medicationService.saveMedications(patientId, providerId, new ArrayList<>());
 
         assertTrue(result.isEmpty());
-        verify(medicationRepository).deleteAll(any());
+        verify(medicationRepository).deleteAllByIdInBatch(Set.of(1L));
     }
 
     @Test
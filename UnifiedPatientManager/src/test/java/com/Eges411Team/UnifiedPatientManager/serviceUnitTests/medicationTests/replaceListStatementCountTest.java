@@ -0,0 +1,238 @@
+package com.Eges411Team.UnifiedPatientManager.serviceUnitTests.medicationTests;
+
+import com.Eges411Team.UnifiedPatientManager.DTOs.responses.PatientRecordDTO;
+import com.Eges411Team.UnifiedPatientManager.entity.Allergy;
+import com.Eges411Team.UnifiedPatientManager.entity.Medication;
+import com.Eges411Team.UnifiedPatientManager.repositories.AllergyRepository;
+import com.Eges411Team.UnifiedPatientManager.repositories.MedicationRepository;
+import com.Eges411Team.UnifiedPatientManager.services.AllergyService;
+import com.Eges411Team.UnifiedPatientManager.services.MedicationService;
+import com.Eges411Team.UnifiedPatientManager.services.PatientChartCache;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration Test: List replace statement count
+ * Replaces a patient's medication and allergy lists through the services and uses
+ * Hibernate statistics to check only the changed rows are written, with removed rows
+ * going out in a single DELETE, and that matched rows keep their conflict flags only
+ * while their drug stays the same.
+ */
+@SpringBootTest(properties = {
+    // NON_KEYWORDS=USER lets H2 create the "user" table
+    "spring.datasource.url=jdbc:h2:mem:chartdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;NON_KEYWORDS=USER",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class replaceListStatementCountTest {
+
+    private static final Long PATIENT_ID = 9_200_001L;
+    private static final Long PROVIDER_ID = 12L;
+
+    @Autowired
+    private MedicationService medicationService;
+
+    @Autowired
+    private AllergyService allergyService;
+
+    @Autowired
+    private MedicationRepository medicationRepository;
+
+    @Autowired
+    private AllergyRepository allergyRepository;
+
+    @Autowired
+    private PatientChartCache patientChartCache;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    void tearDown() {
+        medicationRepository.deleteAll(medicationRepository.findAllByPatientId(PATIENT_ID));
+        allergyRepository.deleteAll(allergyRepository.findAllByPatientId(PATIENT_ID));
+    }
+
+    private static Medication medication(String drugName) {
+        Medication med = new Medication();
+        med.setDrugName(drugName);
+        med.setDose("10mg");
+        med.setFrequency("Daily");
+        med.setRoute("oral");
+        med.setStatus(true);
+        med.setIsPerscription(true);
+        med.setTimestamp(LocalDateTime.of(2025, 3, 1, 9, 0));
+        return med;
+    }
+
+    // what a client sends back after loading the list: the same values, new objects
+    private static Medication copyOf(Medication stored) {
+        Medication med = medication(stored.getDrugName());
+        med.setId(stored.getId());
+        med.setDose(stored.getDose());
+        med.setTimestamp(stored.getTimestamp());
+        return med;
+    }
+
+    private List<Medication> storedMedications() {
+        List<Medication> stored = new ArrayList<>(medicationRepository.findAllByPatientId(PATIENT_ID));
+        stored.sort(Comparator.comparing(Medication::getId));
+        return stored;
+    }
+
+    @Test
+    void saveMedications_reconciliation_writesOnlyTheDifference() {
+        List<Medication> initial = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            initial.add(medication("Drug" + i));
+        }
+        medicationService.saveMedications(PATIENT_ID, PROVIDER_ID, initial);
+
+        // 2 changed, 3 dropped, 35 untouched, 5 new
+        List<Medication> stored = storedMedications();
+        assertEquals(40, stored.size());
+        List<Medication> request = new ArrayList<>();
+        for (int i = 3; i < 40; i++) {
+            request.add(copyOf(stored.get(i)));
+        }
+        request.get(0).setDose("20mg");
+        request.get(1).setDose("20mg");
+        for (int i = 0; i < 5; i++) {
+            request.add(medication("NewDrug" + i));
+        }
+
+        statistics.clear();
+        List<Medication> result = medicationService.saveMedications(PATIENT_ID, PROVIDER_ID, request);
+
+        // before: 1 select + 40 deletes + 42 inserts
+        assertEquals(2, statistics.getEntityUpdateCount());
+        assertEquals(5, statistics.getEntityInsertCount());
+        assertEquals(0, statistics.getEntityDeleteCount()); // removed rows go out as one bulk delete
+        // load + update batch + delete + insert batch, plus possibly one id block fetch (select + update)
+        long statements = statistics.getPrepareStatementCount();
+        assertTrue(statements >= 4 && statements <= 6, "statements: " + statements);
+
+        assertEquals(42, result.size());
+        assertEquals("20mg", result.get(0).getDose());
+        assertEquals("NewDrug4", result.get(41).getDrugName());
+        List<Medication> after = storedMedications();
+        assertEquals(42, after.size());
+        assertTrue(after.stream().noneMatch(m -> m.getId().equals(stored.get(0).getId())));
+    }
+
+    @Test
+    void saveMedications_unchangedList_issuesOnlyTheLoad() {
+        List<Medication> initial = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            initial.add(medication("Drug" + i));
+        }
+        medicationService.saveMedications(PATIENT_ID, PROVIDER_ID, initial);
+        List<Medication> request = new ArrayList<>();
+        for (Medication stored : storedMedications()) {
+            request.add(copyOf(stored));
+        }
+
+        statistics.clear();
+        medicationService.saveMedications(PATIENT_ID, PROVIDER_ID, request);
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void saveMedications_changedDrug_isScreenedAgainWithCurrentRules() {
+        Medication flagged = medication("Warfarin");
+        flagged.setConflictFlag(true);
+        flagged.setConflictDetails("Interaction: 'Warfarin' with existing 'Aspirin'");
+        Medication kept = medication("Aspirin");
+        kept.setConflictFlag(true);
+        kept.setConflictDetails("Duplicate medication exists: 'Aspirin' already in patient history");
+        medicationService.saveMedications(PATIENT_ID, PROVIDER_ID, new ArrayList<>(List.of(flagged, kept)));
+        List<Medication> stored = storedMedications();
+
+        // the client swaps the first drug and resends the second unchanged, without flags
+        Medication swapped = copyOf(stored.get(0));
+        swapped.setDrugName("Metformin");
+        medicationService.saveMedications(PATIENT_ID, PROVIDER_ID,
+            new ArrayList<>(List.of(swapped, copyOf(stored.get(1)))));
+
+        Medication afterSwap = medicationRepository.findById(stored.get(0).getId()).orElseThrow();
+        assertEquals("Metformin", afterSwap.getDrugName());
+        assertFalse(afterSwap.getConflictFlag());
+        assertNull(afterSwap.getConflictDetails());
+        Medication afterKeep = medicationRepository.findById(stored.get(1).getId()).orElseThrow();
+        assertTrue(afterKeep.getConflictFlag());
+        assertEquals(kept.getConflictDetails(), afterKeep.getConflictDetails());
+
+        // swapping back to a drug that interacts with the other one flags it straight away
+        Medication swappedBack = copyOf(afterSwap);
+        swappedBack.setDrugName("Warfarin");
+        medicationService.saveMedications(PATIENT_ID, PROVIDER_ID,
+            new ArrayList<>(List.of(swappedBack, copyOf(afterKeep))));
+
+        Medication afterSwapBack = medicationRepository.findById(stored.get(0).getId()).orElseThrow();
+        assertTrue(afterSwapBack.getConflictFlag());
+        assertEquals("Interaction: 'Warfarin' with existing 'Aspirin'", afterSwapBack.getConflictDetails());
+    }
+
+    @Test
+    void saveMedications_idFromAnotherPatient_isInsertedNotOverwritten() {
+        Medication other = medication("Warfarin");
+        other.setPatientId(PATIENT_ID + 1);
+        Long otherId = medicationRepository.save(other).getId();
+
+        Medication request = medication("Aspirin");
+        request.setId(otherId);
+        medicationService.saveMedications(PATIENT_ID, PROVIDER_ID, new ArrayList<>(List.of(request)));
+
+        assertEquals("Warfarin", medicationRepository.findById(otherId).orElseThrow().getDrugName());
+        assertEquals(1, medicationRepository.findAllByPatientId(PATIENT_ID).size());
+        medicationRepository.deleteById(otherId);
+    }
+
+    @Test
+    void saveAllergies_deleteOnlyReplace_invalidatesCachedChart() {
+        for (String substance : new String[] {"Dust", "Pollen"}) {
+            Allergy allergy = new Allergy();
+            allergy.setSubstance(substance);
+            allergy.setSeverity("LOW");
+            allergyService.addSingleAllergy(PATIENT_ID, allergy);
+        }
+        AtomicInteger loads = new AtomicInteger();
+        patientChartCache.get(PATIENT_ID, id -> {
+            loads.incrementAndGet();
+            return new PatientRecordDTO();
+        });
+
+        statistics.clear();
+        allergyService.saveAllergies(PATIENT_ID, new ArrayList<>());
+
+        assertEquals(2, statistics.getPrepareStatementCount()); // load + one bulk delete
+        assertTrue(allergyRepository.findAllByPatientId(PATIENT_ID).isEmpty());
+        patientChartCache.get(PATIENT_ID, id -> {
+            loads.incrementAndGet();
+            return new PatientRecordDTO();
+        });
+        assertEquals(2, loads.get());
+    }
+}
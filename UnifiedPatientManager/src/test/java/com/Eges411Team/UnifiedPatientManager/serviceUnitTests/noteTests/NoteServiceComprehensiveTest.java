@@ -17,6 +17,7 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -103,7 +104,7 @@ class NoteServiceComprehensiveTest {
 
         List<Note> result = noteService.saveNotes(patientId, newNotes);
 
-        verify(noteRepository).deleteAll(existingNotes);
+        verify(noteRepository).deleteAllByIdInBatch(Set.of(1L));
         verify(noteRepository).saveAll(anyList());
         assertEquals(2, result.size());
     }
@@ -121,7 +122,7 @@ class NoteServiceComprehensiveTest {
 
         List<Note> result = noteService.saveNotes(patientId, emptyNotes);
 
-        verify(noteRepository).deleteAll(existingNotes);
+        verify(noteRepository).deleteAllByIdInBatch(Set.of(1L));
         assertTrue(result.isEmpty());
     }
 
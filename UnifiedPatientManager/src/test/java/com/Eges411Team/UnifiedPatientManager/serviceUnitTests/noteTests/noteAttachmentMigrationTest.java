@@ -0,0 +1,129 @@
+package com.Eges411Team.UnifiedPatientManager.serviceUnitTests.noteTests;
+
+import com.Eges411Team.UnifiedPatientManager.entity.Note;
+import com.Eges411Team.UnifiedPatientManager.entity.NoteType;
+import com.Eges411Team.UnifiedPatientManager.repositories.NoteRepo;
+import com.Eges411Team.UnifiedPatientManager.services.NoteAttachmentMigration;
+import com.Eges411Team.UnifiedPatientManager.services.NoteService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration Test: Moving legacy in-row attachments into the attachment store
+ * Saves notes with bytes in note.attachment_data, runs the batch migration and checks
+ * the rows now only carry hash/size/media type while downloads return the same bytes.
+ */
+@SpringBootTest(properties = {
+    // NON_KEYWORDS=USER lets H2 create the "user" table
+    "spring.datasource.url=jdbc:h2:mem:chartdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;NON_KEYWORDS=USER",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class noteAttachmentMigrationTest {
+
+    // keep the stored attachment files out of the working tree
+    @TempDir
+    static Path attachmentDir;
+
+    @DynamicPropertySource
+    static void attachmentStoreDir(DynamicPropertyRegistry registry) {
+        registry.add("notes.attachment-store.dir", attachmentDir::toString);
+    }
+
+    private static final Long PATIENT_ID = 987654L;
+
+    @Autowired
+    private NoteAttachmentMigration migration;
+
+    @Autowired
+    private NoteService noteService;
+
+    @Autowired
+    private NoteRepo noteRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<Long> noteIds = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        noteRepository.deleteAllById(noteIds);
+    }
+
+    private Long saveLegacyNote(String name, byte[] data) {
+        Note note = new Note();
+        note.setPatientId(PATIENT_ID);
+        note.setNoteType(NoteType.FILE);
+        note.setTimestamp(LocalDateTime.now());
+        note.setAttachmentName(name);
+        note.setAttachmentData(data);
+        Long id = noteRepository.save(note).getId();
+        noteIds.add(id);
+        return id;
+    }
+
+    private byte[] download(Long noteId) {
+        var info = noteService.getAttachmentForPatient(PATIENT_ID, noteId);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        noteService.copyAttachment(info, 0, noteService.getAttachmentSize(info), out);
+        return out.toByteArray();
+    }
+
+    @Test
+    void migrateAll_movesLegacyBlobsOutOfTheRow() {
+        byte[] pdf = "%PDF-1.4 legacy scan".getBytes(StandardCharsets.UTF_8);
+        byte[] wav = "RIFF....WAVE legacy audio".getBytes(StandardCharsets.UTF_8);
+        Long pdfNote = saveLegacyNote("scan.pdf", pdf);
+        Long wavNote = saveLegacyNote("visit.wav", wav);
+        Long dupNote = saveLegacyNote("scan-copy.pdf", pdf);
+
+        // readable from the row before migrating
+        assertArrayEquals(pdf, download(pdfNote));
+
+        int moved = 0;
+        int batch;
+        while ((batch = migration.migrateBatch(2)) > 0) {
+            assertTrue(batch <= 2);
+            moved += batch;
+        }
+
+        assertEquals(3, moved);
+        assertEquals(0, jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM note WHERE patient_id = ? AND attachment_data IS NOT NULL", Integer.class, PATIENT_ID));
+
+        Note migrated = noteRepository.findById(wavNote).orElseThrow();
+        assertEquals(64, migrated.getAttachmentHash().length());
+        assertEquals(wav.length, migrated.getAttachmentSize());
+        assertEquals("audio/x-wav", migrated.getAttachmentMediaType());
+
+        // identical legacy blobs end up at the same content address
+        assertEquals(noteRepository.findById(pdfNote).orElseThrow().getAttachmentHash(),
+            noteRepository.findById(dupNote).orElseThrow().getAttachmentHash());
+
+        assertArrayEquals(pdf, download(pdfNote));
+        assertArrayEquals(wav, download(wavNote));
+    }
+
+    @Test
+    void migrateBatch_nothingLeft_returnsZero() {
+        migration.migrateAll();
+
+        assertEquals(0, migration.migrateBatch(10));
+    }
+}
@@ -0,0 +1,93 @@
+package com.Eges411Team.UnifiedPatientManager.serviceUnitTests.noteTests;
+
+import com.Eges411Team.UnifiedPatientManager.services.NoteAttachmentStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test Case: Content-addressed note attachment store
+ * Tests SHA-256 addressing, dedup of identical uploads and ranged reads
+ */
+class noteAttachmentStoreTest {
+
+    @TempDir
+    Path root;
+
+    private NoteAttachmentStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new NoteAttachmentStore(root.toString(), null);
+    }
+
+    private static long countFiles(Path dir) throws Exception {
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
+
+    @Test
+    void put_returnsSha256AndSize() throws Exception {
+        byte[] data = "scan of lab results".getBytes(StandardCharsets.UTF_8);
+
+        NoteAttachmentStore.StoredAttachment stored = store.put(new ByteArrayInputStream(data));
+
+        String expected = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        assertEquals(expected, stored.hash());
+        assertEquals(data.length, stored.size());
+        assertTrue(store.exists(stored.hash()));
+    }
+
+    @Test
+    void put_identicalContent_isStoredOnce() throws Exception {
+        byte[] data = new byte[10_000];
+        Arrays.fill(data, (byte) 7);
+
+        NoteAttachmentStore.StoredAttachment first = store.put(new ByteArrayInputStream(data));
+        NoteAttachmentStore.StoredAttachment second = store.put(new ByteArrayInputStream(data));
+
+        assertEquals(first.hash(), second.hash());
+        assertEquals(1, countFiles(root));
+    }
+
+    @Test
+    void put_differentContent_isStoredSeparately() throws Exception {
+        store.put(new ByteArrayInputStream(new byte[] {1}));
+        store.put(new ByteArrayInputStream(new byte[] {2}));
+
+        assertEquals(2, countFiles(root));
+    }
+
+    @Test
+    void transferTo_copiesRequestedRange() {
+        byte[] data = new byte[100_000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+        String hash = store.put(new ByteArrayInputStream(data)).hash();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        store.transferTo(hash, 5_000, 20_000, out);
+
+        assertArrayEquals(Arrays.copyOfRange(data, 5_000, 25_000), out.toByteArray());
+    }
+
+    @Test
+    void transferTo_rejectsNonHashNames() {
+        assertThrows(IllegalArgumentException.class,
+            () -> store.transferTo("../../etc/passwd", 0, 10, new ByteArrayOutputStream()));
+    }
+}
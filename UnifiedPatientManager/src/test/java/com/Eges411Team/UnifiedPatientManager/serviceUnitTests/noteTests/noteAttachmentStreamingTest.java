@@ -0,0 +1,321 @@
+package com.Eges411Team.UnifiedPatientManager.serviceUnitTests.noteTests;
+
+import com.Eges411Team.UnifiedPatientManager.DTOs.requests.NoteRequestDTO;
+import com.Eges411Team.UnifiedPatientManager.controller.NoteController;
+import com.Eges411Team.UnifiedPatientManager.entity.Note;
+import com.Eges411Team.UnifiedPatientManager.entity.NoteType;
+import com.Eges411Team.UnifiedPatientManager.entity.Role;
+import com.Eges411Team.UnifiedPatientManager.entity.User;
+import com.Eges411Team.UnifiedPatientManager.repositories.NoteRepo;
+import com.Eges411Team.UnifiedPatientManager.repositories.UserRepository;
+import com.Eges411Team.UnifiedPatientManager.services.NoteAttachmentStore;
+import com.Eges411Team.UnifiedPatientManager.services.NoteService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration Test: Streamed note attachment upload and download
+ * Uploads FILE notes through NoteController into the attachment store, then downloads
+ * them in full and by HTTP Range, checking the bytes, status codes and range headers.
+ * Uploads that fail validation or roll back leave no file behind in the store, and a
+ * deleted or replaced attachment's file goes once no other note shares it.
+ */
+@SpringBootTest(properties = {
+    // NON_KEYWORDS=USER lets H2 create the "user" table
+    "spring.datasource.url=jdbc:h2:mem:chartdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;NON_KEYWORDS=USER",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class noteAttachmentStreamingTest {
+
+    // keep the stored attachment files out of the working tree
+    @TempDir
+    static Path attachmentDir;
+
+    @DynamicPropertySource
+    static void attachmentStoreDir(DynamicPropertyRegistry registry) {
+        registry.add("notes.attachment-store.dir", attachmentDir::toString);
+    }
+
+    @Autowired
+    private NoteController noteController;
+
+    @Autowired
+    private NoteRepo noteRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private NoteService noteService;
+
+    @Autowired
+    private NoteAttachmentStore noteAttachmentStore;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Long patientId;
+    private byte[] audio;
+
+    @BeforeEach
+    void setUp() {
+        User patient = new User("stream.patient", "hashedpass123", Role.PATIENT);
+        patient.setFirstName("Stream");
+        patient.setLastName("Patient");
+        patient.setEmail("stream.patient@email.com");
+        patient.setPhoneNumber("555-111-2222");
+        patient.setAddress("1 Stream St");
+        patient.setGender("Female");
+        patient.setDateOfBirth(LocalDateTime.of(1985, 3, 3, 0, 0));
+        patient.setCreationDate(LocalDateTime.now());
+        patient.setUpdateDate(LocalDateTime.now());
+        patientId = userRepository.save(patient).getId();
+
+        audio = new byte[300_000];
+        for (int i = 0; i < audio.length; i++) {
+            audio[i] = (byte) (i * 31);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        noteRepository.deleteAll(noteRepository.findAllByPatientId(patientId));
+        userRepository.deleteById(patientId);
+    }
+
+    private Long uploadAudio() throws Exception {
+        NoteRequestDTO request = new NoteRequestDTO();
+        request.setNoteType(NoteType.FILE);
+        request.setDoctorId(7L);
+        MockMultipartFile file = new MockMultipartFile("attachment", "visit.wav", "audio/wav", audio);
+
+        ResponseEntity<Note> created = noteController.createNote(patientId, request, file);
+
+        assertEquals(HttpStatus.CREATED, created.getStatusCode());
+        return created.getBody().getId();
+    }
+
+    private static byte[] body(ResponseEntity<StreamingResponseBody> response) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+        return out.toByteArray();
+    }
+
+    @Test
+    void download_withoutRange_streamsWholeFile() throws Exception {
+        Long noteId = uploadAudio();
+
+        ResponseEntity<StreamingResponseBody> response = noteController.download(patientId, noteId, null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(audio.length, response.getHeaders().getContentLength());
+        assertEquals("bytes", response.getHeaders().getFirst(HttpHeaders.ACCEPT_RANGES));
+        assertArrayEquals(audio, body(response));
+    }
+
+    @Test
+    void upload_keepsOnlyHashSizeAndMediaTypeInTheRow() throws Exception {
+        Long noteId = uploadAudio();
+        Long secondId = uploadAudio();
+
+        Note stored = noteRepository.findById(noteId).orElseThrow();
+        assertNull(stored.getAttachmentData());
+        assertEquals(audio.length, stored.getAttachmentSize());
+        assertEquals("audio/wav", stored.getAttachmentMediaType());
+        // same bytes uploaded twice share one stored file
+        assertEquals(stored.getAttachmentHash(), noteRepository.findById(secondId).orElseThrow().getAttachmentHash());
+    }
+
+    @Test
+    void download_withRange_returnsPartialContent() throws Exception {
+        Long noteId = uploadAudio();
+
+        ResponseEntity<StreamingResponseBody> response = noteController.download(patientId, noteId, "bytes=1000-1999");
+
+        assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+        assertEquals(1000, response.getHeaders().getContentLength());
+        assertEquals("bytes 1000-1999/" + audio.length, response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+        assertArrayEquals(Arrays.copyOfRange(audio, 1000, 2000), body(response));
+    }
+
+    @Test
+    void download_withSuffixRange_returnsTail() throws Exception {
+        Long noteId = uploadAudio();
+
+        ResponseEntity<StreamingResponseBody> response = noteController.download(patientId, noteId, "bytes=-500");
+
+        assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+        assertArrayEquals(Arrays.copyOfRange(audio, audio.length - 500, audio.length), body(response));
+    }
+
+    @Test
+    void download_rangePastEnd_returns416() throws Exception {
+        Long noteId = uploadAudio();
+
+        ResponseEntity<StreamingResponseBody> response = noteController.download(patientId, noteId, "bytes=999999-");
+
+        assertEquals(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE, response.getStatusCode());
+        assertEquals("bytes */" + audio.length, response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+    }
+
+    @Test
+    void update_replacesStreamedAttachment() throws Exception {
+        Long noteId = uploadAudio();
+        byte[] replacement = "new recording".getBytes();
+        NoteRequestDTO request = new NoteRequestDTO();
+        request.setNoteType(NoteType.FILE);
+        request.setDoctorId(7L);
+        request.setTimestamp(LocalDateTime.now());
+
+        noteController.update(patientId, noteId, request,
+            new MockMultipartFile("attachment", "visit2.m4a", "audio/mp4", replacement));
+
+        assertArrayEquals(replacement, body(noteController.download(patientId, noteId, null)));
+    }
+
+    @Test
+    void download_textNote_returnsBadRequest() throws Exception {
+        NoteRequestDTO request = new NoteRequestDTO();
+        request.setNoteType(NoteType.TEXT);
+        request.setContent("just text");
+        Long noteId = noteController.createNote(patientId, request, null).getBody().getId();
+
+        assertEquals(HttpStatus.BAD_REQUEST, noteController.download(patientId, noteId, null).getStatusCode());
+    }
+
+    // bytes no other test has stored, and the address they would be stored under
+    private static byte[] uniqueBytes() {
+        return ("recording " + UUID.randomUUID()).getBytes();
+    }
+
+    private static String sha256(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Test
+    void create_forMissingPatient_storesNothing() throws Exception {
+        byte[] data = uniqueBytes();
+        Note note = new Note();
+        note.setPatientId(patientId + 100_000);
+        note.setNoteType(NoteType.FILE);
+        note.setAttachmentName("visit.wav");
+
+        assertThrows(ResponseStatusException.class,
+            () -> noteService.saveSingleNote(note, new ByteArrayInputStream(data), data.length, "audio/wav"));
+
+        assertFalse(noteAttachmentStore.exists(sha256(data)));
+    }
+
+    @Test
+    void update_withUnsupportedFileOrWrongPatient_storesNothing() throws Exception {
+        Long noteId = uploadAudio();
+        byte[] data = uniqueBytes();
+        Note exe = new Note();
+        exe.setNoteType(NoteType.FILE);
+        exe.setAttachmentName("virus.exe");
+        Note wav = new Note();
+        wav.setNoteType(NoteType.FILE);
+        wav.setAttachmentName("visit.wav");
+
+        assertThrows(ResponseStatusException.class,
+            () -> noteService.updateNote(patientId, noteId, exe, new ByteArrayInputStream(data), data.length, null));
+        assertThrows(ResponseStatusException.class,
+            () -> noteService.updateNote(patientId + 1, noteId, wav, new ByteArrayInputStream(data), data.length, null));
+
+        assertFalse(noteAttachmentStore.exists(sha256(data)));
+    }
+
+    @Test
+    void rolledBackCreate_removesTheNewFile_butKeepsSharedOnes() throws Exception {
+        byte[] data = uniqueBytes();
+        Long sharedId = uploadAudio();
+        String sharedHash = noteRepository.findById(sharedId).orElseThrow().getAttachmentHash();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            for (byte[] bytes : new byte[][] {data, audio}) {
+                Note note = new Note();
+                note.setPatientId(patientId);
+                note.setNoteType(NoteType.FILE);
+                note.setAttachmentName("visit.wav");
+                noteService.saveSingleNote(note, new ByteArrayInputStream(bytes), bytes.length, "audio/wav");
+            }
+            assertTrue(noteAttachmentStore.exists(sha256(data)));
+            status.setRollbackOnly();
+        });
+
+        assertFalse(noteAttachmentStore.exists(sha256(data)));
+        assertTrue(noteAttachmentStore.exists(sharedHash));
+    }
+
+    private Long uploadNote(byte[] data) {
+        Note note = new Note();
+        note.setPatientId(patientId);
+        note.setNoteType(NoteType.FILE);
+        note.setAttachmentName("visit.wav");
+        return noteService.saveSingleNote(note, new ByteArrayInputStream(data), data.length, "audio/wav").getId();
+    }
+
+    @Test
+    void deleteNote_removesItsFile_onlyOnceNoNoteSharesIt() {
+        byte[] data = uniqueBytes();
+        Long firstId = uploadNote(data);
+        Long secondId = uploadNote(data);
+
+        noteService.deleteNote(patientId, firstId);
+        assertTrue(noteAttachmentStore.exists(sha256(data)));
+
+        noteService.deleteNote(patientId, secondId);
+        assertFalse(noteAttachmentStore.exists(sha256(data)));
+    }
+
+    @Test
+    void updateAndSaveNotes_removeReplacedAndDroppedFiles() {
+        byte[] replaced = uniqueBytes();
+        byte[] dropped = uniqueBytes();
+        Long noteId = uploadNote(replaced);
+        uploadNote(dropped);
+        Note wav = new Note();
+        wav.setNoteType(NoteType.FILE);
+        wav.setAttachmentName("visit.wav");
+        byte[] replacement = uniqueBytes();
+
+        noteService.updateNote(patientId, noteId, wav, new ByteArrayInputStream(replacement), replacement.length, "audio/wav");
+        assertFalse(noteAttachmentStore.exists(sha256(replaced)));
+
+        // the replacement list keeps only the updated note
+        noteService.saveNotes(patientId, List.of(noteRepository.findById(noteId).orElseThrow()));
+        assertFalse(noteAttachmentStore.exists(sha256(dropped)));
+        assertTrue(noteAttachmentStore.exists(sha256(replacement)));
+    }
+}
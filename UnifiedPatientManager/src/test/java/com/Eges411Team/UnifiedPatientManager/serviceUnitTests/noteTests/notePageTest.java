@@ -0,0 +1,190 @@
+package com.Eges411Team.UnifiedPatientManager.serviceUnitTests.noteTests;
+
+import com.Eges411Team.UnifiedPatientManager.DTOs.responses.NotePageDTO;
+import com.Eges411Team.UnifiedPatientManager.DTOs.responses.NoteSummaryDTO;
+import com.Eges411Team.UnifiedPatientManager.entity.Note;
+import com.Eges411Team.UnifiedPatientManager.entity.NoteType;
+import com.Eges411Team.UnifiedPatientManager.repositories.NoteRepo;
+import com.Eges411Team.UnifiedPatientManager.services.NoteService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration Test: Paged, time-windowed note retrieval
+ * Tests NoteService.getNotePage() newest-first ordering, keyset cursor paging,
+ * ties on timestamp, the from/to window and the page size cap, and that notes
+ * edited without a timestamp keep their place while notes left without one by older
+ * edits are paged last.
+ */
+@SpringBootTest(properties = {
+    // NON_KEYWORDS=USER lets H2 create the "user" table
+    "spring.datasource.url=jdbc:h2:mem:chartdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;NON_KEYWORDS=USER",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class notePageTest {
+
+    private static final Long PATIENT_ID = 765432L;
+    private static final LocalDateTime DAY_ONE = LocalDateTime.of(2025, 1, 1, 8, 0);
+
+    @Autowired
+    private NoteService noteService;
+
+    @Autowired
+    private NoteRepo noteRepository;
+
+    private final List<Long> noteIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        // 150 daily notes, plus two sharing the last day's timestamp and another patient's note
+        for (int day = 0; day < 150; day++) {
+            save(PATIENT_ID, DAY_ONE.plusDays(day), "day " + day);
+        }
+        save(PATIENT_ID, DAY_ONE.plusDays(149), "day 149 second");
+        save(PATIENT_ID + 1, DAY_ONE.plusDays(200), "someone else");
+    }
+
+    @AfterEach
+    void tearDown() {
+        noteRepository.deleteAllById(noteIds);
+        noteIds.clear();
+    }
+
+    private void save(Long patientId, LocalDateTime timestamp, String content) {
+        Note note = new Note();
+        note.setPatientId(patientId);
+        note.setDoctorId(5L);
+        note.setNoteType(NoteType.TEXT);
+        note.setTimestamp(timestamp);
+        note.setContent(content);
+        noteIds.add(noteRepository.save(note).getId());
+    }
+
+    @Test
+    void getNotePage_firstPage_isNewestFirst() {
+        NotePageDTO page = noteService.getNotePage(PATIENT_ID, null, null, null, 5);
+
+        assertEquals(5, page.getNotes().size());
+        // same timestamp: higher id first
+        assertEquals("day 149 second", page.getNotes().get(0).getContent());
+        assertEquals("day 149", page.getNotes().get(1).getContent());
+        assertEquals("day 146", page.getNotes().get(4).getContent());
+        assertNotNull(page.getNextCursor());
+    }
+
+    @Test
+    void getNotePage_followingCursors_visitsEveryNoteOnce() {
+        List<NoteSummaryDTO> all = new ArrayList<>();
+        String cursor = null;
+        do {
+            NotePageDTO page = noteService.getNotePage(PATIENT_ID, null, null, cursor, 40);
+            all.addAll(page.getNotes());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertEquals(151, all.size());
+        assertEquals(151, all.stream().map(NoteSummaryDTO::getId).distinct().count());
+        for (int i = 1; i < all.size(); i++) {
+            assertFalse(all.get(i).getTimestamp().isAfter(all.get(i - 1).getTimestamp()));
+        }
+        assertEquals("day 0", all.get(all.size() - 1).getContent());
+    }
+
+    @Test
+    void getNotePage_timeWindow_onlyReturnsNotesInside() {
+        NotePageDTO page = noteService.getNotePage(PATIENT_ID, DAY_ONE.plusDays(10), DAY_ONE.plusDays(13), null, 50);
+
+        assertEquals(List.of("day 12", "day 11", "day 10"),
+            page.getNotes().stream().map(NoteSummaryDTO::getContent).toList());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void getNotePage_sizeAboveCap_isCappedAt100() {
+        assertEquals(100, noteService.getNotePage(PATIENT_ID, null, null, null, 500).getNotes().size());
+        assertEquals(20, noteService.getNotePage(PATIENT_ID, null, null, null, null).getNotes().size());
+    }
+
+    @Test
+    void getNotePage_invalidCursor_throwsBadRequest() {
+        assertThrows(ResponseStatusException.class,
+            () -> noteService.getNotePage(PATIENT_ID, null, null, "garbage", 10));
+    }
+
+    @Test
+    void updateWithoutTimestamp_keepsNoteInItsPlace() {
+        Long newestId = noteIds.get(noteIds.size() - 2);
+        Note edit = new Note();
+        edit.setDoctorId(5L);
+        edit.setNoteType(NoteType.TEXT);
+        edit.setContent("day 149 second, edited");
+
+        noteService.updateNote(PATIENT_ID, newestId, edit);
+
+        assertEquals(DAY_ONE.plusDays(149), noteRepository.findById(newestId).orElseThrow().getTimestamp());
+        assertEquals("day 149 second, edited",
+            noteService.getNotePage(PATIENT_ID, null, null, null, 1).getNotes().get(0).getContent());
+    }
+
+    @Test
+    void getNotePage_notesWithoutTimestamp_arePagedAfterTheDatedOnes() {
+        Long olderUndatedId = saveUndated("no timestamp 1");
+        Long newerUndatedId = saveUndated("no timestamp 2");
+
+        List<NoteSummaryDTO> all = new ArrayList<>();
+        String cursor = null;
+        do {
+            NotePageDTO page = noteService.getNotePage(PATIENT_ID, null, null, cursor, 40);
+            all.addAll(page.getNotes());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertEquals(153, all.size());
+        assertEquals("day 0", all.get(150).getContent());
+        assertEquals(newerUndatedId, all.get(151).getId());
+        assertEquals(olderUndatedId, all.get(152).getId());
+        assertNull(noteRepository.findById(olderUndatedId).orElseThrow().getTimestamp());
+    }
+
+    @Test
+    void getNotePage_cursorInsideUndatedTail_continuesByIdAndWindowSkipsIt() {
+        Long olderUndatedId = saveUndated("no timestamp 1");
+        saveUndated("no timestamp 2");
+
+        // a window with only a lower bound still leaves them out
+        NotePageDTO windowed = noteService.getNotePage(PATIENT_ID, DAY_ONE.plusDays(145), null, null, 50);
+        assertEquals(6, windowed.getNotes().size());
+        assertNull(windowed.getNextCursor());
+
+        // 151 dated notes + 2 undated: a page of 152 ends on the newer undated note
+        NotePageDTO page = noteService.getNotePage(PATIENT_ID, null, null, null, 100);
+        page = noteService.getNotePage(PATIENT_ID, null, null, page.getNextCursor(), 52);
+        assertNull(page.getNotes().get(51).getTimestamp());
+        NotePageDTO tail = noteService.getNotePage(PATIENT_ID, null, null, page.getNextCursor(), 10);
+
+        assertEquals(List.of(olderUndatedId), tail.getNotes().stream().map(NoteSummaryDTO::getId).toList());
+        assertNull(tail.getNextCursor());
+    }
+
+    private Long saveUndated(String content) {
+        Note legacy = new Note();
+        legacy.setPatientId(PATIENT_ID);
+        legacy.setDoctorId(5L);
+        legacy.setNoteType(NoteType.TEXT);
+        legacy.setContent(content);
+        Long id = noteRepository.save(legacy).getId();
+        noteIds.add(id);
+        return id;
+    }
+}
@@ -0,0 +1,146 @@
+package com.Eges411Team.UnifiedPatientManager.serviceUnitTests.noteTests;
+
+import com.Eges411Team.UnifiedPatientManager.DTOs.responses.NoteSummaryDTO;
+import com.Eges411Team.UnifiedPatientManager.controller.NoteController;
+import com.Eges411Team.UnifiedPatientManager.entity.Note;
+import com.Eges411Team.UnifiedPatientManager.entity.NoteType;
+import com.Eges411Team.UnifiedPatientManager.repositories.NoteRepo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration Test: Attachment-free note listing
+ * Checks GET /{patient_id}/notes and /refresh return summaries with attachment size
+ * but no attachment bytes, so the listing JSON stays small, and that the sizes of
+ * not-yet-migrated attachments come from the listing query itself.
+ */
+@SpringBootTest(properties = {
+    // NON_KEYWORDS=USER lets H2 create the "user" table
+    "spring.datasource.url=jdbc:h2:mem:chartdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;NON_KEYWORDS=USER",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class noteSummaryListingTest {
+
+    private static final Long PATIENT_ID = 876543L;
+    private static final int SCAN_BYTES = 2 * 1024 * 1024;
+
+    @Autowired
+    private NoteController noteController;
+
+    @Autowired
+    private NoteRepo noteRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Long scanNoteId;
+    private Long textNoteId;
+    private final List<Long> extraNoteIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        // a note whose bytes are still in the row, as before the attachment store
+        Note scan = new Note();
+        scan.setPatientId(PATIENT_ID);
+        scan.setDoctorId(5L);
+        scan.setNoteType(NoteType.FILE);
+        scan.setTimestamp(LocalDateTime.of(2025, 11, 10, 9, 30));
+        scan.setAttachmentName("scan.pdf");
+        scan.setAttachmentData(new byte[SCAN_BYTES]);
+        scanNoteId = noteRepository.save(scan).getId();
+
+        Note text = new Note();
+        text.setPatientId(PATIENT_ID);
+        text.setDoctorId(5L);
+        text.setNoteType(NoteType.TEXT);
+        text.setTimestamp(LocalDateTime.of(2025, 11, 11, 9, 30));
+        text.setContent("x".repeat(600));
+        textNoteId = noteRepository.save(text).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        noteRepository.deleteAllById(List.of(scanNoteId, textNoteId));
+        noteRepository.deleteAllById(extraNoteIds);
+        extraNoteIds.clear();
+    }
+
+    @Test
+    void find_returnsSummariesWithoutAttachmentBytes() throws Exception {
+        List<NoteSummaryDTO> notes = noteController.find(PATIENT_ID).getBody();
+
+        assertEquals(2, notes.size());
+        NoteSummaryDTO scan = notes.get(0);
+        assertEquals(scanNoteId, scan.getId());
+        assertEquals(NoteType.FILE, scan.getNoteType());
+        assertEquals("scan.pdf", scan.getAttachmentName());
+        assertEquals(SCAN_BYTES, scan.getAttachmentSize());
+
+        String json = objectMapper.writeValueAsString(notes);
+        assertTrue(json.length() < 2_000, "listing JSON should not carry the 2 MB attachment: " + json.length());
+        assertFalse(json.contains("attachmentData"));
+    }
+
+    @Test
+    void find_manyLegacyAttachments_sizesComeFromOneQuery() {
+        for (int i = 1; i <= 20; i++) {
+            Note legacy = new Note();
+            legacy.setPatientId(PATIENT_ID);
+            legacy.setNoteType(NoteType.FILE);
+            legacy.setTimestamp(LocalDateTime.of(2025, 11, 12, 9, 30).plusMinutes(i));
+            legacy.setAttachmentName("page" + i + ".png");
+            legacy.setAttachmentData(new byte[i * 100]);
+            extraNoteIds.add(noteRepository.save(legacy).getId());
+        }
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        statistics.clear();
+        List<NoteSummaryDTO> notes = noteController.find(PATIENT_ID).getBody();
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(22, notes.size());
+        for (int i = 1; i <= 20; i++) {
+            assertEquals(i * 100L, notes.get(i + 1).getAttachmentSize());
+        }
+    }
+
+    @Test
+    void find_cutsContentToPreviewLength() {
+        NoteSummaryDTO text = noteController.find(PATIENT_ID).getBody().get(1);
+
+        assertEquals(500, text.getContent().length());
+        assertNull(text.getAttachmentSize());
+    }
+
+    @Test
+    void refresh_returnsSameSummaries() {
+        List<NoteSummaryDTO> refreshed = noteController.refresh(PATIENT_ID).getBody();
+
+        assertEquals(List.of(scanNoteId, textNoteId), refreshed.stream().map(NoteSummaryDTO::getId).toList());
+    }
+
+    @Test
+    void noteEntityJson_neverIncludesAttachmentData() throws Exception {
+        Note note = new Note();
+        note.setAttachmentData(new byte[] {1, 2, 3});
+
+        assertFalse(objectMapper.writeValueAsString(note).contains("attachmentData"));
+    }
+}
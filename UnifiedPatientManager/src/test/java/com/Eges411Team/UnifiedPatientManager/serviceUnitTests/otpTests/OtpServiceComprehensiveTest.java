@@ -10,18 +10,17 @@ import com.Eges411Team.UnifiedPatientManager.entity.User;
 import com.Eges411Team.UnifiedPatientManager.repositories.OtpTokenRepository;
 import com.Eges411Team.UnifiedPatientManager.repositories.UserRepository;
 import com.Eges411Team.UnifiedPatientManager.repositories.UserSessionRepository;
-import com.Eges411Team.UnifiedPatientManager.services.EmailService;
 import com.Eges411Team.UnifiedPatientManager.services.JwtTokenProvider;
+import com.Eges411Team.UnifiedPatientManager.services.OtpEmailDispatcher;
 import com.Eges411Team.UnifiedPatientManager.services.OtpService;
+import com.Eges411Team.UnifiedPatientManager.services.OtpVerifier;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.mail.MailException;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.time.LocalDateTime;
 import java.util.Optional;
@@ -40,13 +39,11 @@ class OtpServiceComprehensiveTest {
     @Mock
     private UserSessionRepository userSessionRepository;
     @Mock
-    private EmailService emailService;
-    @Mock
-    private PasswordEncoder passwordEncoder;
+    private OtpEmailDispatcher otpEmailDispatcher;
     @Mock
     private JwtTokenProvider jwtTokenProvider;
 
-    @InjectMocks
+    private OtpVerifier otpVerifier;
     private OtpService otpService;
 
     private User testUser;
@@ -55,6 +52,10 @@ class OtpServiceComprehensiveTest {
 
     @BeforeEach
     void setUp() {
+        otpVerifier = new OtpVerifier(otpTokenRepository, "");
+        otpService = new OtpService(otpTokenRepository, userRepository, userSessionRepository,
+            otpEmailDispatcher, otpVerifier, jwtTokenProvider);
+
         testUser = new User();
         testUser.setId(1L);
         testUser.setUsername("testuser");
@@ -67,7 +68,7 @@ class OtpServiceComprehensiveTest {
         testOtpToken = new OtpToken();
         testOtpToken.setOtpId(1L);
         testOtpToken.setUser(testUser);
-        testOtpToken.setOtpCode("hashedotp123");
+        testOtpToken.setOtpCode(otpVerifier.hash(1L, "123456"));
         testOtpToken.setCreatedAt(LocalDateTime.now());
         testOtpToken.setExpiresAt(LocalDateTime.now().plusMinutes(5));
         testOtpToken.setUsed(false);
@@ -79,18 +80,35 @@ class OtpServiceComprehensiveTest {
         verificationRequest.setIpAddress("192.168.1.1");
     }
 
+    // stands in for the conditional UPDATEs, applying them to testOtpToken
+    private void otpRowUpdatesApplyToToken() {
+        when(otpTokenRepository.recordAttempt(1L, OtpToken.MAX_ATTEMPTS)).thenAnswer(inv -> {
+            if (testOtpToken.isUsed() || testOtpToken.getAttemptCount() >= OtpToken.MAX_ATTEMPTS) {
+                return 0;
+            }
+            testOtpToken.setAttemptCount(testOtpToken.getAttemptCount() + 1);
+            return 1;
+        });
+        lenient().when(otpTokenRepository.markUsed(1L)).thenAnswer(inv -> {
+            if (testOtpToken.isUsed()) {
+                return 0;
+            }
+            testOtpToken.setUsed(true);
+            return 1;
+        });
+    }
+
     // ===== generateAndSendOtp Tests =====
     @Test
-    void generateAndSendOtp_validUser_successfullyGeneratesAndSends() {
+    void generateAndSendOtp_validUser_successfullyGeneratesAndQueuesEmail() {
         doNothing().when(otpTokenRepository).invalidateUnusedOtps(anyLong());
         when(otpTokenRepository.save(any(OtpToken.class))).thenReturn(testOtpToken);
-        doNothing().when(emailService).sendOtpEmail(anyString(), anyString());
 
         assertDoesNotThrow(() -> otpService.generateAndSendOtp(testUser));
 
         verify(otpTokenRepository).invalidateUnusedOtps(anyLong());
         verify(otpTokenRepository).save(any(OtpToken.class));
-        verify(emailService).sendOtpEmail(anyString(), anyString());
+        verify(otpEmailDispatcher).enqueue(eq("test@example.com"), matches("\\d{6}"), any(LocalDateTime.class));
     }
 
     @Test
@@ -112,23 +130,24 @@ class OtpServiceComprehensiveTest {
     }
 
     @Test
-    void generateAndSendOtp_emailSendFails_otpStillPersisted() {
+    void generateAndSendOtp_queuedEmailCarriesTheOtpExpiry() {
         doNothing().when(otpTokenRepository).invalidateUnusedOtps(anyLong());
-        when(otpTokenRepository.save(any(OtpToken.class))).thenReturn(testOtpToken);
-        doThrow(new MailException("SMTP failed") {}).when(emailService).sendOtpEmail(anyString(), anyString());
+        ArgumentCaptor<OtpToken> saved = ArgumentCaptor.forClass(OtpToken.class);
+        when(otpTokenRepository.save(saved.capture())).thenReturn(testOtpToken);
 
-        // Should NOT throw - transaction should not rollback for MailException
-        assertDoesNotThrow(() -> otpService.generateAndSendOtp(testUser));
+        otpService.generateAndSendOtp(testUser);
 
-        verify(otpTokenRepository).save(any(OtpToken.class));
-        verify(emailService).sendOtpEmail(anyString(), anyString());
+        // the plain code goes to the outbox, only its hash to otp_token
+        ArgumentCaptor<String> code = ArgumentCaptor.forClass(String.class);
+        verify(otpEmailDispatcher).enqueue(eq("test@example.com"), code.capture(), eq(saved.getValue().getExpiresAt()));
+        assertNotEquals(code.getValue(), saved.getValue().getOtpCode());
+        assertTrue(otpVerifier.matches(1L, code.getValue(), saved.getValue().getOtpCode()));
     }
 
     @Test
     void generateAndSendOtp_generatesUniqueOtpCodes() {
         doNothing().when(otpTokenRepository).invalidateUnusedOtps(anyLong());
         when(otpTokenRepository.save(any(OtpToken.class))).thenReturn(testOtpToken);
-        doNothing().when(emailService).sendOtpEmail(anyString(), anyString());
 
         otpService.generateAndSendOtp(testUser);
         otpService.generateAndSendOtp(testUser);
@@ -142,10 +161,9 @@ class OtpServiceComprehensiveTest {
         when(userRepository.findByUsername(anyString())).thenReturn(Optional.of(testUser));
         when(otpTokenRepository.findFirstByUser_IdAndExpiresAtAfterAndUsedFalseOrderByCreatedAtDesc(
                 anyLong(), any(LocalDateTime.class))).thenReturn(Optional.of(testOtpToken));
-        when(passwordEncoder.matches(anyString(), anyString())).thenReturn(true);
+        otpRowUpdatesApplyToToken();
         when(jwtTokenProvider.generateToken(any(User.class))).thenReturn("jwttoken123");
         when(jwtTokenProvider.getExpirationTime()).thenReturn(3600L);
-        when(userRepository.save(any(User.class))).thenReturn(testUser);
         when(userSessionRepository.save(any())).thenReturn(null);
 
         LoginResponse response = otpService.verifyAndCompleteLogin(verificationRequest);
@@ -153,9 +171,9 @@ class OtpServiceComprehensiveTest {
         assertNotNull(response);
         assertEquals("jwttoken123", response.getToken());
         assertEquals("testuser", response.getUsername());
-        verify(otpTokenRepository, times(1)).save(any(OtpToken.class));
+        verify(otpTokenRepository, times(1)).markUsed(1L);
         verify(userSessionRepository, times(1)).save(any());
-        verify(userRepository, times(1)).save(testUser);
+        verify(userRepository, times(1)).recordLogin(eq(1L), any(LocalDateTime.class));
     }
 
     @Test
@@ -199,12 +217,14 @@ class OtpServiceComprehensiveTest {
         when(userRepository.findByUsername(anyString())).thenReturn(Optional.of(testUser));
         when(otpTokenRepository.findFirstByUser_IdAndExpiresAtAfterAndUsedFalseOrderByCreatedAtDesc(
                 anyLong(), any(LocalDateTime.class))).thenReturn(Optional.of(testOtpToken));
-        when(passwordEncoder.matches(anyString(), anyString())).thenReturn(false);
+        otpRowUpdatesApplyToToken();
+        verificationRequest.setOtpCode("000000");
 
         assertThrows(InvalidOtpException.class, () -> otpService.verifyAndCompleteLogin(verificationRequest));
 
         assertEquals(1, testOtpToken.getAttemptCount());
-        verify(otpTokenRepository, times(1)).save(testOtpToken);
+        verify(otpTokenRepository, times(1)).recordAttempt(1L, OtpToken.MAX_ATTEMPTS);
+        verify(otpTokenRepository, never()).save(any(OtpToken.class));
     }
 
     @Test
@@ -213,7 +233,8 @@ class OtpServiceComprehensiveTest {
         when(userRepository.findByUsername(anyString())).thenReturn(Optional.of(testUser));
         when(otpTokenRepository.findFirstByUser_IdAndExpiresAtAfterAndUsedFalseOrderByCreatedAtDesc(
                 anyLong(), any(LocalDateTime.class))).thenReturn(Optional.of(testOtpToken));
-        when(passwordEncoder.matches(anyString(), anyString())).thenReturn(false);
+        otpRowUpdatesApplyToToken();
+        verificationRequest.setOtpCode("000000");
 
         // First failed attempt
         assertThrows(InvalidOtpException.class, () -> otpService.verifyAndCompleteLogin(verificationRequest));
@@ -229,16 +250,15 @@ class OtpServiceComprehensiveTest {
         when(userRepository.findByUsername(anyString())).thenReturn(Optional.of(testUser));
         when(otpTokenRepository.findFirstByUser_IdAndExpiresAtAfterAndUsedFalseOrderByCreatedAtDesc(
                 anyLong(), any(LocalDateTime.class))).thenReturn(Optional.of(testOtpToken));
-        when(passwordEncoder.matches(anyString(), anyString())).thenReturn(true);
+        otpRowUpdatesApplyToToken();
         when(jwtTokenProvider.generateToken(any(User.class))).thenReturn("jwttoken123");
         when(jwtTokenProvider.getExpirationTime()).thenReturn(3600L);
-        when(userRepository.save(any(User.class))).thenReturn(testUser);
         when(userSessionRepository.save(any())).thenReturn(null);
 
         otpService.verifyAndCompleteLogin(verificationRequest);
 
         assertTrue(testOtpToken.isUsed());
-        verify(otpTokenRepository, times(1)).save(testOtpToken);
+        verify(otpTokenRepository, times(1)).markUsed(1L);
     }
 
     @Test
@@ -246,10 +266,9 @@ class OtpServiceComprehensiveTest {
         when(userRepository.findByUsername(anyString())).thenReturn(Optional.of(testUser));
         when(otpTokenRepository.findFirstByUser_IdAndExpiresAtAfterAndUsedFalseOrderByCreatedAtDesc(
                 anyLong(), any(LocalDateTime.class))).thenReturn(Optional.of(testOtpToken));
-        when(passwordEncoder.matches(anyString(), anyString())).thenReturn(true);
+        otpRowUpdatesApplyToToken();
         when(jwtTokenProvider.generateToken(any(User.class))).thenReturn("jwttoken123");
         when(jwtTokenProvider.getExpirationTime()).thenReturn(3600L);
-        when(userRepository.save(any(User.class))).thenReturn(testUser);
         when(userSessionRepository.save(any())).thenReturn(null);
 
         LoginResponse response = otpService.verifyAndCompleteLogin(verificationRequest);
@@ -264,16 +283,16 @@ class OtpServiceComprehensiveTest {
         when(userRepository.findByUsername(anyString())).thenReturn(Optional.of(testUser));
         when(otpTokenRepository.findFirstByUser_IdAndExpiresAtAfterAndUsedFalseOrderByCreatedAtDesc(
                 anyLong(), any(LocalDateTime.class))).thenReturn(Optional.of(testOtpToken));
-        when(passwordEncoder.matches(anyString(), anyString())).thenReturn(true);
+        otpRowUpdatesApplyToToken();
         when(jwtTokenProvider.generateToken(any(User.class))).thenReturn("jwttoken123");
         when(jwtTokenProvider.getExpirationTime()).thenReturn(3600L);
-        when(userRepository.save(any(User.class))).thenReturn(testUser);
         when(userSessionRepository.save(any())).thenReturn(null);
 
         otpService.verifyAndCompleteLogin(verificationRequest);
 
-        assertNotNull(testUser.getLastLoginTime());
-        assertTrue(testUser.getLastLoginTime().isAfter(beforeLogin));
+        // only the lastLogin column is written, not the whole user row
+        verify(userRepository).recordLogin(eq(1L), argThat(at -> at.isAfter(beforeLogin)));
+        verify(userRepository, never()).save(any());
     }
 
     @Test
@@ -281,10 +300,9 @@ class OtpServiceComprehensiveTest {
         when(userRepository.findByUsername(anyString())).thenReturn(Optional.of(testUser));
         when(otpTokenRepository.findFirstByUser_IdAndExpiresAtAfterAndUsedFalseOrderByCreatedAtDesc(
                 anyLong(), any(LocalDateTime.class))).thenReturn(Optional.of(testOtpToken));
-        when(passwordEncoder.matches(anyString(), anyString())).thenReturn(true);
+        otpRowUpdatesApplyToToken();
         when(jwtTokenProvider.generateToken(any(User.class))).thenReturn("jwttoken123");
         when(jwtTokenProvider.getExpirationTime()).thenReturn(3600L);
-        when(userRepository.save(any(User.class))).thenReturn(testUser);
         when(userSessionRepository.save(any())).thenReturn(null);
 
         LoginResponse response = otpService.verifyAndCompleteLogin(verificationRequest);
@@ -303,10 +321,9 @@ class OtpServiceComprehensiveTest {
         when(userRepository.findByUsername(anyString())).thenReturn(Optional.of(testUser));
         when(otpTokenRepository.findFirstByUser_IdAndExpiresAtAfterAndUsedFalseOrderByCreatedAtDesc(
                 anyLong(), any(LocalDateTime.class))).thenReturn(Optional.of(testOtpToken));
-        when(passwordEncoder.matches(anyString(), anyString())).thenReturn(true);
+        otpRowUpdatesApplyToToken();
         when(jwtTokenProvider.generateToken(any(User.class))).thenReturn("jwttoken123");
         when(jwtTokenProvider.getExpirationTime()).thenReturn(3600L);
-        when(userRepository.save(any(User.class))).thenReturn(testUser);
         when(userSessionRepository.save(any())).thenReturn(null);
 
         assertDoesNotThrow(() -> otpService.verifyAndCompleteLogin(verificationRequest));
@@ -318,7 +335,8 @@ class OtpServiceComprehensiveTest {
         when(userRepository.findByUsername(anyString())).thenReturn(Optional.of(testUser));
         when(otpTokenRepository.findFirstByUser_IdAndExpiresAtAfterAndUsedFalseOrderByCreatedAtDesc(
                 anyLong(), any(LocalDateTime.class))).thenReturn(Optional.of(testOtpToken));
-        when(passwordEncoder.matches(anyString(), anyString())).thenReturn(false);
+        otpRowUpdatesApplyToToken();
+        verificationRequest.setOtpCode("000000");
 
         assertThrows(InvalidOtpException.class, 
             () -> otpService.verifyAndCompleteLogin(verificationRequest));
@@ -332,11 +350,64 @@ class OtpServiceComprehensiveTest {
         when(userRepository.findByUsername(anyString())).thenReturn(Optional.of(testUser));
         when(otpTokenRepository.findFirstByUser_IdAndExpiresAtAfterAndUsedFalseOrderByCreatedAtDesc(
                 anyLong(), any(LocalDateTime.class))).thenReturn(Optional.of(testOtpToken));
-        when(passwordEncoder.matches(anyString(), anyString())).thenReturn(false);
+        otpRowUpdatesApplyToToken();
+        verificationRequest.setOtpCode("000000");
 
         assertThrows(InvalidOtpException.class, 
             () -> otpService.verifyAndCompleteLogin(verificationRequest));
         
         assertEquals(3, testOtpToken.getAttemptCount());
     }
+
+    @Test
+    void verifyAndCompleteLogin_attemptsExhausted_rejectsEvenTheCorrectCode() {
+        testOtpToken.setAttemptCount(OtpToken.MAX_ATTEMPTS);
+        when(userRepository.findByUsername(anyString())).thenReturn(Optional.of(testUser));
+        when(otpTokenRepository.findFirstByUser_IdAndExpiresAtAfterAndUsedFalseOrderByCreatedAtDesc(
+                anyLong(), any(LocalDateTime.class))).thenReturn(Optional.of(testOtpToken));
+        otpRowUpdatesApplyToToken();
+
+        InvalidOtpException ex = assertThrows(InvalidOtpException.class,
+            () -> otpService.verifyAndCompleteLogin(verificationRequest));
+
+        assertTrue(ex.getMessage().contains("Too many"));
+        verify(otpTokenRepository, never()).markUsed(anyLong());
+        verify(userSessionRepository, never()).save(any());
+    }
+
+    @Test
+    void verifyAndCompleteLogin_usedConcurrently_onlyOneLoginSucceeds() {
+        when(userRepository.findByUsername(anyString())).thenReturn(Optional.of(testUser));
+        when(otpTokenRepository.findFirstByUser_IdAndExpiresAtAfterAndUsedFalseOrderByCreatedAtDesc(
+                anyLong(), any(LocalDateTime.class))).thenReturn(Optional.of(testOtpToken));
+        when(otpTokenRepository.recordAttempt(1L, OtpToken.MAX_ATTEMPTS)).thenReturn(1);
+        // another request marked it used between the read and this one's update
+        when(otpTokenRepository.markUsed(1L)).thenReturn(0);
+
+        assertThrows(InvalidOtpException.class, () -> otpService.verifyAndCompleteLogin(verificationRequest));
+
+        verify(userSessionRepository, never()).save(any());
+    }
+
+    @Test
+    void otpVerifier_hashIsBoundToTheUser() {
+        String hash = otpVerifier.hash(1L, "123456");
+
+        assertTrue(otpVerifier.matches(1L, "123456", hash));
+        assertFalse(otpVerifier.matches(2L, "123456", hash));
+        assertFalse(otpVerifier.matches(1L, "123457", hash));
+        // a BCrypt hash left over from before the switch just doesn't match
+        assertFalse(otpVerifier.matches(1L, "123456", "$2a$10$abcdefghijklmnopqrstuu"));
+        // a different key gives different hashes
+        OtpVerifier otherKey = new OtpVerifier(otpTokenRepository, "c2VjcmV0LWtleS1mb3ItdGVzdHMtb25seS0xMjM0NTY=");
+        assertFalse(otherKey.matches(1L, "123456", hash));
+    }
+
+    @Test
+    void otpVerifier_withoutSecret_allShareOneProcessKey() {
+        String hash = otpVerifier.hash(1L, "123456");
+
+        assertTrue(new OtpVerifier(otpTokenRepository, null).matches(1L, "123456", hash));
+        assertTrue(new OtpVerifier(otpTokenRepository, " ").matches(1L, "123456", hash));
+    }
 }
@@ -0,0 +1,153 @@
+package com.Eges411Team.UnifiedPatientManager.serviceUnitTests.otpTests;
+
+import com.Eges411Team.UnifiedPatientManager.DTOs.requests.OtpVerificationRequest;
+import com.Eges411Team.UnifiedPatientManager.ExceptionHandlers.InvalidOtpException;
+import com.Eges411Team.UnifiedPatientManager.entity.OtpToken;
+import com.Eges411Team.UnifiedPatientManager.entity.Role;
+import com.Eges411Team.UnifiedPatientManager.entity.User;
+import com.Eges411Team.UnifiedPatientManager.repositories.OtpTokenRepository;
+import com.Eges411Team.UnifiedPatientManager.repositories.UserRepository;
+import com.Eges411Team.UnifiedPatientManager.repositories.UserSessionRepository;
+import com.Eges411Team.UnifiedPatientManager.services.OtpService;
+import com.Eges411Team.UnifiedPatientManager.services.OtpVerifier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration Test: OTP attempt limit
+ * Verifies OTPs through the real services and database: wrong codes are counted even
+ * though the request fails, concurrent guesses can't get past the limit, and a used
+ * code can't be replayed.
+ */
+@SpringBootTest(properties = {
+    // NON_KEYWORDS=USER lets H2 create the "user" table
+    "spring.datasource.url=jdbc:h2:mem:chartdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;NON_KEYWORDS=USER",
+    "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+class otpAttemptLimitTest {
+
+    private static final String CODE = "482913";
+
+    @Autowired
+    private OtpService otpService;
+
+    @Autowired
+    private OtpVerifier otpVerifier;
+
+    @Autowired
+    private OtpTokenRepository otpTokenRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserSessionRepository userSessionRepository;
+
+    private User user;
+    private Long otpId;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setUsername("attemptuser");
+        user.setPassword("hash");
+        user.setRole(Role.PATIENT);
+        user.setFirstName("Attempt");
+        user.setLastName("Tester");
+        user.setPhoneNumber("5555555555");
+        user.setGender("M");
+        user.setDateOfBirth(LocalDateTime.of(1985, 6, 1, 0, 0));
+        user.setAddress("2 Main St");
+        user.setEmail("attemptuser@example.com");
+        user.setCreationDate(LocalDateTime.now());
+        user.setUpdateDate(LocalDateTime.now());
+        user = userRepository.save(user);
+
+        OtpToken token = new OtpToken();
+        token.setUser(user);
+        token.setOtpCode(otpVerifier.hash(user.getId(), CODE));
+        token.setCreatedAt(LocalDateTime.now());
+        token.setExpiresAt(LocalDateTime.now().plusMinutes(5));
+        otpId = otpTokenRepository.save(token).getOtpId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        userSessionRepository.deleteAll();
+        otpTokenRepository.deleteAll();
+        userRepository.deleteById(user.getId());
+    }
+
+    private OtpVerificationRequest request(String code) {
+        return new OtpVerificationRequest("attemptuser", code, "192.0.2.1");
+    }
+
+    private int storedAttempts() {
+        return otpTokenRepository.findById(otpId).orElseThrow().getAttemptCount();
+    }
+
+    @Test
+    void wrongCode_attemptIsCommittedDespiteTheError() {
+        assertThrows(InvalidOtpException.class, () -> otpService.verifyAndCompleteLogin(request("000000")));
+        assertThrows(InvalidOtpException.class, () -> otpService.verifyAndCompleteLogin(request("111111")));
+
+        assertEquals(2, storedAttempts());
+        assertNotNull(otpService.verifyAndCompleteLogin(request(CODE)).getToken());
+    }
+
+    @Test
+    void concurrentGuesses_neverExceedTheLimit() throws Exception {
+        int guesses = 12;
+        ExecutorService pool = Executors.newFixedThreadPool(guesses);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < guesses; i++) {
+            String guess = String.valueOf(100000 + i);
+            results.add(pool.submit(() -> {
+                start.await();
+                try {
+                    otpService.verifyAndCompleteLogin(request(guess));
+                    return "accepted";
+                } catch (InvalidOtpException e) {
+                    return e.getMessage();
+                }
+            }));
+        }
+        start.countDown();
+        int compared = 0;
+        for (Future<String> result : results) {
+            String outcome = result.get();
+            assertNotEquals("accepted", outcome);
+            if (outcome.startsWith("Invalid OTP code")) {
+                compared++;
+            }
+        }
+        pool.shutdown();
+
+        assertEquals(OtpToken.MAX_ATTEMPTS, compared);
+        assertEquals(OtpToken.MAX_ATTEMPTS, storedAttempts());
+        // out of attempts, so even the right code is refused now
+        assertThrows(InvalidOtpException.class, () -> otpService.verifyAndCompleteLogin(request(CODE)));
+    }
+
+    @Test
+    void usedCode_cannotBeReplayed() {
+        otpService.verifyAndCompleteLogin(request(CODE));
+
+        assertTrue(otpTokenRepository.findById(otpId).orElseThrow().isUsed());
+        assertThrows(InvalidOtpException.class, () -> otpService.verifyAndCompleteLogin(request(CODE)));
+    }
+}
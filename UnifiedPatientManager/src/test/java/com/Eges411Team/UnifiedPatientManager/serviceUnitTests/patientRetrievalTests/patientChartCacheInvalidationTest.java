@@ -0,0 +1,196 @@
+package com.Eges411Team.UnifiedPatientManager.serviceUnitTests.patientRetrievalTests;
+
+import com.Eges411Team.UnifiedPatientManager.DTOs.requests.PatientRecordUpdateDTO;
+import com.Eges411Team.UnifiedPatientManager.DTOs.responses.PatientRecordDTO;
+import com.Eges411Team.UnifiedPatientManager.entity.Allergy;
+import com.Eges411Team.UnifiedPatientManager.entity.MedicalHistory;
+import com.Eges411Team.UnifiedPatientManager.entity.Medication;
+import com.Eges411Team.UnifiedPatientManager.entity.Role;
+import com.Eges411Team.UnifiedPatientManager.entity.User;
+import com.Eges411Team.UnifiedPatientManager.repositories.AllergyRepository;
+import com.Eges411Team.UnifiedPatientManager.repositories.MedicalHistoryRepo;
+import com.Eges411Team.UnifiedPatientManager.repositories.MedicationRepository;
+import com.Eges411Team.UnifiedPatientManager.repositories.UserRepository;
+import com.Eges411Team.UnifiedPatientManager.services.AllergyService;
+import com.Eges411Team.UnifiedPatientManager.services.MedicalHistoryService;
+import com.Eges411Team.UnifiedPatientManager.services.MedicationService;
+import com.Eges411Team.UnifiedPatientManager.services.PatientChartCache;
+import com.Eges411Team.UnifiedPatientManager.services.PatientRecordService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.sql.Date;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration Test: Patient chart cache never serves a stale chart
+ * Warms the cache, runs each mutating service path, then checks the cached chart
+ * matches a fresh load from the database.
+ */
+@SpringBootTest(properties = {
+    // NON_KEYWORDS=USER lets H2 create the "user" table
+    "spring.datasource.url=jdbc:h2:mem:chartdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;NON_KEYWORDS=USER",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class patientChartCacheInvalidationTest {
+
+    @Autowired
+    private PatientChartCache patientChartCache;
+
+    @Autowired
+    private PatientRecordService patientRecordService;
+
+    @Autowired
+    private AllergyService allergyService;
+
+    @Autowired
+    private MedicationService medicationService;
+
+    @Autowired
+    private MedicalHistoryService medicalHistoryService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AllergyRepository allergyRepository;
+
+    @Autowired
+    private MedicationRepository medicationRepository;
+
+    @Autowired
+    private MedicalHistoryRepo medicalHistoryRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Long patientId;
+
+    @BeforeEach
+    void setUp() {
+        patientChartCache.clear();
+
+        User patient = new User("cache.patient", "hashedpass123", Role.PATIENT);
+        patient.setFirstName("Cache");
+        patient.setLastName("Patient");
+        patient.setEmail("cache.patient@email.com");
+        patient.setPhoneNumber("555-123-4567");
+        patient.setAddress("1 Cache Way");
+        patient.setGender("Male");
+        patient.setDateOfBirth(LocalDateTime.of(1985, 3, 10, 0, 0));
+        patient.setCreationDate(LocalDateTime.now());
+        patient.setUpdateDate(LocalDateTime.now());
+        patientId = userRepository.save(patient).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        medicalHistoryRepository.deleteAll(medicalHistoryRepository.findAllByPatientId(patientId));
+        medicationRepository.deleteAll(medicationRepository.findAllByPatientId(patientId));
+        allergyRepository.deleteAll(allergyRepository.findAllByPatientId(patientId));
+        userRepository.deleteById(patientId);
+    }
+
+    private PatientRecordDTO cachedChart() {
+        return patientChartCache.get(patientId, patientRecordService::getPatientChart);
+    }
+
+    // warm the cache, run the write, then the cached chart must equal a fresh DB load
+    private void assertNoStaleChartAfter(Runnable write) throws Exception {
+        cachedChart();
+        long hitsBefore = patientChartCache.stats().get("hits");
+        cachedChart();
+        assertEquals(hitsBefore + 1, patientChartCache.stats().get("hits"), "chart should be cached before the write");
+
+        write.run();
+
+        String fresh = objectMapper.writeValueAsString(patientRecordService.getPatientChart(patientId));
+        String cached = objectMapper.writeValueAsString(cachedChart());
+        assertEquals(fresh, cached);
+    }
+
+    private Allergy allergy(String substance) {
+        Allergy allergy = new Allergy();
+        allergy.setSubstance(substance);
+        allergy.setReaction("Rash");
+        allergy.setSeverity("LOW");
+        return allergy;
+    }
+
+    private Medication medication(String drugName) {
+        Medication medication = new Medication();
+        medication.setDrugName(drugName);
+        medication.setDose("10mg");
+        medication.setFrequency("Daily");
+        medication.setIsPerscription(true);
+        return medication;
+    }
+
+    private MedicalHistory history(String diagnosis) {
+        MedicalHistory history = new MedicalHistory();
+        history.setPatientId(patientId);
+        history.setDoctorId(5L);
+        history.setDiagnosis(diagnosis);
+        history.setStartDate(Date.valueOf("2024-02-01"));
+        return history;
+    }
+
+    @Test
+    void allergyWrites_invalidateCachedChart() throws Exception {
+        assertNoStaleChartAfter(() -> allergyService.saveAllergies(patientId, new ArrayList<>(List.of(allergy("Dust"), allergy("Pollen")))));
+        assertNoStaleChartAfter(() -> allergyService.addSingleAllergy(patientId, allergy("Latex")));
+
+        Long latexId = allergyRepository.findAllByPatientId(patientId).stream()
+                .filter(a -> "Latex".equals(a.getSubstance())).findFirst().orElseThrow().getId();
+        assertNoStaleChartAfter(() -> allergyService.updateAllergy(patientId, latexId, allergy("Latex gloves")));
+        assertNoStaleChartAfter(() -> allergyService.deleteAllergy(patientId, latexId));
+
+        assertEquals(2, cachedChart().getAllergies().size());
+    }
+
+    @Test
+    void medicationWrites_invalidateCachedChart() throws Exception {
+        assertNoStaleChartAfter(() -> medicationService.saveMedications(patientId, 5L, new ArrayList<>(List.of(medication("Metformin")))));
+        assertNoStaleChartAfter(() -> medicationService.createSinglePrescription(patientId, 5L, medication("Levothyroxine"), false, null));
+
+        Long medicationId = medicationRepository.findAllByPatientId(patientId).get(0).getId();
+        assertNoStaleChartAfter(() -> medicationService.updateMedication(patientId, 5L, medicationId, medication("Metformin XR")));
+        assertNoStaleChartAfter(() -> medicationService.deleteMedication(patientId, medicationId));
+
+        assertEquals(1, cachedChart().getMedications().size());
+    }
+
+    @Test
+    void medicalHistoryWrites_invalidateCachedChart() throws Exception {
+        assertNoStaleChartAfter(() -> medicalHistoryService.saveMedicalHistory(patientId, new ArrayList<>(List.of(history("Asthma")))));
+        assertNoStaleChartAfter(() -> medicalHistoryService.saveMedicalHistory(history("Migraine")));
+
+        Long historyId = medicalHistoryRepository.findAllByPatientId(patientId).get(0).getId();
+        assertNoStaleChartAfter(() -> medicalHistoryService.updateMedicalHistory(patientId, historyId, history("Asthma, mild")));
+        assertNoStaleChartAfter(() -> medicalHistoryService.deleteMedicalHistory(patientId, historyId));
+
+        assertEquals(1, cachedChart().getMedicalHistory().size());
+    }
+
+    @Test
+    void updatePatientRecord_invalidatesCachedChart() throws Exception {
+        PatientRecordUpdateDTO update = new PatientRecordUpdateDTO();
+        update.setAddress("2 Fresh St");
+        update.setMedicalNote("Follow-up in two weeks");
+
+        assertNoStaleChartAfter(() -> patientRecordService.updatePatientRecord(patientId, update));
+
+        PatientRecordDTO chart = cachedChart();
+        assertEquals("2 Fresh St", chart.getAddress());
+        assertEquals(1, chart.getMedicalHistory().size());
+    }
+}
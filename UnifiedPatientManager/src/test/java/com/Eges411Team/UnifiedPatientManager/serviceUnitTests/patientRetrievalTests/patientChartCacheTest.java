@@ -0,0 +1,96 @@
+package com.Eges411Team.UnifiedPatientManager.serviceUnitTests.patientRetrievalTests;
+
+import com.Eges411Team.UnifiedPatientManager.DTOs.responses.PatientRecordDTO;
+import com.Eges411Team.UnifiedPatientManager.services.PatientChartCache;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test Case: Patient chart cache
+ * Tests read-through, LRU size bound, TTL expiry, invalidation and metrics
+ */
+class patientChartCacheTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private final Function<Long, PatientRecordDTO> loader = id -> {
+        loads.incrementAndGet();
+        PatientRecordDTO dto = new PatientRecordDTO();
+        dto.setPatientId(id);
+        return dto;
+    };
+
+    @Test
+    void get_secondLookup_servedFromCache() {
+        PatientChartCache cache = new PatientChartCache(10, 60_000);
+
+        PatientRecordDTO first = cache.get(1L, loader);
+        PatientRecordDTO second = cache.get(1L, loader);
+
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+        assertEquals(1L, cache.stats().get("hits"));
+        assertEquals(1L, cache.stats().get("misses"));
+    }
+
+    @Test
+    void get_overMaxEntries_evictsLeastRecentlyUsed() {
+        PatientChartCache cache = new PatientChartCache(2, 60_000);
+
+        cache.get(1L, loader);
+        cache.get(2L, loader);
+        cache.get(1L, loader);     // 1 is now most recently used
+        cache.get(3L, loader);     // evicts 2
+
+        assertEquals(2L, cache.stats().get("size"));
+        assertEquals(1L, cache.stats().get("evictions"));
+
+        cache.get(1L, loader);
+        assertEquals(3, loads.get());
+        cache.get(2L, loader);
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    void get_afterTtl_reloads() throws InterruptedException {
+        PatientChartCache cache = new PatientChartCache(10, 20);
+
+        cache.get(1L, loader);
+        Thread.sleep(40);
+        cache.get(1L, loader);
+
+        assertEquals(2, loads.get());
+        assertEquals(1L, cache.stats().get("evictions"));
+    }
+
+    @Test
+    void invalidate_dropsEntryAndCounts() {
+        PatientChartCache cache = new PatientChartCache(10, 60_000);
+
+        cache.get(1L, loader);
+        cache.invalidate(1L);
+        cache.get(1L, loader);
+
+        assertEquals(2, loads.get());
+        assertEquals(1L, cache.stats().get("invalidations"));
+    }
+
+    @Test
+    void get_writeDuringLoad_resultNotCached() {
+        PatientChartCache cache = new PatientChartCache(10, 60_000);
+
+        // a write lands while the chart is being loaded, so the loaded copy may be stale
+        cache.get(1L, id -> {
+            PatientRecordDTO dto = loader.apply(id);
+            cache.invalidate(id);
+            return dto;
+        });
+        cache.get(1L, loader);
+
+        assertEquals(2, loads.get());
+    }
+}
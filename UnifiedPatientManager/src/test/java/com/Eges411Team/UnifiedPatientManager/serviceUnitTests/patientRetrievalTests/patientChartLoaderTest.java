@@ -0,0 +1,213 @@
+package com.Eges411Team.UnifiedPatientManager.serviceUnitTests.patientRetrievalTests;
+
+import com.Eges411Team.UnifiedPatientManager.DTOs.responses.PatientRecordDTO;
+import com.Eges411Team.UnifiedPatientManager.entity.Allergy;
+import com.Eges411Team.UnifiedPatientManager.entity.Medication;
+import com.Eges411Team.UnifiedPatientManager.entity.MedicalHistory;
+import com.Eges411Team.UnifiedPatientManager.entity.User;
+import com.Eges411Team.UnifiedPatientManager.repositories.AllergyRepository;
+import com.Eges411Team.UnifiedPatientManager.repositories.MedicalHistoryRepo;
+import com.Eges411Team.UnifiedPatientManager.repositories.MedicationRepository;
+import com.Eges411Team.UnifiedPatientManager.repositories.UserRepository;
+import com.Eges411Team.UnifiedPatientManager.services.PatientChartLoader;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.stubbing.Answer;
+
+import java.sql.Date;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test Case: Concurrent chart loading
+ * Tests PatientChartLoader.loadChart() joins all sections and flags slow/failed ones
+ */
+@ExtendWith(MockitoExtension.class)
+class patientChartLoaderTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private AllergyRepository allergyRepository;
+
+    @Mock
+    private MedicationRepository medicationRepository;
+
+    @Mock
+    private MedicalHistoryRepo medicalHistoryRepository;
+
+    private PatientChartLoader chartLoader;
+
+    private final Long patientId = 123L;
+
+    @BeforeEach
+    void setUp() {
+        // 4 threads, 200 ms per-section timeout
+        chartLoader = new PatientChartLoader(userRepository, allergyRepository, medicationRepository,
+                medicalHistoryRepository, 4, 16, 200);
+    }
+
+    @AfterEach
+    void tearDown() {
+        chartLoader.shutdown();
+    }
+
+    private User patient() {
+        User patient = new User();
+        patient.setId(patientId);
+        patient.setFirstName("Alice");
+        patient.setLastName("Brown");
+        patient.setEmail("alice@email.com");
+        patient.setDateOfBirth(LocalDateTime.of(1992, 11, 22, 0, 0));
+        return patient;
+    }
+
+    @Test
+    void loadChart_allSectionsReturn_completeChartWithNoPartialSections() {
+        Allergy allergy = new Allergy();
+        allergy.setId(1L);
+        allergy.setSubstance("Dairy");
+
+        Medication medication = new Medication();
+        medication.setId(2L);
+        medication.setDrugName("Ibuprofen");
+
+        MedicalHistory history = new MedicalHistory();
+        history.setId(3L);
+        history.setDiagnosis("Migraine");
+        history.setStartDate(Date.valueOf("2024-01-01"));
+
+        when(userRepository.findById(patientId)).thenReturn(Optional.of(patient()));
+        when(allergyRepository.findAllByPatientId(patientId)).thenReturn(Arrays.asList(allergy));
+        when(medicationRepository.findAllByPatientId(patientId)).thenReturn(Arrays.asList(medication));
+        when(medicalHistoryRepository.findAllByPatientId(patientId)).thenReturn(Arrays.asList(history));
+
+        PatientRecordDTO result = chartLoader.loadChart(patientId);
+
+        assertEquals(patientId, result.getPatientId());
+        assertEquals("Alice", result.getFirstName());
+        assertEquals("Dairy", result.getAllergies().get(0).getSubstance());
+        assertEquals("Ibuprofen", result.getMedications().get(0).getDrugName());
+        assertEquals("Migraine", result.getMedicalHistory().get(0).getNotes());
+        assertNotNull(result.getMedicalHistory().get(0).getStartDate());
+        assertTrue(result.getPartialSections().isEmpty());
+    }
+
+    @Test
+    void loadChart_sectionsRunConcurrently() {
+        // each query waits for all four to be running; serially the first would time out
+        CountDownLatch allRunning = new CountDownLatch(4);
+        AtomicInteger overlapped = new AtomicInteger();
+        Answer<Object> meetOthers = inv -> {
+            allRunning.countDown();
+            if (allRunning.await(150, TimeUnit.MILLISECONDS)) {
+                overlapped.incrementAndGet();
+            }
+            return inv.getMethod().getName().equals("findById") ? Optional.of(patient()) : new ArrayList<>();
+        };
+        when(userRepository.findById(patientId)).thenAnswer(meetOthers);
+        when(allergyRepository.findAllByPatientId(patientId)).thenAnswer(meetOthers);
+        when(medicationRepository.findAllByPatientId(patientId)).thenAnswer(meetOthers);
+        when(medicalHistoryRepository.findAllByPatientId(patientId)).thenAnswer(meetOthers);
+
+        PatientRecordDTO result = chartLoader.loadChart(patientId);
+
+        assertTrue(result.getPartialSections().isEmpty());
+        assertEquals(4, overlapped.get());
+    }
+
+    @Test
+    void loadChart_poolAndQueueFull_skipsSectionsInsteadOfRunningThemInline() {
+        // 1 thread, 1 queue slot: the user query runs, allergies wait, the other two are rejected
+        PatientChartLoader saturated = new PatientChartLoader(userRepository, allergyRepository, medicationRepository,
+                medicalHistoryRepository, 1, 1, 200);
+        try {
+            when(userRepository.findById(patientId)).thenAnswer(inv -> { Thread.sleep(50); return Optional.of(patient()); });
+            when(allergyRepository.findAllByPatientId(patientId)).thenReturn(new ArrayList<>());
+
+            PatientRecordDTO result = saturated.loadChart(patientId);
+
+            assertEquals(List.of("medications", "medicalHistory"), result.getPartialSections());
+            verifyNoInteractions(medicationRepository, medicalHistoryRepository);
+        } finally {
+            saturated.shutdown();
+        }
+    }
+
+    @Test
+    void loadChart_queuedSection_getsItsOwnTimeoutOnceStarted() {
+        // 2 threads, 300 ms per section: medications only starts once the 200 ms user query
+        // is done and then takes 200 ms itself, finishing after 300 ms from submission
+        PatientChartLoader twoThreads = new PatientChartLoader(userRepository, allergyRepository, medicationRepository,
+                medicalHistoryRepository, 2, 16, 300);
+        try {
+            when(userRepository.findById(patientId)).thenAnswer(inv -> { Thread.sleep(200); return Optional.of(patient()); });
+            when(allergyRepository.findAllByPatientId(patientId)).thenReturn(new ArrayList<>());
+            when(medicationRepository.findAllByPatientId(patientId)).thenAnswer(inv -> { Thread.sleep(200); return new ArrayList<>(); });
+            when(medicalHistoryRepository.findAllByPatientId(patientId)).thenReturn(new ArrayList<>());
+
+            PatientRecordDTO result = twoThreads.loadChart(patientId);
+
+            assertTrue(result.getPartialSections().isEmpty());
+        } finally {
+            twoThreads.shutdown();
+        }
+    }
+
+    @Test
+    void loadChart_slowSection_isEmptyAndFlaggedPartial() {
+        Allergy allergy = new Allergy();
+        allergy.setId(1L);
+        allergy.setSubstance("Peanuts");
+
+        when(userRepository.findById(patientId)).thenReturn(Optional.of(patient()));
+        when(allergyRepository.findAllByPatientId(patientId)).thenReturn(Arrays.asList(allergy));
+        when(medicationRepository.findAllByPatientId(patientId)).thenAnswer(inv -> { Thread.sleep(2000); return new ArrayList<>(); });
+        when(medicalHistoryRepository.findAllByPatientId(patientId)).thenReturn(new ArrayList<>());
+
+        PatientRecordDTO result = chartLoader.loadChart(patientId);
+
+        assertEquals(List.of("medications"), result.getPartialSections());
+        assertTrue(result.getMedications().isEmpty());
+        assertEquals(1, result.getAllergies().size());
+    }
+
+    @Test
+    void loadChart_failingSection_isFlaggedPartial() {
+        when(userRepository.findById(patientId)).thenReturn(Optional.of(patient()));
+        when(allergyRepository.findAllByPatientId(patientId)).thenReturn(new ArrayList<>());
+        when(medicationRepository.findAllByPatientId(patientId)).thenReturn(new ArrayList<>());
+        when(medicalHistoryRepository.findAllByPatientId(patientId)).thenThrow(new RuntimeException("DB down"));
+
+        PatientRecordDTO result = chartLoader.loadChart(patientId);
+
+        assertEquals(List.of("medicalHistory"), result.getPartialSections());
+        assertTrue(result.getMedicalHistory().isEmpty());
+    }
+
+    @Test
+    void loadChart_patientNotFound_throwsException() {
+        when(userRepository.findById(999L)).thenReturn(Optional.empty());
+        lenient().when(allergyRepository.findAllByPatientId(999L)).thenReturn(new ArrayList<>());
+        lenient().when(medicationRepository.findAllByPatientId(999L)).thenReturn(new ArrayList<>());
+        lenient().when(medicalHistoryRepository.findAllByPatientId(999L)).thenReturn(new ArrayList<>());
+
+        RuntimeException ex = assertThrows(RuntimeException.class, () -> chartLoader.loadChart(999L));
+
+        assertTrue(ex.getMessage().contains("User not found"));
+    }
+}
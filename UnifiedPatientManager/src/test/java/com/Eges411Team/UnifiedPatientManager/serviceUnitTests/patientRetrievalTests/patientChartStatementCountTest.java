@@ -0,0 +1,162 @@
+package com.Eges411Team.UnifiedPatientManager.serviceUnitTests.patientRetrievalTests;
+
+import com.Eges411Team.UnifiedPatientManager.DTOs.responses.PatientRecordDTO;
+import com.Eges411Team.UnifiedPatientManager.entity.Allergy;
+import com.Eges411Team.UnifiedPatientManager.entity.MedicalHistory;
+import com.Eges411Team.UnifiedPatientManager.entity.Medication;
+import com.Eges411Team.UnifiedPatientManager.entity.Role;
+import com.Eges411Team.UnifiedPatientManager.entity.User;
+import com.Eges411Team.UnifiedPatientManager.repositories.AllergyRepository;
+import com.Eges411Team.UnifiedPatientManager.repositories.MedicalHistoryRepo;
+import com.Eges411Team.UnifiedPatientManager.repositories.MedicationRepository;
+import com.Eges411Team.UnifiedPatientManager.repositories.UserRepository;
+import com.Eges411Team.UnifiedPatientManager.services.PatientRecordService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.sql.Date;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration Test: Patient chart statement count
+ * Runs against the H2 test database and uses Hibernate statistics to count
+ * the JDBC statements issued per chart load.
+ */
+@SpringBootTest(properties = {
+    // NON_KEYWORDS=USER lets H2 create the "user" table
+    "spring.datasource.url=jdbc:h2:mem:chartdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;NON_KEYWORDS=USER",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class patientChartStatementCountTest {
+
+    @Autowired
+    private PatientRecordService patientRecordService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AllergyRepository allergyRepository;
+
+    @Autowired
+    private MedicationRepository medicationRepository;
+
+    @Autowired
+    private MedicalHistoryRepo medicalHistoryRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Long patientId;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        User patient = new User("chart.patient", "hashedpass123", Role.PATIENT);
+        patient.setFirstName("Chart");
+        patient.setLastName("Patient");
+        patient.setEmail("chart.patient@email.com");
+        patient.setPhoneNumber("555-123-4567");
+        patient.setAddress("1 Chart Way");
+        patient.setGender("Female");
+        patient.setHeight("5'6\"");
+        patient.setWeight("130 lbs");
+        patient.setDateOfBirth(LocalDateTime.of(1990, 5, 15, 0, 0));
+        patient.setCreationDate(LocalDateTime.now());
+        patient.setUpdateDate(LocalDateTime.now());
+        patientId = userRepository.save(patient).getId();
+
+        for (String substance : new String[] {"Penicillin", "Peanuts"}) {
+            Allergy allergy = new Allergy();
+            allergy.setPatientId(patientId);
+            allergy.setSubstance(substance);
+            allergy.setReaction("Rash");
+            allergy.setSeverity("HIGH");
+            allergyRepository.save(allergy);
+        }
+
+        Medication medication = new Medication();
+        medication.setPatientId(patientId);
+        medication.setDrugName("Ibuprofen");
+        medication.setDose("200mg");
+        medication.setFrequency("As needed");
+        medicationRepository.save(medication);
+
+        MedicalHistory history = new MedicalHistory();
+        history.setPatientId(patientId);
+        history.setDoctorId(7L);
+        history.setDiagnosis("Migraine");
+        history.setStartDate(Date.valueOf("2024-01-01"));
+        medicalHistoryRepository.save(history);
+    }
+
+    @AfterEach
+    void tearDown() {
+        medicalHistoryRepository.deleteAll(medicalHistoryRepository.findAllByPatientId(patientId));
+        medicationRepository.deleteAll(medicationRepository.findAllByPatientId(patientId));
+        allergyRepository.deleteAll(allergyRepository.findAllByPatientId(patientId));
+        userRepository.deleteById(patientId);
+    }
+
+    @Test
+    void getPatientChart_loadsWholeChartInOneStatement() {
+        statistics.clear();
+
+        PatientRecordDTO chart = patientRecordService.getPatientChart(patientId);
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(patientId, chart.getPatientId());
+        assertEquals("Chart", chart.getFirstName());
+        assertEquals("Patient", chart.getLastName());
+        assertEquals("chart.patient@email.com", chart.getEmail());
+        assertEquals("5'6\"", chart.getHeight());
+        assertEquals(LocalDateTime.of(1990, 5, 15, 0, 0), chart.getDateOfBirth());
+        assertEquals(2, chart.getAllergies().size());
+        assertEquals(1, chart.getMedications().size());
+        assertEquals("Ibuprofen", chart.getMedications().get(0).getDrugName());
+        assertEquals(1, chart.getMedicalHistory().size());
+        assertEquals(7L, chart.getMedicalHistory().get(0).getDoctorId());
+        assertNotNull(chart.getMedicalHistory().get(0).getStartDate());
+    }
+
+    @Test
+    void getPatientChart_matchesSerialGetPatientRecord() {
+        statistics.clear();
+        PatientRecordDTO serial = patientRecordService.getPatientRecord(patientId);
+        long serialStatements = statistics.getPrepareStatementCount();
+
+        statistics.clear();
+        PatientRecordDTO chart = patientRecordService.getPatientChart(patientId);
+
+        // the serial path issues one query per table
+        assertEquals(4, serialStatements);
+        assertEquals(1, statistics.getPrepareStatementCount());
+
+        assertEquals(serial.getPhoneNumber(), chart.getPhoneNumber());
+        assertEquals(serial.getAddress(), chart.getAddress());
+        assertEquals(serial.getGender(), chart.getGender());
+        assertEquals(serial.getAllergies().get(0).getSubstance(), chart.getAllergies().get(0).getSubstance());
+        assertEquals(serial.getAllergies().get(1).getAllergyId(), chart.getAllergies().get(1).getAllergyId());
+        assertEquals(serial.getMedicalHistory().get(0).getStartDate(), chart.getMedicalHistory().get(0).getStartDate());
+    }
+
+    @Test
+    void getPatientChart_patientNotFound_throwsException() {
+        RuntimeException ex = assertThrows(RuntimeException.class, () ->
+                patientRecordService.getPatientChart(-1L)
+        );
+
+        assertTrue(ex.getMessage().contains("User not found"));
+    }
+}
@@ -0,0 +1,156 @@
+package com.Eges411Team.UnifiedPatientManager.serviceUnitTests.patientRetrievalTests;
+
+import com.Eges411Team.UnifiedPatientManager.DTOs.responses.PatientRecordDTO;
+import com.Eges411Team.UnifiedPatientManager.entity.Role;
+import com.Eges411Team.UnifiedPatientManager.entity.User;
+import com.Eges411Team.UnifiedPatientManager.repositories.UserRepository;
+import com.Eges411Team.UnifiedPatientManager.services.PatientNameIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test Case: In-memory patient name index for typeahead
+ * Tests n-gram matching on name, email and phone, exact > prefix > substring ranking,
+ * incremental put/remove, and changes made while the index is loading
+ */
+@ExtendWith(MockitoExtension.class)
+class patientNameIndexTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private PatientNameIndex index;
+
+    @BeforeEach
+    void setUp() {
+        when(userRepository.findAll()).thenReturn(Arrays.asList(
+            user(1L, "Ann", "Anderson", "ann.a@email.com", "555-123-4567"),
+            user(2L, "Joann", "Smith", "jo@email.com", "555-222-0000"),
+            user(3L, "Annabelle", "Lee", "belle@email.com", "555-333-0000"),
+            user(4L, "Bob", "Brown", "bob@email.com", "555-444-0000")
+        ));
+        index = new PatientNameIndex(userRepository);
+        index.load();
+    }
+
+    private static User user(Long id, String first, String last, String email, String phone) {
+        User user = new User("user" + id, "hashedpass123", Role.PATIENT);
+        user.setId(id);
+        user.setFirstName(first);
+        user.setLastName(last);
+        user.setEmail(email);
+        user.setPhoneNumber(phone);
+        return user;
+    }
+
+    private static List<Long> ids(List<PatientRecordDTO> results) {
+        return results.stream().map(PatientRecordDTO::getPatientId).toList();
+    }
+
+    @Test
+    void load_keepsChangesCommittedWhileReadingTheTable() {
+        PatientNameIndex loading = new PatientNameIndex(userRepository);
+        // findAll's snapshot predates these after-commit updates
+        when(userRepository.findAll()).thenAnswer(invocation -> {
+            loading.put(5L, "Carol", "Carter", "carol@email.com", "555-555-0000");
+            loading.put(1L, "Ann", "Andrews", "ann.a@email.com", "555-123-4567");
+            loading.remove(4L);
+            return Arrays.asList(
+                user(1L, "Ann", "Anderson", "ann.a@email.com", "555-123-4567"),
+                user(4L, "Bob", "Brown", "bob@email.com", "555-444-0000"));
+        });
+
+        loading.load();
+
+        assertEquals(2, loading.size());
+        assertEquals(List.of(5L), ids(loading.search("carol", 10)));
+        assertEquals(List.of(1L), ids(loading.search("andrews", 10)));
+        assertTrue(loading.search("anderson", 10).isEmpty());
+        assertTrue(loading.search("bob", 10).isEmpty());
+
+        // once loaded, changes are no longer recorded for replay
+        loading.put(6L, "Dave", "Dunn", "dave@email.com", "555-666-0000");
+        assertEquals(3, loading.size());
+    }
+
+    @Test
+    void load_indexesEveryUser() {
+        assertTrue(index.isReady());
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    void search_ranksExactThenPrefixThenSubstring() {
+        // "ann": exact first name (1), prefix of Annabelle (3), substring of Joann (2)
+        assertEquals(List.of(1L, 3L, 2L), ids(index.search("Ann", 10)));
+    }
+
+    @Test
+    void search_isCaseInsensitive() {
+        assertEquals(ids(index.search("ann", 10)), ids(index.search("ANN", 10)));
+    }
+
+    @Test
+    void search_longQueryIntersectsTrigrams() {
+        assertEquals(List.of(1L), ids(index.search("nderso", 10)));
+        assertTrue(index.search("andersox", 10).isEmpty());
+    }
+
+    @Test
+    void search_singleCharacterQuery_matches() {
+        assertEquals(List.of(4L), ids(index.search("w", 10)));
+    }
+
+    @Test
+    void search_matchesEmailAndPhone() {
+        assertEquals(List.of(3L), ids(index.search("belle@", 10)));
+        assertEquals(List.of(1L), ids(index.search("123-45", 10)));
+        // digits without dashes still match the formatted phone number
+        assertEquals(List.of(1L), ids(index.search("5551234567", 10)));
+    }
+
+    @Test
+    void search_respectsLimit() {
+        assertEquals(List.of(1L), ids(index.search("ann", 1)));
+    }
+
+    @Test
+    void search_blankQuery_returnsEmpty() {
+        assertTrue(index.search("  ", 10).isEmpty());
+        assertTrue(index.search(null, 10).isEmpty());
+    }
+
+    @Test
+    void put_replacesOldValues() {
+        index.put(4L, "Robert", "Brown", "bob@email.com", "555-444-0000");
+
+        assertTrue(index.search("bob", 10).stream().allMatch(p -> "Robert".equals(p.getFirstName())));
+        assertEquals(List.of(4L), ids(index.search("robert", 10)));
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    void remove_dropsUserFromResults() {
+        index.remove(1L);
+
+        assertEquals(List.of(3L, 2L), ids(index.search("ann", 10)));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void search_beforeLoad_isNotReady() {
+        PatientNameIndex fresh = new PatientNameIndex(userRepository);
+
+        assertFalse(fresh.isReady());
+        verify(userRepository, times(1)).findAll();
+    }
+}
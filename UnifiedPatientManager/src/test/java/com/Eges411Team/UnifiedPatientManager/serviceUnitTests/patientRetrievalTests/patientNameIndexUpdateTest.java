@@ -0,0 +1,105 @@
+package com.Eges411Team.UnifiedPatientManager.serviceUnitTests.patientRetrievalTests;
+
+import com.Eges411Team.UnifiedPatientManager.DTOs.requests.PatientRecordUpdateDTO;
+import com.Eges411Team.UnifiedPatientManager.DTOs.responses.PatientRecordDTO;
+import com.Eges411Team.UnifiedPatientManager.entity.Role;
+import com.Eges411Team.UnifiedPatientManager.entity.User;
+import com.Eges411Team.UnifiedPatientManager.repositories.UserRepository;
+import com.Eges411Team.UnifiedPatientManager.services.PatientNameIndex;
+import com.Eges411Team.UnifiedPatientManager.services.PatientRecordService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration Test: Patient name index follows patient writes
+ * Creates, renames and deletes a patient through the normal service/repository paths
+ * and checks searchPatients (served from the index) reflects each change.
+ */
+@SpringBootTest(properties = {
+    // NON_KEYWORDS=USER lets H2 create the "user" table
+    "spring.datasource.url=jdbc:h2:mem:chartdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;NON_KEYWORDS=USER",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class patientNameIndexUpdateTest {
+
+    @Autowired
+    private PatientRecordService patientRecordService;
+
+    @Autowired
+    private PatientNameIndex patientNameIndex;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Long patientId;
+
+    @AfterEach
+    void tearDown() {
+        if (patientId != null && userRepository.existsById(patientId)) {
+            userRepository.deleteById(patientId);
+        }
+    }
+
+    private Long createPatient() {
+        User template = new User("typeahead.user", "hashedpass123", Role.PATIENT);
+        template.setFirstName("Quinby");
+        template.setLastName("Typeaheadson");
+        template.setEmail("quinby@email.com");
+        template.setPhoneNumber("555-987-6543");
+        template.setAddress("1 Index Way");
+        template.setGender("Male");
+        template.setDateOfBirth(LocalDateTime.of(1980, 5, 5, 0, 0));
+        template.setCreationDate(LocalDateTime.now());
+        template.setUpdateDate(LocalDateTime.now());
+        return patientRecordService.createPatientRecord(template, null).getPatientId();
+    }
+
+    private static List<Long> ids(List<PatientRecordDTO> results) {
+        return results.stream().map(PatientRecordDTO::getPatientId).toList();
+    }
+
+    @Test
+    void indexIsLoadedAtStartup() {
+        assertTrue(patientNameIndex.isReady());
+    }
+
+    @Test
+    void createPatientRecord_isSearchableImmediately() {
+        patientId = createPatient();
+
+        assertEquals(List.of(patientId), ids(patientRecordService.searchPatients("quinb")));
+        assertEquals(List.of(patientId), ids(patientRecordService.searchPatients("9876543")));
+    }
+
+    @Test
+    void updatePatientRecord_replacesOldName() {
+        patientId = createPatient();
+        PatientRecordUpdateDTO update = new PatientRecordUpdateDTO();
+        update.setFirstName("Zebulon");
+
+        patientRecordService.updatePatientRecord(patientId, update);
+
+        // the email still contains "quinby", so the patient still matches, but with the new name
+        List<PatientRecordDTO> byOldName = patientRecordService.searchPatients("quinb");
+        assertEquals(1, byOldName.size());
+        assertEquals("Zebulon", byOldName.get(0).getFirstName());
+        assertEquals(List.of(patientId), ids(patientRecordService.searchPatients("zebul")));
+    }
+
+    @Test
+    void deletedUser_dropsOutOfResults() {
+        patientId = createPatient();
+
+        userRepository.deleteById(patientId);
+
+        assertTrue(patientRecordService.searchPatients("typeaheadson").isEmpty());
+    }
+}
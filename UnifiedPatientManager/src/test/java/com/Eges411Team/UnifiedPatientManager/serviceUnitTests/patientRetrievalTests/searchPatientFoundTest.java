@@ -280,5 +280,23 @@ class searchPatientFoundTest {
         verify(userRepository, times(1))
                 .findByFirstNameContainingIgnoreCaseOrLastNameContainingIgnoreCase(query, query);
     }
-}
 
+    @Test
+    void searchPatients_shortQueryMatchingManyPatients_returnsAtMost50() {
+        List<User> matches = new ArrayList<>();
+        for (long id = 1; id <= 80; id++) {
+            User patient = new User();
+            patient.setId(id);
+            patient.setFirstName("Anna" + id);
+            patient.setLastName("Patient");
+            matches.add(patient);
+        }
+        when(userRepository.findByFirstNameContainingIgnoreCaseOrLastNameContainingIgnoreCase("a", "a"))
+                .thenReturn(matches);
+
+        List<PatientRecordDTO> results = patientRecordService.searchPatients("a");
+
+        assertEquals(50, results.size());
+        assertEquals(1L, results.get(0).getPatientId());
+    }
+}
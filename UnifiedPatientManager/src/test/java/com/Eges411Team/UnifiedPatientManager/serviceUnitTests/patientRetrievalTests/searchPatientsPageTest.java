@@ -0,0 +1,154 @@
+package com.Eges411Team.UnifiedPatientManager.serviceUnitTests.patientRetrievalTests;
+
+import com.Eges411Team.UnifiedPatientManager.DTOs.responses.PatientRecordDTO;
+import com.Eges411Team.UnifiedPatientManager.DTOs.responses.PatientSearchPageDTO;
+import com.Eges411Team.UnifiedPatientManager.entity.Role;
+import com.Eges411Team.UnifiedPatientManager.entity.User;
+import com.Eges411Team.UnifiedPatientManager.repositories.UserRepository;
+import com.Eges411Team.UnifiedPatientManager.services.PatientRecordService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration Test: Paged patient search
+ * Tests PatientRecordService.searchPatientsPage() prefix matching, ordering,
+ * keyset cursor paging, merging of first- and last-name matches and the page size
+ * cap against the H2 test database
+ */
+@SpringBootTest(properties = {
+    // NON_KEYWORDS=USER lets H2 create the "user" table
+    "spring.datasource.url=jdbc:h2:mem:chartdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;NON_KEYWORDS=USER",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class searchPatientsPageTest {
+
+    @Autowired
+    private PatientRecordService patientRecordService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final List<Long> createdIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        // 60 "Searchson" patients (more than the 50 cap), plus a few decoys
+        for (int i = 0; i < 60; i++) {
+            save("Pat" + String.format("%02d", i), "Searchson");
+        }
+        save("Searchy", "Adams");     // first-name prefix match, sorts first by last name
+        save("Zed", "Research");      // substring only, must not match a prefix search
+        save("Under_score", "Wild%Card");
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAllById(createdIds);
+        createdIds.clear();
+    }
+
+    private void save(String firstName, String lastName) {
+        int n = createdIds.size();
+        User user = new User("search.user" + n, "hashedpass123", Role.PATIENT);
+        user.setFirstName(firstName);
+        user.setLastName(lastName);
+        user.setEmail("search" + n + "@email.com");
+        user.setPhoneNumber("555-000-" + String.format("%04d", n));
+        user.setAddress("1 Search St");
+        user.setGender("Female");
+        user.setDateOfBirth(LocalDateTime.of(1990, 1, 1, 0, 0));
+        user.setCreationDate(LocalDateTime.now());
+        user.setUpdateDate(LocalDateTime.now());
+        createdIds.add(userRepository.save(user).getId());
+    }
+
+    @Test
+    void searchPatientsPage_walksAllPagesInOrderWithoutDuplicates() {
+        List<PatientRecordDTO> all = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            PatientSearchPageDTO page = patientRecordService.searchPatientsPage("Search", cursor, 25);
+            assertTrue(page.getResults().size() <= 25);
+            all.addAll(page.getResults());
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(3, pages);
+        assertEquals(61, all.size());
+        assertEquals("Adams", all.get(0).getLastName());
+        assertEquals("Pat00", all.get(1).getFirstName());
+        assertEquals("Pat59", all.get(60).getFirstName());
+        assertEquals(61, all.stream().map(PatientRecordDTO::getPatientId).distinct().count());
+        assertTrue(all.stream().noneMatch(p -> "Research".equals(p.getLastName())));
+    }
+
+    @Test
+    void searchPatientsPage_firstAndLastNameMatches_interleaveAcrossPages() {
+        save("Searchmore", "Baker");     // first-name match between Adams and Searchson
+        save("Searchson", "Searchson");  // matches on both names, listed once
+        save("Searcher", "Zimmer");      // first-name match after every Searchson
+
+        List<PatientRecordDTO> all = new ArrayList<>();
+        String cursor = null;
+        do {
+            PatientSearchPageDTO page = patientRecordService.searchPatientsPage("Search", cursor, 7);
+            all.addAll(page.getResults());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertEquals(64, all.size());
+        assertEquals(64, all.stream().map(PatientRecordDTO::getPatientId).distinct().count());
+        assertEquals(List.of("Adams", "Baker"), all.subList(0, 2).stream().map(PatientRecordDTO::getLastName).toList());
+        assertEquals("Searchson", all.get(62).getFirstName());
+        assertEquals("Zimmer", all.get(63).getLastName());
+    }
+
+    @Test
+    void searchPatientsPage_sizeAboveCap_isCappedAt50() {
+        PatientSearchPageDTO page = patientRecordService.searchPatientsPage("Searchson", null, 1000);
+
+        assertEquals(50, page.getResults().size());
+        assertNotNull(page.getNextCursor());
+    }
+
+    @Test
+    void searchPatientsPage_noSize_usesDefaultPageSize() {
+        PatientSearchPageDTO page = patientRecordService.searchPatientsPage("Searchson", null, null);
+
+        assertEquals(20, page.getResults().size());
+    }
+
+    @Test
+    void searchPatientsPage_wildcardsInQuery_matchLiterally() {
+        assertEquals(1, patientRecordService.searchPatientsPage("Wild%", null, 10).getResults().size());
+        assertEquals(1, patientRecordService.searchPatientsPage("Under_", null, 10).getResults().size());
+        assertTrue(patientRecordService.searchPatientsPage("%", null, 10).getResults().isEmpty());
+    }
+
+    @Test
+    void searchPatientsPage_blankQuery_returnsEmptyPage() {
+        PatientSearchPageDTO page = patientRecordService.searchPatientsPage("   ", null, 10);
+
+        assertTrue(page.getResults().isEmpty());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void searchPatientsPage_invalidCursor_throwsBadRequest() {
+        assertThrows(ResponseStatusException.class, () ->
+                patientRecordService.searchPatientsPage("Search", "not-a-cursor", 10));
+    }
+}
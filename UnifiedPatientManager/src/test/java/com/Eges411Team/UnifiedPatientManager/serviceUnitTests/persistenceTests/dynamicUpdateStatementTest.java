@@ -0,0 +1,242 @@
+package com.Eges411Team.UnifiedPatientManager.serviceUnitTests.persistenceTests;
+
+import com.Eges411Team.UnifiedPatientManager.DTOs.requests.PatientRecordUpdateDTO;
+import com.Eges411Team.UnifiedPatientManager.entity.Allergy;
+import com.Eges411Team.UnifiedPatientManager.entity.MedicalHistory;
+import com.Eges411Team.UnifiedPatientManager.entity.Medication;
+import com.Eges411Team.UnifiedPatientManager.entity.Role;
+import com.Eges411Team.UnifiedPatientManager.entity.User;
+import com.Eges411Team.UnifiedPatientManager.repositories.AllergyRepository;
+import com.Eges411Team.UnifiedPatientManager.repositories.MedicalHistoryRepo;
+import com.Eges411Team.UnifiedPatientManager.repositories.MedicationRepository;
+import com.Eges411Team.UnifiedPatientManager.repositories.UserRepository;
+import com.Eges411Team.UnifiedPatientManager.services.AllergyService;
+import com.Eges411Team.UnifiedPatientManager.services.MedicalHistoryService;
+import com.Eges411Team.UnifiedPatientManager.services.MedicationService;
+import com.Eges411Team.UnifiedPatientManager.services.PatientRecordService;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration Test: Changed-columns-only updates
+ * Records the SQL Hibernate sends for typical edits of a patient, a medication, an allergy
+ * and a medical history entry: each edit is one UPDATE naming only the changed columns
+ * (a fraction of the bytes of a full-row UPDATE), and an edit that changes nothing sends none.
+ */
+@SpringBootTest(properties = {
+    // NON_KEYWORDS=USER lets H2 create the "user" table
+    "spring.datasource.url=jdbc:h2:mem:chartdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;NON_KEYWORDS=USER",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.Eges411Team.UnifiedPatientManager.serviceUnitTests.persistenceTests.dynamicUpdateStatementTest$RecordingInspector"
+})
+class dynamicUpdateStatementTest {
+
+    // Hibernate builds this itself, so the statements go to a static list
+    public static class RecordingInspector implements StatementInspector {
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+
+    private static final Long PROVIDER_ID = 12L;
+
+    @Autowired
+    private PatientRecordService patientRecordService;
+
+    @Autowired
+    private MedicationService medicationService;
+
+    @Autowired
+    private AllergyService allergyService;
+
+    @Autowired
+    private MedicalHistoryService medicalHistoryService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MedicationRepository medicationRepository;
+
+    @Autowired
+    private AllergyRepository allergyRepository;
+
+    @Autowired
+    private MedicalHistoryRepo medicalHistoryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User patient;
+
+    @BeforeEach
+    void setUp() {
+        patient = new User();
+        patient.setUsername("dynamicupdateuser");
+        patient.setPassword("hash");
+        patient.setRole(Role.PATIENT);
+        patient.setFirstName("Dynamic");
+        patient.setLastName("Update");
+        patient.setPhoneNumber("5555555555");
+        patient.setGender("F");
+        patient.setDateOfBirth(LocalDateTime.of(1970, 1, 1, 0, 0));
+        patient.setAddress("7 Main St");
+        patient.setEmail("dynamicupdateuser@example.com");
+        patient.setCreationDate(LocalDateTime.now());
+        patient.setUpdateDate(LocalDateTime.now());
+        patient = userRepository.save(patient);
+    }
+
+    @AfterEach
+    void tearDown() {
+        medicationRepository.deleteAll(medicationRepository.findAllByPatientId(patient.getId()));
+        allergyRepository.deleteAll(allergyRepository.findAllByPatientId(patient.getId()));
+        medicalHistoryRepository.deleteAll(medicalHistoryRepository.findAllByPatientId(patient.getId()));
+        userRepository.deleteById(patient.getId());
+    }
+
+    // UPDATEs of the table sent since the last clear; other beans' background jobs are ignored
+    private static List<String> updatesOf(String table) {
+        String prefix = "update " + table + " ";
+        String quotedPrefix = "update \"" + table + "\" ";
+        return RecordingInspector.STATEMENTS.stream()
+            .map(sql -> sql.toLowerCase(Locale.ROOT))
+            .filter(sql -> sql.startsWith(prefix) || sql.startsWith(quotedPrefix))
+            .toList();
+    }
+
+    private static List<String> assignedColumns(String update) {
+        String set = update.substring(update.indexOf(" set ") + 5, update.indexOf(" where "));
+        return Arrays.stream(set.split(","))
+            .map(assignment -> assignment.substring(0, assignment.indexOf('=')).trim())
+            .toList();
+    }
+
+    // size of the SET clause a full-row UPDATE of the table would send
+    private int fullRowSetBytes(String table) {
+        List<String> columns = jdbcTemplate.queryForList(
+            "SELECT COLUMN_NAME FROM INFORMATION_SCHEMA.COLUMNS WHERE TABLE_NAME = ? AND COLUMN_NAME <> 'ID'",
+            String.class, table.toUpperCase(Locale.ROOT));
+        return columns.stream().mapToInt(column -> column.length() + 2).sum();
+    }
+
+    private static int setBytes(String update) {
+        return update.indexOf(" where ") - (update.indexOf(" set ") + 5);
+    }
+
+    @Test
+    void patientPhoneEdit_writesPhoneNumberAndVersionOnly() {
+        PatientRecordUpdateDTO edit = new PatientRecordUpdateDTO();
+        edit.setPhoneNumber("5551234567");
+
+        RecordingInspector.STATEMENTS.clear();
+        patientRecordService.updatePatientRecord(patient.getId(), edit);
+
+        List<String> updates = updatesOf("user");
+        assertEquals(1, updates.size(), "updates: " + updates);
+        assertEquals(List.of("phone_number", "version"), assignedColumns(updates.get(0)));
+        assertTrue(setBytes(updates.get(0)) * 4 < fullRowSetBytes("user"),
+            "SET clause " + setBytes(updates.get(0)) + " bytes vs full row " + fullRowSetBytes("user"));
+        assertEquals("5551234567", userRepository.findById(patient.getId()).orElseThrow().getPhoneNumber());
+    }
+
+    @Test
+    void patientEditWithSameValues_sendsNoUpdate() {
+        PatientRecordUpdateDTO edit = new PatientRecordUpdateDTO();
+        edit.setPhoneNumber(patient.getPhoneNumber());
+        edit.setAddress(patient.getAddress());
+
+        RecordingInspector.STATEMENTS.clear();
+        patientRecordService.updatePatientRecord(patient.getId(), edit);
+
+        assertTrue(updatesOf("user").isEmpty());
+    }
+
+    @Test
+    void medicationDoseEdit_writesDoseOnly() {
+        Medication med = new Medication();
+        med.setPatientId(patient.getId());
+        med.setDoctorId(PROVIDER_ID);
+        med.setDrugName("Lisinopril");
+        med.setDose("10mg");
+        med.setFrequency("Daily");
+        med.setRoute("oral");
+        med.setStatus(true);
+        med.setIsPerscription(true);
+        med.setTimestamp(LocalDateTime.of(2025, 3, 1, 9, 0));
+        med = medicationRepository.save(med);
+
+        // the client sends the whole medication back with one field changed
+        Medication edited = medicationRepository.findById(med.getId()).orElseThrow();
+        edited.setDose("20mg");
+
+        RecordingInspector.STATEMENTS.clear();
+        medicationService.updateMedication(patient.getId(), PROVIDER_ID, med.getId(), edited);
+
+        List<String> updates = updatesOf("medication");
+        assertEquals(1, updates.size(), "updates: " + updates);
+        assertEquals(List.of("dose"), assignedColumns(updates.get(0)));
+        assertTrue(setBytes(updates.get(0)) * 4 < fullRowSetBytes("medication"));
+    }
+
+    @Test
+    void allergyAndHistoryEdits_writeOnlyTheChangedColumn() {
+        Allergy allergy = new Allergy();
+        allergy.setSubstance("Peanuts");
+        allergy.setReaction("Hives");
+        allergy.setSeverity("LOW");
+        allergy = allergyService.addSingleAllergy(patient.getId(), allergy);
+
+        MedicalHistory history = new MedicalHistory();
+        history.setPatientId(patient.getId());
+        history.setDoctorId(PROVIDER_ID);
+        history.setDiagnosis("Hypertension");
+        history.setFrequency("Chronic");
+        history = medicalHistoryRepository.save(history);
+
+        Allergy allergyEdit = new Allergy();
+        allergyEdit.setSubstance("Peanuts");
+        allergyEdit.setReaction("Hives");
+        allergyEdit.setSeverity("HIGH");
+        MedicalHistory historyEdit = new MedicalHistory();
+        historyEdit.setDoctorId(PROVIDER_ID);
+        historyEdit.setDiagnosis("Stage 2 hypertension");
+        historyEdit.setFrequency("Chronic");
+
+        RecordingInspector.STATEMENTS.clear();
+        allergyService.updateAllergy(patient.getId(), allergy.getId(), allergyEdit);
+        medicalHistoryService.updateMedicalHistory(patient.getId(), history.getId(), historyEdit);
+
+        List<String> allergyUpdates = updatesOf("allergy");
+        assertEquals(1, allergyUpdates.size(), "updates: " + allergyUpdates);
+        assertEquals(List.of("severity"), assignedColumns(allergyUpdates.get(0)));
+        List<String> historyUpdates = updatesOf("medical_history");
+        assertEquals(1, historyUpdates.size(), "updates: " + historyUpdates);
+        assertEquals(List.of("diagnosis"), assignedColumns(historyUpdates.get(0)));
+
+        // the same edits again change nothing, so nothing is sent
+        RecordingInspector.STATEMENTS.clear();
+        allergyService.updateAllergy(patient.getId(), allergy.getId(), allergyEdit);
+        medicalHistoryService.updateMedicalHistory(patient.getId(), history.getId(), historyEdit);
+        assertTrue(updatesOf("allergy").isEmpty());
+        assertTrue(updatesOf("medical_history").isEmpty());
+    }
+}
@@ -0,0 +1,192 @@
+package com.Eges411Team.UnifiedPatientManager.serviceUnitTests.persistenceTests;
+
+import com.Eges411Team.UnifiedPatientManager.entity.OtpEmail;
+import com.Eges411Team.UnifiedPatientManager.entity.OtpToken;
+import com.Eges411Team.UnifiedPatientManager.entity.Role;
+import com.Eges411Team.UnifiedPatientManager.entity.User;
+import com.Eges411Team.UnifiedPatientManager.entity.UserSession;
+import com.Eges411Team.UnifiedPatientManager.repositories.OtpEmailRepository;
+import com.Eges411Team.UnifiedPatientManager.repositories.OtpTokenRepository;
+import com.Eges411Team.UnifiedPatientManager.repositories.UserRepository;
+import com.Eges411Team.UnifiedPatientManager.repositories.UserSessionRepository;
+import com.Eges411Team.UnifiedPatientManager.services.ExpiredAuthRowReaper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration Test: Purging expired OTP tokens, sessions and OTP emails
+ * Runs ExpiredAuthRowReaper against otp_token, user_session and otp_email_outbox: rows past the retention
+ * window are deleted a chunk at a time, rows still valid (or inside the window) are kept,
+ * and the composite index for the current-OTP lookup exists.
+ */
+@SpringBootTest(properties = {
+    // NON_KEYWORDS=USER lets H2 create the "user" table
+    "spring.datasource.url=jdbc:h2:mem:chartdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;NON_KEYWORDS=USER",
+    "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+class expiredAuthRowReaperTest {
+
+    @Autowired
+    private OtpTokenRepository otpTokenRepository;
+
+    @Autowired
+    private UserSessionRepository userSessionRepository;
+
+    @Autowired
+    private OtpEmailRepository otpEmailRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user;
+    private final List<Long> otpIds = new ArrayList<>();
+    private final List<Long> sessionIds = new ArrayList<>();
+    private final List<Long> otpEmailIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setUsername("reaperuser");
+        user.setPassword("hash");
+        user.setRole(Role.PATIENT);
+        user.setFirstName("Reaper");
+        user.setLastName("Tester");
+        user.setPhoneNumber("5555555555");
+        user.setGender("M");
+        user.setDateOfBirth(LocalDateTime.of(1975, 9, 1, 0, 0));
+        user.setAddress("4 Main St");
+        user.setEmail("reaperuser@example.com");
+        user.setCreationDate(LocalDateTime.now());
+        user.setUpdateDate(LocalDateTime.now());
+        user = userRepository.save(user);
+    }
+
+    @AfterEach
+    void tearDown() {
+        otpTokenRepository.deleteAllById(otpTokenRepository.findAllById(otpIds).stream().map(OtpToken::getOtpId).toList());
+        userSessionRepository.deleteAllById(userSessionRepository.findAllById(sessionIds).stream().map(UserSession::getId).toList());
+        otpEmailRepository.deleteAllById(otpEmailRepository.findAllById(otpEmailIds).stream().map(OtpEmail::getId).toList());
+        userRepository.delete(user);
+    }
+
+    private Long otpExpiringAt(LocalDateTime expiresAt) {
+        OtpToken token = new OtpToken();
+        token.setUser(user);
+        token.setOtpCode("hash");
+        token.setCreatedAt(expiresAt.minusMinutes(5));
+        token.setExpiresAt(expiresAt);
+        Long id = otpTokenRepository.save(token).getOtpId();
+        otpIds.add(id);
+        return id;
+    }
+
+    private Long sessionExpiringAt(LocalDateTime expiresAt) {
+        UserSession session = new UserSession();
+        session.setUser(user);
+        session.setSessionToken("reaper-token-" + System.nanoTime());
+        session.setCreatedAt(expiresAt.minusDays(1));
+        session.setExpiresAt(expiresAt);
+        session.setIsActive(false);
+        Long id = userSessionRepository.save(session).getId();
+        sessionIds.add(id);
+        return id;
+    }
+
+    private Long otpEmailExpiringAt(LocalDateTime expiresAt, boolean failed) {
+        OtpEmail email = new OtpEmail();
+        email.setRecipient("reaperuser@example.com");
+        email.setOtpCode(failed ? null : "123456");
+        email.setCreatedAt(expiresAt.minusMinutes(5));
+        email.setExpiresAt(expiresAt);
+        email.setNextAttemptAt(failed ? expiresAt : LocalDateTime.now().plusDays(1));
+        email.setFailed(failed);
+        Long id = otpEmailRepository.save(email).getId();
+        otpEmailIds.add(id);
+        return id;
+    }
+
+    private ExpiredAuthRowReaper reaper(int chunkSize, long retentionMs) {
+        return new ExpiredAuthRowReaper(otpTokenRepository, userSessionRepository, otpEmailRepository,
+            transactionManager, chunkSize, retentionMs);
+    }
+
+    @Test
+    void expiredRows_deletedInChunks_liveRowsKept() {
+        List<Long> expiredOtps = new ArrayList<>();
+        List<Long> expiredSessions = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            expiredOtps.add(otpExpiringAt(LocalDateTime.now().minusDays(2).minusMinutes(i)));
+            expiredSessions.add(sessionExpiringAt(LocalDateTime.now().minusDays(2).minusMinutes(i)));
+        }
+        Long liveOtp = otpExpiringAt(LocalDateTime.now().plusMinutes(5));
+        Long liveSession = sessionExpiringAt(LocalDateTime.now().plusHours(12));
+
+        // chunks of 2, so several rounds per table
+        ExpiredAuthRowReaper.Result result = reaper(2, 0).reap();
+
+        assertTrue(result.otpTokensDeleted() >= 5);
+        assertTrue(result.sessionsDeleted() >= 5);
+        assertTrue(otpTokenRepository.findAllById(expiredOtps).isEmpty());
+        assertTrue(userSessionRepository.findAllById(expiredSessions).isEmpty());
+        assertTrue(otpTokenRepository.existsById(liveOtp));
+        // logged out but its token hasn't expired: the revocation list still needs it
+        assertTrue(userSessionRepository.existsById(liveSession));
+    }
+
+    @Test
+    void expiredOutboxRows_failedOrUnsent_deletedInChunks() {
+        List<Long> expired = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            expired.add(otpEmailExpiringAt(LocalDateTime.now().minusDays(2).minusMinutes(i), true));
+        }
+        expired.add(otpEmailExpiringAt(LocalDateTime.now().minusDays(2), false));
+        // a failed email for an OTP still inside the retention window, and one still to send
+        Long recentFailure = otpEmailExpiringAt(LocalDateTime.now().minusMinutes(10), true);
+        Long pending = otpEmailExpiringAt(LocalDateTime.now().plusMinutes(5), false);
+
+        ExpiredAuthRowReaper.Result result = reaper(2, 3_600_000).reap();
+
+        assertTrue(result.otpEmailsDeleted() >= 6);
+        assertTrue(otpEmailRepository.findAllById(expired).isEmpty());
+        assertTrue(otpEmailRepository.existsById(recentFailure));
+        assertTrue(otpEmailRepository.existsById(pending));
+    }
+
+    @Test
+    void rowsInsideRetention_kept() {
+        Long justExpiredOtp = otpExpiringAt(LocalDateTime.now().minusMinutes(10));
+        Long justExpiredSession = sessionExpiringAt(LocalDateTime.now().minusMinutes(10));
+
+        reaper(100, 3_600_000).reap();
+
+        assertTrue(otpTokenRepository.existsById(justExpiredOtp));
+        assertTrue(userSessionRepository.existsById(justExpiredSession));
+    }
+
+    @Test
+    void currentOtpLookup_hasItsCompositeIndex() {
+        List<String> columns = jdbcTemplate.queryForList(
+            "SELECT c.COLUMN_NAME FROM INFORMATION_SCHEMA.INDEX_COLUMNS c "
+                + "WHERE c.TABLE_NAME = 'OTP_TOKEN' AND c.INDEX_NAME = 'IDX_OTP_TOKEN_USER_CURRENT' "
+                + "ORDER BY c.ORDINAL_POSITION", String.class);
+
+        assertEquals(List.of("USER_ID", "USED", "EXPIRES_AT", "CREATED_AT"), columns);
+    }
+}
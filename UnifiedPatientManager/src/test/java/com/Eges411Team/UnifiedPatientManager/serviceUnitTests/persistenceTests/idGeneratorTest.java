@@ -0,0 +1,122 @@
+package com.Eges411Team.UnifiedPatientManager.serviceUnitTests.persistenceTests;
+
+import com.Eges411Team.UnifiedPatientManager.config.IdGeneratorSeeder;
+import com.Eges411Team.UnifiedPatientManager.entity.Allergy;
+import com.Eges411Team.UnifiedPatientManager.entity.IdGenerators;
+import com.Eges411Team.UnifiedPatientManager.entity.Medication;
+import com.Eges411Team.UnifiedPatientManager.repositories.AllergyRepository;
+import com.Eges411Team.UnifiedPatientManager.repositories.MedicationRepository;
+import com.Eges411Team.UnifiedPatientManager.services.AllergyService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration Test: Table-generated ids and JDBC insert batching
+ * Checks bulk saves go out as batched inserts, and that seeding the id generator
+ * over rows created under AUTO_INCREMENT keeps new ids clear of the old ones.
+ */
+@SpringBootTest(properties = {
+    // NON_KEYWORDS=USER lets H2 create the "user" table
+    "spring.datasource.url=jdbc:h2:mem:chartdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;NON_KEYWORDS=USER",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class idGeneratorTest {
+
+    private static final Long PATIENT_ID = 9_300_001L;
+
+    @Autowired
+    private AllergyService allergyService;
+
+    @Autowired
+    private AllergyRepository allergyRepository;
+
+    @Autowired
+    private MedicationRepository medicationRepository;
+
+    @Autowired
+    private IdGeneratorSeeder idGeneratorSeeder;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @AfterEach
+    void tearDown() {
+        allergyRepository.deleteAll(allergyRepository.findAllByPatientId(PATIENT_ID));
+        medicationRepository.deleteAll(medicationRepository.findAllByPatientId(PATIENT_ID));
+    }
+
+    @Test
+    void saveAllergies_bulkInsert_isBatched() {
+        List<Allergy> allergies = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            Allergy allergy = new Allergy();
+            allergy.setSubstance("Substance" + i);
+            allergies.add(allergy);
+        }
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        allergyService.saveAllergies(PATIENT_ID, allergies);
+
+        assertEquals(40, statistics.getEntityInsertCount());
+        // one list load and one batched insert, plus at most two id block fetches
+        // (select + update each); was 41 statements with IDENTITY ids
+        assertTrue(statistics.getPrepareStatementCount() <= 6,
+            "statements: " + statistics.getPrepareStatementCount());
+        assertEquals(40, allergyRepository.findAllByPatientId(PATIENT_ID).size());
+    }
+
+    @Test
+    void seed_legacyAutoIncrementRows_newIdsDoNotCollide() {
+        Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM medication", Long.class);
+        long legacyId = maxId + 1_000;
+        // a row written under AUTO_INCREMENT, ahead of the generator
+        jdbcTemplate.update("INSERT INTO medication (id, patient_id, drug_name) VALUES (?, ?, ?)",
+            legacyId, PATIENT_ID, "Legacy");
+
+        idGeneratorSeeder.seed();
+        Long seeded = generatorValue("medication");
+        idGeneratorSeeder.seed();
+        assertEquals(seeded, generatorValue("medication")); // only ever raised
+
+        // enough saves to use up any block already handed out and fetch a new one
+        List<Medication> meds = new ArrayList<>();
+        for (int i = 0; i < 2 * IdGenerators.ALLOCATION_SIZE; i++) {
+            Medication med = new Medication();
+            med.setPatientId(PATIENT_ID);
+            med.setDrugName("Drug" + i);
+            meds.add(med);
+        }
+        Set<Long> ids = new HashSet<>();
+        for (Medication saved : medicationRepository.saveAll(meds)) {
+            ids.add(saved.getId());
+        }
+
+        assertEquals(2 * IdGenerators.ALLOCATION_SIZE, ids.size());
+        assertFalse(ids.contains(legacyId));
+        assertTrue(ids.stream().anyMatch(id -> id > legacyId));
+        assertEquals(2 * IdGenerators.ALLOCATION_SIZE + 1, medicationRepository.findAllByPatientId(PATIENT_ID).size());
+    }
+
+    private Long generatorValue(String table) {
+        return jdbcTemplate.queryForObject("SELECT next_val FROM id_generator WHERE sequence_name = ?",
+            Long.class, table);
+    }
+}
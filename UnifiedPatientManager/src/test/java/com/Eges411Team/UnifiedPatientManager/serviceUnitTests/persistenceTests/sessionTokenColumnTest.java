@@ -0,0 +1,47 @@
+package com.Eges411Team.UnifiedPatientManager.serviceUnitTests.persistenceTests;
+
+import com.Eges411Team.UnifiedPatientManager.config.SessionTokenColumnMigration;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration Test: Widening user_session.session_token
+ * A schema created before tokens carried a jti still has VARCHAR(255); the startup
+ * migration widens it to 512 and leaves an already wide column alone.
+ */
+@SpringBootTest(properties = {
+    // own database: the test narrows a column other tests depend on
+    "spring.datasource.url=jdbc:h2:mem:sessioncolumndb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;NON_KEYWORDS=USER",
+    "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+class sessionTokenColumnTest {
+
+    @Autowired
+    private SessionTokenColumnMigration migration;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private int tokenColumnLength() {
+        return jdbcTemplate.queryForObject(
+            "SELECT CHARACTER_MAXIMUM_LENGTH FROM INFORMATION_SCHEMA.COLUMNS "
+                + "WHERE TABLE_NAME = 'USER_SESSION' AND COLUMN_NAME = 'SESSION_TOKEN'", Integer.class);
+    }
+
+    @Test
+    void oldNarrowColumn_widenedAtStartup() {
+        jdbcTemplate.execute("ALTER TABLE user_session ALTER COLUMN session_token SET DATA TYPE VARCHAR(255)");
+        assertEquals(255, tokenColumnLength());
+
+        migration.widen();
+        assertEquals(512, tokenColumnLength());
+
+        // second run finds nothing to do
+        migration.widen();
+        assertEquals(512, tokenColumnLength());
+    }
+}
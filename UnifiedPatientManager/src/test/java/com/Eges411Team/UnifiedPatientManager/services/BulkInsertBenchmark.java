@@ -0,0 +1,127 @@
+package com.Eges411Team.UnifiedPatientManager.services;
+
+import com.Eges411Team.UnifiedPatientManager.UnifiedPatientManagerApplication;
+import com.Eges411Team.UnifiedPatientManager.entity.Medication;
+import com.Eges411Team.UnifiedPatientManager.entity.Role;
+import com.Eges411Team.UnifiedPatientManager.entity.User;
+import com.Eges411Team.UnifiedPatientManager.repositories.UserRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark: insert throughput (rows/s) for bulk patient registration and medication
+ * import against in-memory H2, with JDBC batching off (batch size 1) and on.
+ * Both settings use the table id generator; IDENTITY ids behave like batch size 1
+ * plus a generated-key fetch per row. H2 round trips are nearly free, so the gap on
+ * a networked MySQL is larger than what this shows.
+ *
+ * Not run by mvn test. To run:
+ *   mvn -B test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *       -Dexec.args="-cp %classpath com.Eges411Team.UnifiedPatientManager.services.BulkInsertBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BulkInsertBenchmark {
+
+    private static final int ROWS = 500;
+
+    @Param({"1", "50"})
+    public int batchSize;
+
+    private ConfigurableApplicationContext context;
+    private UserRepository userRepository;
+    private MedicationService medicationService;
+    private long next;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(UnifiedPatientManagerApplication.class)
+            .web(WebApplicationType.NONE)
+            // as arguments, so they override application.properties
+            .run("--spring.datasource.url=jdbc:h2:mem:bulkinsert" + batchSize + ";DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;NON_KEYWORDS=USER",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--persistence.jdbc.batch-size=" + batchSize,
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--logging.level.org.hibernate.SQL=WARN",
+                "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN");
+        userRepository = context.getBean(UserRepository.class);
+        medicationService = context.getBean(MedicationService.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public List<User> registerPatients() {
+        List<User> patients = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            long n = next++;
+            User patient = new User("bulk.patient" + n, "hashedpass123", Role.PATIENT);
+            patient.setFirstName("Bulk");
+            patient.setLastName("Patient" + n);
+            patient.setEmail("bulk.patient" + n + "@email.com");
+            patient.setPhoneNumber("555-010-0000");
+            patient.setAddress("1 Import Way");
+            patient.setGender("Female");
+            patient.setDateOfBirth(LocalDateTime.of(1980, 1, 1, 0, 0));
+            patient.setCreationDate(LocalDateTime.now());
+            patient.setUpdateDate(LocalDateTime.now());
+            patients.add(patient);
+        }
+        return userRepository.saveAll(patients);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public List<Medication> importMedications() {
+        // a fresh patient each time, so every row is an insert
+        long patientId = 1_000_000L + next++;
+        List<Medication> medications = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            Medication med = new Medication();
+            med.setDrugName("Drug" + i);
+            med.setDose("10mg");
+            med.setFrequency("Daily");
+            med.setStatus(true);
+            med.setIsPerscription(false);
+            medications.add(med);
+        }
+        return medicationService.saveMedications(patientId, 7L, medications);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(BulkInsertBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
@@ -0,0 +1,115 @@
+package com.Eges411Team.UnifiedPatientManager.services;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark: full regimen conflict check, DrugConflictEngine vs the rule-list scan
+ * MedicationService used before (every allergy x ALLERGY_CONFLICTS with equalsIgnoreCase,
+ * then every pair of drugs x MED_INTERACTIONS). Both sides collect every conflict.
+ *
+ * Not run by mvn test. To run:
+ *   mvn -B test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *       -Dexec.args="-cp %classpath com.Eges411Team.UnifiedPatientManager.services.DrugConflictEngineBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DrugConflictEngineBenchmark {
+
+    @Param({"5", "50", "500"})
+    public int regimenSize;
+
+    private DrugConflictEngine engine;
+    private List<String> regimen;
+    private List<String> allergies;
+
+    @Setup
+    public void setUp() {
+        engine = DrugKnowledgeBase.BUILT_IN;
+
+        // half known drugs (mixed case, as typed), half drugs the rules don't mention
+        List<String> known = new ArrayList<>();
+        DrugKnowledgeBase.ALLERGY_CONFLICTS.values().forEach(known::addAll);
+        DrugKnowledgeBase.MED_INTERACTIONS.forEach(known::addAll);
+        Random random = new Random(42);
+        regimen = new ArrayList<>(regimenSize);
+        for (int i = 0; i < regimenSize; i++) {
+            if (random.nextBoolean()) {
+                String drug = known.get(random.nextInt(known.size()));
+                regimen.add(random.nextBoolean() ? drug : drug.toUpperCase());
+            } else {
+                regimen.add("Compound-" + random.nextInt(10_000));
+            }
+        }
+        allergies = List.of("Penicillin", "NSAIDs", "Opioids", "Latex", "Shellfish");
+    }
+
+    @Benchmark
+    public List<DrugConflictEngine.Conflict> engine() {
+        return engine.checkRegimen(regimen, allergies);
+    }
+
+    @Benchmark
+    public List<String> ruleListScan() {
+        return scan(regimen, allergies);
+    }
+
+    // the pre-engine MedicationService checks, collecting instead of throwing
+    private static List<String> scan(List<String> drugs, List<String> substances) {
+        List<String> conflicts = new ArrayList<>();
+        for (String drugName : drugs) {
+            for (String substance : substances) {
+                List<String> badDrugs = DrugKnowledgeBase.ALLERGY_CONFLICTS.get(substance);
+                if (badDrugs != null && badDrugs.stream().anyMatch(bad -> bad.equalsIgnoreCase(drugName))) {
+                    conflicts.add(drugName + "/" + substance);
+                }
+            }
+        }
+        for (int i = 0; i < drugs.size(); i++) {
+            for (int j = i + 1; j < drugs.size(); j++) {
+                if (isBadInteraction(drugs.get(i), drugs.get(j))) {
+                    conflicts.add(drugs.get(i) + "/" + drugs.get(j));
+                }
+            }
+        }
+        return conflicts;
+    }
+
+    private static boolean isBadInteraction(String d1, String d2) {
+        for (List<String> pair : DrugKnowledgeBase.MED_INTERACTIONS) {
+            String a = pair.get(0);
+            String b = pair.get(1);
+            if ((a.equalsIgnoreCase(d1) && b.equalsIgnoreCase(d2)) || (a.equalsIgnoreCase(d2) && b.equalsIgnoreCase(d1))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(DrugConflictEngineBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
@@ -0,0 +1,89 @@
+package com.Eges411Team.UnifiedPatientManager.services;
+
+import com.Eges411Team.UnifiedPatientManager.entity.Role;
+import com.Eges411Team.UnifiedPatientManager.entity.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.security.Key;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark: per-request JWT auth cost, i.e. validate the token and read the username
+ * and user id. Compares the old path (a new parser and a full HS512 verify for each of
+ * the three calls) with one verify() on a cache miss and on a cache hit.
+ *
+ * Not run by mvn test. To run:
+ *   mvn -B test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *       -Dexec.args="-cp %classpath com.Eges411Team.UnifiedPatientManager.services.JwtAuthBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtAuthBenchmark {
+
+    private JwtTokenProvider cached;
+    private JwtTokenProvider uncached;
+    private Key key;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        cached = new JwtTokenProvider();
+        uncached = new JwtTokenProvider(0);
+        key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(JwtTokenProvider.SECRET_B64));
+        User user = new User();
+        user.setId(42L);
+        user.setUsername("bench.user");
+        user.setRole(Role.DOCTOR);
+        token = cached.generateToken(user);
+        cached.verify(token);
+    }
+
+    // what validateToken + getUsernameFromToken + getUserIdFromToken used to do
+    @Benchmark
+    public Object threeParses() {
+        boolean valid = parse(token) != null;
+        String username = parse(token).getSubject();
+        Number userId = parse(token).get("userId", Number.class);
+        return valid ? username + userId : null;
+    }
+
+    private Claims parse(String jwt) {
+        return Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(jwt).getBody();
+    }
+
+    @Benchmark
+    public JwtTokenProvider.TokenClaims verifyCacheMiss() {
+        return uncached.verify(token);
+    }
+
+    @Benchmark
+    public JwtTokenProvider.TokenClaims verifyCacheHit() {
+        return cached.verify(token);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(JwtAuthBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
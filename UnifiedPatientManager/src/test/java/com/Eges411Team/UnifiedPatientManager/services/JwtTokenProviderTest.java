@@ -2,9 +2,16 @@ package com.Eges411Team.UnifiedPatientManager.services;
 
 import com.Eges411Team.UnifiedPatientManager.entity.Role;
 import com.Eges411Team.UnifiedPatientManager.entity.User;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.Date;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -159,4 +166,68 @@ class JwtTokenProviderTest {
         assertFalse(jwtTokenProvider.validateToken("part1.part2.part3.part4"));
         assertFalse(jwtTokenProvider.validateToken("!!!invalid!!!"));
     }
+
+    // ==================== verify Tests ====================
+    @Test
+    void verify_validToken_returnsAllClaimsFromOneParse() {
+        String token = jwtTokenProvider.generateToken(testUser);
+
+        JwtTokenProvider.TokenClaims claims = jwtTokenProvider.verify(token);
+
+        assertEquals("testuser", claims.username());
+        assertEquals(1L, claims.userId());
+        assertEquals("PATIENT", claims.role());
+        assertNotNull(claims.tokenId());
+        assertTrue(claims.expiresAt().after(claims.issuedAt()));
+    }
+
+    @Test
+    void verify_sameTokenTwice_servedFromCache() {
+        String token = jwtTokenProvider.generateToken(testUser);
+
+        assertSame(jwtTokenProvider.verify(token), jwtTokenProvider.verify(token));
+    }
+
+    @Test
+    void verify_tamperedToken_throwsEvenAfterOriginalWasCached() {
+        String token = jwtTokenProvider.generateToken(testUser);
+        jwtTokenProvider.verify(token);
+        // change the first signature character: all of its bits count, unlike the last one's
+        int signature = token.lastIndexOf('.') + 1;
+        String tampered = token.substring(0, signature) + (token.charAt(signature) == 'A' ? 'B' : 'A')
+            + token.substring(signature + 1);
+
+        assertThrows(io.jsonwebtoken.JwtException.class, () -> jwtTokenProvider.verify(tampered));
+    }
+
+    @Test
+    void verify_expiredToken_rejected() {
+        // signed with the provider's key, but already past its exp
+        String expired = Jwts.builder()
+                .setId("expired-jti")
+                .setSubject("testuser")
+                .claim("userId", 1L)
+                .claim("role", "PATIENT")
+                .setIssuedAt(new Date(System.currentTimeMillis() - 120_000))
+                .setExpiration(new Date(System.currentTimeMillis() - 60_000))
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(JwtTokenProvider.SECRET_B64)), SignatureAlgorithm.HS512)
+                .compact();
+
+        assertThrows(ExpiredJwtException.class, () -> jwtTokenProvider.verify(expired));
+        assertFalse(jwtTokenProvider.validateToken(expired));
+    }
+
+    @Test
+    void verify_cacheIsBounded_evictedTokensStillVerify() {
+        JwtTokenProvider small = new JwtTokenProvider(2);
+        String first = small.generateToken(testUser);
+        JwtTokenProvider.TokenClaims firstClaims = small.verify(first);
+        small.verify(small.generateToken(testUser));
+        small.verify(small.generateToken(testUser)); // evicts first
+
+        JwtTokenProvider.TokenClaims again = small.verify(first);
+
+        assertNotSame(firstClaims, again);
+        assertEquals(firstClaims, again);
+    }
 }
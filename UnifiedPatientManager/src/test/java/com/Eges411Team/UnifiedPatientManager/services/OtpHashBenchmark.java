@@ -0,0 +1,79 @@
+package com.Eges411Team.UnifiedPatientManager.services;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark: CPU spent on the OTP itself when logging in (hash the new code) and when
+ * verifying it (check the submitted code). Compares the old BCrypt path with the
+ * HMAC-SHA256 OtpVerifier. Database work is the same for both and left out.
+ *
+ * Not run by mvn test. To run:
+ *   mvn -B test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *       -Dexec.args="-cp %classpath com.Eges411Team.UnifiedPatientManager.services.OtpHashBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OtpHashBenchmark {
+
+    private static final Long USER_ID = 42L;
+    private static final String CODE = "482913";
+
+    private BCryptPasswordEncoder bcrypt;
+    private OtpVerifier otpVerifier;
+    private String bcryptHash;
+    private String hmacHash;
+
+    @Setup
+    public void setUp() {
+        // same strength as SecurityConfig's encoder
+        bcrypt = new BCryptPasswordEncoder();
+        otpVerifier = new OtpVerifier(null, "");
+        bcryptHash = bcrypt.encode(CODE);
+        hmacHash = otpVerifier.hash(USER_ID, CODE);
+    }
+
+    @Benchmark
+    public String loginBcrypt() {
+        return bcrypt.encode(CODE);
+    }
+
+    @Benchmark
+    public String loginHmac() {
+        return otpVerifier.hash(USER_ID, CODE);
+    }
+
+    @Benchmark
+    public boolean verifyBcrypt() {
+        return bcrypt.matches(CODE, bcryptHash);
+    }
+
+    @Benchmark
+    public boolean verifyHmac() {
+        return otpVerifier.matches(USER_ID, CODE, hmacHash);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(OtpHashBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}